@@ -0,0 +1,47 @@
+package com.commercehub.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.StockReservationStrategy;
+import com.commercehub.service.impl.AtomicStockReservationStrategy;
+import com.commercehub.service.impl.InventoryEngine;
+import com.commercehub.service.impl.InventoryEngineStockReservationStrategy;
+import com.commercehub.service.impl.OptimisticStockReservationStrategy;
+import com.commercehub.service.impl.PessimisticStockReservationStrategy;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+@Configuration
+@Slf4j
+public class InventoryConfig {
+	
+    /**
+     * Stock reservation strategy used when orders are placed
+     * atomic (default), optimistic or pessimistic, see StockReservationStrategy
+     * When the inventory engine is enabled it reserves tracked products and the selected strategy serves the others
+     */
+	@Bean
+	StockReservationStrategy stockReservationStrategy(ProductRepository productRepository,
+			ObjectProvider<InventoryEngine> inventoryEngine,
+			@Value("${inventory.reservation.strategy:atomic}") String strategy,
+			@Value("${inventory.reservation.optimistic-max-attempts:10}") int optimisticMaxAttempts)
+	{
+		log.info("Using {} stock reservation", strategy);
+		
+		StockReservationStrategy selected = switch (strategy.trim().toLowerCase()) {
+			case "atomic" -> new AtomicStockReservationStrategy(productRepository);
+			case "optimistic" -> new OptimisticStockReservationStrategy(productRepository, optimisticMaxAttempts);
+			case "pessimistic" -> new PessimisticStockReservationStrategy(productRepository);
+			default -> throw new IllegalStateException("Unknown inventory.reservation.strategy: " + strategy);
+		};
+		
+		InventoryEngine engine = inventoryEngine.getIfAvailable();
+		return engine == null ? selected : new InventoryEngineStockReservationStrategy(productRepository, engine, selected);
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.commercehub.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling configuration
+ * Enables @Scheduled background jobs
+ * The scheduler pool is sized by spring.task.scheduling.pool.size, so a slow job does not delay the others
+ */
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
@@ -1,8 +1,13 @@
 package com.commercehub.controller;
 
+import java.time.Duration;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -14,11 +19,13 @@ import com.commercehub.dto.request.LoginUserRequest;
 import com.commercehub.dto.request.RegisterUserRequest;
 import com.commercehub.dto.response.ApiResponse;
 import com.commercehub.dto.response.AuthResponse;
+import com.commercehub.security.JwtKeyRing;
 import com.commercehub.service.AuthService;
 import com.commercehub.util.Messages;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,6 +38,9 @@ public class AuthController {
 	@Autowired
 	private AuthService authService;
 	
+	@Autowired
+	private JwtKeyRing jwtKeyRing;
+	
 	
 	
 	@PostMapping("/register")
@@ -47,11 +57,12 @@ public class AuthController {
 	
 	@PostMapping("/login")
 	@Operation(summary = "User login", description = "Authenticate user and generate tokens")
-	ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginUserRequest request)
+	ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginUserRequest request, HttpServletRequest servletRequest)
 	{
 		log.info("Login request received for: {}", request.getUsernameOrEmail());
 		
-		AuthResponse response = authService.login(request);
+		// Remote address honours server.forward-headers-strategy when running behind a proxy
+		AuthResponse response = authService.login(request, servletRequest.getRemoteAddr());
 		
 		return ResponseEntity.ok( ApiResponse.success(Messages.LOGIN_SUCCESSFUL, response) );
 	}
@@ -77,5 +88,14 @@ public class AuthController {
         
         return ResponseEntity.ok(ApiResponse.success(Messages.LOGOUT_SUCCESSFUL));
     }
+    
+    @GetMapping("/jwks")
+    @Operation(summary = "JSON Web Key Set", description = "Public keys for verifying access tokens without calling back into the API")
+    public ResponseEntity<Map<String, Object>> jwks() 
+    {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(jwtKeyRing.getJwkSet());
+    }
 	
 }
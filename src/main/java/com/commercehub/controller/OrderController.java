@@ -1,5 +1,6 @@
 package com.commercehub.controller;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,14 +16,22 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
 import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.ReturnOrderRequest;
 import com.commercehub.dto.response.ApiResponse;
+import com.commercehub.dto.response.BulkOrderUpdateResponse;
+import com.commercehub.dto.response.CursorPageResponse;
+import com.commercehub.dto.response.OrderIntakeResponse;
 import com.commercehub.dto.response.OrderResponse;
 import com.commercehub.dto.response.PageResponse;
+import com.commercehub.service.OrderIdempotencyService;
+import com.commercehub.service.OrderIntakeService;
 import com.commercehub.service.OrderService;
 import com.commercehub.util.Messages;
 
@@ -42,16 +51,58 @@ public class OrderController {
 	@Autowired
 	private OrderService orderService;
 	
+	@Autowired
+	private OrderIdempotencyService orderIdempotencyService;
+	
+	@Autowired
+	private OrderIntakeService orderIntakeService;
+	
 	@PostMapping
-	@Operation(summary = "Create order", description = "Create a new order for current user")
-	public ResponseEntity<ApiResponse<OrderResponse>> createOrder(@Valid @RequestBody CreateOrderRequest request)
+	@Operation(summary = "Create order", description = "Create a new order for current user, "
+			+ "retries carrying the same Idempotency-Key return the first order instead of placing another, "
+			+ "with Prefer: respond-async and asynchronous intake enabled the order is queued and 202 is returned with its status URL")
+	public ResponseEntity<ApiResponse<?>> createOrder(
+			@RequestHeader(name = OrderIdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@RequestHeader(name = OrderIntakeService.PREFER_HEADER, required = false) String prefer,
+			@Valid @RequestBody CreateOrderRequest request)
 	{
 		log.info("Request to create new order");
 		
-		OrderResponse response = orderService.createOrder(request);
+		// Requests carrying an Idempotency-Key are always placed synchronously
+		if(idempotencyKey == null && prefer != null && prefer.contains(OrderIntakeService.RESPOND_ASYNC) && orderIntakeService.isEnabled())
+		{
+			OrderIntakeResponse response = orderIntakeService.submit(request);
+			
+			return ResponseEntity.status(HttpStatus.ACCEPTED)
+					             .location(URI.create(response.getStatusUrl()))
+					             .header(OrderIntakeService.PREFERENCE_APPLIED_HEADER, OrderIntakeService.RESPOND_ASYNC)
+					             .body(ApiResponse.success(Messages.ORDER_ACCEPTED, response));
+		}
+		
+		if(idempotencyKey == null)
+		{
+			OrderResponse response = orderService.createOrder(request);
+			
+			return ResponseEntity.status(HttpStatus.CREATED)
+					             .body(ApiResponse.success(Messages.ORDER_CREATED_SUCCESSFULLY, response));
+		}
+		
+		OrderIdempotencyService.IdempotentOrder result = orderIdempotencyService.createOrder(idempotencyKey, request);
 		
 		return ResponseEntity.status(HttpStatus.CREATED)
-				             .body(ApiResponse.success(Messages.ORDER_CREATED_SUCCESSFULLY, response));
+				             .header(OrderIdempotencyService.REPLAYED_HEADER, String.valueOf(result.replayed()))
+				             .body(ApiResponse.success(Messages.ORDER_CREATED_SUCCESSFULLY, result.order()));
+	}
+	
+	@GetMapping("/intake/{orderNumber}")
+	@Operation(summary = "Get queued order status", description = "Get the status of an order accepted asynchronously, with its ID once placed")
+	public ResponseEntity<ApiResponse<OrderIntakeResponse>> getIntakeStatus(@PathVariable String orderNumber)
+	{
+		log.debug("Request to get intake status of order: {}", orderNumber);
+		
+		OrderIntakeResponse response = orderIntakeService.getStatus(orderNumber);
+		
+		return ResponseEntity.ok(ApiResponse.success(response));
 	}
 	
 	@GetMapping("/{orderId}")
@@ -93,6 +144,18 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/my-orders/scroll")
+    @Operation(summary = "Scroll my orders", description = "Get orders for current user newest first, pass nextCursor to get the next page")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> scrollMyOrders(@RequestParam(required = false) String cursor,
+    																			      @RequestParam(defaultValue = "20") int size)
+    {
+        log.debug("Request to scroll orders for current user");
+        
+        CursorPageResponse<OrderResponse> response = orderService.scrollCurrentUserOrders(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get user orders", description = "Get all orders for specific user")
     public ResponseEntity<ApiResponse<PageResponse<OrderResponse>>> getUserOrders(@PathVariable Long userId,
@@ -126,6 +189,19 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Scroll all orders", description = "Get all orders newest first, pass nextCursor to get the next page (Admin only)")
+    public ResponseEntity<ApiResponse<CursorPageResponse<OrderResponse>>> scrollAllOrders(@RequestParam(required = false) String cursor,
+    																			       @RequestParam(defaultValue = "20") int size)
+    {
+        log.debug("Request to scroll all orders");
+        
+        CursorPageResponse<OrderResponse> response = orderService.scrollAllOrders(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get orders by status", description = "Get orders filtered by status (Admin only)")
@@ -218,4 +294,82 @@ public class OrderController {
         
         return ResponseEntity.ok(ApiResponse.success(Messages.ORDER_DELIVERED_SUCCESSFULLY, response));
     }
+
+    @PostMapping("/{orderId}/return")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Return order", description = "Return lines of a delivered order, the whole order without a body (Admin only)")
+    public ResponseEntity<ApiResponse<OrderResponse>> returnOrder(@PathVariable Long orderId,
+    		@Valid @RequestBody(required = false) ReturnOrderRequest request)
+    {
+        log.info("Request to return order with ID: {}", orderId);
+        
+        OrderResponse response = orderService.returnOrder(orderId, request != null ? request : new ReturnOrderRequest());
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDER_RETURNED_SUCCESSFULLY, response));
+    }
+
+    @PostMapping("/bulk/ship")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Ship orders in bulk", description = "Mark PROCESSING orders as shipped by ID or number (Admin only)")
+    public ResponseEntity<ApiResponse<BulkOrderUpdateResponse>> shipOrders(@Valid @RequestBody BulkOrderUpdateRequest request)
+    {
+        log.info("Request to ship orders in bulk");
+        
+        BulkOrderUpdateResponse response = orderService.shipOrders(request);
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDERS_BULK_UPDATED, response));
+    }
+
+    @PostMapping("/bulk/deliver")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Deliver orders in bulk", description = "Mark SHIPPED orders as delivered by ID or number (Admin only)")
+    public ResponseEntity<ApiResponse<BulkOrderUpdateResponse>> deliverOrders(@Valid @RequestBody BulkOrderUpdateRequest request)
+    {
+        log.info("Request to deliver orders in bulk");
+        
+        BulkOrderUpdateResponse response = orderService.deliverOrders(request);
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDERS_BULK_UPDATED, response));
+    }
+
+    @PostMapping("/bulk/return")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Return orders in bulk", description = "Return DELIVERED orders in full and refund them by ID or number (Admin only)")
+    public ResponseEntity<ApiResponse<BulkOrderUpdateResponse>> returnOrders(@Valid @RequestBody BulkOrderUpdateRequest request,
+    		@RequestParam(defaultValue = "true") boolean restock)
+    {
+        log.info("Request to return orders in bulk");
+        
+        BulkOrderUpdateResponse response = orderService.returnOrders(request, restock);
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDERS_BULK_UPDATED, response));
+    }
+
+    @PatchMapping("/bulk/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Update order status in bulk", description = "Move orders from an expected status to a new status (Admin only)")
+    public ResponseEntity<ApiResponse<BulkOrderUpdateResponse>> updateOrderStatuses(@RequestParam String expectedStatus,
+                                                                                    @RequestParam String status,
+                                                                                    @Valid @RequestBody BulkOrderUpdateRequest request)
+    {
+        log.info("Request to update order status from {} to {} in bulk", expectedStatus, status);
+        
+        BulkOrderUpdateResponse response = orderService.updateOrderStatuses(request, expectedStatus, status);
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDERS_BULK_UPDATED, response));
+    }
+
+    @PatchMapping("/bulk/payment-status")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Update payment status in bulk", description = "Move orders from an expected payment status to a new one (Admin only)")
+    public ResponseEntity<ApiResponse<BulkOrderUpdateResponse>> updatePaymentStatuses(@RequestParam String expectedStatus,
+                                                                                      @RequestParam String status,
+                                                                                      @Valid @RequestBody BulkOrderUpdateRequest request)
+    {
+        log.info("Request to update payment status from {} to {} in bulk", expectedStatus, status);
+        
+        BulkOrderUpdateResponse response = orderService.updatePaymentStatuses(request, expectedStatus, status);
+        
+        return ResponseEntity.ok(ApiResponse.success(Messages.ORDERS_BULK_UPDATED, response));
+    }
 }
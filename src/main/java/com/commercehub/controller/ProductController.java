@@ -23,6 +23,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.commercehub.dto.request.CreateProductRequest;
 import com.commercehub.dto.response.ApiResponse;
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.PageResponse;
 import com.commercehub.dto.response.ProductResponse;
 import com.commercehub.service.ProductService;
@@ -110,6 +111,30 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll all products", description = "Get all products newest first, pass nextCursor to get the next page")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> scrollAllProducts(@RequestParam(required = false) String cursor,
+    																						  @RequestParam(defaultValue = "20") int size)
+    {
+        log.debug("Request to scroll all products - size: {}", size);
+        
+        CursorPageResponse<ProductResponse> response = productService.scrollAllProducts(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
+    @GetMapping("/active/scroll")
+    @Operation(summary = "Scroll active products", description = "Get active products newest first, pass nextCursor to get the next page")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductResponse>>> scrollActiveProducts(@RequestParam(required = false) String cursor,
+    																							 @RequestParam(defaultValue = "20") int size)
+    {
+        log.debug("Request to scroll active products");
+        
+        CursorPageResponse<ProductResponse> response = productService.scrollActiveProducts(cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @GetMapping("/category/{category}")
     @Operation(summary = "Get products by category", description = "Get products filtered by category")
     public ResponseEntity<ApiResponse<PageResponse<ProductResponse>>> getProductsByCategory(@PathVariable String category,
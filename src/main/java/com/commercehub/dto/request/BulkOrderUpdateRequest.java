@@ -0,0 +1,29 @@
+package com.commercehub.dto.request;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Orders a bulk lifecycle transition applies to, by ID, by number, or both
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderUpdateRequest {
+
+	@Size(max = 1000, message = "At most 1000 order IDs per request")
+	private List<@NotNull(message = "Order ID is required") Long> orderIds;
+
+	@Size(max = 1000, message = "At most 1000 order numbers per request")
+	private List<@NotBlank(message = "Order number is required") String> orderNumbers;
+
+}
@@ -0,0 +1,49 @@
+package com.commercehub.dto.request;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lines of a delivered order to return, no lines returns everything not returned yet
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReturnOrderRequest {
+	
+	@Size(max = 1000, message = "At most 1000 lines per return")
+	@Valid
+	private List<ReturnItemRequest> items;
+	
+	/* Put returned units back in stock, false for damaged goods */
+	@Builder.Default
+	private boolean restock = true;
+	
+	/**
+     * Nested DTO for returned lines
+     */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	public static class ReturnItemRequest {
+		
+		@NotNull(message = "Order item ID is required")
+		private Long orderItemId;
+		
+		@NotNull(message = "Quantity is required")
+		@Min(value = 1, message = "Quantity must be at least 1")
+		private Integer quantity;
+	}
+
+}
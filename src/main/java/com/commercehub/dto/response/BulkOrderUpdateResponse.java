@@ -0,0 +1,58 @@
+package com.commercehub.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for bulk order transitions
+ * One compact result per requested order instead of full order bodies
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderUpdateResponse {
+
+	private int requested;
+
+	private int updated;
+
+	private List<OrderUpdateResult> results;
+
+	/**
+	 * Outcome for one order, status is the order or payment status the transition applies to
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Builder
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class OrderUpdateResult {
+
+		private Long orderId;
+
+		private String orderNumber;
+
+		private Outcome outcome;
+
+		private String status;
+	}
+
+	public enum Outcome {
+
+		/** In the target status once the request committed */
+		UPDATED,
+
+		/** Not in the expected status, left unchanged */
+		SKIPPED,
+
+		NOT_FOUND
+	}
+}
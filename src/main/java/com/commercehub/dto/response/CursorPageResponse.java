@@ -0,0 +1,29 @@
+package com.commercehub.dto.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Keyset paginated response wrapper
+ * No total count, pass nextCursor back to get the following page, it is null on the last page
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+
+	private List<T> content;
+
+    private int pageSize;
+
+    private boolean hasNext;
+
+    private String nextCursor;
+
+}
@@ -0,0 +1,32 @@
+package com.commercehub.dto.response;
+
+import com.commercehub.util.OrderIntakeStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for an order accepted by the asynchronous intake
+ * orderId is set once the order is placed, message explains a failure
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderIntakeResponse {
+
+	private String orderNumber;
+
+	private OrderIntakeStatus status;
+
+	private Long orderId;
+
+	private String message;
+
+	private String statusUrl;
+}
@@ -53,6 +53,11 @@ public class OrderResponse {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime cancelledAt;
 
+    private BigDecimal refundedAmount;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime refundedAt;
+
     /**
      * Nested DTO for order item information
      */
@@ -72,6 +77,8 @@ public class OrderResponse {
 
         private Integer quantity;
 
+        private Integer returnedQuantity;
+
         private BigDecimal unitPrice;
 
         private BigDecimal totalPrice;
@@ -0,0 +1,113 @@
+package com.commercehub.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Length;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Order moved to cold storage by OrderArchiver, read-only
+ * Keeps the ID and number it had in orders, so lookups fall through to it unchanged
+ */
+
+@Entity
+@Table(name = "orders_archive")
+@NamedEntityGraph(
+		name = ArchivedOrder.DETAILS_GRAPH,
+		attributeNodes = {
+				@NamedAttributeNode("user"),
+				@NamedAttributeNode(value = "items", subgraph = "items")
+		},
+		subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product")))
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+	
+	/** Fetch plan of an order response: customer, lines and the product of every line */
+	public static final String DETAILS_GRAPH = "ArchivedOrder.details";
+	
+	@Id
+	private Long id;
+	
+	@Column(nullable = false, unique = true)
+	private String orderNumber;
+	
+	@Column(nullable = false)
+	@Enumerated(EnumType.STRING)
+	private OrderStatus orderStatus;
+	
+	@Column(nullable = false)
+	@Enumerated(EnumType.STRING)
+	private PaymentStatus paymentStatus;
+	
+	@Column(nullable = false, precision = 10, scale = 2)
+	private BigDecimal totalAmount;
+	
+	@Column(nullable = false, precision = 10, scale = 2)
+	private BigDecimal refundedAmount;
+	
+	@Column(nullable = false, length = Length.LONG32)
+	private String shippingAddress;
+	
+	@Column(nullable = false, length = Length.LONG32)
+	private String billingAddress;
+	
+	private String paymentMethod;
+	
+	@Column(length = Length.LONG32)
+	private String notes;
+	
+	@Column(nullable = false)
+	private LocalDateTime orderedAt;
+	
+	private LocalDateTime shippedAt;
+	
+	private LocalDateTime deliveredAt;
+	
+	private LocalDateTime cancelledAt;
+	
+	private LocalDateTime refundedAt;
+	
+	@Column(nullable = false)
+	private LocalDateTime archivedAt;
+	
+	/** Null once the user is deleted, the archive keeps no foreign key to users */
+	@ManyToOne
+	@JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	@NotFound(action = NotFoundAction.IGNORE)
+	private User user;
+	
+	@OneToMany(mappedBy = "order")
+	@Builder.Default
+	private List<ArchivedOrderItem> items = new ArrayList<>();
+}
@@ -0,0 +1,60 @@
+package com.commercehub.entity;
+
+import java.math.BigDecimal;
+
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Line of an archived order, keeps the ID it had in order_items
+ */
+
+@Entity
+@Table(name = "order_items_archive")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrderItem {
+
+	@Id
+	private Long id;
+	
+	@Column(nullable = false)
+	private Integer quantity;
+	
+	@Column(nullable = false)
+	private Integer returnedQuantity;
+	
+	@Column(nullable = false, precision = 10, scale = 2)
+	private BigDecimal unitPrice;
+	
+	@Column(nullable = false, precision = 10, scale = 2)
+	private BigDecimal totalPrice;
+	
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "order_id")
+	private ArchivedOrder order;
+	
+	/** Null once the product is deleted, the archive keeps no foreign key to products */
+	@ManyToOne
+	@JoinColumn(name = "product_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+	@NotFound(action = NotFoundAction.IGNORE)
+	private Product product;
+}
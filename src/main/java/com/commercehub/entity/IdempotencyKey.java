@@ -0,0 +1,56 @@
+package com.commercehub.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Idempotency-Key of an order placement, scoped to the user that sent it
+ * The row is inserted in the order's transaction, so a duplicate insert means the key was already used
+ */
+
+@Entity
+@Table(name = "idempotency_keys")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey implements Persistable<String> {
+	
+	/* User id and client key, "42:8f14e45f-..." */
+	@Id
+	@Column(length = 100)
+	private String id;
+	
+	/* SHA-256 of the request body, hex */
+	@Column(nullable = false, length = 64)
+	private String requestHash;
+	
+	private Long orderId;
+	
+	/* OrderResponse returned to the first request, as JSON */
+	@Column(columnDefinition = "TEXT")
+	private String response;
+	
+	@Column(nullable = false)
+	private LocalDateTime createdAt;
+	
+	@Column(nullable = false)
+	private LocalDateTime expiresAt;
+	
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.commercehub.util.IdGeneration;
 import com.commercehub.util.OrderStatus;
 import com.commercehub.util.PaymentStatus;
 
@@ -19,7 +20,11 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -30,6 +35,13 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(
+		name = Order.DETAILS_GRAPH,
+		attributeNodes = {
+				@NamedAttributeNode("user"),
+				@NamedAttributeNode(value = "items", subgraph = "items")
+		},
+		subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product")))
 @Setter
 @Getter
 @NoArgsConstructor
@@ -37,8 +49,12 @@ import lombok.Setter;
 @Builder
 public class Order extends BaseEntity{
 	
+	/** Fetch plan of an order response: customer, lines and the product of every line */
+	public static final String DETAILS_GRAPH = "Order.details";
+	
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="order_seq")
+	@SequenceGenerator(name="order_seq", sequenceName="orders_seq", allocationSize=IdGeneration.ALLOCATION_SIZE)
 	private Long id;
 	
 	@Column(nullable = false, unique = true)
@@ -79,6 +95,13 @@ public class Order extends BaseEntity{
 	
 	private LocalDateTime cancelledAt;
 	
+	/* Value of the returned lines, equals totalAmount once the order is REFUNDED */
+	@Column(nullable = false, precision = 10, scale = 2)
+	@Builder.Default
+	private BigDecimal refundedAmount = BigDecimal.ZERO;
+	
+	private LocalDateTime refundedAt;
+	
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user_id")
 	private User user;
@@ -0,0 +1,52 @@
+package com.commercehub.entity;
+
+import java.time.LocalDateTime;
+
+import com.commercehub.util.OrderEventType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Order event waiting in the outbox, written in the transaction that changed the order
+ * and deleted by the relay once Kafka acknowledged it
+ * IDENTITY keys follow commit order for any one order, so relaying by ascending ID keeps each order's events in order
+ */
+
+@Entity
+@Table(name = "order_events")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEvent {
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	
+	@Column(nullable = false)
+	private Long orderId;
+	
+	@Column(nullable = false, length = 40)
+	@Enumerated(EnumType.STRING)
+	private OrderEventType eventType;
+	
+	@Column(nullable = false, length = 4000)
+	private String payload;
+	
+	@Column(nullable = false)
+	private LocalDateTime createdAt;
+}
@@ -2,6 +2,8 @@ package com.commercehub.entity;
 
 import java.math.BigDecimal;
 
+import com.commercehub.util.IdGeneration;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -12,6 +14,7 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,18 +32,29 @@ import lombok.Setter;
 public class OrderItem extends BaseEntity {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="order_item_seq")
+	@SequenceGenerator(name="order_item_seq", sequenceName="order_items_seq", allocationSize=IdGeneration.ALLOCATION_SIZE)
 	private Long id;
 	
 	@Column(nullable = false)
 	private Integer quantity;
 	
+	/* Units of this line returned so far, never more than quantity */
+	@Column(nullable = false)
+	@Builder.Default
+	private Integer returnedQuantity = 0;
+	
 	@Column(nullable = false, precision = 10, scale = 2)
 	private BigDecimal unitPrice;
 	
 	@Column(nullable = false, precision = 10, scale = 2)
 	private BigDecimal totalPrice;
 	
+	/* False while the stock decrement of this line is held by the inventory engine and not yet written to products */
+	@Column(nullable = false)
+	@Builder.Default
+	private Boolean stockApplied = true;
+	
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinTable(name = "order_id")
 	private Order order;
@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.commercehub.util.IdGeneration;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -11,7 +13,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -28,7 +32,8 @@ import lombok.Setter;
 public class Product extends BaseEntity {
 	
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.SEQUENCE, generator="product_seq")
+	@SequenceGenerator(name="product_seq", sequenceName="products_seq", allocationSize=IdGeneration.ALLOCATION_SIZE)
 	private Long id;
 	
 	@Column(nullable = false)
@@ -60,6 +65,11 @@ public class Product extends BaseEntity {
 	@Column(precision = 10, scale = 2)
 	private BigDecimal weight;
 	
+	/* Bumped by every stock change, including the conditional stock updates in ProductRepository */
+	@Version
+	@Column(nullable = false)
+	private Long version;
+	
 	@OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
 	@Builder.Default
 	private Set<OrderItem> orderItems = new HashSet<>();
@@ -0,0 +1,60 @@
+package com.commercehub.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import com.commercehub.util.TokenRevocationReason;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Revoked JWT id (jti) or token family id
+ * Rows are always inserted, never updated, so a duplicate insert means the id was already revoked
+ */
+
+@Entity
+@Table(name = "revoked_tokens")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken implements Persistable<String> {
+	
+	@Id
+	@Column(length = 64)
+	private String tokenId;
+	
+	private Long userId;
+	
+	@Column(nullable = false, length = 20)
+	@Enumerated(EnumType.STRING)
+	private TokenRevocationReason reason;
+	
+	@Column(nullable = false)
+	private LocalDateTime revokedAt;
+	
+	@Column(nullable = false)
+	private LocalDateTime expiresAt;
+	
+	@Override
+	public String getId() {
+		return tokenId;
+	}
+	
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+}
@@ -0,0 +1,50 @@
+package com.commercehub.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lease on a scheduled job, the node named by owner runs the job until leaseUntil
+ * Rows are only inserted once per job, later acquisitions are conditional updates
+ */
+
+@Entity
+@Table(name = "scheduler_leases")
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLease implements Persistable<String> {
+	
+	@Id
+	@Column(length = 100)
+	private String name;
+	
+	@Column(nullable = false, length = 100)
+	private String owner;
+	
+	@Column(nullable = false)
+	private LocalDateTime leaseUntil;
+	
+	@Override
+	public String getId() {
+		return name;
+	}
+	
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+}
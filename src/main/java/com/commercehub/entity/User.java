@@ -59,6 +59,9 @@ public class User extends BaseEntity {
 	@Column(nullable=false)
 	private Boolean isLocked;	
 	
+	/** End of a temporary lock after failed logins, null when not locked or locked by an administrator */
+	private LocalDateTime lockedUntil;
+	
 	@Column(nullable=false)
 	private Boolean emailVerified;
 	
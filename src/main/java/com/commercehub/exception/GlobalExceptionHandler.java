@@ -2,8 +2,10 @@ package com.commercehub.exception;
 
 import java.time.LocalDateTime;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
@@ -160,4 +162,69 @@ public class GlobalExceptionHandler {
         
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
+    
+    /**
+     * Handle ServiceUnavailableException
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<ErrorDetails>> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) 
+    {
+        log.warn("Service unavailable: {}", ex.getMessage());
+
+        ErrorDetails errorDetails = ErrorDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .errorCode(ex.getErrorCode())
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        ApiResponse<ErrorDetails> response = ApiResponse.error(ex.getMessage(), errorDetails);
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+    
+    /**
+     * Handle TooManyRequestsException
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<ErrorDetails>> handleTooManyRequestsException(TooManyRequestsException ex, WebRequest request) 
+    {
+        log.warn("Too many requests: {}", ex.getMessage());
+
+        ErrorDetails errorDetails = ErrorDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .errorCode(ex.getErrorCode())
+                .message(ex.getMessage())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        ApiResponse<ErrorDetails> response = ApiResponse.error(ex.getMessage(), errorDetails);
+        
+        return new ResponseEntity<>(response, HttpStatus.TOO_MANY_REQUESTS);
+    }
+    
+    /**
+     * Handle a version conflict on an entity another request changed since it was read, e.g. a product whose stock
+     * an order reserved between the read and the save of an update
+     * The client reads the resource again and retries
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<ErrorDetails>> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex, WebRequest request) 
+    {
+        log.warn("Concurrent update: {}", ex.getMessage());
+
+        String message = "The resource was changed by another request, reload it and retry";
+        ErrorDetails errorDetails = ErrorDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .errorCode("CONFLICT")
+                .message(message)
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+
+        ApiResponse<ErrorDetails> response = ApiResponse.error(message, errorDetails);
+        
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
 }
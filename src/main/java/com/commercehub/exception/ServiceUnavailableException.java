@@ -0,0 +1,19 @@
+package com.commercehub.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a request is shed because a bounded resource is saturated
+ * Returns HTTP 503 status, the client may retry later
+ */
+
+public class ServiceUnavailableException extends BaseException {
+
+    public ServiceUnavailableException(String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE");
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause, HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE");
+    }
+}
@@ -0,0 +1,15 @@
+package com.commercehub.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a client exceeds a request rate limit
+ * Returns HTTP 429 status
+ */
+
+public class TooManyRequestsException extends BaseException {
+
+    public TooManyRequestsException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_REQUESTS");
+    }
+}
@@ -7,8 +7,11 @@ import org.mapstruct.Mapping;
 
 import com.commercehub.dto.request.CreateOrderRequest;
 import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.entity.ArchivedOrder;
+import com.commercehub.entity.ArchivedOrderItem;
 import com.commercehub.entity.Order;
 import com.commercehub.entity.OrderItem;
+import com.commercehub.repository.OrderRepository;
 
 @Mapper(componentModel = "spring")
 public interface OrderMapper {
@@ -25,6 +28,26 @@ public interface OrderMapper {
 	@Mapping(target = "items", source = "items")
 	OrderResponse toResponse(Order order);
 	
+    /**
+     * Convert Order entity to OrderResponse DTO with a known customer name
+     * Does not touch the user, so an unloaded user reference stays unloaded
+     */
+	@Mapping(target = "userId", source = "order.user.id")
+	@Mapping(target = "customerName", source = "customerName")
+	@Mapping(target = "orderStatus", expression = "java(order.getOrderStatus().name())")
+	@Mapping(target = "paymentStatus", expression = "java(order.getPaymentStatus().name())")
+	@Mapping(target = "items", source = "order.items")
+	OrderResponse toResponse(Order order, String customerName);
+	
+    /**
+     * Convert an order summary projection to OrderResponse DTO, without items
+     */
+	@Mapping(target = "customerName", expression = "java(summary.getFirstName() + \" \" + summary.getLastName())")
+	@Mapping(target = "orderStatus", expression = "java(summary.getOrderStatus().name())")
+	@Mapping(target = "paymentStatus", expression = "java(summary.getPaymentStatus().name())")
+	@Mapping(target = "items", ignore = true)
+	OrderResponse toSummaryResponse(OrderRepository.OrderSummary summary);
+	
     /**
      * Convert OrderItem entity to OrderItemResponse DTO
      */
@@ -34,6 +57,25 @@ public interface OrderMapper {
 	OrderResponse.OrderItemResponse toOrderItemResponse(OrderItem orderItem);
     
 
+    /**
+     * Convert an archived order to OrderResponse DTO, in the same shape as a live order
+     * Customer and product fields are null once the user or product was deleted
+     */
+	@Mapping(target = "userId", source = "user.id")
+	@Mapping(target = "customerName", expression = "java(order.getUser() == null ? null : order.getUser().getFirstName() + \" \" + order.getUser().getLastName())")
+	@Mapping(target = "orderStatus", expression = "java(order.getOrderStatus().name())")
+	@Mapping(target = "paymentStatus", expression = "java(order.getPaymentStatus().name())")
+	@Mapping(target = "items", source = "items")
+	OrderResponse toResponse(ArchivedOrder order);
+	
+    /**
+     * Convert a line of an archived order to OrderItemResponse DTO
+     */
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "productSku", source = "product.sku")
+	OrderResponse.OrderItemResponse toOrderItemResponse(ArchivedOrderItem orderItem);
+
     /**
      * Convert list of Order entities to list of OrderResponse DTOs
      */
@@ -52,6 +94,8 @@ public interface OrderMapper {
     @Mapping(target = "shippedAt", ignore = true)
     @Mapping(target = "deliveredAt", ignore = true)
     @Mapping(target = "cancelledAt", ignore = true)
+    @Mapping(target = "refundedAmount", ignore = true)
+    @Mapping(target = "refundedAt", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "items", source = "items")
     Order toEntity(CreateOrderRequest request);
@@ -65,6 +109,8 @@ public interface OrderMapper {
     @Mapping(target = "product", ignore = true)
     @Mapping(target = "unitPrice", ignore = true)
     @Mapping(target = "totalPrice", ignore = true)
+    @Mapping(target = "stockApplied", ignore = true)
+    @Mapping(target = "returnedQuantity", ignore = true)
     OrderItem toOrderItemEntity(CreateOrderRequest.OrderItemRequest orderItemRequest);
 
 }
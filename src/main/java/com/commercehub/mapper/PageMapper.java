@@ -6,6 +6,7 @@ import java.util.function.Function;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.PageResponse;
 
 /**
@@ -66,4 +67,28 @@ public class PageMapper {
 	                .build();
 	    }
 	    
+    /**
+     * Convert the rows of a keyset page to CursorPageResponse DTO
+     * Rows are read with one more than the page size, the extra row only tells there is a next page
+     * 
+     * @param rows rows read, at most pageSize + 1
+     * @param pageSize the page size
+     * @param mapper function to convert individual items
+     * @param cursorOf cursor positioned on a row
+     * @param <T> the source entity type
+     * @param <R> the target DTO type
+     * @return CursorPageResponse with the cursor of the last row served when there is a next page
+     */
+	    public <T, R> CursorPageResponse<R> toCursorPageResponse(List<T> rows, int pageSize, Function<T, R> mapper, Function<T, String> cursorOf) {
+	        boolean hasNext = rows.size() > pageSize;
+	        List<T> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+	        return CursorPageResponse.<R>builder()
+	                .content(page.stream().map(mapper).toList())
+	                .pageSize(pageSize)
+	                .hasNext(hasNext)
+	                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null)
+	                .build();
+	    }
+	    
 }
@@ -34,6 +34,7 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "orderItems", ignore = true)
     @Mapping(target = "isActive", ignore = true)
+    @Mapping(target = "version", ignore = true)
 	Product toEntity(CreateProductRequest request);
     
     /**
@@ -44,6 +45,7 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "orderItems", ignore = true)
     @Mapping(target = "isActive", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "lastModifiedAt", ignore = true)
@@ -61,6 +63,7 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "orderItems", ignore = true)
     @Mapping(target = "isActive", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "lastModifiedAt", ignore = true)
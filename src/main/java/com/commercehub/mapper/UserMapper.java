@@ -44,6 +44,7 @@ public interface UserMapper {
 	@Mapping(target = "lastLoginAt", ignore = true)
 	@Mapping(target = "isEnable", constant = "true")
 	@Mapping(target = "isLocked", constant = "false")
+	@Mapping(target = "lockedUntil", ignore = true)
 	@Mapping(target = "emailVerified", constant = "false")
 	User toEntity(RegisterUserRequest request);
 
@@ -59,6 +60,7 @@ public interface UserMapper {
     @Mapping(target = "orders", ignore = true)
     @Mapping(target = "isEnable", ignore = true)
     @Mapping(target = "isLocked", ignore = true)
+    @Mapping(target = "lockedUntil", ignore = true)
     @Mapping(target = "emailVerified", ignore = true)
     @Mapping(target = "lastLoginAt", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
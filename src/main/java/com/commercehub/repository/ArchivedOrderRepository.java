@@ -0,0 +1,32 @@
+package com.commercehub.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.commercehub.entity.ArchivedOrder;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+	
+    /**
+     * Find an archived order by ID with its customer, lines and their products in one query
+     * 
+     * @param id the order identifier
+     * @return Optional containing the order if archived
+     */
+	@EntityGraph(ArchivedOrder.DETAILS_GRAPH)
+	Optional<ArchivedOrder> findWithDetailsById(Long id);
+	
+    /**
+     * Find an archived order by order number with its customer, lines and their products in one query
+     * 
+     * @param orderNumber the order number to search for
+     * @return Optional containing the order if archived
+     */
+	@EntityGraph(ArchivedOrder.DETAILS_GRAPH)
+	Optional<ArchivedOrder> findWithDetailsByOrderNumber(String orderNumber);
+	
+}
@@ -0,0 +1,40 @@
+package com.commercehub.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.commercehub.entity.IdempotencyKey;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Delete one batch of expired keys, short transactions keep locks on the table brief
+     * 
+     * @param now current time
+     * @param limit maximum number of rows to delete
+     * @return number of deleted rows
+     */
+	@Transactional
+	@Modifying
+	@Query(value = "DELETE TOP (:limit) FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+	int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+	
+    /**
+     * Delete a key if it has expired
+     * 
+     * @param id the key identifier
+     * @param now current time
+     * @return number of deleted rows
+     */
+	@Transactional
+	@Modifying
+	@Query("Delete From IdempotencyKey k Where k.id = :id And k.expiresAt < :now")
+	int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+}
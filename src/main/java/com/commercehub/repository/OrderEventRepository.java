@@ -0,0 +1,32 @@
+package com.commercehub.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.commercehub.entity.OrderEvent;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+	
+    /**
+     * Oldest events waiting in the outbox
+     * 
+     * @param pageable batch size
+     * @return events by ascending ID
+     */
+	@Query("Select e From OrderEvent e Order By e.id")
+	List<OrderEvent> findNextBatch(Pageable pageable);
+	
+    /**
+     * Oldest event waiting in the outbox, read through the primary key
+     * 
+     * @return the oldest event, empty if the outbox is drained
+     */
+	Optional<OrderEvent> findFirstByOrderByIdAsc();
+	
+}
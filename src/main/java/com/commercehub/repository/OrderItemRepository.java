@@ -1,10 +1,13 @@
 package com.commercehub.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -92,5 +95,128 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, Jpa
 			+ "Group By oi.product.id "
 			+ "Order by totalQuantity Desc")
 	List<Object[]> findTopSellingProducts();
+	
+    /**
+     * Find order lines whose stock decrement is not written to products yet, oldest first
+     * 
+     * @param pageable maximum number of lines
+     * @return pending lines
+     */
+	@Query("Select oi.id As id, oi.product.id As productId, oi.quantity As quantity From OrderItem oi "
+			+ "Where oi.stockApplied = false Order By oi.id")
+	List<PendingStock> findPendingStock(Pageable pageable);
+	
+    /**
+     * Mark order lines as written to products
+     * 
+     * @param ids the order item identifiers
+     * @return number of lines that were still pending
+     */
+	@Modifying
+	@Query("Update OrderItem oi Set oi.stockApplied = true Where oi.id In :ids And oi.stockApplied = false")
+	int markStockApplied(@Param("ids") Collection<Long> ids);
+	
+    /**
+     * Total quantity per product over the lines of the given orders that were last modified by the given auditor
+     * 
+     * @param orderIds the order identifiers
+     * @param modifiedBy auditor of the orders to include
+     * @return quantity per product, by ascending product ID
+     */
+	@Query("Select oi.product.id As productId, Sum(oi.quantity) As quantity From OrderItem oi "
+			+ "Where oi.order.id In :orderIds And oi.order.lastModifiedBy = :modifiedBy "
+			+ "Group By oi.product.id Order By oi.product.id")
+	List<ProductQuantity> sumQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds, @Param("modifiedBy") String modifiedBy);
+	
+    /**
+     * Quantity not returned yet per product over the lines of the given orders
+     * 
+     * @param orderIds the order identifiers
+     * @return open quantity per product, by ascending product ID
+     */
+	@Query("Select oi.product.id As productId, Sum(oi.quantity - oi.returnedQuantity) As quantity From OrderItem oi "
+			+ "Where oi.order.id In :orderIds And oi.quantity > oi.returnedQuantity "
+			+ "Group By oi.product.id Order By oi.product.id")
+	List<ProductQuantity> sumOpenQuantitiesByProduct(@Param("orderIds") Collection<Long> orderIds);
+	
+    /**
+     * Read the lines of an order with what is left to return, without loading entities
+     * 
+     * @param orderId the order identifier
+     * @return lines of the order
+     */
+	@Query("Select oi.id As id, oi.product.id As productId, oi.quantity As quantity, oi.returnedQuantity As returnedQuantity, "
+			+ "oi.unitPrice As unitPrice From OrderItem oi Where oi.order.id = :orderId")
+	List<ReturnLine> findReturnLines(@Param("orderId") Long orderId);
+	
+    /**
+     * Return units of one line, only while the line still has that many units not returned
+     * 
+     * @param id the order item identifier
+     * @param quantity units to return
+     * @return 1 if the units were returned, 0 otherwise
+     */
+	@Modifying
+	@Query("Update OrderItem oi Set oi.returnedQuantity = oi.returnedQuantity + :quantity "
+			+ "Where oi.id = :id And oi.returnedQuantity + :quantity <= oi.quantity")
+	int returnQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+	
+    /**
+     * Return every unit not returned yet of the given orders in one statement
+     * 
+     * @param orderIds the order identifiers
+     * @return number of updated lines
+     */
+	@Modifying
+	@Query("Update OrderItem oi Set oi.returnedQuantity = oi.quantity "
+			+ "Where oi.returnedQuantity < oi.quantity And oi.id In (Select oi2.id From OrderItem oi2 Where oi2.order.id In :orderIds)")
+	int returnAllOpen(@Param("orderIds") Collection<Long> orderIds);
+	
+    /**
+     * Count lines of an order with units not returned yet
+     * 
+     * @param orderId the order identifier
+     * @return count of open lines
+     */
+	@Query("Select Count(oi) From OrderItem oi Where oi.order.id = :orderId And oi.returnedQuantity < oi.quantity")
+	long countOpenLines(@Param("orderId") Long orderId);
+	
+	/**
+	 * Order line whose stock decrement is pending
+	 */
+	interface PendingStock {
+		
+		Long getId();
+		
+		Long getProductId();
+		
+		Integer getQuantity();
+	}
+	
+	/**
+	 * Order line as seen by a return
+	 */
+	interface ReturnLine {
+		
+		Long getId();
+		
+		Long getProductId();
+		
+		Integer getQuantity();
+		
+		Integer getReturnedQuantity();
+		
+		BigDecimal getUnitPrice();
+	}
+	
+	/**
+	 * Quantity of a product over several order lines
+	 */
+	interface ProductQuantity {
+		
+		Long getProductId();
+		
+		Long getQuantity();
+	}
 
 }
@@ -2,18 +2,25 @@ package com.commercehub.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.commercehub.entity.Order;
+
+import jakarta.persistence.LockModeType;
 import com.commercehub.util.OrderStatus;
 import com.commercehub.util.PaymentStatus;
 
@@ -28,6 +35,101 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
      */
 	Optional<Order> findByOrderNumber(String orderNumber);
 
+    /**
+     * Find an order with its customer, lines and their products in one query
+     * 
+     * @param id the order identifier
+     * @return Optional containing the order if found
+     */
+	@EntityGraph(Order.DETAILS_GRAPH)
+	Optional<Order> findWithDetailsById(Long id);
+	
+    /**
+     * Find an order by order number with its customer, lines and their products in one query
+     * 
+     * @param orderNumber the order number to search for
+     * @return Optional containing the order if found
+     */
+	@EntityGraph(Order.DETAILS_GRAPH)
+	Optional<Order> findWithDetailsByOrderNumber(String orderNumber);
+	
+    /**
+     * Load orders with their customer, lines and their products in one query
+     * Second phase of a paged read, the page itself is selected by ID so the collection fetch is never paginated in memory
+     * 
+     * @param ids the order identifiers of a page
+     * @return orders in no particular order
+     */
+	@EntityGraph(Order.DETAILS_GRAPH)
+	@Query("Select o From Order o Where o.id In :ids")
+	List<Order> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+	
+    /**
+     * Page of all order IDs
+     * 
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+	@Query("Select o.id From Order o")
+	Page<Long> findPageIds(Pageable pageable);
+	
+    /**
+     * Page of order IDs of a user
+     * 
+     * @param userId the user identifier
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+	@Query("Select o.id From Order o Where o.user.id = :userId")
+	Page<Long> findPageIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+	
+    /**
+     * Page of order IDs in a status
+     * 
+     * @param orderStatus the order status
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+	@Query("Select o.id From Order o Where o.orderStatus = :orderStatus")
+	Page<Long> findPageIdsByOrderStatus(@Param("orderStatus") OrderStatus orderStatus, Pageable pageable);
+	
+    /**
+     * Page of order IDs within a date range
+     * 
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param pageable pagination information
+     * @return page of order IDs
+     */
+	@Query("Select o.id From Order o Where o.orderedAt Between :startDate And :endDate")
+	Page<Long> findPageIdsBetweenDates(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate, Pageable pageable);
+	
+    /**
+     * Keyset page of order IDs, newest first, seeking past the last (orderedAt, id) served
+     * 
+     * @param orderedAt placement time of the last order served
+     * @param id ID of the last order served
+     * @param pageable page size, unsorted
+     * @return order IDs by descending placement time then ID
+     */
+	@Query("Select o.id From Order o Where o.orderedAt <= :orderedAt And (o.orderedAt < :orderedAt Or o.id < :id) "
+			+ "Order By o.orderedAt Desc, o.id Desc")
+	List<Long> findIdsOrderedBefore(@Param("orderedAt") LocalDateTime orderedAt, @Param("id") Long id, Pageable pageable);
+	
+    /**
+     * Keyset page of a user's order IDs, newest first, seeking past the last (orderedAt, id) served
+     * 
+     * @param userId the user identifier
+     * @param orderedAt placement time of the last order served
+     * @param id ID of the last order served
+     * @param pageable page size, unsorted
+     * @return order IDs by descending placement time then ID
+     */
+	@Query("Select o.id From Order o Where o.user.id = :userId And o.orderedAt <= :orderedAt And (o.orderedAt < :orderedAt Or o.id < :id) "
+			+ "Order By o.orderedAt Desc, o.id Desc")
+	List<Long> findIdsByUserIdOrderedBefore(@Param("userId") Long userId, @Param("orderedAt") LocalDateTime orderedAt,
+			@Param("id") Long id, Pageable pageable);
+	
     /**
      * Check if an order exists by order number
      * 
@@ -168,6 +270,78 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 	@Query("Select o from Order o Where o.orderStatus = 'PENDING' And o.orderedAt < :date ")
 	List<Order> findPendingOrdersOlderThanSpecifid(@Param("date") LocalDateTime date);
 	
+    /**
+     * Next chunk of orders in a status and one of the payment statuses since before a given time,
+     * by ascending ID after the last one seen
+     * 
+     * @param orderStatus the order status
+     * @param paymentStatuses the payment statuses
+     * @param orderedBefore only orders placed before this time
+     * @param afterId last ID of the previous chunk, 0 for the first chunk
+     * @param pageable chunk size
+     * @return order IDs in ascending order
+     */
+	@Query("Select o.id From Order o Where o.orderStatus = :orderStatus And o.paymentStatus In :paymentStatuses "
+			+ "And o.orderedAt < :orderedBefore And o.id > :afterId Order By o.id")
+	List<Long> findIdsByStatusOrderedBefore(@Param("orderStatus") OrderStatus orderStatus,
+			@Param("paymentStatuses") Collection<PaymentStatus> paymentStatuses, @Param("orderedBefore") LocalDateTime orderedBefore,
+			@Param("afterId") Long afterId, Pageable pageable);
+	
+    /**
+     * Next chunk of orders that may be archived: in one of the statuses, placed before a given time,
+     * and without lines whose stock decrement the inventory engine has not written yet
+     * 
+     * @param orderStatuses the archivable statuses
+     * @param orderedBefore only orders placed before this time
+     * @param afterId last ID of the previous chunk, 0 for the first chunk
+     * @param pageable chunk size
+     * @return order IDs in ascending order
+     */
+	@Query("Select o.id From Order o Where o.orderStatus In :orderStatuses And o.orderedAt < :orderedBefore And o.id > :afterId "
+			+ "And Not Exists (Select oi.id From OrderItem oi Where oi.order = o And oi.stockApplied = false) Order By o.id")
+	List<Long> findArchivableIds(@Param("orderStatuses") Collection<OrderStatus> orderStatuses, @Param("orderedBefore") LocalDateTime orderedBefore,
+			@Param("afterId") Long afterId, Pageable pageable);
+	
+    /**
+     * Placement time of the oldest order in any of the statuses
+     * 
+     * @param orderStatuses the order statuses
+     * @return oldest placement time, empty if no order is in the statuses
+     */
+	@Query("Select Min(o.orderedAt) From Order o Where o.orderStatus In :orderStatuses")
+	Optional<LocalDateTime> findOldestOrderedAtIn(@Param("orderStatuses") Collection<OrderStatus> orderStatuses);
+	
+    /**
+     * Load orders with their lines in one query, neither customers nor products are loaded
+     * 
+     * @param ids the order identifiers
+     * @return orders in no particular order
+     */
+	@EntityGraph(attributePaths = "items")
+	@Query("Select o From Order o Where o.id In :ids")
+	List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+	
+    /**
+     * Orders among the given ones that were last modified by the given auditor
+     * 
+     * @param ids the order identifiers
+     * @param modifiedBy the auditor
+     * @return matching order IDs
+     */
+	@Query("Select o.id From Order o Where o.id In :ids And o.lastModifiedBy = :modifiedBy")
+	List<Long> findIdsModifiedBy(@Param("ids") Collection<Long> ids, @Param("modifiedBy") String modifiedBy);
+	
+    /**
+     * Placement time of the oldest order in a status and one of the payment statuses
+     * 
+     * @param orderStatus the order status
+     * @param paymentStatuses the payment statuses
+     * @return oldest placement time, empty if no order matches
+     */
+	@Query("Select Min(o.orderedAt) From Order o Where o.orderStatus = :orderStatus And o.paymentStatus In :paymentStatuses")
+	Optional<LocalDateTime> findOldestOrderedAt(@Param("orderStatus") OrderStatus orderStatus,
+			@Param("paymentStatuses") Collection<PaymentStatus> paymentStatuses);
+	
     /**
      * Find latest orders by user
      * 
@@ -186,4 +360,210 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 	@Query("Select o.orderStatus, Count(o) From Order o Group By o.orderStatus")
 	List<Object[]> getOrderStatisticsByOrderStatus();
 	
+    /**
+     * Read the lifecycle state of orders without loading entities
+     * 
+     * @param ids the order identifiers
+     * @return state per order, missing IDs are absent
+     */
+	@Query("Select o.id As id, o.orderNumber As orderNumber, o.orderStatus As orderStatus, o.paymentStatus As paymentStatus "
+			+ "From Order o Where o.id In :ids")
+	List<OrderState> findStatesByIdIn(@Param("ids") Collection<Long> ids);
+	
+    /**
+     * Read the lifecycle state of orders by order number without loading entities
+     * 
+     * @param orderNumbers the order numbers
+     * @return state per order, missing numbers are absent
+     */
+	@Query("Select o.id As id, o.orderNumber As orderNumber, o.orderStatus As orderStatus, o.paymentStatus As paymentStatus "
+			+ "From Order o Where o.orderNumber In :orderNumbers")
+	List<OrderState> findStatesByOrderNumberIn(@Param("orderNumbers") Collection<String> orderNumbers);
+	
+    /**
+     * Read the fields of an order response, without items, in one query
+     * 
+     * @param id the order identifier
+     * @return the order summary, empty if the order does not exist
+     */
+	@Query("Select o.id As id, o.orderNumber As orderNumber, u.id As userId, u.firstName As firstName, u.lastName As lastName, "
+			+ "o.orderStatus As orderStatus, o.totalAmount As totalAmount, o.shippingAddress As shippingAddress, "
+			+ "o.billingAddress As billingAddress, o.paymentMethod As paymentMethod, o.paymentStatus As paymentStatus, o.notes As notes, "
+			+ "o.orderedAt As orderedAt, o.shippedAt As shippedAt, o.deliveredAt As deliveredAt, o.cancelledAt As cancelledAt, "
+			+ "o.refundedAmount As refundedAmount, o.refundedAt As refundedAt "
+			+ "From Order o Join o.user u Where o.id = :id")
+	Optional<OrderSummary> findSummaryById(@Param("id") Long id);
+	
+    /**
+     * Move orders still in one of the expected statuses to a new status in one statement
+     * Bulk updates skip auditing, so the modification columns are set here
+     * 
+     * @param ids the order identifiers
+     * @param expectedStatuses the statuses an order must be in to be updated
+     * @param orderStatus the new status
+     * @param modifiedBy the current auditor
+     * @param modifiedAt the modification time
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses")
+	int updateOrderStatus(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Mark orders still in one of the expected statuses as shipped in one statement
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.shippedAt = :shippedAt, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses")
+	int markShipped(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("shippedAt") LocalDateTime shippedAt,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Mark orders still in one of the expected statuses as delivered in one statement
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.deliveredAt = :deliveredAt, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses")
+	int markDelivered(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("deliveredAt") LocalDateTime deliveredAt,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Mark orders still in one of the expected statuses as cancelled in one statement
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.cancelledAt = :cancelledAt, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses")
+	int markCancelled(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("cancelledAt") LocalDateTime cancelledAt,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Mark orders still in one of the expected statuses and payment statuses as cancelled in one statement
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.cancelledAt = :cancelledAt, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses And o.paymentStatus In :expectedPaymentStatuses")
+	int markCancelled(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("expectedPaymentStatuses") Collection<PaymentStatus> expectedPaymentStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("cancelledAt") LocalDateTime cancelledAt,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Move orders still in one of the expected payment statuses to a new payment status in one statement
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.paymentStatus = :paymentStatus, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.paymentStatus In :expectedStatuses")
+	int updatePaymentStatus(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<PaymentStatus> expectedStatuses,
+			@Param("paymentStatus") PaymentStatus paymentStatus, @Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Lock the orders still in one of the expected statuses, in ascending ID order so concurrent callers cannot deadlock
+     * Lines and user are not loaded
+     * 
+     * @param ids the order identifiers
+     * @param expectedStatuses the statuses an order must be in to be locked
+     * @return locked orders by ascending ID
+     */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select o From Order o Where o.id In :ids And o.orderStatus In :expectedStatuses Order By o.id")
+	List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses);
+	
+    /**
+     * Add the value of returned lines to the refunded amount of an order
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.refundedAmount = o.refundedAmount + :amount, o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id = :id")
+	int addRefundedAmount(@Param("id") Long id, @Param("amount") BigDecimal amount,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+    /**
+     * Mark orders still in one of the expected statuses as refunded in one statement
+     * The whole total is refunded, and a PAID payment moves to REFUNDED
+     * 
+     * @return number of updated orders
+     */
+	@Modifying
+	@Query("Update Order o Set o.orderStatus = :orderStatus, o.refundedAmount = o.totalAmount, o.refundedAt = :refundedAt, "
+			+ "o.paymentStatus = Case When o.paymentStatus = :paidStatus Then :refundedPaymentStatus Else o.paymentStatus End, "
+			+ "o.lastModifiedBy = :modifiedBy, o.lastModifiedAt = :modifiedAt "
+			+ "Where o.id In :ids And o.orderStatus In :expectedStatuses")
+	int markRefunded(@Param("ids") Collection<Long> ids, @Param("expectedStatuses") Collection<OrderStatus> expectedStatuses,
+			@Param("orderStatus") OrderStatus orderStatus, @Param("refundedAt") LocalDateTime refundedAt,
+			@Param("paidStatus") PaymentStatus paidStatus, @Param("refundedPaymentStatus") PaymentStatus refundedPaymentStatus,
+			@Param("modifiedBy") String modifiedBy, @Param("modifiedAt") Date modifiedAt);
+	
+	/**
+	 * Lifecycle state of an order
+	 */
+	interface OrderState {
+		
+		Long getId();
+		
+		String getOrderNumber();
+		
+		OrderStatus getOrderStatus();
+		
+		PaymentStatus getPaymentStatus();
+	}
+	
+	/**
+	 * Order fields returned by lifecycle updates
+	 */
+	interface OrderSummary {
+		
+		Long getId();
+		
+		String getOrderNumber();
+		
+		Long getUserId();
+		
+		String getFirstName();
+		
+		String getLastName();
+		
+		OrderStatus getOrderStatus();
+		
+		BigDecimal getTotalAmount();
+		
+		String getShippingAddress();
+		
+		String getBillingAddress();
+		
+		String getPaymentMethod();
+		
+		PaymentStatus getPaymentStatus();
+		
+		String getNotes();
+		
+		LocalDateTime getOrderedAt();
+		
+		LocalDateTime getShippedAt();
+		
+		LocalDateTime getDeliveredAt();
+		
+		LocalDateTime getCancelledAt();
+		
+		BigDecimal getRefundedAmount();
+		
+		LocalDateTime getRefundedAt();
+	}
+	
 }
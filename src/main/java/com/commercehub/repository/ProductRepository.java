@@ -1,6 +1,8 @@
 package com.commercehub.repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,8 +18,10 @@ import org.springframework.stereotype.Repository;
 
 import com.commercehub.entity.Product;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>{
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductStockRepository {
 	
     /**
      * Find a product by SKU
@@ -43,6 +48,32 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
      */
 	Page<Product> findByIsActive(Boolean isActive, Pageable pageable);
 	
+    /**
+     * Keyset page of products, newest first, seeking past the last (createdAt, id) served
+     * 
+     * @param createdAt creation time of the last product served
+     * @param id ID of the last product served
+     * @param pageable page size, unsorted
+     * @return products by descending creation time then ID
+     */
+	@Query("Select p From Product p Where p.createdAt <= :createdAt And (p.createdAt < :createdAt Or p.id < :id) "
+			+ "Order By p.createdAt Desc, p.id Desc")
+	List<Product> findCreatedBefore(@Param("createdAt") Date createdAt, @Param("id") Long id, Pageable pageable);
+	
+    /**
+     * Keyset page of products by active status, newest first, seeking past the last (createdAt, id) served
+     * 
+     * @param isActive the active status to filter by
+     * @param createdAt creation time of the last product served
+     * @param id ID of the last product served
+     * @param pageable page size, unsorted
+     * @return products by descending creation time then ID
+     */
+	@Query("Select p From Product p Where p.isActive = :isActive And p.createdAt <= :createdAt And (p.createdAt < :createdAt Or p.id < :id) "
+			+ "Order By p.createdAt Desc, p.id Desc")
+	List<Product> findByIsActiveCreatedBefore(@Param("isActive") Boolean isActive, @Param("createdAt") Date createdAt,
+			@Param("id") Long id, Pageable pageable);
+	
     /**
      * Find products by category
      * 
@@ -161,17 +192,87 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
      * @param quantity the new quantity
      */
 	@Modifying
-	@Query("Update Product p Set p.quantityInStock = :quantity Where p.id = :id")
+	@Query("Update Product p Set p.quantityInStock = :quantity, p.version = p.version + 1 Where p.id = :id")
 	void updateStock(@Param("quantity") Integer quantity, @Param("id") Long id);
 	
     /**
-     * Decrease product stock quantity
+     * Decrease product stock quantity only if enough is left, in one atomic statement
      * 
-     * @param productId the product identifier
      * @param quantity the quantity to decrease
+     * @param id the product identifier
+     * @return 1 if stock was decreased, 0 if the product is missing or short of stock
+     */
+	@Modifying
+	@Query("Update Product p Set p.quantityInStock = p.quantityInStock - :quantity, p.version = p.version + 1 "
+			+ "Where p.id = :id And p.quantityInStock >= :quantity")
+	int decreaseStock(@Param("quantity") Integer quantity, @Param("id") Long id);
+	
+    /**
+     * Decrease product stock quantity only if the product is still at the version that was read
+     * 
+     * @param quantity the quantity to decrease
+     * @param id the product identifier
+     * @param version the version the stock level was read at
+     * @return 1 if stock was decreased, 0 if another transaction changed the product meanwhile
+     */
+	@Modifying
+	@Query("Update Product p Set p.quantityInStock = p.quantityInStock - :quantity, p.version = p.version + 1 "
+			+ "Where p.id = :id And p.version = :version And p.quantityInStock >= :quantity")
+	int decreaseStockAtVersion(@Param("quantity") Integer quantity, @Param("id") Long id, @Param("version") Long version);
+	
+    /**
+     * Increase product stock quantity in one atomic statement
+     * 
+     * @param quantity the quantity to add back
+     * @param id the product identifier
+     * @return number of updated rows
      */
 	@Modifying
-	@Query("Update Product p Set p.quantityInStock = p.quantityInStock - :quantity Where p.id = :id And p.quantityInStock >= :quantity")
-	void decreaseStock(@Param("quantity") Integer quantity, @Param("id") Long id);
+	@Query("Update Product p Set p.quantityInStock = p.quantityInStock + :quantity, p.version = p.version + 1 Where p.id = :id")
+	int increaseStock(@Param("quantity") Integer quantity, @Param("id") Long id);
+	
+    /**
+     * Read current stock levels without loading entities, so values are never served from the persistence context
+     * 
+     * @param ids the product identifiers
+     * @return stock level per product, missing IDs are absent
+     */
+	@Query("Select p.id As id, p.name As name, p.quantityInStock As quantityInStock, p.version As version From Product p Where p.id In :ids")
+	List<StockLevel> findStockLevels(@Param("ids") Collection<Long> ids);
+	
+    /**
+     * Stock a product can still sell: stock in products minus order lines whose decrement is not written yet
+     * 
+     * @param id the product identifier
+     * @return available stock, empty if the product does not exist
+     */
+	@Query("Select p.quantityInStock - Coalesce((Select Sum(oi.quantity) From OrderItem oi Where oi.product = p And oi.stockApplied = false), 0) "
+			+ "From Product p Where p.id = :id")
+	Optional<Long> findAvailableStock(@Param("id") Long id);
+	
+    /**
+     * Load products for update in one query, locking rows in ascending ID order
+     * Every transaction locks its products in the same order, so concurrent orders cannot deadlock on them
+     * 
+     * @param ids the product identifiers
+     * @return locked products ordered by ID, missing IDs are absent
+     */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("Select p From Product p Where p.id In :ids Order By p.id")
+	List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+	
+	/**
+	 * Stock level of a product at a given version
+	 */
+	interface StockLevel {
+		
+		Long getId();
+		
+		String getName();
+		
+		Integer getQuantityInStock();
+		
+		Long getVersion();
+	}
 	
 }
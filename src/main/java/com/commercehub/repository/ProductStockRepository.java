@@ -0,0 +1,19 @@
+package com.commercehub.repository;
+
+import java.util.SortedMap;
+
+/**
+ * Stock updates over many products in one statement, a fragment of ProductRepository
+ */
+
+public interface ProductStockRepository {
+
+    /**
+     * Add quantities to the stock of several products with one set-based UPDATE per 500 products
+     * Rows are addressed by primary key in ascending ID order
+     * 
+     * @param quantities quantity to add per product ID
+     * @return number of updated products
+     */
+	int addStock(SortedMap<Long, Integer> quantities);
+}
@@ -0,0 +1,62 @@
+package com.commercehub.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * UPDATE products SET quantity_in_stock = quantity_in_stock + CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+ * Standard SQL, so the same statement runs on SQL Server and H2
+ */
+
+class ProductStockRepositoryImpl implements ProductStockRepository {
+
+	/** Three parameters per product keeps a statement well below the SQL Server limit of 2100 */
+	private static final int PRODUCTS_PER_STATEMENT = 500;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public int addStock(SortedMap<Long, Integer> quantities)
+	{
+		List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+		int updated = 0;
+		for (int from = 0; from < entries.size(); from += PRODUCTS_PER_STATEMENT)
+		{
+			updated += addStock(entries.subList(from, Math.min(from + PRODUCTS_PER_STATEMENT, entries.size())));
+		}
+		return updated;
+	}
+
+	private int addStock(List<Map.Entry<Long, Integer>> entries)
+	{
+		StringBuilder sql = new StringBuilder(64 + entries.size() * 24)
+				.append("UPDATE products SET quantity_in_stock = quantity_in_stock + CASE id");
+		for (int i = 0; i < entries.size(); i++)
+		{
+			sql.append(" WHEN ?").append(2 * i + 1).append(" THEN ?").append(2 * i + 2);
+		}
+		sql.append(" ELSE 0 END, version = version + 1 WHERE id IN (");
+		for (int i = 0; i < entries.size(); i++)
+		{
+			sql.append(i == 0 ? "?" : ", ?").append(2 * entries.size() + i + 1);
+		}
+		sql.append(')');
+
+		Query query = entityManager.createNativeQuery(sql.toString());
+		for (int i = 0; i < entries.size(); i++)
+		{
+			Map.Entry<Long, Integer> entry = entries.get(i);
+			query.setParameter(2 * i + 1, entry.getKey());
+			query.setParameter(2 * i + 2, entry.getValue());
+			query.setParameter(2 * entries.size() + i + 1, entry.getKey());
+		}
+		return query.executeUpdate();
+	}
+}
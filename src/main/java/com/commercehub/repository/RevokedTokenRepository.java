@@ -0,0 +1,37 @@
+package com.commercehub.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.commercehub.entity.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Find revocations recorded since the given time that have not expired yet
+     * 
+     * @param since lower bound of the revocation time
+     * @param now current time
+     * @return revocations still in effect
+     */
+	List<RevokedToken> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+	
+    /**
+     * Delete revocations whose token has expired anyway
+     * 
+     * @param now current time
+     * @return number of deleted rows
+     */
+	@Transactional
+	@Modifying
+	@Query("Delete From RevokedToken T Where T.expiresAt < :now ")
+	int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,41 @@
+package com.commercehub.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.commercehub.entity.SchedulerLease;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take or extend a lease if this owner holds it or it has run out
+     * 
+     * @param name the job name
+     * @param owner the node asking for the lease
+     * @param now current time
+     * @param leaseUntil end of the new lease
+     * @return 1 if the lease is now held by owner, 0 if another node holds it
+     */
+	@Modifying
+	@Query("Update SchedulerLease l Set l.owner = :owner, l.leaseUntil = :leaseUntil "
+			+ "Where l.name = :name And (l.owner = :owner Or l.leaseUntil < :now)")
+	int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+	
+    /**
+     * End a lease held by this owner, so another node can take it right away
+     * 
+     * @param name the job name
+     * @param owner the node holding the lease
+     * @param now current time
+     * @return number of released leases
+     */
+	@Modifying
+	@Query("Update SchedulerLease l Set l.leaseUntil = :now Where l.name = :name And l.owner = :owner")
+	int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.commercehub.entity.User;
 import java.util.Optional;
@@ -105,10 +106,49 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      * @param userId the user identifier
      * @param lastLoginAt the last login timestamp
      */
+	@Transactional
 	@Modifying
 	@Query("Update User U Set U.lastLoginAt = :lastLoginAt Where U.id = :id ")
 	void updateLastLoginAt(@Param("id") Long id, @Param("lastLoginAt") LocalDateTime lastLoginAt);
 	
+    /**
+     * Replace user's password hash only if it still holds the expected hash
+     * 
+     * @param userId the user identifier
+     * @param expectedPassword the hash the new one was derived from
+     * @param newPassword the new password hash
+     * @return number of updated rows, 0 if the password was changed meanwhile
+     */
+	@Transactional
+	@Modifying
+	@Query("Update User U Set U.password = :newPassword Where U.id = :id And U.password = :expectedPassword ")
+	int updatePasswordIfUnchanged(@Param("id") Long id, @Param("expectedPassword") String expectedPassword, @Param("newPassword") String newPassword);
+	
+    /**
+     * Lock an account until the given time after repeated failed logins
+     * Accounts that are already locked keep their current lock
+     * 
+     * @param usernameOrEmail username or email used in the login attempts
+     * @param lockedUntil end of the temporary lock
+     * @return number of updated rows, 0 if no unlocked account matches
+     */
+	@Transactional
+	@Modifying
+	@Query("Update User U Set U.isLocked = true, U.lockedUntil = :lockedUntil "
+			+ "Where (U.username = :usernameOrEmail Or U.email = :usernameOrEmail) And U.isLocked = false ")
+	int lockTemporarily(@Param("usernameOrEmail") String usernameOrEmail, @Param("lockedUntil") LocalDateTime lockedUntil);
+	
+    /**
+     * Unlock accounts whose temporary lock has expired
+     * 
+     * @param now current time
+     * @return number of unlocked accounts
+     */
+	@Transactional
+	@Modifying
+	@Query("Update User U Set U.isLocked = false, U.lockedUntil = null Where U.lockedUntil < :now ")
+	int unlockExpired(@Param("now") LocalDateTime now);
+	
     /**
      * Find users created within a date range
      * 
@@ -0,0 +1,52 @@
+package com.commercehub.security;
+
+import java.util.function.Consumer;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * PasswordEncoder that runs the expensive encode and matches calls of its delegate
+ * on the PasswordHashingExecutor instead of the calling request thread
+ */
+
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+	
+	private final PasswordHashingExecutor hashingExecutor;
+	
+	public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor hashingExecutor)
+	{
+		this.delegate = delegate;
+		this.hashingExecutor = hashingExecutor;
+	}
+	
+	@Override
+	public String encode(CharSequence rawPassword) 
+	{
+		return hashingExecutor.execute(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) 
+	{
+		return hashingExecutor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+    /**
+     * Encode on the hashing pool without waiting, handing the result to the callback on the pool thread
+     * 
+     * @return false if the pool is too busy to take background work
+     */
+	public boolean encodeInBackground(CharSequence rawPassword, Consumer<String> onEncoded)
+	{
+		return hashingExecutor.trySubmit(() -> onEncoded.accept(delegate.encode(rawPassword)));
+	}
+	
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) 
+	{
+		// Only inspects the hash prefix, cheap enough for the calling thread
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
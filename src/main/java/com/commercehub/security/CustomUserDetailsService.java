@@ -1,51 +1,187 @@
 package com.commercehub.security;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.commercehub.entity.User;
 import com.commercehub.exception.ResourceNotFoundException;
 import com.commercehub.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Loads UserPrincipal for login and token refresh through a bounded cache
+ *
+ * Principals are cached by user ID, login names (username or email as typed) map to the user ID,
+ * so dropping one user ID invalidates every name the user logged in with
+ * Entries are dropped on UserSecurityChangedEvent after the change commits, ttl-seconds bounds
+ * staleness from changes made by other nodes
+ */
+
 @Service
 @Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
 
-	@Autowired
-	private UserRepository userRepository;
-	
+	private final UserRepository userRepository;
+
+	private final Cache<Long, UserPrincipal> principalsById;
+
+	private final Cache<String, Long> userIdsByLogin;
+
+	/** Bumped on every invalidation, a load that raced with one is not cached */
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final Counter hitCounter;
+
+	private final Counter missCounter;
+
+	public CustomUserDetailsService(UserRepository userRepository,
+			@Value("${security.principal-cache.max-size:10000}") long maxSize,
+			@Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+			MeterRegistry meterRegistry)
+	{
+		this.userRepository = userRepository;
+
+		this.principalsById = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+		this.userIdsByLogin = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+
+		this.hitCounter = Counter.builder("auth.principal.cache.requests")
+				.tag("result", "hit")
+				.description("Principal lookups served from cache")
+				.register(meterRegistry);
+		this.missCounter = Counter.builder("auth.principal.cache.requests")
+				.tag("result", "miss")
+				.description("Principal lookups loaded from the database")
+				.register(meterRegistry);
+		Gauge.builder("auth.principal.cache.hit.ratio", this, CustomUserDetailsService::hitRatio)
+				.description("Share of principal lookups served from cache")
+				.register(meterRegistry);
+		Gauge.builder("auth.principal.cache.size", principalsById, Cache::estimatedSize)
+				.description("Cached principals")
+				.register(meterRegistry);
+	}
+
     /**
      * Load user by username or email
+     * Not transactional so cache hits never touch a connection, roles are fetched eagerly with the user
      */
-	@Transactional(readOnly = true)
 	@Override
-	public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException 
+	public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException
 	{
+		Long userId = userIdsByLogin.getIfPresent(usernameOrEmail);
+		UserPrincipal cached = userId != null ? principalsById.getIfPresent(userId) : null;
+		if (cached != null)
+		{
+			hitCounter.increment();
+			return cached;
+		}
+		missCounter.increment();
+
 		log.debug("Loading user by username or email: {}", usernameOrEmail);
-		
+
+		long version = invalidations.get();
 		User user = userRepository.findByUsernameOrEmail(usernameOrEmail)
 				.orElseThrow( () -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
-		
-		return UserPrincipal.create(user);
+
+		UserPrincipal principal = UserPrincipal.create(user);
+		cache(usernameOrEmail, principal, version);
+		return principal;
 	}
-	
+
     /**
      * Load user by user ID
      */
-    @Transactional(readOnly = true)
     public UserDetails loadUserById(Long userId) {
+        UserPrincipal cached = principalsById.getIfPresent(userId);
+        if (cached != null)
+        {
+        	hitCounter.increment();
+        	return cached;
+        }
+        missCounter.increment();
+
         log.debug("Loading user by ID: {}", userId);
 
+        long version = invalidations.get();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        return UserPrincipal.create(user);
+        UserPrincipal principal = UserPrincipal.create(user);
+        cache(null, principal, version);
+        return principal;
+    }
+
+    /**
+     * Drop cached principals of the changed user once the change is committed
+     * Runs right away when published outside a transaction
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event)
+    {
+    	invalidations.incrementAndGet();
+
+    	if (event.isAllUsers())
+    	{
+    		principalsById.invalidateAll();
+    		userIdsByLogin.invalidateAll();
+    		log.debug("Principal cache cleared");
+    		return;
+    	}
+
+    	Long userId = event.userId();
+    	if (userId == null)
+    	{
+    		userId = userIdsByLogin.getIfPresent(event.usernameOrEmail());
+    		userIdsByLogin.invalidate(event.usernameOrEmail());
+    	}
+    	if (userId != null)
+    	{
+    		principalsById.invalidate(userId);
+    		log.debug("Principal cache entry dropped for user ID: {}", userId);
+    	}
+    }
+
+    /**
+     * Cache a freshly loaded principal unless an invalidation happened since the load started
+     */
+    private void cache(String usernameOrEmail, UserPrincipal principal, long version)
+    {
+    	principalsById.put(principal.getId(), principal);
+    	if (usernameOrEmail != null)
+    	{
+    		userIdsByLogin.put(usernameOrEmail, principal.getId());
+    	}
+
+    	// Re-check after publishing, an invalidation that ran in between may have missed the new entry
+    	if (invalidations.get() != version)
+    	{
+    		principalsById.invalidate(principal.getId());
+    	}
+    }
+
+    private double hitRatio()
+    {
+    	double hits = hitCounter.count();
+    	double total = hits + missCounter.count();
+    	return total == 0 ? 0 : hits / total;
     }
 
 }
@@ -1,6 +1,7 @@
 package com.commercehub.security;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -31,6 +32,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
 	
 	@Autowired
 	private JwtService jwtService;
+	
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request,
@@ -41,38 +45,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
 	        // Extract JWT from request header
 	        String jwt = extractJwtFromRequest(request);
 
-	        // Proceed only if JWT is present and valid
-	        if (StringUtils.hasText(jwt) && jwtService.validateToken(jwt)) {
-
-	            String username = jwtService.extractUsername(jwt);
+	        // Proceed only if JWT is present and not already authenticated
+	        if (StringUtils.hasText(jwt) && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-	            // Only set authentication if not already authenticated
-	            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+	            // Verify signature and expiration once, reusing recent verifications
+	            // Refresh tokens and revoked tokens (in-memory lookup) are not accepted as credentials
+	            Optional<VerifiedToken> verifiedToken = jwtService.verify(jwt)
+	                    .filter(VerifiedToken::isAccessToken)
+	                    .filter(token -> !tokenRevocationService.isRevoked(token));
 
-	                // Ensure token is not expired
-	                if (jwtService.isTokenValid(jwt)) {
+	            if (verifiedToken.isPresent()) {
 
-	                    // Extract UserPrincipal directly from token
-	                    UserPrincipal userPrincipal = jwtService.extractUserPrincipal(jwt);
+	                // UserPrincipal is built from token claims during verification
+	                UserPrincipal userPrincipal = verifiedToken.get().getPrincipal();
 
-	                    // Build authentication token
-	                    UsernamePasswordAuthenticationToken authentication =
-	                            new UsernamePasswordAuthenticationToken(
-	                                    userPrincipal,              /** Principal must be UserPrincipal **/
-	                                    null,                       /** No credentials needed */
-	                                    userPrincipal.getAuthorities() /** Roles/Authorities **/
-	                            );
+	                // Build authentication token
+	                UsernamePasswordAuthenticationToken authentication =
+	                        new UsernamePasswordAuthenticationToken(
+	                                userPrincipal,              /** Principal must be UserPrincipal **/
+	                                null,                       /** No credentials needed */
+	                                userPrincipal.getAuthorities() /** Roles/Authorities **/
+	                        );
 
-	                    // Add request details
-	                    authentication.setDetails(
-	                            new WebAuthenticationDetailsSource().buildDetails(request)
-	                    );
+	                // Add request details
+	                authentication.setDetails(
+	                        new WebAuthenticationDetailsSource().buildDetails(request)
+	                );
 
-	                    // Set authentication in security context
-	                    SecurityContextHolder.getContext().setAuthentication(authentication);
+	                // Set authentication in security context
+	                SecurityContextHolder.getContext().setAuthentication(authentication);
 
-	                    log.debug("Set authentication for user '{}' without database call", username);
-	                }
+	                log.debug("Set authentication for user '{}' without database call", userPrincipal.getUsername());
 	            }
 	        }
 	    } catch (Exception e) {
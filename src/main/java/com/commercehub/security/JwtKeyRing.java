@@ -0,0 +1,310 @@
+package com.commercehub.security;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory ring of asymmetric JWT keys loaded from a local keystore directory
+ *
+ * Layout: one key per key id (kid)
+ *   <kid>.pub  X.509 public key in PEM, the key verifies tokens carrying this kid
+ *   <kid>.key  PKCS#8 private key in PEM, present only for keys allowed to sign
+ *
+ * The active signing key is the greatest kid (in name order) that has both files,
+ * so kids should sort by creation, e.g. 20261016-0900
+ * Retiring a key: delete its .key file first, then its .pub once tokens signed with it have expired
+ *
+ * RSA (RS256) and Ed25519 (EdDSA) keys are supported, generated keys are RSA because
+ * RS256 verification is several times cheaper than EdDSA on the JDK 17 provider
+ * The directory is re-scanned periodically and changes are picked up without a restart
+ */
+
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+	private static final String PUBLIC_KEY_SUFFIX = ".pub";
+	private static final String PRIVATE_KEY_SUFFIX = ".key";
+	private static final String PRIVATE_KEY_PERMISSIONS = "rw-------";
+	private static final String[] KEY_ALGORITHMS = { "RSA", "EdDSA" };
+	private static final DateTimeFormatter KID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	@Value("${jwt.keystore.dir:keys}")
+	private String keystoreDir;
+
+	@Value("${jwt.keystore.generate-if-missing:false}")
+	private boolean generateIfMissing;
+
+	/** Immutable snapshot replaced atomically on reload, readers never lock */
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	/** Fingerprint of the last loaded directory content, reload is skipped when unchanged */
+	private String loadedFingerprint = "";
+
+    /**
+     * Load keys at startup, generating a first key pair if the keystore is empty and generation is enabled
+     * Startup fails without a signing key, so a node never comes up with a key nobody provisioned
+     */
+	@PostConstruct
+	void init()
+	{
+		Path dir = Paths.get(keystoreDir);
+
+		if (generateIfMissing && !hasSigningKey(dir))
+		{
+			generateKeyPair(dir);
+		}
+		reload();
+
+		if (snapshot.signingKey == null)
+		{
+			throw new IllegalStateException("No JWT signing key found in keystore directory: " + dir.toAbsolutePath()
+					+ ", provision one or set jwt.keystore.generate-if-missing=true for local development");
+		}
+	}
+
+    /**
+     * Re-scan keystore directory and swap in the new key set if anything changed
+     * A broken or partially written directory keeps the previous key set
+     */
+	@Scheduled(fixedDelayString = "${jwt.keystore.reload-interval-ms:60000}", initialDelayString = "${jwt.keystore.reload-interval-ms:60000}")
+	public synchronized void reload()
+	{
+		Path dir = Paths.get(keystoreDir);
+
+		try {
+			String fingerprint = fingerprint(dir);
+			if (fingerprint.equals(loadedFingerprint))
+			{
+				return;
+			}
+
+			Snapshot loaded = load(dir);
+			if (loaded.signingKey == null)
+			{
+				log.error("JWT keystore {} has no signing key, keeping previous key set", dir.toAbsolutePath());
+				return;
+			}
+
+			this.snapshot = loaded;
+			this.loadedFingerprint = fingerprint;
+
+			log.info("JWT key ring loaded: active kid {}, verification kids {}", loaded.signingKey.keyId(), loaded.verificationKeys.keySet());
+
+		} catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+			log.error("Failed to reload JWT keystore {}: {}", dir.toAbsolutePath(), e.getMessage());
+		}
+	}
+
+    /**
+     * Active signing key together with its kid
+     */
+	public SigningKey getSigningKey()
+	{
+		return snapshot.signingKey;
+	}
+
+    /**
+     * Public key for the given kid, or null if the kid is unknown or retired
+     */
+	public PublicKey getVerificationKey(String keyId)
+	{
+		return keyId != null ? snapshot.verificationKeys.get(keyId) : null;
+	}
+
+    /**
+     * Public keys in JWK Set format for services verifying tokens on their own
+     */
+	public Map<String, Object> getJwkSet()
+	{
+		List<Map<String, Object>> keys = new ArrayList<>();
+
+		snapshot.verificationKeys.forEach((keyId, publicKey) ->
+			keys.add(new LinkedHashMap<>(Jwks.builder()
+					.key(publicKey)
+					.id(keyId)
+					.publicKeyUse("sig")
+					.build())));
+
+		return Map.of("keys", keys);
+	}
+
+	private Snapshot load(Path dir) throws IOException, GeneralSecurityException
+	{
+		Map<String, PublicKey> verificationKeys = new TreeMap<>();
+		String signingKeyId = null;
+
+		for (Path file : listKeyFiles(dir))
+		{
+			String name = file.getFileName().toString();
+			if (!name.endsWith(PUBLIC_KEY_SUFFIX))
+			{
+				continue;
+			}
+
+			String keyId = name.substring(0, name.length() - PUBLIC_KEY_SUFFIX.length());
+			verificationKeys.put(keyId, readPublicKey(file));
+
+			Path privateKeyFile = dir.resolve(keyId + PRIVATE_KEY_SUFFIX);
+			if (Files.exists(privateKeyFile) && (signingKeyId == null || keyId.compareTo(signingKeyId) > 0))
+			{
+				signingKeyId = keyId;
+			}
+		}
+
+		SigningKey signingKey = null;
+		if (signingKeyId != null)
+		{
+			signingKey = new SigningKey(signingKeyId, readPrivateKey(dir.resolve(signingKeyId + PRIVATE_KEY_SUFFIX)));
+		}
+
+		return new Snapshot(signingKey, Collections.unmodifiableMap(verificationKeys));
+	}
+
+	private boolean hasSigningKey(Path dir)
+	{
+		try {
+			return listKeyFiles(dir).stream()
+					.anyMatch(file -> file.getFileName().toString().endsWith(PRIVATE_KEY_SUFFIX));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+    /**
+     * Generate an RSA key pair so a development install can issue tokens out of the box
+     * The private key file is created owner-only before anything is written to it, where the file system supports POSIX permissions
+     */
+	private void generateKeyPair(Path dir)
+	{
+		String keyId = LocalDateTime.now().format(KID_FORMAT);
+		KeyPair keyPair = Jwts.SIG.RS256.keyPair().build();
+
+		try {
+			Files.createDirectories(dir);
+			Path privateKeyFile = dir.resolve(keyId + PRIVATE_KEY_SUFFIX);
+			if (dir.getFileSystem().supportedFileAttributeViews().contains("posix"))
+			{
+				Files.createFile(privateKeyFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(PRIVATE_KEY_PERMISSIONS)));
+			}
+			Files.writeString(privateKeyFile, toPem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+			Files.writeString(dir.resolve(keyId + PUBLIC_KEY_SUFFIX), toPem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write JWT key pair to " + dir.toAbsolutePath(), e);
+		}
+
+		log.warn("No JWT signing key found, generated RSA key pair {} in {}", keyId, dir.toAbsolutePath());
+	}
+
+	private static List<Path> listKeyFiles(Path dir) throws IOException
+	{
+		if (!Files.isDirectory(dir))
+		{
+			return Collections.emptyList();
+		}
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(Files::isRegularFile).sorted().toList();
+		}
+	}
+
+	private static String fingerprint(Path dir) throws IOException
+	{
+		StringBuilder fingerprint = new StringBuilder();
+		for (Path file : listKeyFiles(dir))
+		{
+			fingerprint.append(file.getFileName())
+					   .append(':')
+					   .append(Files.getLastModifiedTime(file).toMillis())
+					   .append(':')
+					   .append(Files.size(file))
+					   .append(';');
+		}
+		return fingerprint.toString();
+	}
+
+	private static PublicKey readPublicKey(Path file) throws IOException, GeneralSecurityException
+	{
+		X509EncodedKeySpec spec = new X509EncodedKeySpec(readPem(file));
+		GeneralSecurityException failure = null;
+
+		for (String algorithm : KEY_ALGORITHMS)
+		{
+			try {
+				return KeyFactory.getInstance(algorithm).generatePublic(spec);
+			} catch (GeneralSecurityException e) {
+				failure = e;
+			}
+		}
+		throw new GeneralSecurityException("Unsupported public key in " + file.getFileName(), failure);
+	}
+
+	private static PrivateKey readPrivateKey(Path file) throws IOException, GeneralSecurityException
+	{
+		PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(readPem(file));
+		GeneralSecurityException failure = null;
+
+		for (String algorithm : KEY_ALGORITHMS)
+		{
+			try {
+				return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+			} catch (GeneralSecurityException e) {
+				failure = e;
+			}
+		}
+		throw new GeneralSecurityException("Unsupported private key in " + file.getFileName(), failure);
+	}
+
+	private static byte[] readPem(Path file) throws IOException
+	{
+		String base64 = Files.readString(file, StandardCharsets.US_ASCII)
+				.replaceAll("-----[A-Z ]+-----", "")
+				.replaceAll("\\s", "");
+		return Base64.getDecoder().decode(base64);
+	}
+
+	private static String toPem(String type, byte[] encoded)
+	{
+		return "-----BEGIN " + type + "-----\n"
+				+ Base64.getMimeEncoder(64, new byte[] { '\n' }).encodeToString(encoded)
+				+ "\n-----END " + type + "-----\n";
+	}
+
+	public record SigningKey(String keyId, PrivateKey privateKey) {
+	}
+
+	private record Snapshot(SigningKey signingKey, Map<String, PublicKey> verificationKeys) {
+
+		static final Snapshot EMPTY = new Snapshot(null, Collections.emptyMap());
+	}
+}
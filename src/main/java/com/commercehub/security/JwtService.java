@@ -1,50 +1,237 @@
 package com.commercehub.security;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import com.commercehub.util.JwtConstants;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for JWT token operations
  * Handles token generation, validation, and extraction of claims
+ * Tokens are signed with the active key of the JwtKeyRing and carry its kid in the header
  */
 
 @Service
 @Slf4j
 public class JwtService {
 
+	@Autowired
+	private JwtKeyRing keyRing;
+	
 	@Value("${jwt.secret}")
 	private String secretKey;
 	
+	/** Accept HS256 tokens without kid issued before asymmetric signing, only for the rollover window until they have expired */
+	@Value("${jwt.legacy-hs256.enabled:false}")
+	private boolean legacyHs256Enabled;
+	
 	@Value("${jwt.expiration}")
 	private long jwtExpiration;
 	
 	@Value("${jwt.refresh-expiration}")
 	private long refreshExpiration;
 	
+	@Value("${jwt.verification-cache.max-size:10000}")
+	private long verificationCacheMaxSize;
+	
+	private SecretKey legacySecretKey;
+	
+	private JwtParser jwtParser;
+	
+	/** Recently verified tokens keyed by SHA-256 of the token, each entry expires with its token */
+	private Cache<String, VerifiedToken> verifiedTokens;
+	
+	private static final ThreadLocal<MessageDigest> TOKEN_DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	});
+	
+    /**
+     * Build parser and verification cache once at startup
+     * The parser resolves the verification key per token from its kid, so key ring reloads need no rebuild
+     */
+	@PostConstruct
+	void init()
+	{
+		this.legacySecretKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+		this.jwtParser = Jwts.parser()
+				.keyLocator(new LocatorAdapter<Key>() {
+					
+					@Override
+					protected Key locate(JwsHeader header) {
+						return resolveVerificationKey(header);
+					}
+				})
+				.build();
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(verificationCacheMaxSize)
+				.expireAfter(new Expiry<String, VerifiedToken>() {
+					
+					@Override
+					public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+						long remainingMillis = value.getExpiration().getTime() - System.currentTimeMillis();
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+					}
+					
+					@Override
+					public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+					
+					@Override
+					public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+	
+    /**
+     * Verify token signature and expiration with a single parse
+     * Recently verified tokens are served from cache without repeating the signature check
+     * 
+     * @return verified claims, or empty if the token is invalid or expired
+     */
+	public Optional<VerifiedToken> verify(String token)
+	{
+		String cacheKey = hashToken(token);
+		
+		VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+		if (cached != null && !cached.isExpiredAt(System.currentTimeMillis()) && isKeyStillTrusted(cached.getKeyId())) 
+		{
+			return Optional.of(cached);
+		}
+		
+		try {
+			Jws<Claims> jws = jwtParser.parseSignedClaims(token);
+			Claims claims = jws.getPayload();
+			
+			if (claims.getSubject() == null || claims.getExpiration() == null) 
+			{
+				log.error("JWT token is missing subject or expiration");
+				return Optional.empty();
+			}
+			
+			VerifiedToken verified = toVerifiedToken(claims, jws.getHeader().getKeyId());
+			verifiedTokens.put(cacheKey, verified);
+			
+			return Optional.of(verified);
+			
+		} catch (ExpiredJwtException e) {
+			log.error("JWT token is expired: {}", e.getMessage());
+		} catch (UnsupportedJwtException e) {
+			log.error("JWT token is unsupported: {}", e.getMessage());
+		} catch (MalformedJwtException e) {
+			log.error("JWT token is malformed: {}", e.getMessage());
+		} catch (IllegalArgumentException e) {
+			log.error("JWT claims string is empty: {}", e.getMessage());
+		} catch (Exception e) {
+			log.error("JWT token validation error: {}", e.getMessage());
+		}
+		return Optional.empty();
+	}
+	
+    /**
+     * Resolve the key that must have signed the token from its kid header
+     * Tokens without kid fall back to the legacy HS256 secret while that is enabled
+     */
+	private Key resolveVerificationKey(Header header)
+	{
+		String keyId = (header instanceof JwsHeader jwsHeader) ? jwsHeader.getKeyId() : null;
+		
+		if (keyId == null)
+		{
+			if (legacyHs256Enabled)
+			{
+				return legacySecretKey;
+			}
+			throw new UnsupportedJwtException("JWT token has no key id");
+		}
+		
+		Key key = keyRing.getVerificationKey(keyId);
+		if (key == null)
+		{
+			throw new UnsupportedJwtException("JWT token signed with unknown or retired key id: " + keyId);
+		}
+		return key;
+	}
+	
+    /**
+     * Check that the key a cached token was verified with has not been retired since
+     */
+	private boolean isKeyStillTrusted(String keyId)
+	{
+		return keyId == null ? legacyHs256Enabled : keyRing.getVerificationKey(keyId) != null;
+	}
+	
+    /**
+     * Build verified token and its principal from already verified claims
+     */
+	private VerifiedToken toVerifiedToken(Claims claims, String keyId)
+	{
+		UserPrincipal principal = toUserPrincipal(claims);
+		
+		return VerifiedToken.builder()
+				.keyId(keyId)
+				.tokenId(claims.getId())
+				.familyId(claims.get(JwtConstants.TOKEN_FAMILY_KEY, String.class))
+				.tokenUse(claims.get(JwtConstants.TOKEN_USE_KEY, String.class))
+				.subject(claims.getSubject())
+				.userId(principal.getId())
+				.expiration(claims.getExpiration())
+				.principal(principal)
+				.build();
+	}
+	
+    /**
+     * Hash token for use as cache key so raw bearer tokens are not retained in memory
+     */
+	private String hashToken(String token)
+	{
+		byte[] digest = TOKEN_DIGEST.get().digest(token.getBytes(StandardCharsets.UTF_8));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+	}
 	
 	 /**
      * Extract a specific claim from JWT token
@@ -58,9 +245,7 @@ public class JwtService {
      * Extract all claims from JWT token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -91,16 +276,9 @@ public class JwtService {
      */
     public List<String> extractAuthorities(String token) 
     {
-        return extractClaim(token, claims -> {
-            List<?> authorities = claims.get(JwtConstants.AUTHORITIES_KEY, List.class);
-            if (authorities == null) 
-            {
-                return Collections.emptyList();
-            }
-            return authorities.stream()
-                    .map(Object::toString)
-                    .collect(Collectors.toList());
-        });
+        return extractClaim(token, claims -> RoleMask.authorities(roleMask(claims)).stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -108,71 +286,119 @@ public class JwtService {
      */
     public UserPrincipal extractUserPrincipal(String token) 
     {
-        Claims claims = extractAllClaims(token);
-        
+        return toUserPrincipal(extractAllClaims(token));
+    }
+    
+    /**
+     * Build user principal from verified claims
+     * Authorities are the shared list of the role mask, nothing is allocated per role
+     */
+    private UserPrincipal toUserPrincipal(Claims claims) 
+    {
         // Extract username from claims
         String username = claims.getSubject();
         
         // Extract userId from claims
         Long userId = claims.get(JwtConstants.USER_ID_KEY, Long.class);
 
-        // Extract authorities from claims
-        List<?> authoritiesList = claims.get(JwtConstants.AUTHORITIES_KEY, List.class);
-        
-        List<SimpleGrantedAuthority> authorities = (authoritiesList != null) ? authoritiesList.stream()
-															                        .map(Object::toString)
-															                        .map(SimpleGrantedAuthority::new)
-															                        .collect(Collectors.toList())
-															                : Collections.emptyList();
+        // Extract roles from claims
+        int roleMask = roleMask(claims);
 
         // Create UserPrincipal instead of Spring User
         return UserPrincipal.builder()
                 .username(username)
                 .id(userId)
-                .authorities(authorities)
+                .authorities(RoleMask.authorities(roleMask))
+                .roleMask(roleMask)
                 .build();
     }
     
+    /**
+     * Role mask of the token, tokens issued before the mask claim carry an authority name list
+     */
+    private static int roleMask(Claims claims) 
+    {
+        Integer roleMask = claims.get(JwtConstants.ROLES_MASK_KEY, Integer.class);
+        if (roleMask != null) 
+        {
+            return roleMask;
+        }
+        
+        List<?> authoritiesList = claims.get(JwtConstants.AUTHORITIES_KEY, List.class);
+        return authoritiesList != null ? RoleMask.ofNames(authoritiesList) : 0;
+    }
+    
     /**
      * Generate JWT access token for user with all necessary information
+     * Starts a new token family, i.e. a new login session
      */
     public String generateToken(UserDetails userDetails, Long userId) 
+    {
+        return generateToken(userDetails, userId, newTokenFamilyId());
+    }
+
+    /**
+     * Generate JWT access token belonging to the given token family
+     */
+    public String generateToken(UserDetails userDetails, Long userId, String familyId) 
     {
         Map<String, Object> claims = new HashMap<>();
         claims.put(JwtConstants.USER_ID_KEY, userId);
-        claims.put(JwtConstants.AUTHORITIES_KEY, 
-                   userDetails.getAuthorities().stream()
-                           .map(GrantedAuthority::getAuthority)
-                           .collect(Collectors.toList()));
+        claims.put(JwtConstants.TOKEN_FAMILY_KEY, familyId);
+        claims.put(JwtConstants.TOKEN_USE_KEY, JwtConstants.ACCESS_TOKEN_USE);
+        claims.put(JwtConstants.ROLES_MASK_KEY, RoleMask.of(userDetails.getAuthorities()));
         
         return generateToken(claims, userDetails.getUsername(), jwtExpiration);
     }
 
     /**
      * Generate JWT refresh token for user
+     * Starts a new token family, i.e. a new login session
      */
     public String generateRefreshToken(UserDetails userDetails, Long userId) 
+    {
+        return generateRefreshToken(userDetails, userId, newTokenFamilyId());
+    }
+
+    /**
+     * Generate JWT refresh token belonging to the given token family
+     */
+    public String generateRefreshToken(UserDetails userDetails, Long userId, String familyId) 
     {
         Map<String, Object> claims = new HashMap<>();
         claims.put(JwtConstants.USER_ID_KEY, userId);
+        claims.put(JwtConstants.TOKEN_FAMILY_KEY, familyId);
+        claims.put(JwtConstants.TOKEN_USE_KEY, JwtConstants.REFRESH_TOKEN_USE);
         
         return generateToken(claims, userDetails.getUsername(), refreshExpiration);
     }
+    
+    /**
+     * New id shared by the access and refresh tokens of one login and all their rotations
+     */
+    public String newTokenFamilyId()
+    {
+        return UUID.randomUUID().toString();
+    }
 
     /**
      * Generate JWT token with claims and expiration
+     * Every token gets a unique id (jti) so it can be revoked individually
      */
     private String generateToken(Map<String, Object> extraClaims, String subject, long expiration) 
     {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
+        JwtKeyRing.SigningKey signingKey = keyRing.getSigningKey();
 
         return Jwts.builder()
+                .header().keyId(signingKey.keyId()).and()
                 .claims(extraClaims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .signWith(signingKey.privateKey())
                 .compact();
     }
 
@@ -182,52 +408,14 @@ public class JwtService {
      */
     public boolean isTokenValid(String token) 
     {
-        try {
-            Claims claims = extractAllClaims(token);
-            return !isTokenExpired(token) && claims.getSubject() != null;
-        } catch (Exception e) {
-            log.error("Error validating JWT token", e);
-            return false;
-        }
-    }
-
-    /**
-     * Check if token is expired
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    /**
-     * Get signing key from secret
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verify(token).isPresent();
     }
 
     /**
      * Validate token structure and signature
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired", e);
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported", e);
-        } catch (MalformedJwtException e) {
-            log.error("JWT token is malformed", e);
-        } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty", e);
-        } catch (Exception e) {
-            log.error("JWT token validation error", e);
-        }
-        return false;
+        return verify(token).isPresent();
     }
 
     /**
@@ -0,0 +1,139 @@
+package com.commercehub.security;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind buffer for users.last_login_at
+ * Logins only record the latest timestamp per user in memory, repeated logins of the same user coalesce,
+ * and the buffer is written periodically as one JDBC batch in a single transaction
+ * 
+ * The update never moves last_login_at backwards, so nodes flushing in any order converge
+ * The buffer is flushed on shutdown, a crash loses at most one flush interval of timestamps
+ * 
+ * Metrics:
+ * - auth.last.login.pending      users waiting to be flushed
+ * - auth.last.login.flush.lag    age of the oldest timestamp at the time it was written
+ */
+
+@Component
+@Slf4j
+public class LastLoginWriteBehind {
+
+	private static final String UPDATE_LAST_LOGIN_SQL =
+			"UPDATE users SET last_login_at = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+	
+	private final JdbcTemplate jdbcTemplate;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	private final int batchSize;
+	
+	/** Same zone Hibernate binds timestamps in, so values match those written through JPA */
+	private final TimeZone jdbcTimeZone;
+	
+	/** User id to latest login time not yet written */
+	private final ConcurrentMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+	
+	private final Timer flushLagTimer;
+	
+	public LastLoginWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			@Value("${security.last-login.batch-size:500}") int batchSize,
+			@Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone,
+			MeterRegistry meterRegistry)
+	{
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+		this.jdbcTimeZone = jdbcTimeZone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(jdbcTimeZone);
+		
+		Gauge.builder("auth.last.login.pending", pending, Map::size)
+				.description("Users whose last login time is waiting to be written")
+				.register(meterRegistry);
+		this.flushLagTimer = Timer.builder("auth.last.login.flush.lag")
+				.description("Age of the oldest buffered last login time when it was written")
+				.register(meterRegistry);
+	}
+	
+    /**
+     * Record a login, keeping only the latest time per user
+     */
+	public void recordLogin(Long userId, LocalDateTime loginAt)
+	{
+		pending.merge(userId, loginAt, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+	}
+	
+    /**
+     * Write all buffered login times
+     * Entries recorded while flushing stay buffered for the next run
+     */
+	@Scheduled(fixedDelayString = "${security.last-login.flush-interval-ms:5000}")
+	public void flush()
+	{
+		if (pending.isEmpty())
+		{
+			return;
+		}
+		
+		List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(pending.size());
+		LocalDateTime oldest = null;
+		for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet())
+		{
+			// Remove only the value being written, a newer login recorded meanwhile is kept
+			if (pending.remove(entry.getKey(), entry.getValue()))
+			{
+				batch.add(Map.entry(entry.getKey(), entry.getValue()));
+				if (oldest == null || entry.getValue().isBefore(oldest))
+				{
+					oldest = entry.getValue();
+				}
+			}
+		}
+		
+		Calendar calendar = Calendar.getInstance(jdbcTimeZone);
+		
+		try {
+			transactionTemplate.executeWithoutResult(status ->
+				jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, batch, batchSize, (ps, entry) -> {
+					Timestamp loginAt = Timestamp.valueOf(entry.getValue());
+					ps.setTimestamp(1, loginAt, calendar);
+					ps.setLong(2, entry.getKey());
+					ps.setTimestamp(3, loginAt, calendar);
+				}));
+			
+			flushLagTimer.record(Duration.between(oldest, LocalDateTime.now()));
+			log.debug("Flushed last login time of {} users", batch.size());
+			
+		} catch (RuntimeException e) {
+			// Put entries back for the next run unless a newer login replaced them
+			batch.forEach(entry -> recordLogin(entry.getKey(), entry.getValue()));
+			log.error("Failed to flush last login time of {} users: {}", batch.size(), e.getMessage());
+		}
+	}
+	
+	@PreDestroy
+	void flushOnShutdown()
+	{
+		flush();
+	}
+}
@@ -0,0 +1,221 @@
+package com.commercehub.security;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.commercehub.exception.TooManyRequestsException;
+import com.commercehub.exception.UnauthorizedException;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.util.Security;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Failed-login tracking keyed by username and by client IP
+ * 
+ * Each key owns a lock-free counter over a fixed time window: the window start and the failure
+ * count are packed into one AtomicLong and updated with CAS, so a new window simply restarts the count
+ * Locked usernames and throttled IPs are rejected before any user lookup or BCrypt work
+ * 
+ * Security.MAX_LOGIN_ATTEMPTS failures of one username within the window lock the account
+ * for Security.ACCOUNT_LOCK_DURATION_MINUTES, persisted to User.isLocked / lockedUntil
+ */
+
+@Service
+@Slf4j
+public class LoginAttemptService {
+
+	private final UserRepository userRepository;
+	
+	private final ApplicationEventPublisher eventPublisher;
+	
+	private final long windowSeconds;
+	
+	private final int maxAttemptsPerIp;
+	
+	/** Failure counters per normalized username or email */
+	private final Cache<String, AtomicLong> usernameFailures;
+	
+	/** Failure counters per client IP */
+	private final Cache<String, AtomicLong> ipFailures;
+	
+	/** Locked usernames to lock expiry in epoch millis */
+	private final Cache<String, Long> lockedUsernames;
+	
+	private final Counter rejectedCounter;
+	
+	private final Counter lockedCounter;
+	
+	public LoginAttemptService(UserRepository userRepository,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${security.login-throttle.window-minutes:15}") long windowMinutes,
+			@Value("${security.login-throttle.max-attempts-per-ip:50}") int maxAttemptsPerIp,
+			@Value("${security.login-throttle.max-tracked-keys:100000}") long maxTrackedKeys,
+			MeterRegistry meterRegistry)
+	{
+		this.userRepository = userRepository;
+		this.eventPublisher = eventPublisher;
+		this.windowSeconds = TimeUnit.MINUTES.toSeconds(windowMinutes);
+		this.maxAttemptsPerIp = maxAttemptsPerIp;
+		
+		this.usernameFailures = Caffeine.newBuilder()
+				.maximumSize(maxTrackedKeys)
+				.expireAfterAccess(windowMinutes, TimeUnit.MINUTES)
+				.build();
+		this.ipFailures = Caffeine.newBuilder()
+				.maximumSize(maxTrackedKeys)
+				.expireAfterAccess(windowMinutes, TimeUnit.MINUTES)
+				.build();
+		this.lockedUsernames = Caffeine.newBuilder()
+				.maximumSize(maxTrackedKeys)
+				.expireAfterWrite(Security.ACCOUNT_LOCK_DURATION_MINUTES, TimeUnit.MINUTES)
+				.build();
+		
+		this.rejectedCounter = Counter.builder("auth.login.throttled")
+				.description("Login attempts rejected before authentication")
+				.register(meterRegistry);
+		this.lockedCounter = Counter.builder("auth.login.accounts.locked")
+				.description("Accounts locked after repeated failed logins")
+				.register(meterRegistry);
+	}
+	
+    /**
+     * Reject the attempt without touching the database if the username is locked or the IP is throttled
+     */
+	public void checkAllowed(String usernameOrEmail, String clientIp)
+	{
+		long now = System.currentTimeMillis();
+		
+		Long lockedUntil = lockedUsernames.getIfPresent(normalize(usernameOrEmail));
+		if (lockedUntil != null && lockedUntil > now)
+		{
+			rejectedCounter.increment();
+			throw new UnauthorizedException("Account is temporarily locked due to too many failed login attempts");
+		}
+		
+		if (clientIp != null && currentCount(ipFailures.getIfPresent(clientIp), now) >= maxAttemptsPerIp)
+		{
+			rejectedCounter.increment();
+			throw new TooManyRequestsException("Too many failed login attempts, please try again later");
+		}
+	}
+	
+    /**
+     * Count a failed attempt, locking the account once the username reaches the limit
+     */
+	public void recordFailure(String usernameOrEmail, String clientIp)
+	{
+		long now = System.currentTimeMillis();
+		String username = normalize(usernameOrEmail);
+		
+		if (clientIp != null)
+		{
+			increment(ipFailures.get(clientIp, key -> new AtomicLong()), now);
+		}
+		
+		int failures = increment(usernameFailures.get(username, key -> new AtomicLong()), now);
+		if (failures == Security.MAX_LOGIN_ATTEMPTS)
+		{
+			lock(username, usernameOrEmail, now);
+		}
+	}
+	
+    /**
+     * Forget failures of a username after a successful login
+     */
+	public void recordSuccess(String usernameOrEmail)
+	{
+		usernameFailures.invalidate(normalize(usernameOrEmail));
+	}
+	
+    /**
+     * Drop in-memory lock and failures, e.g. after an administrator unlocked the account
+     */
+	public void clear(String... usernamesOrEmails)
+	{
+		for (String usernameOrEmail : usernamesOrEmails)
+		{
+			String username = normalize(usernameOrEmail);
+			usernameFailures.invalidate(username);
+			lockedUsernames.invalidate(username);
+		}
+	}
+	
+    /**
+     * Unlock accounts whose temporary lock has expired
+     * Accounts locked by an administrator have no lockedUntil and stay locked
+     */
+	@Scheduled(fixedDelayString = "${security.login-throttle.unlock-interval-ms:60000}")
+	public void unlockExpiredAccounts()
+	{
+		int unlocked = userRepository.unlockExpired(LocalDateTime.now());
+		if (unlocked > 0)
+		{
+			eventPublisher.publishEvent(UserSecurityChangedEvent.ALL_USERS);
+			log.info("Unlocked {} accounts whose temporary lock expired", unlocked);
+		}
+	}
+	
+	private void lock(String username, String usernameOrEmail, long now)
+	{
+		long lockMillis = TimeUnit.MINUTES.toMillis(Security.ACCOUNT_LOCK_DURATION_MINUTES);
+		lockedUsernames.put(username, now + lockMillis);
+		lockedCounter.increment();
+		
+		// Unknown usernames are locked in memory only, so the update matching no row is expected
+		int updated = userRepository.lockTemporarily(usernameOrEmail, LocalDateTime.now().plusMinutes(Security.ACCOUNT_LOCK_DURATION_MINUTES));
+		if (updated > 0)
+		{
+			eventPublisher.publishEvent(UserSecurityChangedEvent.ofLogin(usernameOrEmail));
+		}
+		
+		log.warn("Login locked for '{}' after {} failed attempts (account found: {})", usernameOrEmail, Security.MAX_LOGIN_ATTEMPTS, updated > 0);
+	}
+	
+    /**
+     * Add one failure to the counter, restarting the count when its window has passed
+     * 
+     * @return failures in the current window including this one
+     */
+	private int increment(AtomicLong counter, long nowMillis)
+	{
+		long nowSeconds = TimeUnit.MILLISECONDS.toSeconds(nowMillis);
+		long state = counter.updateAndGet(current -> {
+			long windowStart = current >>> 32;
+			int count = (int) current;
+			if (nowSeconds - windowStart >= windowSeconds)
+			{
+				return (nowSeconds << 32) | 1L;
+			}
+			return (windowStart << 32) | (count + 1L);
+		});
+		return (int) state;
+	}
+	
+	private int currentCount(AtomicLong counter, long nowMillis)
+	{
+		if (counter == null)
+		{
+			return 0;
+		}
+		long state = counter.get();
+		long windowStart = state >>> 32;
+		return TimeUnit.MILLISECONDS.toSeconds(nowMillis) - windowStart >= windowSeconds ? 0 : (int) state;
+	}
+	
+	private static String normalize(String usernameOrEmail)
+	{
+		return usernameOrEmail == null ? "" : usernameOrEmail.trim().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,73 @@
+package com.commercehub.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.commercehub.util.Security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the BCrypt cost for this node at startup
+ * Measures one hash at the minimum cost and derives the highest cost whose hash time stays
+ * within the configured target, each extra cost step doubling the work
+ * With calibration disabled Security.PASSWORD_ENCODER_STRENGTH is used
+ */
+
+@Component
+@Slf4j
+public class PasswordHashingCalibrator {
+
+	private static final String CALIBRATION_PASSWORD = "calibration-password";
+	
+	private static final int MAX_BCRYPT_COST = 31;
+	
+	@Getter
+	private final int cost;
+	
+	public PasswordHashingCalibrator(
+			@Value("${security.password-hashing.calibrate:true}") boolean calibrate,
+			@Value("${security.password-hashing.target-ms:250}") long targetMillis,
+			@Value("${security.password-hashing.min-cost:10}") int minCost,
+			@Value("${security.password-hashing.max-cost:16}") int maxCost,
+			MeterRegistry meterRegistry)
+	{
+		this.cost = calibrate ? calibrate(targetMillis, minCost, Math.min(maxCost, MAX_BCRYPT_COST)) : Security.PASSWORD_ENCODER_STRENGTH;
+		
+		Gauge.builder("auth.password.hashing.cost", this, PasswordHashingCalibrator::getCost)
+				.description("BCrypt cost used for new password hashes")
+				.register(meterRegistry);
+	}
+	
+	private static int calibrate(long targetMillis, int minCost, int maxCost)
+	{
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minCost);
+		
+		// First hash warms up the JIT, measure the best of the next two
+		encoder.encode(CALIBRATION_PASSWORD);
+		long bestNanos = Long.MAX_VALUE;
+		for (int i = 0; i < 2; i++)
+		{
+			long start = System.nanoTime();
+			encoder.encode(CALIBRATION_PASSWORD);
+			bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+		}
+		
+		double measuredMillis = bestNanos / 1_000_000.0;
+		int cost = minCost;
+		double expectedMillis = measuredMillis;
+		while (cost < maxCost && expectedMillis * 2 <= targetMillis)
+		{
+			cost++;
+			expectedMillis *= 2;
+		}
+		
+		log.info("Password hashing calibrated to cost {}: about {} ms per hash, target {} ms, measured {} ms at cost {}",
+				cost, Math.round(expectedMillis), targetMillis, Math.round(measuredMillis), minCost);
+		return cost;
+	}
+}
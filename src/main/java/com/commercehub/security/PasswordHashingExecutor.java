@@ -0,0 +1,160 @@
+package com.commercehub.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.commercehub.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dedicated, size-limited pool for password hashing and checking
+ * Keeps BCrypt CPU work off the shared request threads: at most pool-size hashes run at once,
+ * at most queue-capacity wait, and anything beyond that is rejected immediately with 503
+ *
+ * Metrics:
+ * - auth.password.hashing.queue.depth   tasks waiting for a hashing thread
+ * - auth.password.hashing.active        tasks currently hashing
+ * - auth.password.hashing.wait          time spent queued before hashing started
+ * - auth.password.hashing.duration      time spent hashing
+ * - auth.password.hashing.rejected      tasks shed because the queue was full or the wait timed out
+ */
+
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+	private final ThreadPoolExecutor executor;
+	
+	private final long timeoutMillis;
+	
+	/** Background work is only accepted while the queue is below this depth, leaving room for logins */
+	private final int backgroundQueueLimit;
+	
+	private final Timer waitTimer;
+	
+	private final Timer hashTimer;
+	
+	private final Counter rejectedCounter;
+
+	public PasswordHashingExecutor(
+			@Value("${security.password-hashing.pool-size:0}") int poolSize,
+			@Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+			@Value("${security.password-hashing.timeout-ms:5000}") long timeoutMillis,
+			MeterRegistry meterRegistry)
+	{
+		// Default to one hashing thread per core, hashing is pure CPU work
+		int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadNumber = new AtomicInteger();
+		
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+		this.timeoutMillis = timeoutMillis;
+		this.backgroundQueueLimit = queueCapacity / 2;
+		
+		Gauge.builder("auth.password.hashing.queue.depth", executor, e -> e.getQueue().size())
+				.description("Password hashing tasks waiting for a thread")
+				.register(meterRegistry);
+		Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+				.description("Password hashing tasks currently running")
+				.register(meterRegistry);
+		this.waitTimer = Timer.builder("auth.password.hashing.wait")
+				.description("Time password hashing tasks spent queued")
+				.register(meterRegistry);
+		this.hashTimer = Timer.builder("auth.password.hashing.duration")
+				.description("Time spent hashing or checking a password")
+				.register(meterRegistry);
+		this.rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+				.description("Password hashing tasks rejected because the pool was saturated")
+				.register(meterRegistry);
+		
+		log.info("Password hashing pool started with {} threads and queue capacity {}", threads, queueCapacity);
+	}
+	
+    /**
+     * Run hashing work on the dedicated pool and wait for its result
+     * 
+     * @throws ServiceUnavailableException if the queue is full or the result is not ready within the timeout
+     */
+	public <T> T execute(Callable<T> task)
+	{
+		long enqueuedAt = System.nanoTime();
+		Future<T> future;
+		
+		try {
+			future = executor.submit(() -> {
+				waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+				return hashTimer.recordCallable(task);
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCounter.increment();
+			throw new ServiceUnavailableException("Authentication service is busy, please retry shortly");
+		}
+		
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejectedCounter.increment();
+			throw new ServiceUnavailableException("Authentication service is busy, please retry shortly");
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ServiceUnavailableException("Password hashing was interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException)
+			{
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Password hashing failed", cause);
+		}
+	}
+	
+    /**
+     * Queue low-priority work without waiting for it
+     * 
+     * @return false if the pool is too busy, the caller may simply try again later
+     */
+	public boolean trySubmit(Runnable task)
+	{
+		if (executor.getQueue().size() >= backgroundQueueLimit)
+		{
+			return false;
+		}
+		
+		try {
+			executor.execute(() -> hashTimer.record(task));
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+	
+	@PreDestroy
+	void shutdown()
+	{
+		executor.shutdownNow();
+	}
+}
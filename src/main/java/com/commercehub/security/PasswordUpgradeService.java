@@ -0,0 +1,56 @@
+package com.commercehub.security;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.commercehub.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transparently upgrades password hashes with an outdated cost or algorithm
+ * The new hash is computed in the background after a successful login, the login itself never waits for it
+ */
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordUpgradeService {
+
+	private final BoundedPasswordEncoder passwordEncoder;
+	
+	private final UserRepository userRepository;
+	
+	private final ApplicationEventPublisher eventPublisher;
+	
+    /**
+     * Rehash the just verified raw password if its stored hash is outdated
+     * Skipped when the hashing pool is busy, the next login will try again
+     */
+	public void upgradeIfNeeded(Long userId, String storedPassword, String rawPassword)
+	{
+		if (storedPassword == null || !passwordEncoder.upgradeEncoding(storedPassword))
+		{
+			return;
+		}
+		
+		boolean submitted = passwordEncoder.encodeInBackground(rawPassword, newPassword -> {
+			try {
+				int updated = userRepository.updatePasswordIfUnchanged(userId, storedPassword, newPassword);
+				if (updated > 0)
+				{
+					eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(userId));
+					log.info("Password hash upgraded for user ID: {}", userId);
+				}
+			} catch (RuntimeException e) {
+				log.error("Failed to upgrade password hash for user ID: {}: {}", userId, e.getMessage());
+			}
+		});
+		
+		if (!submitted)
+		{
+			log.debug("Password hashing pool busy, upgrade deferred for user ID: {}", userId);
+		}
+	}
+}
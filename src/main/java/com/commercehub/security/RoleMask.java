@@ -0,0 +1,105 @@
+package com.commercehub.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.commercehub.util.RoleName;
+
+/**
+ * Compact role bitmask over RoleName ordinals
+ * Bit n is set when the user has the role with ordinal n, so authorization checks are single bit tests
+ * The authority list of every possible mask is built once and shared by all principals
+ */
+
+public final class RoleMask {
+
+	private static final Map<String, RoleName> ROLES_BY_NAME = new HashMap<>();
+	
+	/** Immutable authority list per mask value */
+	private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK;
+	
+	static {
+		RoleName[] roles = RoleName.values();
+		for (RoleName role : roles)
+		{
+			ROLES_BY_NAME.put(role.name(), role);
+		}
+		
+		List<List<GrantedAuthority>> authoritiesByMask = new ArrayList<>(1 << roles.length);
+		for (int mask = 0; mask < (1 << roles.length); mask++)
+		{
+			List<GrantedAuthority> authorities = new ArrayList<>();
+			for (RoleName role : roles)
+			{
+				if ((mask & role.mask()) != 0)
+				{
+					authorities.add(new SimpleGrantedAuthority(role.name()));
+				}
+			}
+			authoritiesByMask.add(Collections.unmodifiableList(authorities));
+		}
+		AUTHORITIES_BY_MASK = Collections.unmodifiableList(authoritiesByMask);
+	}
+	
+	private RoleMask()
+	{
+		throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+	}
+	
+    /**
+     * Role for an authority name, or null if it is not a known role
+     */
+	public static RoleName roleOf(String authority)
+	{
+		return authority != null ? ROLES_BY_NAME.get(authority) : null;
+	}
+	
+    /**
+     * Mask of the given authority names, unknown names are ignored
+     */
+	public static int ofNames(Collection<?> authorityNames)
+	{
+		int mask = 0;
+		for (Object authorityName : authorityNames)
+		{
+			RoleName role = roleOf(String.valueOf(authorityName));
+			if (role != null)
+			{
+				mask |= role.mask();
+			}
+		}
+		return mask;
+	}
+	
+    /**
+     * Mask of the given authorities, unknown authorities are ignored
+     */
+	public static int of(Collection<? extends GrantedAuthority> authorities)
+	{
+		int mask = 0;
+		for (GrantedAuthority authority : authorities)
+		{
+			RoleName role = roleOf(authority.getAuthority());
+			if (role != null)
+			{
+				mask |= role.mask();
+			}
+		}
+		return mask;
+	}
+	
+    /**
+     * Shared immutable authority list for the mask
+     */
+	public static List<GrantedAuthority> authorities(int mask)
+	{
+		return AUTHORITIES_BY_MASK.get(mask & (AUTHORITIES_BY_MASK.size() - 1));
+	}
+}
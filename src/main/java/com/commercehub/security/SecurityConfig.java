@@ -2,6 +2,7 @@ package com.commercehub.security;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,7 +18,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
@@ -25,8 +26,6 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
-import com.commercehub.util.Security;
-
 import lombok.RequiredArgsConstructor;
 
 
@@ -37,7 +36,7 @@ import lombok.RequiredArgsConstructor;
  * Optimized to work with JWT-based authentication without database calls
  * 
  * Key points:
- * - CustomUserDetailsService is used ONLY during login (via AuthenticationProvider)
+ * - CustomUserDetailsService is used ONLY during login (via AuthenticationProvider) and token refresh, behind a principal cache
  * - JwtAuthenticationFilter extracts user info from token directly (no database calls)
  * - Stateless session management for JWT tokens
  * 
@@ -49,8 +48,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordHashingCalibrator passwordHashingCalibrator;
     
 
     /**
@@ -153,12 +156,14 @@ public class SecurityConfig {
                 "Accept",
                 "Origin",
                 "Access-Control-Request-Method",
-                "Access-Control-Request-Headers"
+                "Access-Control-Request-Headers",
+                "Idempotency-Key"
         ));
         configuration.setExposedHeaders(Arrays.asList(
                 "Authorization",
                 "Access-Control-Allow-Origin",
-                "Access-Control-Allow-Credentials"
+                "Access-Control-Allow-Credentials",
+                "Idempotent-Replayed"
         ));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
@@ -192,11 +197,18 @@ public class SecurityConfig {
 
     /**
      * Configure password encoder
-     * BCrypt with configurable strength for security
+     * BCrypt with the cost calibrated for this node, new hashes are stored with a {bcrypt} prefix
+     * Hashes without prefix (older rows and the admin seed) still match and are flagged for upgrade
+     * Hashing runs on the bounded PasswordHashingExecutor, not on request threads
      */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(Security.PASSWORD_ENCODER_STRENGTH);
+    BoundedPasswordEncoder passwordEncoder() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordHashingCalibrator.getCost());
+        
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        
+        return new BoundedPasswordEncoder(delegatingEncoder, passwordHashingExecutor);
     }
 }
 
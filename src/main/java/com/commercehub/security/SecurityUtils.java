@@ -9,6 +9,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import com.commercehub.exception.UnauthorizedException;
+import com.commercehub.util.RoleName;
 
 /**
  * Security utility methods
@@ -26,14 +27,22 @@ public class SecurityUtils {
      * Get current authenticated user principal from SecurityContext
      */
     public static Optional<UserPrincipal> getCurrentUserPrincipal()
+    {
+    	return Optional.ofNullable(currentPrincipalOrNull());
+    }
+    
+    /**
+     * Current principal without wrapping, used by the allocation-free checks
+     */
+    private static UserPrincipal currentPrincipalOrNull()
     {
     	Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     	
-    	if(authentication != null && authentication.getPrincipal() instanceof UserPrincipal)
+    	if(authentication != null && authentication.getPrincipal() instanceof UserPrincipal userPrincipal)
     	{
-    		return Optional.of( (UserPrincipal) authentication.getPrincipal() );
+    		return userPrincipal;
     	}
-    	return Optional.empty();
+    	return null;
     }
     
     /**
@@ -65,7 +74,8 @@ public class SecurityUtils {
      */
     public static boolean isOwner(Long resourceOwnerId) 
     {
-        return getCurrentUserId().map( userId -> userId.equals(resourceOwnerId)).orElse(false);
+        UserPrincipal principal = currentPrincipalOrNull();
+        return principal != null && principal.getId() != null && principal.getId().equals(resourceOwnerId);
     }
     
     /**
@@ -95,11 +105,42 @@ public class SecurityUtils {
     			                            ).orElse(Set.of());
     }
     
+    /**
+     * Check if current user has specific role, a single bit test
+     */
+    public static boolean hasRole(RoleName role) 
+    {
+        UserPrincipal principal = currentPrincipalOrNull();
+        return principal != null && principal.hasRole(role);
+    }
+    
+    /**
+     * Check if current user has any of the specified roles
+     */
+    public static boolean hasAnyRole(RoleName... roles) 
+    {
+        UserPrincipal principal = currentPrincipalOrNull();
+        if (principal == null) {
+            return false;
+        }
+        
+        int mask = 0;
+        for (RoleName role : roles) {
+            mask |= role.mask();
+        }
+        return (principal.getRoleMask() & mask) != 0;
+    }
+    
     /**
      * Check if current user has specific authority
+     * Known roles are checked on the role mask, other authorities on the authority list
      */
     public static boolean hasAuthority(String authority) 
     {
+        RoleName role = RoleMask.roleOf(authority);
+        if (role != null) {
+            return hasRole(role);
+        }
         return getCurrentUserAuthorities().contains(authority);
     }
 
@@ -108,10 +149,8 @@ public class SecurityUtils {
      */
     public static boolean hasAnyAuthority(String... authorities) 
     {
-        Set<String> userAuthorities = getCurrentUserAuthorities();
-        
         for (String authority : authorities) {
-            if (userAuthorities.contains(authority)) {
+            if (hasAuthority(authority)) {
                 return true;
             }
         }
@@ -124,10 +163,8 @@ public class SecurityUtils {
      */
     public static boolean hasAllAuthorities(String... authorities) 
     {
-        Set<String> userAuthorities = getCurrentUserAuthorities();
-        
         for (String authority : authorities) {
-            if (!userAuthorities.contains(authority)) {
+            if (!hasAuthority(authority)) {
                 return false;
             }
         }
@@ -154,6 +191,14 @@ public class SecurityUtils {
     {
         return isOwner(resourceOwnerId) || hasAuthority(authority);
     }
+    
+    /**
+     * Check if current user is owner or has specific role
+     */
+    public static boolean isOwnerOrHasRole(Long resourceOwnerId, RoleName role) 
+    {
+        return isOwner(resourceOwnerId) || hasRole(role);
+    }
 
     /**
      * Clear security context
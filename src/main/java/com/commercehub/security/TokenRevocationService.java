@@ -0,0 +1,211 @@
+package com.commercehub.security;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.commercehub.entity.RevokedToken;
+import com.commercehub.repository.RevokedTokenRepository;
+import com.commercehub.util.TokenRevocationReason;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Revocation store for JWTs
+ * Revoked token ids (jti) and token family ids are persisted in revoked_tokens and mirrored
+ * in a concurrent map, so JwtAuthenticationFilter checks revocation in O(1) without a database hit
+ * 
+ * Every entry carries the expiry of the token it revokes and is purged after that, keeping memory bounded
+ * Revocations made on other nodes are pulled in periodically
+ */
+
+@Service
+@Slf4j
+public class TokenRevocationService {
+	
+	/** Overlap when pulling revocations from other nodes, covers clock skew and in-flight commits */
+	private static final long SYNC_OVERLAP_SECONDS = 30;
+
+	private final RevokedTokenRepository revokedTokenRepository;
+	
+	private final long refreshExpiration;
+	
+	/** Revoked id to expiry in epoch millis */
+	private final ConcurrentMap<String, Long> revokedIds = new ConcurrentHashMap<>();
+	
+	private volatile LocalDateTime lastSyncAt;
+	
+	public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+			@Value("${jwt.refresh-expiration}") long refreshExpiration,
+			MeterRegistry meterRegistry)
+	{
+		this.revokedTokenRepository = revokedTokenRepository;
+		this.refreshExpiration = refreshExpiration;
+		
+		Gauge.builder("auth.token.revocation.entries", revokedIds, ConcurrentMap::size)
+				.description("Revoked token and family ids held in memory")
+				.register(meterRegistry);
+	}
+	
+    /**
+     * Load all revocations still in effect
+     */
+	@PostConstruct
+	void init()
+	{
+		LocalDateTime now = LocalDateTime.now();
+		revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(LocalDateTime.of(1970, 1, 1, 0, 0), now)
+				.forEach(this::remember);
+		this.lastSyncAt = now;
+		
+		log.info("Loaded {} active token revocations", revokedIds.size());
+	}
+	
+    /**
+     * Check if the token itself or its whole family has been revoked
+     */
+	public boolean isRevoked(VerifiedToken token)
+	{
+		return isRevoked(token.getTokenId()) || isRevoked(token.getFamilyId());
+	}
+	
+    /**
+     * Check if the token family has been revoked, ignoring the state of the token itself
+     */
+	public boolean isFamilyRevoked(VerifiedToken token)
+	{
+		return isRevoked(token.getFamilyId());
+	}
+	
+	private boolean isRevoked(String id)
+	{
+		if (id == null)
+		{
+			return false;
+		}
+		Long expiresAt = revokedIds.get(id);
+		return expiresAt != null && expiresAt > System.currentTimeMillis();
+	}
+	
+    /**
+     * Revoke a single token until it expires
+     */
+	public void revokeToken(VerifiedToken token, TokenRevocationReason reason)
+	{
+		if (token.getTokenId() != null)
+		{
+			revoke(token.getTokenId(), token.getUserId(), token.getExpiration(), reason);
+		}
+	}
+	
+    /**
+     * Revoke every access and refresh token issued from the same login
+     * Family members are issued at most one refresh lifetime from now, so the entry expires then
+     */
+	public void revokeFamily(VerifiedToken token, TokenRevocationReason reason)
+	{
+		if (token.getFamilyId() != null)
+		{
+			revoke(token.getFamilyId(), token.getUserId(), new Date(System.currentTimeMillis() + refreshExpiration), reason);
+		}
+	}
+	
+    /**
+     * Mark a refresh token as used, exactly once across all nodes
+     * The primary key on revoked_tokens makes the first caller win
+     * 
+     * @return false if the token had already been used, i.e. it is being replayed
+     */
+	public boolean consumeRefreshToken(VerifiedToken token)
+	{
+		if (token.getTokenId() == null)
+		{
+			// Issued before rotation existed, cannot be tracked
+			return true;
+		}
+		if (isRevoked(token.getTokenId()))
+		{
+			return false;
+		}
+		
+		try {
+			revokedTokenRepository.saveAndFlush(toEntity(token.getTokenId(), token.getUserId(), token.getExpiration(), TokenRevocationReason.ROTATED));
+			remember(token.getTokenId(), token.getExpiration().getTime());
+			return true;
+		} catch (DataIntegrityViolationException e) {
+			remember(token.getTokenId(), token.getExpiration().getTime());
+			return false;
+		}
+	}
+	
+	private void revoke(String id, Long userId, Date expiresAt, TokenRevocationReason reason)
+	{
+		remember(id, expiresAt.getTime());
+		
+		try {
+			revokedTokenRepository.saveAndFlush(toEntity(id, userId, expiresAt, reason));
+		} catch (DataIntegrityViolationException e) {
+			log.debug("Token id {} was already revoked", id);
+		}
+	}
+	
+    /**
+     * Pull revocations recorded by other nodes
+     */
+	@Scheduled(fixedDelayString = "${security.token-revocation.sync-interval-ms:5000}")
+	public void syncFromDatabase()
+	{
+		LocalDateTime now = LocalDateTime.now();
+		
+		revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(lastSyncAt.minusSeconds(SYNC_OVERLAP_SECONDS), now)
+				.forEach(this::remember);
+		this.lastSyncAt = now;
+	}
+	
+    /**
+     * Drop revocations of tokens that have expired anyway, in memory and in the database
+     */
+	@Scheduled(fixedDelayString = "${security.token-revocation.purge-interval-ms:600000}")
+	public void purgeExpired()
+	{
+		long nowMillis = System.currentTimeMillis();
+		revokedIds.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+		
+		int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+		if (deleted > 0)
+		{
+			log.info("Purged {} expired token revocations", deleted);
+		}
+	}
+	
+	private void remember(RevokedToken revokedToken)
+	{
+		remember(revokedToken.getTokenId(), revokedToken.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+	}
+	
+	private void remember(String id, long expiresAtMillis)
+	{
+		revokedIds.merge(id, expiresAtMillis, Math::max);
+	}
+	
+	private static RevokedToken toEntity(String id, Long userId, Date expiresAt, TokenRevocationReason reason)
+	{
+		return RevokedToken.builder()
+				.tokenId(id)
+				.userId(userId)
+				.reason(reason)
+				.revokedAt(LocalDateTime.now())
+				.expiresAt(LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault()))
+				.build();
+	}
+}
@@ -1,13 +1,16 @@
 package com.commercehub.security;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.commercehub.entity.Role;
 import com.commercehub.entity.User;
+import com.commercehub.util.RoleName;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -42,14 +45,23 @@ public class UserPrincipal implements UserDetails {
     
     private Collection<? extends GrantedAuthority> authorities;
     
+    /** Roles as bits over RoleName ordinals, see RoleMask */
+    private int roleMask;
+    
     /**
      * Create UserPrincipal from User entity
      */
     public static UserPrincipal create(User user)
     {
-    	Collection<GrantedAuthority> authorities = user.getRoles().stream()
-    			.map(role -> new SimpleGrantedAuthority(role.getName()))
+    	List<String> roleNames = user.getRoles().stream()
+    			.map(Role::getName)
     			.collect(Collectors.toList());
+    	int roleMask = RoleMask.ofNames(roleNames);
+    	
+    	// Shared authority list unless the user has roles outside RoleName
+    	Collection<GrantedAuthority> authorities = Integer.bitCount(roleMask) == roleNames.size()
+    			? RoleMask.authorities(roleMask)
+    			: roleNames.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
     	
     	return UserPrincipal.builder()
                 .id(user.getId())
@@ -61,8 +73,16 @@ public class UserPrincipal implements UserDetails {
                 .enabled(user.getIsEnable())
                 .locked(user.getIsLocked())
                 .authorities(authorities)
+                .roleMask(roleMask)
                 .build();
     }
+    
+    /**
+     * Check role with a single bit test
+     */
+    public boolean hasRole(RoleName role) {
+        return (roleMask & role.mask()) != 0;
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,30 @@
+package com.commercehub.security;
+
+/**
+ * Published when data copied into UserPrincipal changes: roles, enabled or lock state, password, profile
+ * Cached principals of the user are dropped once the change is committed
+ *
+ * @param userId         changed user, or null when the user is only known by login name
+ * @param usernameOrEmail login name of the changed user, or null
+ */
+
+public record UserSecurityChangedEvent(Long userId, String usernameOrEmail) {
+
+	/** Marker for changes touching any number of users */
+	public static final UserSecurityChangedEvent ALL_USERS = new UserSecurityChangedEvent(null, null);
+
+	public static UserSecurityChangedEvent ofUser(Long userId)
+	{
+		return new UserSecurityChangedEvent(userId, null);
+	}
+
+	public static UserSecurityChangedEvent ofLogin(String usernameOrEmail)
+	{
+		return new UserSecurityChangedEvent(null, usernameOrEmail);
+	}
+
+	public boolean isAllUsers()
+	{
+		return userId == null && usernameOrEmail == null;
+	}
+}
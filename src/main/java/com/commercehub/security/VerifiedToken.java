@@ -0,0 +1,62 @@
+package com.commercehub.security;
+
+import java.util.Date;
+
+import com.commercehub.util.JwtConstants;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Result of a successful JWT verification
+ * Holds the claims the application needs, parsed and checked exactly once
+ * The UserPrincipal is built at verification time and shared by every request carrying the same token
+ */
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class VerifiedToken {
+
+    /** Key id from the token header, null for legacy HS256 tokens */
+    private final String keyId;
+
+    /** Token id (jti), null for tokens issued before revocation support */
+    private final String tokenId;
+
+    /** Id shared by all tokens issued from the same login, null for older tokens */
+    private final String familyId;
+
+    /** ACCESS_TOKEN_USE or REFRESH_TOKEN_USE, null for older tokens */
+    private final String tokenUse;
+
+    private final String subject;
+
+    private final Long userId;
+
+    private final Date expiration;
+
+    private final UserPrincipal principal;
+
+    /**
+     * Check if this is a refresh token, older tokens without a use claim count as both kinds
+     */
+    public boolean isRefreshToken() {
+        return tokenUse == null || JwtConstants.REFRESH_TOKEN_USE.equals(tokenUse);
+    }
+
+    /**
+     * Check if this is an access token, older tokens without a use claim count as both kinds
+     */
+    public boolean isAccessToken() {
+        return tokenUse == null || JwtConstants.ACCESS_TOKEN_USE.equals(tokenUse);
+    }
+
+    /**
+     * Check if token is expired at the given instant
+     */
+    public boolean isExpiredAt(long epochMillis) {
+        return expiration.getTime() <= epochMillis;
+    }
+}
@@ -23,9 +23,10 @@ public interface AuthService {
      * Authenticate user and generate tokens
      * 
      * @param request login credentials
+     * @param clientIp address of the client, used for failed-login throttling
      * @return authentication response with tokens
      */
-    AuthResponse login(LoginUserRequest request);
+    AuthResponse login(LoginUserRequest request, String clientIp);
 
     /**
      * Refresh access token using refresh token
@@ -0,0 +1,27 @@
+package com.commercehub.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.commercehub.util.OrderEventType;
+
+/**
+ * Published when orders are placed or their lifecycle changes: status, payment status, timestamps, returned lines
+ * The outbox records it in the publishing transaction, cached order details are dropped once the change is committed
+ *
+ * @param orderIds changed orders
+ * @param type     what happened to them
+ */
+
+public record OrderChangedEvent(Collection<Long> orderIds, OrderEventType type) {
+
+	public static OrderChangedEvent ofOrder(Long orderId, OrderEventType type)
+	{
+		return new OrderChangedEvent(List.of(orderId), type);
+	}
+
+	public static OrderChangedEvent ofOrders(Collection<Long> orderIds, OrderEventType type)
+	{
+		return new OrderChangedEvent(List.copyOf(orderIds), type);
+	}
+}
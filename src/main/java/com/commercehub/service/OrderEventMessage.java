@@ -0,0 +1,17 @@
+package com.commercehub.service;
+
+import java.time.LocalDateTime;
+
+import com.commercehub.util.OrderEventType;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+
+/**
+ * Kafka message value of an order event, keyed by order ID
+ * Statuses are those of the order when the event was written
+ */
+
+public record OrderEventMessage(OrderEventType eventType, Long orderId, String orderNumber,
+		OrderStatus orderStatus, PaymentStatus paymentStatus, LocalDateTime occurredAt) {
+
+}
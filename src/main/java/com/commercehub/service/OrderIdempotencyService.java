@@ -0,0 +1,288 @@
+package com.commercehub.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.entity.IdempotencyKey;
+import com.commercehub.exception.BadRequestException;
+import com.commercehub.exception.ServiceUnavailableException;
+import com.commercehub.repository.IdempotencyKeyRepository;
+import com.commercehub.security.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotency-Key handling for order placement
+ *
+ * The key, scoped to the current user, is inserted into idempotency_keys in the order's own transaction,
+ * so the order and its key commit together and the primary key lets only one of them commit across all nodes
+ * A duplicate on another node blocks on that insert until the first request finishes, then replays the stored response
+ *
+ * A bounded in-memory cache holds the outcome of recent keys: replays are answered without a database hit,
+ * and a concurrent duplicate on the same node waits on the in-flight request instead of racing it
+ * A failed request leaves no key behind, so the client can retry it with the same key
+ *
+ * Keys expire after orders.idempotency.ttl-hours and are deleted in batches
+ */
+
+@Service
+@Slf4j
+public class OrderIdempotencyService {
+
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 64;
+
+	private final OrderService orderService;
+
+	private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final long ttlHours;
+
+	private final long waitTimeoutMs;
+
+	private final int purgeBatchSize;
+
+	/** User-scoped key to the outcome of its first request, incomplete while that request runs */
+	private final Cache<String, CompletableFuture<StoredOrder>> recentKeys;
+
+	private final Counter replayCounter;
+
+	public OrderIdempotencyService(OrderService orderService,
+			IdempotencyKeyRepository idempotencyKeyRepository,
+			TransactionTemplate transactionTemplate,
+			ObjectMapper objectMapper,
+			@Value("${orders.idempotency.ttl-hours:24}") long ttlHours,
+			@Value("${orders.idempotency.max-cached-keys:100000}") long maxCachedKeys,
+			@Value("${orders.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+			@Value("${orders.idempotency.purge-batch-size:1000}") int purgeBatchSize,
+			MeterRegistry meterRegistry)
+	{
+		this.orderService = orderService;
+		this.idempotencyKeyRepository = idempotencyKeyRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.objectMapper = objectMapper;
+		this.ttlHours = ttlHours;
+		this.waitTimeoutMs = waitTimeoutMs;
+		this.purgeBatchSize = purgeBatchSize;
+
+		this.recentKeys = Caffeine.newBuilder()
+				.maximumSize(maxCachedKeys)
+				.expireAfterWrite(ttlHours, TimeUnit.HOURS)
+				.build();
+
+		this.replayCounter = Counter.builder("orders.idempotent.replays")
+				.description("Order requests answered with the response stored for their Idempotency-Key")
+				.register(meterRegistry);
+	}
+
+    /**
+     * Place the order once per key, or return the order placed by the first request with this key
+     *
+     * @throws BadRequestException if the key is malformed or was used with a different request
+     */
+	public IdempotentOrder createOrder(String idempotencyKey, CreateOrderRequest request)
+	{
+		validate(idempotencyKey);
+
+		String id = SecurityUtils.getCurrentUserIdOrThrow() + ":" + idempotencyKey;
+		String requestHash = fingerprint(request);
+
+		while (true)
+		{
+			CompletableFuture<StoredOrder> mine = new CompletableFuture<>();
+			CompletableFuture<StoredOrder> existing = recentKeys.asMap().putIfAbsent(id, mine);
+
+			if (existing != null)
+			{
+				StoredOrder stored = await(existing);
+				if (stored == null)
+				{
+					// The first request failed and released the key, this one takes over
+					continue;
+				}
+				return replay(stored, requestHash);
+			}
+
+			try {
+				StoredOrder stored = placeOrReplay(id, requestHash, request);
+				mine.complete(stored);
+				return stored.replayed() ? replay(stored, requestHash) : new IdempotentOrder(stored.response(), false);
+
+			} catch (RuntimeException e) {
+				recentKeys.asMap().remove(id, mine);
+				mine.completeExceptionally(e);
+				throw e;
+			}
+		}
+	}
+
+    /**
+     * Delete expired keys in batches, each batch in its own short transaction
+     */
+	@Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:600000}")
+	public void purgeExpired()
+	{
+		LocalDateTime now = LocalDateTime.now();
+		long deleted = 0;
+		int batch;
+		try {
+			do
+			{
+				batch = idempotencyKeyRepository.deleteExpired(now, purgeBatchSize);
+				deleted += batch;
+			}
+			while (batch == purgeBatchSize);
+
+		} catch (RuntimeException e) {
+			log.error("Failed to purge expired idempotency keys: {}", e.getMessage());
+		}
+
+		if (deleted > 0)
+		{
+			log.info("Purged {} expired idempotency keys", deleted);
+		}
+	}
+
+	private StoredOrder placeOrReplay(String id, String requestHash, CreateOrderRequest request)
+	{
+		while (true)
+		{
+			try {
+				return transactionTemplate.execute(status -> {
+					LocalDateTime now = LocalDateTime.now();
+					IdempotencyKey key = idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+							.id(id)
+							.requestHash(requestHash)
+							.createdAt(now)
+							.expiresAt(now.plusHours(ttlHours))
+							.build());
+
+					OrderResponse response = orderService.createOrder(request);
+
+					key.setOrderId(response.getId());
+					key.setResponse(toJson(response));
+					return new StoredOrder(requestHash, response, false);
+				});
+
+			} catch (DataIntegrityViolationException e) {
+				// The key was committed by an earlier request, possibly on another node
+				IdempotencyKey key = idempotencyKeyRepository.findById(id).orElseThrow(() -> e);
+				if (key.getExpiresAt().isBefore(LocalDateTime.now()))
+				{
+					idempotencyKeyRepository.deleteIfExpired(id, LocalDateTime.now());
+					continue;
+				}
+				return new StoredOrder(key.getRequestHash(), fromJson(key.getResponse()), true);
+			}
+		}
+	}
+
+	private StoredOrder await(CompletableFuture<StoredOrder> inFlight)
+	{
+		try {
+			return inFlight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+
+		} catch (ExecutionException e) {
+			return null;
+
+		} catch (TimeoutException e) {
+			throw new ServiceUnavailableException("A request with this Idempotency-Key is still in progress, please retry");
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceUnavailableException("Interrupted while waiting for a request with the same Idempotency-Key");
+		}
+	}
+
+	private IdempotentOrder replay(StoredOrder stored, String requestHash)
+	{
+		if (!stored.requestHash().equals(requestHash))
+		{
+			throw new BadRequestException("Idempotency-Key was already used with a different request");
+		}
+
+		replayCounter.increment();
+		return new IdempotentOrder(stored.response(), true);
+	}
+
+	private static void validate(String idempotencyKey)
+	{
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)
+		{
+			throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+		}
+		for (int i = 0; i < idempotencyKey.length(); i++)
+		{
+			char c = idempotencyKey.charAt(i);
+			if (c < 0x21 || c > 0x7e)
+			{
+				throw new BadRequestException("Idempotency-Key must only contain visible ASCII characters");
+			}
+		}
+	}
+
+	private String fingerprint(CreateOrderRequest request)
+	{
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+			return HexFormat.of().formatHex(digest);
+
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Cannot fingerprint order request", e);
+		}
+	}
+
+	private String toJson(OrderResponse response)
+	{
+		try {
+			return objectMapper.writeValueAsString(response);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot store order response", e);
+		}
+	}
+
+	private OrderResponse fromJson(String json)
+	{
+		try {
+			return objectMapper.readValue(json, OrderResponse.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot read stored order response", e);
+		}
+	}
+
+	/**
+	 * Order returned for a key, replayed when it was placed by an earlier request
+	 */
+	public record IdempotentOrder(OrderResponse order, boolean replayed) {
+	}
+
+	private record StoredOrder(String requestHash, OrderResponse response, boolean replayed) {
+	}
+}
@@ -0,0 +1,390 @@
+package com.commercehub.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.response.OrderIntakeResponse;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.BaseException;
+import com.commercehub.exception.ForbiddenException;
+import com.commercehub.exception.ServiceUnavailableException;
+import com.commercehub.security.SecurityUtils;
+import com.commercehub.service.impl.OrderNumberDispenser;
+import com.commercehub.util.OrderIntakeStatus;
+import com.commercehub.util.RoleName;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous order intake for peak load, enabled with orders.intake.async.enabled
+ *
+ * A request is validated, given its order number and queued without touching the database,
+ * and the client polls the status URL until the order is placed or failed
+ * Worker threads drain the queue in micro-batches of up to max-batch-size orders, waiting at most max-batch-wait-ms
+ * for a batch to fill, and place each batch with OrderService.placeOrders: one transaction and one stock reservation
+ * If a batch fails, its orders are placed one by one so only those that cannot be placed fail
+ *
+ * Workers run between the context's lifecycle start and stop, not from construction
+ * The queue is bounded and node-local: a full queue is answered with 503, and it is drained on shutdown,
+ * but orders still queued when a node crashes are lost and their status URL answers 404
+ * Statuses are kept for status-ttl-minutes, after that, and on other nodes, placed orders are looked up by number
+ * Queued orders are audited as created by "system", their owner is the order's user
+ *
+ * Metrics:
+ * - orders.intake.queue.depth    orders waiting for a worker
+ * - orders.intake.latency        time from acceptance until the order is placed or failed
+ * - orders.intake.batch          time to place one batch
+ * - orders.intake.batch.size     orders per batch
+ * - orders.intake.orders         orders by result: placed, failed or rejected because the queue was full
+ */
+
+@Service
+@Slf4j
+public class OrderIntakeService implements SmartLifecycle {
+
+	public static final String PREFER_HEADER = "Prefer";
+
+	public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+	public static final String RESPOND_ASYNC = "respond-async";
+
+	private static final String STATUS_PATH = "/api/orders/intake/";
+
+	/** Below the web server's phase: started before it takes requests, stopped after it stopped taking them */
+	private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+	private final OrderService orderService;
+
+	private final OrderNumberDispenser orderNumberDispenser;
+
+	private final boolean enabled;
+
+	private final int workerCount;
+
+	private final int maxBatchSize;
+
+	private final long maxBatchWaitNanos;
+
+	private final long shutdownTimeoutMs;
+
+	private final BlockingQueue<Intake> queue;
+
+	/** Order number to the intake status of orders accepted by this node */
+	private final Cache<String, IntakeState> states;
+
+	private final List<Thread> workers = new ArrayList<>();
+
+	private volatile boolean running;
+
+	private final Timer latencyTimer;
+
+	private final Timer batchTimer;
+
+	private final DistributionSummary batchSizeSummary;
+
+	private final Counter placedCounter;
+
+	private final Counter failedCounter;
+
+	private final Counter rejectedCounter;
+
+	public OrderIntakeService(OrderService orderService,
+			OrderNumberDispenser orderNumberDispenser,
+			@Value("${orders.intake.async.enabled:false}") boolean enabled,
+			@Value("${orders.intake.queue-capacity:10000}") int queueCapacity,
+			@Value("${orders.intake.workers:2}") int workerCount,
+			@Value("${orders.intake.max-batch-size:50}") int maxBatchSize,
+			@Value("${orders.intake.max-batch-wait-ms:20}") long maxBatchWaitMs,
+			@Value("${orders.intake.status-ttl-minutes:60}") long statusTtlMinutes,
+			@Value("${orders.intake.max-tracked-orders:100000}") long maxTrackedOrders,
+			@Value("${orders.intake.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+			MeterRegistry meterRegistry)
+	{
+		this.orderService = orderService;
+		this.orderNumberDispenser = orderNumberDispenser;
+		this.enabled = enabled;
+		this.workerCount = workerCount;
+		this.maxBatchSize = maxBatchSize;
+		this.maxBatchWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchWaitMs);
+		this.shutdownTimeoutMs = shutdownTimeoutMs;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.states = Caffeine.newBuilder()
+				.maximumSize(maxTrackedOrders)
+				.expireAfterWrite(statusTtlMinutes, TimeUnit.MINUTES)
+				.build();
+
+		Gauge.builder("orders.intake.queue.depth", queue, BlockingQueue::size)
+				.description("Accepted orders waiting for an intake worker")
+				.register(meterRegistry);
+		this.latencyTimer = Timer.builder("orders.intake.latency")
+				.description("Time from accepting an order until it is placed or failed")
+				.register(meterRegistry);
+		this.batchTimer = Timer.builder("orders.intake.batch")
+				.description("Time to place one batch of queued orders")
+				.register(meterRegistry);
+		this.batchSizeSummary = DistributionSummary.builder("orders.intake.batch.size")
+				.description("Queued orders placed per batch")
+				.register(meterRegistry);
+		this.placedCounter = Counter.builder("orders.intake.orders")
+				.tag("result", "placed")
+				.description("Queued orders placed")
+				.register(meterRegistry);
+		this.failedCounter = Counter.builder("orders.intake.orders")
+				.tag("result", "failed")
+				.description("Queued orders that could not be placed")
+				.register(meterRegistry);
+		this.rejectedCounter = Counter.builder("orders.intake.orders")
+				.tag("result", "rejected")
+				.description("Orders refused because the intake queue was full")
+				.register(meterRegistry);
+
+	}
+
+    /**
+     * Start the workers once the context is refreshed, before the web server takes requests
+     */
+	@Override
+	public void start()
+	{
+		if (enabled)
+		{
+			for (int i = 1; i <= workerCount; i++)
+			{
+				Thread worker = new Thread(this::drain, "order-intake-" + i);
+				worker.setDaemon(true);
+				worker.start();
+				workers.add(worker);
+			}
+			log.info("Order intake started with {} workers and queue capacity {}", workerCount, queue.remainingCapacity());
+		}
+		running = true;
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+    /**
+     * Accept an order of the current user for asynchronous placement
+     *
+     * @return the queued order's number and status URL
+     * @throws ServiceUnavailableException if the queue is full
+     */
+	public OrderIntakeResponse submit(CreateOrderRequest request)
+	{
+		if (!enabled || !running)
+		{
+			throw new ServiceUnavailableException("Asynchronous order intake is not available, please place the order directly");
+		}
+
+		QueuedOrder order = new QueuedOrder(orderNumberDispenser.next(), SecurityUtils.getCurrentUserIdOrThrow(), request);
+
+		// Recorded before queuing, so a worker's outcome is never overwritten by it
+		states.put(order.orderNumber(), new IntakeState(order.userId(), OrderIntakeStatus.QUEUED, null, null));
+		if (!queue.offer(new Intake(order, System.nanoTime())))
+		{
+			states.invalidate(order.orderNumber());
+			rejectedCounter.increment();
+			throw new ServiceUnavailableException("Order intake is busy, please retry shortly");
+		}
+
+		return response(order.orderNumber(), OrderIntakeStatus.QUEUED, null, null);
+	}
+
+    /**
+     * Status of an order accepted by the intake, for its owner or an admin
+     *
+     * @throws com.commercehub.exception.ResourceNotFoundException if the order is neither tracked nor placed
+     */
+	public OrderIntakeResponse getStatus(String orderNumber)
+	{
+		IntakeState state = states.getIfPresent(orderNumber);
+		if (state == null)
+		{
+			// No longer tracked or accepted by another node, a placed order is found by its number
+			OrderResponse order = orderService.getOrderByNumber(orderNumber);
+			return response(orderNumber, OrderIntakeStatus.PLACED, order.getId(), null);
+		}
+
+		if (!SecurityUtils.isOwnerOrHasRole(state.userId(), RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to access this order");
+		}
+		return response(orderNumber, state.status(), state.orderId(), state.message());
+	}
+
+	private void drain()
+	{
+		List<Intake> batch = new ArrayList<>(maxBatchSize);
+		while (running || !queue.isEmpty())
+		{
+			try {
+				Intake first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null)
+				{
+					continue;
+				}
+				batch.add(first);
+				fill(batch);
+
+				batchSizeSummary.record(batch.size());
+				batchTimer.record(() -> place(batch));
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+
+			} catch (RuntimeException e) {
+				log.error("Order intake worker failed on {} orders: {}", batch.size(), e.getMessage());
+
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+    /**
+     * Take more queued orders until the batch is full or max-batch-wait-ms has passed since its first order
+     */
+	private void fill(List<Intake> batch) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + maxBatchWaitNanos;
+		while (batch.size() < maxBatchSize)
+		{
+			if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+			{
+				continue;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || !running)
+			{
+				return;
+			}
+			Intake next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null)
+			{
+				return;
+			}
+			batch.add(next);
+		}
+	}
+
+    /**
+     * Place a batch in one transaction, or each of its orders in its own transaction if the batch fails
+     */
+	private void place(List<Intake> batch)
+	{
+		List<QueuedOrder> orders = new ArrayList<>(batch.size());
+		batch.forEach(intake -> orders.add(intake.order()));
+
+		List<Long> orderIds;
+		try {
+			orderIds = orderService.placeOrders(orders);
+
+		} catch (RuntimeException e) {
+			if (batch.size() == 1)
+			{
+				fail(batch.get(0), e);
+				return;
+			}
+			log.debug("Batch of {} queued orders failed, placing them one by one: {}", batch.size(), e.getMessage());
+			batch.forEach(intake -> place(List.of(intake)));
+			return;
+		}
+
+		for (int i = 0; i < batch.size(); i++)
+		{
+			Intake intake = batch.get(i);
+			states.put(intake.order().orderNumber(),
+					new IntakeState(intake.order().userId(), OrderIntakeStatus.PLACED, orderIds.get(i), null));
+			latencyTimer.record(System.nanoTime() - intake.acceptedAt(), TimeUnit.NANOSECONDS);
+		}
+		placedCounter.increment(batch.size());
+	}
+
+	private void fail(Intake intake, RuntimeException e)
+	{
+		// Business errors such as insufficient stock are shown to the client, anything else is only logged
+		String message = e instanceof BaseException ? e.getMessage() : "Order could not be placed, please try again";
+		if (!(e instanceof BaseException))
+		{
+			log.error("Failed to place queued order {}: {}", intake.order().orderNumber(), e.getMessage());
+		}
+
+		states.put(intake.order().orderNumber(),
+				new IntakeState(intake.order().userId(), OrderIntakeStatus.FAILED, null, message));
+		latencyTimer.record(System.nanoTime() - intake.acceptedAt(), TimeUnit.NANOSECONDS);
+		failedCounter.increment();
+	}
+
+	private OrderIntakeResponse response(String orderNumber, OrderIntakeStatus status, Long orderId, String message)
+	{
+		return OrderIntakeResponse.builder()
+				.orderNumber(orderNumber)
+				.status(status)
+				.orderId(orderId)
+				.message(message)
+				.statusUrl(STATUS_PATH + orderNumber)
+				.build();
+	}
+
+    /**
+     * Stop accepting orders and let the workers place what is queued, for at most shutdown-timeout-ms
+     * Runs after the web server stopped and before the data source is closed
+     */
+	@Override
+	public void stop()
+	{
+		running = false;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+		try {
+			for (Thread worker : workers)
+			{
+				worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		workers.forEach(Thread::interrupt);
+		workers.clear();
+		if (!queue.isEmpty())
+		{
+			log.warn("Order intake stopped with {} orders still queued", queue.size());
+		}
+	}
+
+	@Override
+	public boolean isRunning()
+	{
+		return running;
+	}
+
+	@Override
+	public int getPhase()
+	{
+		return PHASE;
+	}
+
+	private record Intake(QueuedOrder order, long acceptedAt) {
+	}
+
+	private record IntakeState(Long userId, OrderIntakeStatus status, Long orderId, String message) {
+	}
+}
@@ -1,10 +1,15 @@
 package com.commercehub.service;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.springframework.data.domain.Pageable;
 
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
 import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.ReturnOrderRequest;
+import com.commercehub.dto.response.BulkOrderUpdateResponse;
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.OrderResponse;
 import com.commercehub.dto.response.PageResponse;
 
@@ -23,6 +28,15 @@ public interface OrderService {
      */
     OrderResponse createOrder(CreateOrderRequest request);
 
+    /**
+     * Place orders accepted by the intake queue, all in one transaction
+     * 
+     * @param queuedOrders orders with their number and owner already assigned
+     * @return IDs of the placed orders, in the order given
+     * @throws com.commercehub.exception.InsufficientStockException if a product is short of stock, no order is placed
+     */
+    List<Long> placeOrders(List<QueuedOrder> queuedOrders);
+
     /**
      * Get order by ID
      * 
@@ -40,7 +54,7 @@ public interface OrderService {
     OrderResponse getOrderByNumber(String orderNumber);
 
     /**
-     * Get all orders for current user
+     * Get all orders for current user, archived orders are not listed
      * 
      * @param pageable pagination information
      * @return paginated order responses
@@ -48,7 +62,7 @@ public interface OrderService {
     PageResponse<OrderResponse> getCurrentUserOrders(Pageable pageable);
 
     /**
-     * Get all orders for a specific user
+     * Get all orders for a specific user, archived orders are not listed
      * 
      * @param userId the user identifier
      * @param pageable pagination information
@@ -57,7 +71,7 @@ public interface OrderService {
     PageResponse<OrderResponse> getUserOrders(Long userId, Pageable pageable);
 
     /**
-     * Get all orders (admin only)
+     * Get all orders (admin only), archived orders are not listed
      * 
      * @param pageable pagination information
      * @return paginated order responses
@@ -65,7 +79,25 @@ public interface OrderService {
     PageResponse<OrderResponse> getAllOrders(Pageable pageable);
 
     /**
-     * Get orders by status
+     * Get orders for current user newest first, by keyset pagination without a count, archived orders are not listed
+     * 
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param size page size
+     * @return order page with the cursor of the next page
+     */
+    CursorPageResponse<OrderResponse> scrollCurrentUserOrders(String cursor, int size);
+
+    /**
+     * Get all orders newest first, by keyset pagination without a count (admin only), archived orders are not listed
+     * 
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param size page size
+     * @return order page with the cursor of the next page
+     */
+    CursorPageResponse<OrderResponse> scrollAllOrders(String cursor, int size);
+
+    /**
+     * Get orders by status, archived orders are not listed
      * 
      * @param status order status
      * @param pageable pagination information
@@ -74,7 +106,7 @@ public interface OrderService {
     PageResponse<OrderResponse> getOrdersByStatus(String status, Pageable pageable);
 
     /**
-     * Get orders within date range
+     * Get orders within date range, archived orders are not listed
      * 
      * @param startDate start date
      * @param endDate end date
@@ -85,7 +117,7 @@ public interface OrderService {
             LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
 
     /**
-     * Update order status
+     * Update order status, REFUNDED is only reached through returnOrder
      * 
      * @param orderId the order identifier
      * @param status new order status
@@ -94,7 +126,7 @@ public interface OrderService {
     OrderResponse updateOrderStatus(Long orderId, String status);
 
     /**
-     * Update payment status
+     * Update payment status, REFUNDED is only reached through returnOrder
      * 
      * @param orderId the order identifier
      * @param paymentStatus new payment status
@@ -125,4 +157,59 @@ public interface OrderService {
      * @return updated order response
      */
     OrderResponse deliverOrder(Long orderId);
-}
\ No newline at end of file
+
+    /**
+     * Return lines of a delivered order, the order is REFUNDED once every unit is returned
+     * 
+     * @param orderId the order identifier
+     * @param request lines and quantities to return, none returns the whole order
+     * @return updated order response
+     */
+    OrderResponse returnOrder(Long orderId, ReturnOrderRequest request);
+
+    /**
+     * Mark PROCESSING orders as shipped, in set-based updates
+     * 
+     * @param request the orders to ship
+     * @return result per requested order
+     */
+    BulkOrderUpdateResponse shipOrders(BulkOrderUpdateRequest request);
+
+    /**
+     * Mark SHIPPED orders as delivered, in set-based updates
+     * 
+     * @param request the orders to deliver
+     * @return result per requested order
+     */
+    BulkOrderUpdateResponse deliverOrders(BulkOrderUpdateRequest request);
+
+    /**
+     * Return DELIVERED orders in full and refund them, in set-based updates
+     * 
+     * @param request the orders to return
+     * @param restock whether returned units go back in stock
+     * @return result per requested order
+     */
+    BulkOrderUpdateResponse returnOrders(BulkOrderUpdateRequest request, boolean restock);
+
+    /**
+     * Move orders from an expected status to a new status, in set-based updates
+     * 
+     * @param request the orders to update
+     * @param expectedStatus status an order must be in to be updated
+     * @param status new order status
+     * @return result per requested order
+     */
+    BulkOrderUpdateResponse updateOrderStatuses(BulkOrderUpdateRequest request, String expectedStatus, String status);
+
+    /**
+     * Move orders from an expected payment status to a new payment status, in set-based updates
+     * REFUNDED is only reached through returnOrders
+     * 
+     * @param request the orders to update
+     * @param expectedStatus payment status an order must be in to be updated
+     * @param status new payment status
+     * @return result per requested order
+     */
+    BulkOrderUpdateResponse updatePaymentStatuses(BulkOrderUpdateRequest request, String expectedStatus, String status);
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import org.springframework.data.domain.Pageable;
 
 import com.commercehub.dto.request.CreateProductRequest;
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.PageResponse;
 import com.commercehub.dto.response.ProductResponse;
 
@@ -56,6 +57,24 @@ public interface ProductService {
     */
    PageResponse<ProductResponse> getActiveProducts(Pageable pageable);
 
+   /**
+    * Get all products newest first, by keyset pagination without a count
+    * 
+    * @param cursor nextCursor of the previous page, null for the first page
+    * @param size page size
+    * @return product page with the cursor of the next page
+    */
+   CursorPageResponse<ProductResponse> scrollAllProducts(String cursor, int size);
+
+   /**
+    * Get active products newest first, by keyset pagination without a count
+    * 
+    * @param cursor nextCursor of the previous page, null for the first page
+    * @param size page size
+    * @return product page with the cursor of the next page
+    */
+   CursorPageResponse<ProductResponse> scrollActiveProducts(String cursor, int size);
+
    /**
     * Get products by category
     * 
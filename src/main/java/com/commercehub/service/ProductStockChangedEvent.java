@@ -0,0 +1,13 @@
+package com.commercehub.service;
+
+/**
+ * Published when an administrator sets the stock of a product, before the new quantity is written
+ * The inventory engine, when enabled, applies the delta to its counter once the change is committed
+ *
+ * @param productId changed product
+ * @param delta     new quantity minus the quantity that was read
+ */
+
+public record ProductStockChangedEvent(Long productId, int delta) {
+
+}
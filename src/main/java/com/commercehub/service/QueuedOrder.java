@@ -0,0 +1,15 @@
+package com.commercehub.service;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+
+/**
+ * Order accepted by the intake queue and waiting to be placed
+ *
+ * @param orderNumber number given to the order when it was accepted
+ * @param userId      owner of the order
+ * @param request     validated order request
+ */
+
+public record QueuedOrder(String orderNumber, Long userId, CreateOrderRequest request) {
+
+}
@@ -0,0 +1,50 @@
+package com.commercehub.service;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.commercehub.entity.Product;
+
+/**
+ * Reserves product stock for an order in the caller's transaction
+ * Implementations differ in how concurrent orders for the same product are serialized, none of them can oversell
+ * 
+ * Selected with inventory.reservation.strategy:
+ * - atomic       one conditional UPDATE per product, the database checks and decreases stock in a single statement (default)
+ * - optimistic   stock is read with its version and decreased only if the version is unchanged, conflicts are retried
+ * - pessimistic  products are row-locked by one SELECT FOR UPDATE, then checked and decreased through the entities
+ * 
+ * With inventory.engine.enabled=true, products tracked by the InventoryEngine are reserved in memory instead,
+ * and the selected strategy only serves products the engine has no room for
+ */
+
+public interface StockReservationStrategy {
+
+    /**
+     * Decrease stock of every requested product
+     * Products are updated in ascending ID order, so concurrent reservations cannot deadlock each other
+     * Nothing stays reserved if an exception is thrown, once the transaction rolls back
+     * 
+     * @param quantities requested quantity per product ID
+     * @return reserved products by ID
+     * @throws com.commercehub.exception.ResourceNotFoundException if a product does not exist
+     * @throws com.commercehub.exception.InsufficientStockException if a product is short of stock
+     */
+    Map<Long, Product> reserve(SortedMap<Long, Integer> quantities);
+    
+    /**
+     * Give stock of cancelled or returned orders back
+     * 
+     * @param quantities released quantity per product ID
+     */
+    void release(SortedMap<Long, Integer> quantities);
+    
+    /**
+     * Whether the stock decrement of a reserved product is written to products later instead of by reserve
+     * Order items of such products are created with stockApplied = false
+     */
+    default boolean isDeferred(Long productId)
+    {
+    	return false;
+    }
+}
@@ -0,0 +1,35 @@
+package com.commercehub.service.impl;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.commercehub.entity.Product;
+import com.commercehub.repository.ProductRepository;
+
+/**
+ * Reserves stock with one conditional UPDATE per product:
+ * quantity_in_stock = quantity_in_stock - :quantity WHERE quantity_in_stock >= :quantity
+ * The row lock is held only from the UPDATE to the commit and no stale read can pass the check
+ */
+
+public class AtomicStockReservationStrategy extends StockReservationSupport {
+
+	public AtomicStockReservationStrategy(ProductRepository productRepository)
+	{
+		super(productRepository);
+	}
+
+	@Override
+	public Map<Long, Product> reserve(SortedMap<Long, Integer> quantities)
+	{
+		for(Map.Entry<Long, Integer> requested : quantities.entrySet())
+		{
+			if(productRepository.decreaseStock(requested.getValue(), requested.getKey()) == 0)
+			{
+				throw shortage(requested.getKey(), requested.getValue());
+			}
+		}
+		
+		return loadProducts(quantities.keySet());
+	}
+}
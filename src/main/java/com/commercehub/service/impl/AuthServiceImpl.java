@@ -7,12 +7,14 @@ import java.util.stream.Collectors;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.commercehub.dto.request.LoginUserRequest;
 import com.commercehub.dto.request.RegisterUserRequest;
@@ -25,11 +27,18 @@ import com.commercehub.exception.UnauthorizedException;
 import com.commercehub.mapper.UserMapper;
 import com.commercehub.repository.RoleRepository;
 import com.commercehub.repository.UserRepository;
+import com.commercehub.security.CustomUserDetailsService;
 import com.commercehub.security.JwtService;
+import com.commercehub.security.LastLoginWriteBehind;
+import com.commercehub.security.LoginAttemptService;
+import com.commercehub.security.PasswordUpgradeService;
+import com.commercehub.security.TokenRevocationService;
 import com.commercehub.security.UserPrincipal;
+import com.commercehub.security.VerifiedToken;
 import com.commercehub.service.AuthService;
 import com.commercehub.util.JwtConstants;
 import com.commercehub.util.RoleName;
+import com.commercehub.util.TokenRevocationReason;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -56,7 +65,23 @@ public class AuthServiceImpl implements AuthService{
 	
 	private final AuthenticationManager authenticationManager;
 	
-	@Transactional
+	private final TransactionTemplate transactionTemplate;
+	
+	private final PasswordUpgradeService passwordUpgradeService;
+	
+	private final TokenRevocationService tokenRevocationService;
+	
+	private final LoginAttemptService loginAttemptService;
+	
+	private final LastLoginWriteBehind lastLoginWriteBehind;
+	
+	private final CustomUserDetailsService userDetailsService;
+	
+    /**
+     * Not transactional on purpose: the password is hashed on the bounded hashing pool
+     * between the existence checks and the saving transaction, so no connection is held while waiting for it
+     * Uniqueness is still enforced by the database constraints on save
+     */
 	@Override
 	public AuthResponse register(RegisterUserRequest request)
 	{
@@ -73,26 +98,32 @@ public class AuthServiceImpl implements AuthService{
         {
             throw new DuplicateResourceException("User", "email", request.getEmail());
         }
+        
+		// Hash password outside of any transaction
+		String encodedPassword = passwordEncoder.encode(request.getPassword());
 		
 		// Create new user entity
 		User user = userMapper.toEntity(request);
-		user.setPassword(passwordEncoder.encode(request.getPassword()));
-		
-		// Assign default role (USER)
-		Role userRole = roleRepository.findByName(RoleName.ROLE_USER.name()).orElseThrow( () -> new ResourceNotFoundException("Role", "name",RoleName.ROLE_USER.name()));
-		Set<Role> roles = new HashSet<>();
-		roles.add(userRole);
-		user.setRoles(roles);
+		user.setPassword(encodedPassword);
 		
-		//Save user
-		User savedUser = userRepository.save(user);
+		// Assign default role (USER) and save user in one short transaction
+		User savedUser = transactionTemplate.execute(status -> {
+			Role userRole = roleRepository.findByName(RoleName.ROLE_USER.name()).orElseThrow( () -> new ResourceNotFoundException("Role", "name",RoleName.ROLE_USER.name()));
+			Set<Role> roles = new HashSet<>();
+			roles.add(userRole);
+			user.setRoles(roles);
+			
+			//Save user
+			return userRepository.save(user);
+		});
 		log.info("User registered successfully with ID: {}", savedUser.getId());
 		
 		UserPrincipal userPrincipal = UserPrincipal.create(savedUser);
 		
-		// Generate tokens
-		String accessToken = jwtService.generateToken(userPrincipal, savedUser.getId());
-		String refreshToken = jwtService.generateRefreshToken(userPrincipal, savedUser.getId());
+		// Generate tokens of a new token family
+		String familyId = jwtService.newTokenFamilyId();
+		String accessToken = jwtService.generateToken(userPrincipal, savedUser.getId(), familyId);
+		String refreshToken = jwtService.generateRefreshToken(userPrincipal, savedUser.getId(), familyId);
 		
 		// Build and return response
 		return AuthResponse.builder()
@@ -108,12 +139,19 @@ public class AuthServiceImpl implements AuthService{
                 .build();
 	}
 	
-	@Transactional
+    /**
+     * Not transactional on purpose: credential checking waits on the bounded hashing pool
+     * and must not pin a database connection meanwhile
+     * Login only reads, the last login time goes through LastLoginWriteBehind
+     */
 	@Override
-	public AuthResponse login(LoginUserRequest request)
+	public AuthResponse login(LoginUserRequest request, String clientIp)
 	{
 		log.info("User attempting to login: {}",request.getUsernameOrEmail());
 		
+		// Reject locked usernames and throttled IPs before any user lookup or BCrypt work
+		loginAttemptService.checkAllowed(request.getUsernameOrEmail(), clientIp);
+		
 		try {
 			
 		// Authenticate user
@@ -122,12 +160,18 @@ public class AuthServiceImpl implements AuthService{
 		
 		UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 		
-		// Update last login time
-		userRepository.updateLastLoginAt(userPrincipal.getId(), LocalDateTime.now());
+		loginAttemptService.recordSuccess(request.getUsernameOrEmail());
 		
-		// Generate tokens
-		String accessToken = jwtService.generateToken(userPrincipal, userPrincipal.getId());
-		String refreshToken = jwtService.generateRefreshToken(userPrincipal, userPrincipal.getId());
+		// Rehash in the background if the stored hash uses an outdated cost or algorithm
+		passwordUpgradeService.upgradeIfNeeded(userPrincipal.getId(), userPrincipal.getPassword(), request.getPassword());
+		
+		// Record last login time, written in batches by the write-behind buffer
+		lastLoginWriteBehind.recordLogin(userPrincipal.getId(), LocalDateTime.now());
+		
+		// Generate tokens of a new token family
+		String familyId = jwtService.newTokenFamilyId();
+		String accessToken = jwtService.generateToken(userPrincipal, userPrincipal.getId(), familyId);
+		String refreshToken = jwtService.generateRefreshToken(userPrincipal, userPrincipal.getId(), familyId);
 		
 	     // Build and return response
         return AuthResponse.builder()
@@ -145,60 +189,90 @@ public class AuthServiceImpl implements AuthService{
 		} catch(BadCredentialsException e)
 		{
 			log.error("Login failed for user: {}", request.getUsernameOrEmail());
+			loginAttemptService.recordFailure(request.getUsernameOrEmail(), clientIp);
             throw new UnauthorizedException("Invalid username or password");
+		} catch(LockedException | DisabledException e)
+		{
+			log.error("Login rejected for user: {}: {}", request.getUsernameOrEmail(), e.getMessage());
+            throw new UnauthorizedException("User account is disabled or locked");
 		}
 		
 	}
 	
-	@Transactional
+    /**
+     * Rotate refresh token: each refresh token can be used once and is replaced by a new one
+     * Presenting an already used refresh token revokes the whole token family
+     * Not transactional: consuming the token must commit on its own, whatever happens next
+     */
 	@Override
 	public AuthResponse refreshToken(String refreshToken)
 	{
 		log.info("Refreshing access token");
 
-        // Validate refresh token
-		if(!jwtService.validateToken(refreshToken))
+        // Validate refresh token and read its claims with a single parse
+		VerifiedToken verifiedToken = jwtService.verify(refreshToken)
+				.filter(VerifiedToken::isRefreshToken)
+				.orElseThrow( () -> new UnauthorizedException("Invalid or expired refresh token") );
+		
+		// Reject refresh tokens of a revoked family (logout or earlier reuse)
+		if (tokenRevocationService.isFamilyRevoked(verifiedToken))
 		{
 			throw new UnauthorizedException("Invalid or expired refresh token");
 		}
 		
-		// Extract username from token
-		String username = jwtService.extractUsername(refreshToken);
-		Long userId = jwtService.extractUserId(refreshToken);
+		// Consume token, a second use of the same token is a replay
+		if (!tokenRevocationService.consumeRefreshToken(verifiedToken))
+		{
+			log.warn("Refresh token reuse detected for user ID: {}, revoking token family", verifiedToken.getUserId());
+			tokenRevocationService.revokeFamily(verifiedToken, TokenRevocationReason.REUSE_DETECTED);
+			throw new UnauthorizedException("Refresh token has already been used");
+		}
 		
-		// Load user details
-		User user = userRepository.findByUsername(username).orElseThrow( () -> new ResourceNotFoundException("User", "username", username));
+		// Load user details, served from the principal cache when possible
+		UserPrincipal userPrincipal = (UserPrincipal) userDetailsService.loadUserById(verifiedToken.getUserId());
 		
-		UserPrincipal userPrincipal = UserPrincipal.create(user);
+		if (!userPrincipal.isEnabled() || !userPrincipal.isAccountNonLocked())
+		{
+			throw new UnauthorizedException("User account is disabled or locked");
+		}
 		
-		// Generate tokens
-		String newAccessToken = jwtService.generateToken(userPrincipal, userId);
-		String newRefreshToken = jwtService.generateRefreshToken(userPrincipal, user.getId());
+		// Generate tokens, staying in the same token family
+		String familyId = verifiedToken.getFamilyId() != null ? verifiedToken.getFamilyId() : jwtService.newTokenFamilyId();
+		String newAccessToken = jwtService.generateToken(userPrincipal, userPrincipal.getId(), familyId);
+		String newRefreshToken = jwtService.generateRefreshToken(userPrincipal, userPrincipal.getId(), familyId);
 		
-		log.info("Token refreshed successfully for user: {}", username);
+		log.info("Token refreshed successfully for user: {}", userPrincipal.getUsername());
 		
 		// Build and return response
 		return AuthResponse.builder()
 	                .accessToken(newAccessToken)
 	                .refreshToken(newRefreshToken)
 	                .tokenType(JwtConstants.TOKEN_TYPE)
-	                .userId(user.getId())
-	                .username(user.getUsername())
-	                .email(user.getEmail())
-	                .firstName(user.getFirstName())
-	                .lastName(user.getLastName())
-	                .roles(user.getRoles().stream().map(Role::getName).collect(Collectors.toSet()))
+	                .userId(userPrincipal.getId())
+	                .username(userPrincipal.getUsername())
+	                .email(userPrincipal.getEmail())
+	                .firstName(userPrincipal.getFirstName())
+	                .lastName(userPrincipal.getLastName())
+	                .roles(userPrincipal.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()))
 	                .build();
 	}
 	
+    /**
+     * Revoke the presented access token and its whole token family,
+     * so the refresh token issued with it stops working too
+     */
     @Override
     public void logout(String token) 
     {
         log.info("User logging out");
-        // In a stateless JWT system, logout is typically handled client-side
-        // by removing the token from storage
-        // If you need server-side token invalidation, you can implement
-        // a token blacklist using Redis
+        
+        String jwt = (token != null && token.startsWith(JwtConstants.TOKEN_PREFIX)) ? token.substring(JwtConstants.TOKEN_PREFIX.length()) : token;
+        
+        jwtService.verify(jwt).ifPresent(verifiedToken -> {
+        	tokenRevocationService.revokeToken(verifiedToken, TokenRevocationReason.LOGOUT);
+        	tokenRevocationService.revokeFamily(verifiedToken, TokenRevocationReason.LOGOUT);
+        	log.info("Tokens revoked for user ID: {}", verifiedToken.getUserId());
+        });
     }
 
 }
@@ -0,0 +1,393 @@
+package com.commercehub.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.exception.ResourceNotFoundException;
+import com.commercehub.repository.OrderItemRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.ProductStockChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory inventory for hot products, enabled with inventory.engine.enabled=true
+ *
+ * Each tracked product owns a slot, found through a primitive product ID to slot map
+ * The available stock of a slot is split over striped long counters, each on its own cache line:
+ * a reservation is one CAS on the calling thread's stripe, and only when that stripe runs short are the
+ * stripes drained and spread again under a per-slot lock. A seqlock lets a sold-out check read all stripes without the lock
+ *
+ * Reserved order lines are saved with stock_applied = 0 and products is left untouched, the flush job
+ * writes their decrements to products in batches, one transaction per batch, and marks them applied
+ * The order tables are the source of truth: a slot is loaded as products.quantity_in_stock minus pending lines,
+ * so a restart after a crash rebuilds the same counters whatever was or was not flushed
+ *
+ * Counters are node-local, only one node may place orders while the engine is enabled
+ *
+ * Metrics:
+ * - inventory.engine.products        products tracked in memory
+ * - inventory.engine.units.written   units of pending order lines written to products
+ */
+
+@Component
+@ConditionalOnProperty(name = "inventory.engine.enabled", havingValue = "true")
+@Slf4j
+public class InventoryEngine {
+
+	private static final String APPLY_STOCK_SQL =
+			"UPDATE products SET quantity_in_stock = quantity_in_stock - ?, version = version + 1 WHERE id = ?";
+
+	/** Longs per cell, one 64 byte cache line so stripes never share a line */
+	private static final int PAD = 8;
+
+	/** Per-slot locks serializing drains of the same slot */
+	private static final int DRAIN_LOCKS = 64;
+
+	private final ProductRepository productRepository;
+
+	private final OrderItemRepository orderItemRepository;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	private final int stripes;
+
+	/** Stripe cells followed by one seqlock cell per slot */
+	private final int cellsPerSlot;
+
+	private final ProductSlotMap slots;
+
+	private final AtomicLongArray cells;
+
+	private final Object[] drainLocks = new Object[DRAIN_LOCKS];
+
+	/** Held while a slot is loaded or pending lines are written, so a load never sees half a flush */
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final Counter unitsWrittenCounter;
+
+	public InventoryEngine(ProductRepository productRepository, OrderItemRepository orderItemRepository,
+			JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			@Value("${inventory.engine.max-products:4096}") int maxProducts,
+			@Value("${inventory.engine.stripes:0}") int stripes,
+			@Value("${inventory.engine.batch-size:1000}") int batchSize,
+			MeterRegistry meterRegistry)
+	{
+		this.productRepository = productRepository;
+		this.orderItemRepository = orderItemRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.batchSize = batchSize;
+
+		// Power of two stripes, one per core by default
+		int requested = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+		this.stripes = Integer.highestOneBit(Math.min(64, Math.max(1, requested) * 2 - 1));
+		this.cellsPerSlot = this.stripes + 1;
+		this.slots = new ProductSlotMap(maxProducts);
+		this.cells = new AtomicLongArray(maxProducts * cellsPerSlot * PAD);
+		for (int i = 0; i < DRAIN_LOCKS; i++)
+		{
+			drainLocks[i] = new Object();
+		}
+
+		Gauge.builder("inventory.engine.products", slots, ProductSlotMap::size)
+				.description("Products whose stock is tracked in memory")
+				.register(meterRegistry);
+		this.unitsWrittenCounter = Counter.builder("inventory.engine.units.written")
+				.description("Units of pending order lines written to products")
+				.register(meterRegistry);
+
+		log.info("Inventory engine tracks up to {} products over {} stripes", maxProducts, this.stripes);
+	}
+
+    /**
+     * Slot of a tracked product
+     *
+     * @return the slot, or -1 if the product is not tracked
+     */
+	public int slotOf(Long productId)
+	{
+		return slots.get(productId);
+	}
+
+    /**
+     * Slot of a product, loading it from the order tables on first use
+     * Must be called before the caller's transaction writes anything, loading waits for a running flush
+     *
+     * @return the slot, or -1 if every slot is taken
+     * @throws ResourceNotFoundException if the product does not exist
+     */
+	public int track(Long productId)
+	{
+		int slot = slots.get(productId);
+		if (slot >= 0)
+		{
+			return slot;
+		}
+
+		synchronized (slots)
+		{
+			slot = slots.get(productId);
+			if (slot >= 0 || slots.size() == slots.capacity())
+			{
+				return slot;
+			}
+
+			long available;
+			flushLock.lock();
+			try
+			{
+				available = productRepository.findAvailableStock(productId)
+						.orElseThrow( () -> new ResourceNotFoundException("Product", "id", productId) );
+			}
+			finally
+			{
+				flushLock.unlock();
+			}
+
+			slot = slots.size();
+			spread(slot, available);
+			slots.add(productId);
+
+			log.debug("Tracking product {} in slot {} with {} available", productId, slot, available);
+			return slot;
+		}
+	}
+
+    /**
+     * Take quantity units from a slot
+     *
+     * @return true if the units were granted
+     */
+	public boolean tryReserve(int slot, int quantity)
+	{
+		// Fast path: one CAS on the calling thread's stripe
+		int home = stripeIndex(slot, homeStripe());
+		long current = cells.get(home);
+		while (current >= quantity)
+		{
+			if (cells.compareAndSet(home, current, current - quantity))
+			{
+				return true;
+			}
+			current = cells.get(home);
+		}
+
+		// Sold out check without the lock, trusted only if no drain ran meanwhile
+		int seq = seqIndex(slot);
+		long before = cells.get(seq);
+		if ((before & 1) == 0 && sum(slot) < quantity && cells.get(seq) == before)
+		{
+			return false;
+		}
+
+		synchronized (drainLocks[slot & (DRAIN_LOCKS - 1)])
+		{
+			cells.incrementAndGet(seq);
+			try
+			{
+				long drained = 0;
+				for (int stripe = 0; stripe < stripes; stripe++)
+				{
+					drained += cells.getAndSet(stripeIndex(slot, stripe), 0);
+				}
+
+				boolean granted = drained >= quantity;
+				spread(slot, granted ? drained - quantity : drained);
+				return granted;
+			}
+			finally
+			{
+				cells.incrementAndGet(seq);
+			}
+		}
+	}
+
+    /**
+     * Give units back to a slot, or remove them with a negative quantity
+     */
+	public void release(int slot, long quantity)
+	{
+		cells.addAndGet(stripeIndex(slot, homeStripe()), quantity);
+	}
+
+    /**
+     * Units available in a slot, exact only while no reservation is running
+     */
+	public long available(int slot)
+	{
+		return sum(slot);
+	}
+
+    /**
+     * Apply an administrator's stock change to the counter once it is committed
+     * The product is tracked before the change is written, so the load can never see it and count it twice
+     */
+	@EventListener
+	public void onProductStockChanged(ProductStockChangedEvent event)
+	{
+		int slot = track(event.productId());
+		if (slot < 0 || event.delta() == 0)
+		{
+			return;
+		}
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			release(slot, event.delta());
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit()
+			{
+				release(slot, event.delta());
+			}
+		});
+	}
+
+    /**
+     * Write decrements of pending order lines to products, one transaction per batch
+     * Lines are marked applied in the same transaction, so a crash at any point neither loses nor repeats a decrement
+     */
+	@Scheduled(fixedDelayString = "${inventory.engine.flush-interval-ms:1000}")
+	public void flush()
+	{
+		flushLock.lock();
+		try
+		{
+			int written;
+			do
+			{
+				written = transactionTemplate.execute(status -> writeBatch());
+			}
+			while (written == batchSize);
+
+		} catch (RuntimeException e) {
+			// Lines stay pending and are picked up by the next run
+			log.error("Failed to write pending stock decrements: {}", e.getMessage());
+
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	void flushOnShutdown()
+	{
+		flush();
+	}
+
+	private int writeBatch()
+	{
+		List<OrderItemRepository.PendingStock> pending = orderItemRepository.findPendingStock(PageRequest.of(0, batchSize));
+		if (pending.isEmpty())
+		{
+			return 0;
+		}
+
+		List<Long> ids = new ArrayList<>(pending.size());
+		Map<Long, Long> decrements = new TreeMap<>();
+		for (OrderItemRepository.PendingStock line : pending)
+		{
+			ids.add(line.getId());
+			decrements.merge(line.getProductId(), line.getQuantity().longValue(), Long::sum);
+		}
+
+		// Another writer got some lines first, roll back and read them again next run
+		if (orderItemRepository.markStockApplied(ids) != ids.size())
+		{
+			throw new IllegalStateException("Pending order lines were applied concurrently");
+		}
+
+		// Ascending product ID order, like every other stock update
+		List<Object[]> updates = new ArrayList<>(decrements.size());
+		long units = 0;
+		for (Map.Entry<Long, Long> decrement : decrements.entrySet())
+		{
+			updates.add(new Object[] { decrement.getValue(), decrement.getKey() });
+			units += decrement.getValue();
+		}
+		jdbcTemplate.batchUpdate(APPLY_STOCK_SQL, updates);
+
+		unitsWrittenCounter.increment(units);
+		log.debug("Wrote {} units of {} order lines to {} products", units, pending.size(), decrements.size());
+		return pending.size();
+	}
+
+    /**
+     * Add units evenly over the stripes of a slot, a negative amount goes to one stripe
+     */
+	private void spread(int slot, long units)
+	{
+		if (units <= 0)
+		{
+			if (units < 0)
+			{
+				cells.addAndGet(stripeIndex(slot, 0), units);
+			}
+			return;
+		}
+
+		long share = units / stripes;
+		long rest = units % stripes;
+		for (int stripe = 0; stripe < stripes; stripe++)
+		{
+			long add = share + (stripe < rest ? 1 : 0);
+			if (add > 0)
+			{
+				cells.addAndGet(stripeIndex(slot, stripe), add);
+			}
+		}
+	}
+
+	private long sum(int slot)
+	{
+		long total = 0;
+		for (int stripe = 0; stripe < stripes; stripe++)
+		{
+			total += cells.get(stripeIndex(slot, stripe));
+		}
+		return total;
+	}
+
+	private int homeStripe()
+	{
+		long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & (stripes - 1);
+	}
+
+	private int stripeIndex(int slot, int stripe)
+	{
+		return (slot * cellsPerSlot + stripe) * PAD;
+	}
+
+	private int seqIndex(int slot)
+	{
+		return stripeIndex(slot, stripes);
+	}
+}
@@ -0,0 +1,139 @@
+package com.commercehub.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.commercehub.entity.Product;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.StockReservationStrategy;
+
+/**
+ * Reserves stock in the InventoryEngine, without touching products
+ * Units are taken from the in-memory counters before the order is saved and given back if the transaction rolls back,
+ * the decrements reach products later through the engine's flush
+ *
+ * Products the engine has no slot for are reserved by the configured fallback strategy
+ */
+
+public class InventoryEngineStockReservationStrategy extends StockReservationSupport {
+
+	private final InventoryEngine engine;
+
+	private final StockReservationStrategy fallback;
+
+	public InventoryEngineStockReservationStrategy(ProductRepository productRepository, InventoryEngine engine, StockReservationStrategy fallback)
+	{
+		super(productRepository);
+		this.engine = engine;
+		this.fallback = fallback;
+	}
+
+	@Override
+	public Map<Long, Product> reserve(SortedMap<Long, Integer> quantities)
+	{
+		// Resolve slots first, loading a slot must happen before this transaction writes anything
+		SortedMap<Long, Integer> tracked = new TreeMap<>();
+		SortedMap<Long, Integer> untracked = new TreeMap<>();
+		Map<Long, Integer> slotByProduct = new TreeMap<>();
+		for(Map.Entry<Long, Integer> requested : quantities.entrySet())
+		{
+			int slot = engine.track(requested.getKey());
+			if(slot < 0)
+			{
+				untracked.put(requested.getKey(), requested.getValue());
+			}
+			else
+			{
+				tracked.put(requested.getKey(), requested.getValue());
+				slotByProduct.put(requested.getKey(), slot);
+			}
+		}
+
+		// Units taken so far go back if anything below fails or the order is not committed
+		List<int[]> reserved = new ArrayList<>(tracked.size());
+		afterCompletion(status -> {
+			if(status != TransactionSynchronization.STATUS_COMMITTED)
+			{
+				reserved.forEach(reservation -> engine.release(reservation[0], reservation[1]));
+			}
+		});
+
+		for(Map.Entry<Long, Integer> requested : tracked.entrySet())
+		{
+			int slot = slotByProduct.get(requested.getKey());
+			if(!engine.tryReserve(slot, requested.getValue()))
+			{
+				String name = productRepository.findStockLevels(List.of(requested.getKey())).get(0).getName();
+				int available = (int) Math.max(0, Math.min(Integer.MAX_VALUE, engine.available(slot)));
+				throw new InsufficientStockException(name, requested.getValue(), available);
+			}
+			reserved.add(new int[] { slot, requested.getValue() });
+		}
+
+		Map<Long, Product> products = loadProducts(tracked.keySet());
+		if(!untracked.isEmpty())
+		{
+			products.putAll(fallback.reserve(untracked));
+		}
+		return products;
+	}
+
+	/**
+	 * Restore stock in products right away, and in the engine once the cancellation is committed
+	 * Pending lines of the order are still written by the flush, the increment here balances them
+	 * Only products the engine already tracks get their units back in a slot, releasing never starts tracking a product:
+	 * a slot loaded later reads the committed increment from products, the row lock of the increment holds that load back
+	 */
+	@Override
+	public void release(SortedMap<Long, Integer> quantities)
+	{
+		Map<Integer, Integer> releasedBySlot = new TreeMap<>();
+		for(Map.Entry<Long, Integer> released : quantities.entrySet())
+		{
+			int slot = engine.slotOf(released.getKey());
+			if(slot >= 0)
+			{
+				releasedBySlot.put(slot, released.getValue());
+			}
+		}
+
+		super.release(quantities);
+
+		afterCompletion(status -> {
+			if(status == TransactionSynchronization.STATUS_COMMITTED)
+			{
+				releasedBySlot.forEach(engine::release);
+			}
+		});
+	}
+
+	@Override
+	public boolean isDeferred(Long productId)
+	{
+		return engine.slotOf(productId) >= 0;
+	}
+
+	private static void afterCompletion(IntConsumer callback)
+	{
+		if(!TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			throw new IllegalStateException("Stock reservation requires an active transaction");
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status)
+			{
+				callback.accept(status);
+			}
+		});
+	}
+}
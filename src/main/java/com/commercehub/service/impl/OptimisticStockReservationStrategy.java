@@ -0,0 +1,82 @@
+package com.commercehub.service.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.commercehub.entity.Product;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.exception.ResourceNotFoundException;
+import com.commercehub.exception.ServiceUnavailableException;
+import com.commercehub.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reserves stock against the product version:
+ * stock levels are read without locks, and each product is decreased only if its version has not moved since
+ * A product changed by another transaction is read again and retried, up to maxAttempts times per product
+ * 
+ * The versioned UPDATE is issued directly instead of flushing a dirty entity,
+ * so a conflict does not poison the persistence context and can be retried in the same transaction
+ */
+
+@Slf4j
+public class OptimisticStockReservationStrategy extends StockReservationSupport {
+	
+	private final int maxAttempts;
+
+	public OptimisticStockReservationStrategy(ProductRepository productRepository, int maxAttempts)
+	{
+		super(productRepository);
+		this.maxAttempts = Math.max(1, maxAttempts);
+	}
+
+	@Override
+	public Map<Long, Product> reserve(SortedMap<Long, Integer> quantities)
+	{
+		Map<Long, ProductRepository.StockLevel> levels = new HashMap<>();
+		for(ProductRepository.StockLevel level : productRepository.findStockLevels(quantities.keySet()))
+		{
+			levels.put(level.getId(), level);
+		}
+		
+		for(Map.Entry<Long, Integer> requested : quantities.entrySet())
+		{
+			Long productId = requested.getKey();
+			int quantity = requested.getValue();
+			ProductRepository.StockLevel level = levels.get(productId);
+			
+			for(int attempt = 1; ; attempt++)
+			{
+				if(level == null)
+				{
+					throw new ResourceNotFoundException("Product", "id", productId);
+				}
+				
+				if(level.getQuantityInStock() < quantity)
+				{
+					throw new InsufficientStockException(level.getName(), quantity, level.getQuantityInStock());
+				}
+				
+				if(productRepository.decreaseStockAtVersion(quantity, productId, level.getVersion()) == 1)
+				{
+					break;
+				}
+				
+				if(attempt == maxAttempts)
+				{
+					log.warn("Stock reservation for product {} gave up after {} version conflicts", productId, attempt);
+					throw new ServiceUnavailableException("Product '" + level.getName() + "' is in high demand, please retry");
+				}
+				
+				// Another transaction changed the product, read it again
+				List<ProductRepository.StockLevel> reread = productRepository.findStockLevels(List.of(productId));
+				level = reread.isEmpty() ? null : reread.get(0);
+			}
+		}
+		
+		return loadProducts(quantities.keySet());
+	}
+}
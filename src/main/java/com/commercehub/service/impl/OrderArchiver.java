@@ -0,0 +1,282 @@
+package com.commercehub.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.util.OrderStatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves DELIVERED and CANCELLED orders placed more than orders.archive.min-age-days ago
+ * from orders and order_items to orders_archive and order_items_archive
+ *
+ * Old orders are walked by ascending ID in chunks, each chunk in its own transaction:
+ * the orders still archivable are locked and loaded with their lines, copied with one JDBC batch per table,
+ * then deleted through the entities so their lines and join rows go with them
+ * Orders with lines the inventory engine has not written to stock yet are left for a later run
+ * Archived orders are read-only, lookups by ID or number fall through to the archive, listings do not include them
+ * Off unless orders.archive.enabled is set
+ * Only the node holding the scheduler lease archives, and the lease is renewed after every chunk
+ *
+ * Metrics:
+ * - orders.archive.archived   orders moved to the archive
+ * - orders.archive.chunk      time to archive one chunk
+ * - orders.archive.lag        seconds the oldest archivable order is past the archive age, 0 when the archiver is caught up
+ */
+
+@Component
+@ConditionalOnProperty(name = "orders.archive.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
+public class OrderArchiver {
+
+	static final String LEASE_NAME = "order-archive";
+
+	private static final Set<OrderStatus> ARCHIVED_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
+	private static final String INSERT_ORDER_SQL =
+			"INSERT INTO orders_archive (id, order_number, user_id, order_status, payment_status, total_amount, refunded_amount, "
+			+ "shipping_address, billing_address, payment_method, notes, ordered_at, shipped_at, delivered_at, cancelled_at, "
+			+ "refunded_at, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_ITEM_SQL =
+			"INSERT INTO order_items_archive (id, order_id, product_id, quantity, returned_quantity, unit_price, total_price) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	private final OrderRepository orderRepository;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final SchedulerLeases schedulerLeases;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Duration minAge;
+
+	private final int chunkSize;
+
+	private final int maxChunksPerRun;
+
+	private final Duration leaseDuration;
+
+	/** Same zone Hibernate binds timestamps in, so values match those read through JPA */
+	private final TimeZone jdbcTimeZone;
+
+	private final Counter archivedCounter;
+
+	private final Timer chunkTimer;
+
+	private final AtomicLong lagSeconds = new AtomicLong();
+
+	public OrderArchiver(OrderRepository orderRepository,
+			JdbcTemplate jdbcTemplate,
+			SchedulerLeases schedulerLeases,
+			TransactionTemplate transactionTemplate,
+			@Value("${orders.archive.min-age-days:90}") long minAgeDays,
+			@Value("${orders.archive.chunk-size:500}") int chunkSize,
+			@Value("${orders.archive.max-chunks-per-run:100}") int maxChunksPerRun,
+			@Value("${orders.archive.lease-seconds:600}") long leaseSeconds,
+			@Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone,
+			MeterRegistry meterRegistry)
+	{
+		this.orderRepository = orderRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.schedulerLeases = schedulerLeases;
+		this.transactionTemplate = transactionTemplate;
+		this.minAge = Duration.ofDays(minAgeDays);
+		this.chunkSize = chunkSize;
+		this.maxChunksPerRun = maxChunksPerRun;
+		this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+		this.jdbcTimeZone = jdbcTimeZone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(jdbcTimeZone);
+
+		this.archivedCounter = Counter.builder("orders.archive.archived")
+				.description("Orders moved to the archive tables")
+				.register(meterRegistry);
+		this.chunkTimer = Timer.builder("orders.archive.chunk")
+				.description("Time to move one chunk of orders to the archive tables")
+				.register(meterRegistry);
+		Gauge.builder("orders.archive.lag", lagSeconds, AtomicLong::get)
+				.description("Seconds the oldest archivable order is past the archive age")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+    /**
+     * Archive old orders, at most max-chunks-per-run chunks per run
+     */
+	@Scheduled(fixedDelayString = "${orders.archive.interval-ms:3600000}", initialDelayString = "${orders.archive.interval-ms:3600000}")
+	public void archiveOldOrders()
+	{
+		try {
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.debug("Order archiving runs on another node");
+				return;
+			}
+
+			try {
+				sweep(LocalDateTime.now().minus(minAge));
+			} finally {
+				schedulerLeases.release(LEASE_NAME);
+			}
+
+		} catch (RuntimeException e) {
+			log.error("Order archiving failed: {}", e.getMessage());
+
+		} finally {
+			updateLag();
+		}
+	}
+
+	private void sweep(LocalDateTime cutoff)
+	{
+		long afterId = 0;
+		long archived = 0;
+		int chunks = 0;
+
+		while (chunks < maxChunksPerRun)
+		{
+			List<Long> orderIds = orderRepository.findArchivableIds(ARCHIVED_STATUSES, cutoff, afterId, PageRequest.of(0, chunkSize));
+			if (orderIds.isEmpty())
+			{
+				break;
+			}
+
+			archived += chunkTimer.record(() -> archiveChunk(orderIds));
+			afterId = orderIds.get(orderIds.size() - 1);
+			chunks++;
+
+			if (orderIds.size() < chunkSize)
+			{
+				break;
+			}
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.warn("Lost the order archive lease after {} chunks", chunks);
+				break;
+			}
+		}
+
+		if (archived > 0)
+		{
+			log.info("Archived {} orders in {} chunks", archived, chunks);
+		}
+	}
+
+    /**
+     * Copy the orders of a chunk still in an archived status to the archive tables and delete them, in one transaction
+     * Locking them first keeps a concurrent return from changing an order that is being moved
+     */
+	private int archiveChunk(List<Long> orderIds)
+	{
+		Integer archived = transactionTemplate.execute(status -> {
+			List<Order> orders = orderRepository.findAllByIdForUpdate(orderIds, ARCHIVED_STATUSES);
+			if (orders.isEmpty())
+			{
+				return 0;
+			}
+
+			// Fills the lines of the orders just locked, they are the same managed instances
+			orderRepository.findAllWithItemsByIdIn(orders.stream().map(Order::getId).toList());
+
+			List<OrderItem> items = new ArrayList<>();
+			orders.forEach(order -> items.addAll(order.getItems()));
+
+			Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+			Calendar calendar = Calendar.getInstance(jdbcTimeZone);
+			jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders, chunkSize, (ps, order) -> {
+				ps.setLong(1, order.getId());
+				ps.setString(2, order.getOrderNumber());
+				setId(ps, 3, order.getUser() == null ? null : order.getUser().getId());
+				ps.setString(4, order.getOrderStatus().name());
+				ps.setString(5, order.getPaymentStatus().name());
+				ps.setBigDecimal(6, order.getTotalAmount());
+				ps.setBigDecimal(7, order.getRefundedAmount());
+				ps.setString(8, order.getShippingAddress());
+				ps.setString(9, order.getBillingAddress());
+				ps.setString(10, order.getPaymentMethod());
+				ps.setString(11, order.getNotes());
+				ps.setTimestamp(12, timestamp(order.getOrderedAt()), calendar);
+				ps.setTimestamp(13, timestamp(order.getShippedAt()), calendar);
+				ps.setTimestamp(14, timestamp(order.getDeliveredAt()), calendar);
+				ps.setTimestamp(15, timestamp(order.getCancelledAt()), calendar);
+				ps.setTimestamp(16, timestamp(order.getRefundedAt()), calendar);
+				ps.setTimestamp(17, archivedAt, calendar);
+			});
+			jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, chunkSize, (ps, item) -> {
+				ps.setLong(1, item.getId());
+				ps.setLong(2, item.getOrder().getId());
+				setId(ps, 3, item.getProduct() == null ? null : item.getProduct().getId());
+				ps.setInt(4, item.getQuantity());
+				ps.setInt(5, item.getReturnedQuantity());
+				ps.setBigDecimal(6, item.getUnitPrice());
+				ps.setBigDecimal(7, item.getTotalPrice());
+			});
+
+			// Lines are removed by cascade, all deletes are batched when the transaction flushes
+			orderRepository.deleteAll(orders);
+
+			return orders.size();
+		});
+
+		archivedCounter.increment(archived);
+		return archived;
+	}
+
+	private static void setId(PreparedStatement ps, int index, Long id) throws SQLException
+	{
+		if (id == null)
+		{
+			ps.setNull(index, Types.BIGINT);
+		}
+		else
+		{
+			ps.setLong(index, id);
+		}
+	}
+
+	private static Timestamp timestamp(LocalDateTime value)
+	{
+		return value == null ? null : Timestamp.valueOf(value);
+	}
+
+	private void updateLag()
+	{
+		try {
+			LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+			long lag = orderRepository.findOldestOrderedAtIn(ARCHIVED_STATUSES)
+					.map(oldest -> Math.max(0, Duration.between(oldest, cutoff).getSeconds()))
+					.orElse(0L);
+			lagSeconds.set(lag);
+
+		} catch (RuntimeException e) {
+			log.warn("Failed to measure order archive lag: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.commercehub.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.service.OrderChangedEvent;
+import com.commercehub.util.CacheNames;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache of order detail responses for customers polling an order
+ *
+ * Responses are cached by order ID, order numbers map to the order ID and never change,
+ * so dropping one order ID invalidates the lookup by number as well
+ * Entries are dropped on OrderChangedEvent after the change commits, ttl-seconds bounds
+ * staleness from changes made by other nodes
+ * Callers check access on every read, cached or not
+ *
+ * Metrics:
+ * - orders.cache.requests    lookups by result, hit or miss
+ * - orders.cache.size        cached orders
+ */
+
+@Component
+@Slf4j
+public class OrderDetailCache {
+
+	private final Cache<Long, OrderResponse> ordersById;
+
+	private final Cache<String, Long> orderIdsByNumber;
+
+	/** Bumped on every invalidation, a load that raced with one is not cached */
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final Counter hitCounter;
+
+	private final Counter missCounter;
+
+	public OrderDetailCache(@Value("${orders.cache.max-size:10000}") long maxSize,
+			@Value("${orders.cache.ttl-seconds:300}") long ttlSeconds,
+			MeterRegistry meterRegistry)
+	{
+		this.ordersById = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+		this.orderIdsByNumber = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.build();
+
+		this.hitCounter = Counter.builder("orders.cache.requests")
+				.tag("cache", CacheNames.ORDERS)
+				.tag("result", "hit")
+				.description("Order detail lookups served from cache")
+				.register(meterRegistry);
+		this.missCounter = Counter.builder("orders.cache.requests")
+				.tag("cache", CacheNames.ORDERS)
+				.tag("result", "miss")
+				.description("Order detail lookups loaded from the database")
+				.register(meterRegistry);
+		Gauge.builder("orders.cache.size", ordersById, Cache::estimatedSize)
+				.tag("cache", CacheNames.ORDERS)
+				.description("Cached order details")
+				.register(meterRegistry);
+		Gauge.builder("orders.cache.size", orderIdsByNumber, Cache::estimatedSize)
+				.tag("cache", CacheNames.ORDER_BY_NUMBER)
+				.description("Cached order number to ID mappings")
+				.register(meterRegistry);
+	}
+
+    /**
+     * Cached order details, loaded and cached on a miss
+     *
+     * @param orderId the order identifier
+     * @param loader loads the order details, throws if the order does not exist
+     */
+	public OrderResponse get(Long orderId, Function<Long, OrderResponse> loader)
+	{
+		OrderResponse cached = ordersById.getIfPresent(orderId);
+		if (cached != null)
+		{
+			hitCounter.increment();
+			return cached;
+		}
+		missCounter.increment();
+
+		long version = invalidations.get();
+		OrderResponse order = loader.apply(orderId);
+		cache(order, version);
+		return order;
+	}
+
+    /**
+     * Cached order details by order number, loaded and cached on a miss
+     *
+     * @param orderNumber the order number
+     * @param loader loads the order details, throws if the order does not exist
+     */
+	public OrderResponse getByNumber(String orderNumber, Function<String, OrderResponse> loader)
+	{
+		Long orderId = orderIdsByNumber.getIfPresent(orderNumber);
+		OrderResponse cached = orderId != null ? ordersById.getIfPresent(orderId) : null;
+		if (cached != null)
+		{
+			hitCounter.increment();
+			return cached;
+		}
+		missCounter.increment();
+
+		long version = invalidations.get();
+		OrderResponse order = loader.apply(orderNumber);
+		orderIdsByNumber.put(orderNumber, order.getId());
+		cache(order, version);
+		return order;
+	}
+
+    /**
+     * Drop cached details of the changed orders once the change is committed
+     * Runs right away when published outside a transaction
+     */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrderChanged(OrderChangedEvent event)
+	{
+		invalidations.incrementAndGet();
+		ordersById.invalidateAll(event.orderIds());
+		log.debug("Order cache entries dropped for {} orders", event.orderIds().size());
+	}
+
+    /**
+     * Cache freshly loaded details unless an invalidation happened since the load started
+     */
+	private void cache(OrderResponse order, long version)
+	{
+		ordersById.put(order.getId(), order);
+
+		// Re-check after publishing, an invalidation that ran in between may have missed the new entry
+		if (invalidations.get() != version)
+		{
+			ordersById.invalidate(order.getId());
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.commercehub.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.commercehub.repository.OrderNumberRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out order numbers in the format ORD-YYYY-XXXXXX from blocks of the order number sequence
+ *
+ * order_number_seq increments by BLOCK_SIZE, so one NEXT VALUE reserves the block [value, value + BLOCK_SIZE)
+ * for this node, and numbers inside a block are taken with a lock-free getAndIncrement
+ * Nodes never share a block, and the sequence never restarts, so numbers stay unique across nodes and years
+ * Unused numbers of a block are lost when the node stops, leaving gaps
+ *
+ * Formatting fills a per-thread buffer and allocates nothing but the returned String
+ */
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderNumberDispenser {
+
+	/** Must match INCREMENT BY of order_number_seq */
+	static final int BLOCK_SIZE = 1000;
+
+	private static final int MIN_DIGITS = 6;
+
+	private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[32]);
+
+	private final OrderNumberRepository orderNumberRepository;
+
+	private volatile Block block = new Block(0, 0);
+
+	private volatile YearPrefix prefix = new YearPrefix(0, 0, null);
+
+    /**
+     * Next unique order number
+     */
+	public String next()
+	{
+		return format(nextSequence(), System.currentTimeMillis());
+	}
+
+	long nextSequence()
+	{
+		while (true)
+		{
+			Block current = block;
+			long value = current.next.getAndIncrement();
+			if (value < current.end)
+			{
+				return value;
+			}
+
+			// Only the thread that finds the block exhausted first fetches the next one
+			synchronized (this)
+			{
+				if (block == current)
+				{
+					long start = orderNumberRepository.getNextSequence();
+					block = new Block(start, start + BLOCK_SIZE);
+					log.debug("Reserved order numbers {} to {}", start, start + BLOCK_SIZE - 1);
+				}
+			}
+		}
+	}
+
+	String format(long sequence, long nowMillis)
+	{
+		byte[] year = yearPrefix(nowMillis);
+		int digits = Math.max(MIN_DIGITS, digitCount(sequence));
+		byte[] buffer = BUFFER.get();
+
+		System.arraycopy(year, 0, buffer, 0, year.length);
+		int position = year.length + digits;
+		for (long rest = sequence; position > year.length; rest /= 10)
+		{
+			buffer[--position] = (byte) ('0' + rest % 10);
+		}
+
+		return new String(buffer, 0, year.length + digits, StandardCharsets.ISO_8859_1);
+	}
+
+    /**
+     * "ORD-YYYY-" for the current year in the default zone, rebuilt only when the year changes
+     */
+	private byte[] yearPrefix(long nowMillis)
+	{
+		YearPrefix current = prefix;
+		if (nowMillis >= current.from() && nowMillis < current.until())
+		{
+			return current.bytes();
+		}
+
+		ZoneId zone = ZoneId.systemDefault();
+		int year = Instant.ofEpochMilli(nowMillis).atZone(zone).getYear();
+		long from = Year.of(year).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+		long until = LocalDate.of(year + 1, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+		current = new YearPrefix(from, until, ("ORD-" + year + "-").getBytes(StandardCharsets.ISO_8859_1));
+		prefix = current;
+		return current.bytes();
+	}
+
+	private static int digitCount(long value)
+	{
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10)
+		{
+			digits++;
+		}
+		return digits;
+	}
+
+	/** Numbers [next, end) of a reserved block */
+	private static final class Block {
+
+		final AtomicLong next;
+
+		final long end;
+
+		Block(long start, long end)
+		{
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+	}
+
+	/** Prefix bytes valid in [from, until) epoch millis */
+	private record YearPrefix(long from, long until, byte[] bytes) {
+	}
+}
@@ -0,0 +1,104 @@
+package com.commercehub.service.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.commercehub.entity.OrderEvent;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.service.OrderChangedEvent;
+import com.commercehub.service.OrderEventMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes order events to the order_events outbox in the transaction that changed the orders,
+ * so an event exists if and only if its change committed
+ * OrderOutboxRelay publishes them to Kafka afterwards
+ *
+ * Rows are inserted as one JDBC batch: IDENTITY keys keep Hibernate from batching inserts
+ */
+
+@Component
+public class OrderOutbox {
+
+	private static final String INSERT_EVENT_SQL =
+			"INSERT INTO order_events (order_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+	private final OrderRepository orderRepository;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final int batchSize;
+
+	/** Same zone Hibernate binds timestamps in, so values match those read through JPA */
+	private final TimeZone jdbcTimeZone;
+
+	public OrderOutbox(OrderRepository orderRepository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			@Value("${orders.outbox.batch-size:500}") int batchSize,
+			@Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone)
+	{
+		this.orderRepository = orderRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.batchSize = batchSize;
+		this.jdbcTimeZone = jdbcTimeZone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(jdbcTimeZone);
+	}
+
+    /**
+     * Record one event per changed order, with the order's statuses as the publishing transaction sees them
+     * Runs synchronously in that transaction and fails it if the events cannot be written
+     */
+	@EventListener
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void onOrderChanged(OrderChangedEvent event)
+	{
+		if (event.orderIds().isEmpty())
+		{
+			return;
+		}
+
+		LocalDateTime occurredAt = LocalDateTime.now();
+		List<OrderEvent> events = new ArrayList<>(event.orderIds().size());
+		for (OrderRepository.OrderState state : orderRepository.findStatesByIdIn(event.orderIds()))
+		{
+			OrderEventMessage message = new OrderEventMessage(event.type(), state.getId(), state.getOrderNumber(),
+					state.getOrderStatus(), state.getPaymentStatus(), occurredAt);
+			events.add(OrderEvent.builder()
+					.orderId(state.getId())
+					.eventType(event.type())
+					.payload(toJson(message))
+					.createdAt(occurredAt)
+					.build());
+		}
+
+		Calendar calendar = Calendar.getInstance(jdbcTimeZone);
+		jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, events, batchSize, (ps, orderEvent) -> {
+			ps.setLong(1, orderEvent.getOrderId());
+			ps.setString(2, orderEvent.getEventType().name());
+			ps.setString(3, orderEvent.getPayload());
+			ps.setTimestamp(4, Timestamp.valueOf(orderEvent.getCreatedAt()), calendar);
+		});
+	}
+
+	private String toJson(OrderEventMessage message)
+	{
+		try {
+			return objectMapper.writeValueAsString(message);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot write order event", e);
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.commercehub.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.entity.OrderEvent;
+import com.commercehub.repository.OrderEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes order events from the order_events outbox to Kafka, keyed by order ID
+ *
+ * Events are read by ascending ID in batches and sent in waves: each wave holds the next event of every order in the batch,
+ * its sends do not wait on each other, and the next wave starts once Kafka acknowledged them
+ * An order whose send failed is left out of the following waves, the events Kafka acknowledged are deleted
+ * The rest are sent again on the next run, so delivery is at least once: consumers deduplicate on the event-id header
+ * Only the node holding the scheduler lease relays, which keeps each order's events in order
+ * Off unless orders.outbox.relay.enabled is set, events stay in the outbox until a relay runs
+ *
+ * Metrics:
+ * - orders.outbox.published    events acknowledged by Kafka
+ * - orders.outbox.batch        time to publish and delete one batch
+ * - orders.outbox.lag          seconds the oldest event has waited in the outbox, 0 when it is drained
+ */
+
+@Component
+@ConditionalOnProperty(name = "orders.outbox.relay.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
+public class OrderOutboxRelay {
+
+	static final String LEASE_NAME = "order-outbox-relay";
+
+	static final String EVENT_ID_HEADER = "event-id";
+
+	static final String EVENT_TYPE_HEADER = "event-type";
+
+	private final OrderEventRepository orderEventRepository;
+
+	private final KafkaTemplate<String, String> kafkaTemplate;
+
+	private final SchedulerLeases schedulerLeases;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final String topic;
+
+	private final int batchSize;
+
+	private final int maxBatchesPerRun;
+
+	private final long sendTimeoutMs;
+
+	private final Duration leaseDuration;
+
+	private final Counter publishedCounter;
+
+	private final Timer batchTimer;
+
+	private final AtomicLong lagSeconds = new AtomicLong();
+
+	public OrderOutboxRelay(OrderEventRepository orderEventRepository,
+			KafkaTemplate<String, String> kafkaTemplate,
+			SchedulerLeases schedulerLeases,
+			TransactionTemplate transactionTemplate,
+			@Value("${orders.outbox.topic:order-events}") String topic,
+			@Value("${orders.outbox.batch-size:500}") int batchSize,
+			@Value("${orders.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+			@Value("${orders.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+			@Value("${orders.outbox.lease-seconds:60}") long leaseSeconds,
+			MeterRegistry meterRegistry)
+	{
+		this.orderEventRepository = orderEventRepository;
+		this.kafkaTemplate = kafkaTemplate;
+		this.schedulerLeases = schedulerLeases;
+		this.transactionTemplate = transactionTemplate;
+		this.topic = topic;
+		this.batchSize = batchSize;
+		this.maxBatchesPerRun = maxBatchesPerRun;
+		this.sendTimeoutMs = sendTimeoutMs;
+		this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+
+		this.publishedCounter = Counter.builder("orders.outbox.published")
+				.description("Order events acknowledged by Kafka")
+				.register(meterRegistry);
+		this.batchTimer = Timer.builder("orders.outbox.batch")
+				.description("Time to publish one batch of order events and delete it from the outbox")
+				.register(meterRegistry);
+		Gauge.builder("orders.outbox.lag", lagSeconds, AtomicLong::get)
+				.description("Seconds the oldest order event has waited in the outbox")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+    /**
+     * Relay waiting events, at most max-batches-per-run batches per run
+     */
+	@Scheduled(fixedDelayString = "${orders.outbox.relay.interval-ms:500}", initialDelayString = "${orders.outbox.relay.interval-ms:500}")
+	public void relay()
+	{
+		try {
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.debug("Order outbox relay runs on another node");
+				return;
+			}
+
+			try {
+				drain();
+			} finally {
+				schedulerLeases.release(LEASE_NAME);
+			}
+
+		} catch (RuntimeException e) {
+			log.error("Order outbox relay failed: {}", e.getMessage());
+
+		} finally {
+			updateLag();
+		}
+	}
+
+	private void drain()
+	{
+		int batches = 0;
+		while (batches < maxBatchesPerRun)
+		{
+			List<OrderEvent> events = orderEventRepository.findNextBatch(PageRequest.of(0, batchSize));
+			if (events.isEmpty())
+			{
+				break;
+			}
+
+			int published = batchTimer.record(() -> publishBatch(events));
+			batches++;
+
+			if (published < events.size() || events.size() < batchSize)
+			{
+				break;
+			}
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.warn("Lost the order outbox relay lease after {} batches", batches);
+				break;
+			}
+		}
+	}
+
+    /**
+     * Send a batch in waves holding at most one event per order, and delete the acknowledged events
+     * An order's next event is only sent once Kafka acknowledged the previous one, and an order with a failed send
+     * sends nothing more in this run, so a later event of an order is never published before an earlier one
+     */
+	private int publishBatch(List<OrderEvent> events)
+	{
+		// Events of each order in outbox order, orders in the order of their first event
+		Map<Long, Deque<OrderEvent>> pending = new LinkedHashMap<>();
+		for (OrderEvent event : events)
+		{
+			pending.computeIfAbsent(event.getOrderId(), orderId -> new ArrayDeque<>()).add(event);
+		}
+
+		List<Long> acknowledged = new ArrayList<>(events.size());
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+		while (!pending.isEmpty())
+		{
+			List<OrderEvent> wave = new ArrayList<>(pending.size());
+			List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(pending.size());
+			for (Deque<OrderEvent> orderEvents : pending.values())
+			{
+				wave.add(orderEvents.peekFirst());
+				sends.add(send(orderEvents.peekFirst()));
+			}
+
+			for (int i = 0; i < wave.size(); i++)
+			{
+				OrderEvent event = wave.get(i);
+				try {
+					sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					acknowledged.add(event.getId());
+
+					Deque<OrderEvent> orderEvents = pending.get(event.getOrderId());
+					orderEvents.removeFirst();
+					if (orderEvents.isEmpty())
+					{
+						pending.remove(event.getOrderId());
+					}
+
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					pending.clear();
+					break;
+
+				} catch (ExecutionException | TimeoutException e) {
+					log.warn("Failed to publish order event {}, {} events of order {} left for the next run: {}",
+							event.getId(), pending.get(event.getOrderId()).size(), event.getOrderId(), e.getMessage());
+					pending.remove(event.getOrderId());
+				}
+			}
+		}
+
+		if (!acknowledged.isEmpty())
+		{
+			transactionTemplate.executeWithoutResult(status -> orderEventRepository.deleteAllByIdInBatch(acknowledged));
+			publishedCounter.increment(acknowledged.size());
+		}
+		return acknowledged.size();
+	}
+
+	private CompletableFuture<SendResult<String, String>> send(OrderEvent event)
+	{
+		ProducerRecord<String, String> record = new ProducerRecord<>(topic, event.getOrderId().toString(), event.getPayload());
+		record.headers().add(EVENT_ID_HEADER, event.getId().toString().getBytes(StandardCharsets.UTF_8));
+		record.headers().add(EVENT_TYPE_HEADER, event.getEventType().name().getBytes(StandardCharsets.UTF_8));
+
+		try {
+			return kafkaTemplate.send(record);
+		} catch (RuntimeException e) {
+			// Metadata or buffer space not available within max.block.ms
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private void updateLag()
+	{
+		try {
+			long lag = orderEventRepository.findFirstByOrderByIdAsc()
+					.map(oldest -> Math.max(0, Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).getSeconds()))
+					.orElse(0L);
+			lagSeconds.set(lag);
+
+		} catch (RuntimeException e) {
+			log.warn("Failed to measure order outbox lag: {}", e.getMessage());
+		}
+	}
+}
@@ -3,14 +3,32 @@ package com.commercehub.service.impl;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
 import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.ReturnOrderRequest;
+import com.commercehub.dto.response.BulkOrderUpdateResponse;
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.OrderResponse;
 import com.commercehub.dto.response.PageResponse;
 import com.commercehub.entity.Order;
@@ -19,17 +37,24 @@ import com.commercehub.entity.Product;
 import com.commercehub.entity.User;
 import com.commercehub.exception.BadRequestException;
 import com.commercehub.exception.ForbiddenException;
-import com.commercehub.exception.InsufficientStockException;
 import com.commercehub.exception.ResourceNotFoundException;
 import com.commercehub.mapper.OrderMapper;
 import com.commercehub.mapper.PageMapper;
-import com.commercehub.repository.OrderNumberRepository;
+import com.commercehub.repository.ArchivedOrderRepository;
+import com.commercehub.repository.OrderItemRepository;
 import com.commercehub.repository.OrderRepository;
-import com.commercehub.repository.ProductRepository;
 import com.commercehub.repository.UserRepository;
+import com.commercehub.security.CustomUserDetailsService;
 import com.commercehub.security.SecurityUtils;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.OrderChangedEvent;
 import com.commercehub.service.OrderService;
+import com.commercehub.service.QueuedOrder;
+import com.commercehub.service.StockReservationStrategy;
+import com.commercehub.util.KeysetCursor;
+import com.commercehub.util.OrderEventType;
 import com.commercehub.util.OrderStatus;
+import com.commercehub.util.OrderTransitions;
 import com.commercehub.util.PaymentStatus;
 import com.commercehub.util.RoleName;
 
@@ -41,46 +66,56 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class OrderServiceImpl implements OrderService{
 	
+	/** Orders per bulk UPDATE, keeps IN lists well below the SQL Server parameter limit */
+	private static final int BULK_CHUNK_SIZE = 1000;
+	
 	private final OrderRepository orderRepository;
 	
-	private final UserRepository userRepository;
+	private final OrderItemRepository orderItemRepository;
+	
+	private final ArchivedOrderRepository archivedOrderRepository;
 	
-	private final ProductRepository productRepository;
+	private final UserRepository userRepository;
 	
-	private final OrderNumberRepository orderNumberRepository;
+	private final OrderNumberDispenser orderNumberDispenser;
 	
 	private final OrderMapper orderMapper;
 	
 	private final PageMapper pageMapper;
 	
+	private final CustomUserDetailsService userDetailsService;
+	
+	private final StockReservationStrategy stockReservationStrategy;
+	
+	private final OrderDetailCache orderDetailCache;
+	
+	private final ApplicationEventPublisher eventPublisher;
+	
 	
     /**
      * Check if current user can access the order
      */
     private void checkOrderAccess(Order order) 
     {
-        if (!SecurityUtils.isOwnerOrHasAuthority(order.getUser().getId(), RoleName.ROLE_ADMIN.name())) 
+        checkOrderAccess(order.getUser().getId());
+    }
+    
+    /**
+     * Check if current user can access an order of the given owner
+     */
+    private void checkOrderAccess(Long ownerId) 
+    {
+        if (!SecurityUtils.isOwnerOrHasRole(ownerId, RoleName.ROLE_ADMIN)) 
         {
             throw new ForbiddenException("You don't have permission to access this order");
         }
     }
     
     /**
-     * Generates a unique order number in the format:
-     * ORD-YYYY-XXXXXX
-     *
-     * @return generated order number as String
+     * Place an order with a fixed number of statements whatever the number of lines:
+     * stock of all products is reserved by the configured StockReservationStrategy, in ascending ID order,
+     * before the order is built, and the user is only referenced by ID
      */
-    @Transactional
-    private String orderNumberGenerator() 
-    {
-        int year = LocalDateTime.now().getYear();
-        Long seq = orderNumberRepository.getNextSequence();
-
-        /** pad sequence to 6 digits */
-        return "ORD-" + year + "-" + String.format("%06d", seq);
-    }
-        
 	@Transactional
 	@Override
 	public OrderResponse createOrder(CreateOrderRequest request) 
@@ -88,11 +123,82 @@ public class OrderServiceImpl implements OrderService{
 		log.info("Creating new order for user");
 		
 		Long userId = SecurityUtils.getCurrentUserIdOrThrow();
-		User user = userRepository.findById(userId).orElseThrow( () -> new ResourceNotFoundException("User", "id", userId) );
 		
-		// Create order
+		// Customer name comes from the principal cache, the order only needs the user's foreign key
+		UserPrincipal customer = (UserPrincipal) userDetailsService.loadUserById(userId);
+		User user = userRepository.getReferenceById(userId);
+		
+		// Requested quantity per product, lines of the same product add up
+		SortedMap<Long, Integer> requestedQuantities = new TreeMap<>();
+		addRequestedQuantities(request, requestedQuantities);
+		
+		// Reserve stock of every line, fails with InsufficientStockException before the order exists
+		Map<Long, Product> products = stockReservationStrategy.reserve(requestedQuantities);
+		
+		Order order = buildOrder(orderNumberDispenser.next(), user, request, products);
+		
+		Order savedOrder = orderRepository.save(order);
+		
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(savedOrder.getId(), OrderEventType.ORDER_CREATED));
+		
+		log.info("Order created successfully with number: {}", savedOrder.getOrderNumber());
+
+		return orderMapper.toResponse(savedOrder, customer.getFullName());
+	}
+
+    /**
+     * Place queued orders in one transaction: stock of all of them is reserved by one reservation,
+     * summed per product over the batch, and the orders are inserted together
+     */
+	@Transactional
+	@Override
+	public List<Long> placeOrders(List<QueuedOrder> queuedOrders)
+	{
+		SortedMap<Long, Integer> requestedQuantities = new TreeMap<>();
+		for(QueuedOrder queuedOrder : queuedOrders)
+		{
+			addRequestedQuantities(queuedOrder.request(), requestedQuantities);
+		}
+		
+		// Fails the whole batch if any product is missing or short of stock
+		Map<Long, Product> products = stockReservationStrategy.reserve(requestedQuantities);
+		
+		List<Order> orders = new ArrayList<>(queuedOrders.size());
+		for(QueuedOrder queuedOrder : queuedOrders)
+		{
+			orders.add(buildOrder(queuedOrder.orderNumber(), userRepository.getReferenceById(queuedOrder.userId()),
+					queuedOrder.request(), products));
+		}
+		
+		List<Long> orderIds = orderRepository.saveAll(orders).stream()
+				.map(Order::getId)
+				.toList();
+		
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrders(orderIds, OrderEventType.ORDER_CREATED));
+		
+		log.debug("Placed {} queued orders", orderIds.size());
+		
+		return orderIds;
+	}
+	
+    /**
+     * Add the quantity of every line of the request to the requested quantity of its product
+     */
+	private void addRequestedQuantities(CreateOrderRequest request, SortedMap<Long, Integer> requestedQuantities)
+	{
+		for(CreateOrderRequest.OrderItemRequest itemRequest : request.getItems())
+		{
+			requestedQuantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+		}
+	}
+	
+    /**
+     * Build a PENDING order with its lines priced from the reserved products
+     */
+	private Order buildOrder(String orderNumber, User user, CreateOrderRequest request, Map<Long, Product> products)
+	{
 		Order order = Order.builder()
-				.orderNumber(orderNumberGenerator())
+				.orderNumber(orderNumber)
 				.user(user)
 				.orderStatus(OrderStatus.PENDING)
 				.paymentStatus(PaymentStatus.UNPAID)
@@ -105,18 +211,12 @@ public class OrderServiceImpl implements OrderService{
 				.build();
 		
 		// Process order items
-		List<OrderItem> orderItems = new ArrayList<>();
+		List<OrderItem> orderItems = new ArrayList<>(request.getItems().size());
 		BigDecimal totalAmount = BigDecimal.ZERO;
 		
 		for(CreateOrderRequest.OrderItemRequest itemRequest : request.getItems())
 		{
-			Product product = productRepository.findById(itemRequest.getProductId()).orElseThrow( () -> new ResourceNotFoundException("Product", "id", itemRequest.getProductId()) );
-			
-			// Check stock availability
-			if(!product.isQuantityAvailable(itemRequest.getQuantity()))
-			{
-				throw new InsufficientStockException( product.getName(), itemRequest.getQuantity(), product.getQuantityInStock() );
-			}
+			Product product = products.get(itemRequest.getProductId());
 			
 			// Create order item
 			OrderItem orderItem = OrderItem.builder()
@@ -124,52 +224,54 @@ public class OrderServiceImpl implements OrderService{
 					.product(product)
 					.quantity(itemRequest.getQuantity())
 					.unitPrice(product.getPrice())
+					.stockApplied(!stockReservationStrategy.isDeferred(product.getId()))
 					.build();
 			
 			orderItem.calculateTotalPrice();
 			
 			orderItems.add(orderItem);
 			totalAmount = totalAmount.add(orderItem.getTotalPrice());
-			
-			// Decrease product stock
-			product.decreaseStock(itemRequest.getQuantity());
-			productRepository.save(product);
 		}
 		
 		order.setItems(orderItems);
 		order.setTotalAmount(totalAmount);
 		
-		Order savedOrder = orderRepository.save(order);
-		
-		log.info("Order created successfully with number: {}", savedOrder.getOrderNumber());
-
-		return orderMapper.toResponse(savedOrder);
+		return order;
 	}
 
-	@Transactional(readOnly = true)
+    /**
+     * Served through OrderDetailCache, the access check runs on cached entries too
+     * Not transactional so cache hits never touch a connection, the details fetch plan loads everything the mapper reads
+     * An order not in the hot table is looked up in the archive
+     */
 	@Override
 	public OrderResponse getOrderById(Long orderId) 
 	{
 		log.debug("Fetching order by ID: {}", orderId);
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
+		OrderResponse order = orderDetailCache.get(orderId, id -> orderRepository.findWithDetailsById(id)
+				.map(orderMapper::toResponse)
+				.or(() -> archivedOrderRepository.findWithDetailsById(id).map(orderMapper::toResponse))
+				.orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", id) ));
 		
-		checkOrderAccess(order);
+		checkOrderAccess(order.getUserId());
 		
-		return orderMapper.toResponse(order);
+		return order;
 	}
 
-	@Transactional(readOnly = true)
 	@Override
 	public OrderResponse getOrderByNumber(String orderNumber) 
 	{
 		log.debug("Fetching order by Number : {}", orderNumber);
 		
-		Order order = orderRepository.findByOrderNumber(orderNumber).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "number", orderNumber) );
+		OrderResponse order = orderDetailCache.getByNumber(orderNumber, number -> orderRepository.findWithDetailsByOrderNumber(number)
+				.map(orderMapper::toResponse)
+				.or(() -> archivedOrderRepository.findWithDetailsByOrderNumber(number).map(orderMapper::toResponse))
+				.orElseThrow( ( ) -> new ResourceNotFoundException("Order", "number", number) ));
 		
-		checkOrderAccess(order);
+		checkOrderAccess(order.getUserId());
 		
-		return orderMapper.toResponse(order);
+		return order;
 	}
 
 	@Transactional(readOnly = true)
@@ -180,9 +282,7 @@ public class OrderServiceImpl implements OrderService{
 
 		Long userId = SecurityUtils.getCurrentUserIdOrThrow();
 		
-		Page<Order> pageOrder = orderRepository.findByUserId(userId, pageable);
-		
-		return pageMapper.toPageResponse(pageOrder, orderMapper::toResponse);
+		return toOrderPage(orderRepository.findPageIdsByUserId(userId, pageable));
 	}
 
 	@Transactional(readOnly = true)
@@ -192,14 +292,12 @@ public class OrderServiceImpl implements OrderService{
 		log.debug("Fetching orders for user id: {}", userId);
 		
 		// Only admins or the user themselves can view their orders
-		if(!SecurityUtils.isOwnerOrHasAuthority(userId, RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.isOwnerOrHasRole(userId, RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
 		
-		Page<Order> pageOrder = orderRepository.findByUserId(userId, pageable);
-		
-		return pageMapper.toPageResponse(pageOrder, orderMapper::toResponse);
+		return toOrderPage(orderRepository.findPageIdsByUserId(userId, pageable));
 	}
 
 	@Transactional(readOnly = true)
@@ -209,14 +307,43 @@ public class OrderServiceImpl implements OrderService{
 		log.debug("Fetching All orders");
 		
 		// Only admins can view their orders
-		if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
 		
-		Page<Order> pageOrder = orderRepository.findAll(pageable);
+		return toOrderPage(orderRepository.findPageIds(pageable));
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public CursorPageResponse<OrderResponse> scrollCurrentUserOrders(String cursor, int size)
+	{
+		log.debug("Fetching orders for current user with keyset pagination");
 		
-		return pageMapper.toPageResponse(pageOrder, orderMapper::toResponse);
+		Long userId = SecurityUtils.getCurrentUserIdOrThrow();
+		KeysetCursor after = KeysetCursor.decode(cursor);
+		
+		return toOrderWindow(orderRepository.findIdsByUserIdOrderedBefore(userId, after.sortKey(), after.id(),
+				PageRequest.of(0, KeysetCursor.checkPageSize(size) + 1)), size);
+	}
+	
+	@Transactional(readOnly = true)
+	@Override
+	public CursorPageResponse<OrderResponse> scrollAllOrders(String cursor, int size)
+	{
+		log.debug("Fetching All orders with keyset pagination");
+		
+		// Only admins can view their orders
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to view these orders"); 
+		}
+		
+		KeysetCursor after = KeysetCursor.decode(cursor);
+		
+		return toOrderWindow(orderRepository.findIdsOrderedBefore(after.sortKey(), after.id(),
+				PageRequest.of(0, KeysetCursor.checkPageSize(size) + 1)), size);
 	}
 
 	@Transactional(readOnly = true)
@@ -226,7 +353,7 @@ public class OrderServiceImpl implements OrderService{
 		log.debug("Fetching All orders by Status : {}",status);
 		
 		// Only admins can view their orders
-		if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
@@ -241,9 +368,7 @@ public class OrderServiceImpl implements OrderService{
 			throw new BadRequestException("Invalid order status: " + status);
 		}
 		
-		Page<Order> pageOrder = orderRepository.findByOrderStatus(orderStatus, pageable);
-		
-		return pageMapper.toPageResponse(pageOrder, orderMapper::toResponse);
+		return toOrderPage(orderRepository.findPageIdsByOrderStatus(orderStatus, pageable));
 	}
 
 	@Transactional(readOnly = true)
@@ -253,16 +378,18 @@ public class OrderServiceImpl implements OrderService{
 		log.debug("Fetching orders between dates: {} and {}", startDate, endDate);
 		
 		// Only admins can view their orders
-		if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
 		
-		Page<Order> pageOrder = orderRepository.findOrdersBetweenDates(startDate, endDate, pageable);
-		
-		return pageMapper.toPageResponse(pageOrder, orderMapper::toResponse);
+		return toOrderPage(orderRepository.findPageIdsBetweenDates(startDate, endDate, pageable));
 	}
 
+    /**
+     * Moves the order with one conditional UPDATE, allowed only from the predecessors in OrderTransitions
+     * Shipping, delivery and cancellation go through their own operations, which stamp timestamps and release stock
+     */
 	@Transactional
 	@Override
 	public OrderResponse updateOrderStatus(Long orderId, String status)
@@ -270,30 +397,40 @@ public class OrderServiceImpl implements OrderService{
 		log.info("Updating order status to {} for order ID: {}", status, orderId);
 		
 		// Only admins can update order status
-		if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
 		
-		OrderStatus orderStatus;
-		try 
-		{
-			orderStatus = OrderStatus.valueOf( status.toUpperCase() );
-			
-		} catch(IllegalArgumentException ex) 
+		OrderStatus orderStatus = parseOrderStatus(status);
+		
+		switch(orderStatus)
 		{
-			throw new BadRequestException("Invalid order status: " + status);
+			case SHIPPED:
+				return shipOrder(orderId);
+			case DELIVERED:
+				return deliverOrder(orderId);
+			case CANCELLED:
+				return cancelOrder(orderId);
+			case REFUNDED:
+				// A refund has to return lines, restock them and record the refunded amount
+				throw new BadRequestException("Use the return endpoint to refund an order");
+			default:
+				break;
 		}
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
-		
-		order.setOrderStatus(orderStatus);
+		int updated = orderRepository.updateOrderStatus(List.of(orderId), OrderTransitions.predecessorsOf(orderStatus),
+				orderStatus, currentAuditor(), new Date());
+		if(updated == 0)
+		{
+			throw new BadRequestException("Order cannot move to " + orderStatus + " from current status: " + requireSummary(orderId).getOrderStatus());
+		}
 		
-		Order updatedOrder = orderRepository.save(order);
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, OrderEventType.STATUS_CHANGED));
 		
 		log.info("Order status updated successfully for ID: {}", orderId);
 		
-		return orderMapper.toResponse(updatedOrder);
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
 	}
 
 	@Transactional
@@ -303,91 +440,205 @@ public class OrderServiceImpl implements OrderService{
 		log.info("Updating order Payment status to {} for order ID: {}", status, orderId);
 		
 		// Only admins can update order payment status
-		if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
 		{
 			throw new ForbiddenException("You don't have permission to view these orders"); 
 		}
 		
-		PaymentStatus paymentStatus;
-		try 
-		{
-			paymentStatus = PaymentStatus.valueOf( status.toUpperCase() );
-			
-		} catch(IllegalArgumentException ex) 
+		PaymentStatus paymentStatus = parsePaymentStatus(status);
+		
+		// A refund has to return lines, restock them and record the refunded amount
+		if(paymentStatus == PaymentStatus.REFUNDED)
 		{
-			throw new BadRequestException("Invalid order status: " + status);
+			throw new BadRequestException("Use the return endpoint to refund an order");
 		}
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
-		
-		order.setPaymentStatus(paymentStatus);
+		int updated = orderRepository.updatePaymentStatus(List.of(orderId), OrderTransitions.predecessorsOf(paymentStatus),
+				paymentStatus, currentAuditor(), new Date());
+		if(updated == 0)
+		{
+			throw new BadRequestException("Payment status cannot move to " + paymentStatus + " from current status: " + requireSummary(orderId).getPaymentStatus());
+		}
 		
-		Order updatedOrder = orderRepository.save(order);
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, OrderEventType.PAYMENT_STATUS_CHANGED));
 		
 		log.info("Order payment status updated successfully for ID: {}", orderId);
 		
-		return orderMapper.toResponse(updatedOrder);
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
 	}
 	
+    /**
+     * The order is read as a summary for the access check, the status change itself is a conditional UPDATE,
+     * so a concurrent transition wins over a stale cancellation and the stock release rolls back with it
+     * Stock comes back with one aggregated query over the lines and one set-based increment, whatever the number of lines
+     */
 	@Transactional
 	@Override
 	public OrderResponse cancelOrder(Long orderId) 
 	{
 		log.info("Cancelling order with ID: {}", orderId);
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
+		OrderRepository.OrderSummary order = requireSummary(orderId);
 		
 		// Check access
-		checkOrderAccess(order);
+		if(!SecurityUtils.isOwnerOrHasRole(order.getUserId(), RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to access this order");
+		}
 		
         // Check if order can be cancelled
-		if(!order.canBeCancelled())
+		if(!OrderTransitions.canMove(order.getOrderStatus(), OrderStatus.CANCELLED))
 		{
 			throw new BadRequestException("Order cannot be cancelled in current status: " + order.getOrderStatus().name());
 		}
 		
-		// Restore product stock
-		for(OrderItem item : order.getItems())
+		int updated = orderRepository.markCancelled(List.of(orderId), OrderTransitions.predecessorsOf(OrderStatus.CANCELLED),
+				OrderStatus.CANCELLED, LocalDateTime.now(), currentAuditor(), new Date());
+		if(updated == 0)
 		{
-			Product product = item.getProduct();
-			product.increaseStock(item.getQuantity());
-			productRepository.save(product);
+			throw new BadRequestException("Order cannot be cancelled in current status: " + requireSummary(orderId).getOrderStatus());
 		}
 		
-		order.setOrderStatus(OrderStatus.CANCELLED);
-		order.setCancelledAt(LocalDateTime.now());
+		// Restore product stock through the reservation strategy, in ascending ID order
+		stockReservationStrategy.release(productQuantities(orderItemRepository.sumOpenQuantitiesByProduct(List.of(orderId))));
 		
-		Order updatedOrder = orderRepository.save(order);
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, OrderEventType.CANCELLED));
 		
 		log.info("Order cancelled successfully with ID: {}", orderId);
 		
-		return orderMapper.toResponse(updatedOrder);
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
 	}
 	
+    /**
+     * The order row is locked first, so returns of the same order run one after the other against fresh line quantities
+     * Each line is updated with a guard on what is left to return, the refund is added in one UPDATE
+     * and returned units go back in stock with one set-based increment
+     */
 	@Transactional
 	@Override
-	public OrderResponse shipOrder(Long orderId) 
+	public OrderResponse returnOrder(Long orderId, ReturnOrderRequest request)
 	{
-		log.info("Marking order as shipped with ID: {}", orderId);
+		log.info("Recording return for order ID: {}", orderId);
+		
+		// Only admins can record returns
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to access this order");
+		}
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
+		Set<OrderStatus> from = OrderTransitions.predecessorsOf(OrderStatus.REFUNDED);
+		if(orderRepository.findAllByIdForUpdate(List.of(orderId), from).isEmpty())
+		{
+			throw new BadRequestException("Order must be in DELIVERED status to be returned. Current status: " + requireSummary(orderId).getOrderStatus());
+		}
 		
-		// Check access
-		checkOrderAccess(order);
+		Map<Long, OrderItemRepository.ReturnLine> lines = new HashMap<>();
+		for(OrderItemRepository.ReturnLine line : orderItemRepository.findReturnLines(orderId))
+		{
+			lines.put(line.getId(), line);
+		}
+		
+		// Units to return per line, no lines in the request means everything not returned yet
+		Map<Long, Integer> returnedQuantities = new LinkedHashMap<>();
+		if(request.getItems() == null || request.getItems().isEmpty())
+		{
+			for(OrderItemRepository.ReturnLine line : lines.values())
+			{
+				if(line.getQuantity() > line.getReturnedQuantity())
+				{
+					returnedQuantities.put(line.getId(), line.getQuantity() - line.getReturnedQuantity());
+				}
+			}
+		}
+		else
+		{
+			for(ReturnOrderRequest.ReturnItemRequest item : request.getItems())
+			{
+				if(!lines.containsKey(item.getOrderItemId()))
+				{
+					throw new BadRequestException("Order item " + item.getOrderItemId() + " does not belong to order " + orderId);
+				}
+				returnedQuantities.merge(item.getOrderItemId(), item.getQuantity(), Integer::sum);
+			}
+		}
+		if(returnedQuantities.isEmpty())
+		{
+			throw new BadRequestException("Order has nothing left to return");
+		}
+		
+		BigDecimal refundedAmount = BigDecimal.ZERO;
+		SortedMap<Long, Integer> restockedQuantities = new TreeMap<>();
+		int openLines = 0;
+		
+		for(OrderItemRepository.ReturnLine line : lines.values())
+		{
+			int open = line.getQuantity() - line.getReturnedQuantity();
+			Integer quantity = returnedQuantities.get(line.getId());
+			if(quantity == null)
+			{
+				openLines += open > 0 ? 1 : 0;
+				continue;
+			}
+			
+			if(quantity > open || orderItemRepository.returnQuantity(line.getId(), quantity) == 0)
+			{
+				throw new BadRequestException("Only " + open + " units of order item " + line.getId() + " can be returned");
+			}
+			
+			openLines += quantity < open ? 1 : 0;
+			refundedAmount = refundedAmount.add(line.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+			restockedQuantities.merge(line.getProductId(), quantity, Integer::sum);
+		}
+		
+		String auditor = currentAuditor();
 		
-		if(order.getOrderStatus() != OrderStatus.PROCESSING)
+		// The last open line closes the order, which is then refunded in full
+		if(openLines == 0)
+		{
+			orderRepository.markRefunded(List.of(orderId), from, OrderStatus.REFUNDED, LocalDateTime.now(),
+					PaymentStatus.PAID, PaymentStatus.REFUNDED, auditor, new Date());
+		}
+		else
 		{
-			throw new BadRequestException("Order must be in PROCESSING status to be shipped. Current status: " + order.getOrderStatus());
+			orderRepository.addRefundedAmount(orderId, refundedAmount, auditor, new Date());
 		}
 		
-		order.setOrderStatus(OrderStatus.SHIPPED);
-		order.setShippedAt(LocalDateTime.now());
+		if(request.isRestock())
+		{
+			stockReservationStrategy.release(restockedQuantities);
+		}
 		
-		Order updatedOrder = orderRepository.save(order);
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, openLines == 0 ? OrderEventType.REFUNDED : OrderEventType.RETURNED));
+		
+		log.info("Return of {} lines recorded for order ID: {}", returnedQuantities.size(), orderId);
+		
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
+	}
+	
+	@Transactional
+	@Override
+	public OrderResponse shipOrder(Long orderId) 
+	{
+		log.info("Marking order as shipped with ID: {}", orderId);
+		
+		// Only admins can ship orders
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to access this order");
+		}
+		
+		int updated = orderRepository.markShipped(List.of(orderId), OrderTransitions.predecessorsOf(OrderStatus.SHIPPED),
+				OrderStatus.SHIPPED, LocalDateTime.now(), currentAuditor(), new Date());
+		if(updated == 0)
+		{
+			throw new BadRequestException("Order must be in PROCESSING status to be shipped. Current status: " + requireSummary(orderId).getOrderStatus());
+		}
+		
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, OrderEventType.SHIPPED));
 		
 		log.info("Order marked as shipped successfully with ID: {}", orderId);
 		
-		return orderMapper.toResponse(updatedOrder);
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
 	}
 
 	@Transactional
@@ -396,24 +647,352 @@ public class OrderServiceImpl implements OrderService{
 	{
 		log.info("Marking order as delivered with ID: {}", orderId);
 		
-		Order order = orderRepository.findById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
+		// Only admins can deliver orders
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to access this order");
+		}
 		
-		// Check access
-		checkOrderAccess(order);
+		int updated = orderRepository.markDelivered(List.of(orderId), OrderTransitions.predecessorsOf(OrderStatus.DELIVERED),
+				OrderStatus.DELIVERED, LocalDateTime.now(), currentAuditor(), new Date());
+		if(updated == 0)
+		{
+			throw new BadRequestException("Order must be in shipped status to be delivered. Current status: " + requireSummary(orderId).getOrderStatus());
+		}
+		
+		eventPublisher.publishEvent(OrderChangedEvent.ofOrder(orderId, OrderEventType.DELIVERED));
+		
+		log.info("Order marked as delivered successfully with ID: {}", orderId);
+		
+		return orderMapper.toSummaryResponse(requireSummary(orderId));
+	}
+	
+	@Transactional
+	@Override
+	public BulkOrderUpdateResponse shipOrders(BulkOrderUpdateRequest request)
+	{
+		log.info("Marking orders as shipped in bulk");
+		
+		LocalDateTime now = LocalDateTime.now();
+		
+		Set<OrderStatus> from = OrderTransitions.predecessorsOf(OrderStatus.SHIPPED);
+		
+		return transitionOrders(request, OrderRepository.OrderState::getOrderStatus, from, OrderStatus.SHIPPED, OrderEventType.SHIPPED,
+				ids -> orderRepository.markShipped(ids, from, OrderStatus.SHIPPED, now, currentAuditor(), new Date()));
+	}
+	
+	@Transactional
+	@Override
+	public BulkOrderUpdateResponse deliverOrders(BulkOrderUpdateRequest request)
+	{
+		log.info("Marking orders as delivered in bulk");
+		
+		LocalDateTime now = LocalDateTime.now();
+		
+		Set<OrderStatus> from = OrderTransitions.predecessorsOf(OrderStatus.DELIVERED);
+		
+		return transitionOrders(request, OrderRepository.OrderState::getOrderStatus, from, OrderStatus.DELIVERED, OrderEventType.DELIVERED,
+				ids -> orderRepository.markDelivered(ids, from, OrderStatus.DELIVERED, now, currentAuditor(), new Date()));
+	}
+	
+    /**
+     * Each chunk locks its DELIVERED orders, sums their open quantities per product in one query,
+     * closes all their lines and refunds them in one UPDATE each, then restocks with one set-based increment
+     */
+	@Transactional
+	@Override
+	public BulkOrderUpdateResponse returnOrders(BulkOrderUpdateRequest request, boolean restock)
+	{
+		log.info("Returning orders in bulk");
+		
+		LocalDateTime now = LocalDateTime.now();
+		
+		Set<OrderStatus> from = OrderTransitions.predecessorsOf(OrderStatus.REFUNDED);
+		
+		return transitionOrders(request, OrderRepository.OrderState::getOrderStatus, from, OrderStatus.REFUNDED, OrderEventType.REFUNDED, ids -> {
+			List<Long> lockedIds = orderRepository.findAllByIdForUpdate(ids, from).stream().map(Order::getId).toList();
+			if(lockedIds.isEmpty())
+			{
+				return 0;
+			}
+			
+			SortedMap<Long, Integer> restockedQuantities = productQuantities(orderItemRepository.sumOpenQuantitiesByProduct(lockedIds));
+			orderItemRepository.returnAllOpen(lockedIds);
+			int refunded = orderRepository.markRefunded(lockedIds, from, OrderStatus.REFUNDED, now,
+					PaymentStatus.PAID, PaymentStatus.REFUNDED, currentAuditor(), new Date());
+			
+			if(restock)
+			{
+				stockReservationStrategy.release(restockedQuantities);
+			}
+			return refunded;
+		});
+	}
+	
+    /**
+     * Only transitions without side effects are allowed here:
+     * shipping and delivery stamp their own timestamps, and cancelled or refunded orders have released their stock
+     */
+	@Transactional
+	@Override
+	public BulkOrderUpdateResponse updateOrderStatuses(BulkOrderUpdateRequest request, String expectedStatus, String status)
+	{
+		log.info("Updating order status from {} to {} in bulk", expectedStatus, status);
+		
+		OrderStatus from = parseOrderStatus(expectedStatus);
+		OrderStatus to = parseOrderStatus(status);
 		
-		if(order.getOrderStatus() != OrderStatus.SHIPPED)
+		if(to == OrderStatus.SHIPPED || to == OrderStatus.DELIVERED)
 		{
-			throw new BadRequestException("Order must be in shipped status to be delivered. Current status: " + order.getOrderStatus());
+			throw new BadRequestException("Use the bulk ship or deliver endpoint to move orders to " + to);
 		}
+		if(to == OrderStatus.CANCELLED || to == OrderStatus.REFUNDED)
+		{
+			throw new BadRequestException("Orders cannot be moved to " + to + " in bulk");
+		}
+		if(!OrderTransitions.canMove(from, to))
+		{
+			throw new BadRequestException("Orders cannot move from " + from + " to " + to);
+		}
+		
+		Set<OrderStatus> expected = EnumSet.of(from);
 		
-		order.setOrderStatus(OrderStatus.DELIVERED);
-		order.setDeliveredAt(LocalDateTime.now());
+		return transitionOrders(request, OrderRepository.OrderState::getOrderStatus, expected, to, OrderEventType.STATUS_CHANGED,
+				ids -> orderRepository.updateOrderStatus(ids, expected, to, currentAuditor(), new Date()));
+	}
+	
+	@Transactional
+	@Override
+	public BulkOrderUpdateResponse updatePaymentStatuses(BulkOrderUpdateRequest request, String expectedStatus, String status)
+	{
+		log.info("Updating payment status from {} to {} in bulk", expectedStatus, status);
 		
-		Order updatedOrder = orderRepository.save(order);
+		PaymentStatus from = parsePaymentStatus(expectedStatus);
+		PaymentStatus to = parsePaymentStatus(status);
 		
-		log.info("Order marked as delivered successfully with ID: {}", orderId);
+		if(to == PaymentStatus.REFUNDED)
+		{
+			throw new BadRequestException("Use the return endpoint to refund an order");
+		}
+		if(!OrderTransitions.canMove(from, to))
+		{
+			throw new BadRequestException("Payment status cannot move from " + from + " to " + to);
+		}
+		
+		Set<PaymentStatus> expected = EnumSet.of(from);
+		
+		return transitionOrders(request, OrderRepository.OrderState::getPaymentStatus, expected, to, OrderEventType.PAYMENT_STATUS_CHANGED,
+				ids -> orderRepository.updatePaymentStatus(ids, expected, to, currentAuditor(), new Date()));
+	}
+	
+    /**
+     * Apply a lifecycle transition to many orders without loading them:
+     * one projection query per list resolves IDs and numbers to current states,
+     * then orders in an expected status are moved by UPDATEs that repeat the expected statuses in their WHERE clause,
+     * so an order changed by another transaction in between is skipped instead of overwritten
+     * Only when fewer rows than expected were updated are the candidates read again to tell which ones moved
+     */
+	private <S extends Enum<S>> BulkOrderUpdateResponse transitionOrders(BulkOrderUpdateRequest request,
+			Function<OrderRepository.OrderState, S> statusOf, Set<S> expectedStatuses, S targetStatus, OrderEventType eventType,
+			ToIntFunction<List<Long>> update)
+	{
+		// Only admins can update orders in bulk
+		if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
+		{
+			throw new ForbiddenException("You don't have permission to update these orders");
+		}
+		Set<Long> orderIds = request.getOrderIds() == null ? Set.of() : new LinkedHashSet<>(request.getOrderIds());
+		Set<String> orderNumbers = request.getOrderNumbers() == null ? Set.of() : new LinkedHashSet<>(request.getOrderNumbers());
+		if(orderIds.isEmpty() && orderNumbers.isEmpty())
+		{
+			throw new BadRequestException("At least one order ID or order number is required");
+		}
+		
+		// Current state of every requested order, an order named by both ID and number appears once
+		Map<Long, OrderRepository.OrderState> states = new LinkedHashMap<>();
+		if(!orderIds.isEmpty())
+		{
+			orderRepository.findStatesByIdIn(orderIds).forEach(state -> states.put(state.getId(), state));
+		}
+		if(!orderNumbers.isEmpty())
+		{
+			orderRepository.findStatesByOrderNumberIn(orderNumbers).forEach(state -> states.putIfAbsent(state.getId(), state));
+		}
+		
+		List<Long> candidates = new ArrayList<>(states.size());
+		for(OrderRepository.OrderState state : states.values())
+		{
+			if(expectedStatuses.contains(statusOf.apply(state)))
+			{
+				candidates.add(state.getId());
+			}
+		}
+		
+		int updated = 0;
+		for(List<Long> chunk : chunks(candidates))
+		{
+			int chunkUpdated = update.applyAsInt(chunk);
+			if(chunkUpdated > 0)
+			{
+				// Orders of a chunk that raced were not all moved, only those now in the target status get an event
+				List<Long> movedIds = chunkUpdated == chunk.size() ? chunk : orderRepository.findStatesByIdIn(chunk).stream()
+						.filter(state -> statusOf.apply(state) == targetStatus)
+						.map(OrderRepository.OrderState::getId)
+						.toList();
+				eventPublisher.publishEvent(OrderChangedEvent.ofOrders(movedIds, eventType));
+			}
+			updated += chunkUpdated;
+		}
+		
+		boolean raced = updated < candidates.size();
+		if(raced)
+		{
+			for(List<Long> chunk : chunks(candidates))
+			{
+				orderRepository.findStatesByIdIn(chunk).forEach(state -> states.put(state.getId(), state));
+			}
+		}
+		
+		Set<Long> candidateIds = new HashSet<>(candidates);
+		Set<String> foundNumbers = new HashSet<>();
+		List<BulkOrderUpdateResponse.OrderUpdateResult> results = new ArrayList<>(orderIds.size() + orderNumbers.size());
+		int moved = 0;
+		
+		for(OrderRepository.OrderState state : states.values())
+		{
+			foundNumbers.add(state.getOrderNumber());
+			
+			S status = statusOf.apply(state);
+			boolean updatedNow = candidateIds.contains(state.getId()) && (!raced || status == targetStatus);
+			if(updatedNow)
+			{
+				moved++;
+			}
+			
+			results.add(BulkOrderUpdateResponse.OrderUpdateResult.builder()
+					.orderId(state.getId())
+					.orderNumber(state.getOrderNumber())
+					.outcome(updatedNow ? BulkOrderUpdateResponse.Outcome.UPDATED : BulkOrderUpdateResponse.Outcome.SKIPPED)
+					.status((updatedNow ? targetStatus : status).name())
+					.build());
+		}
+		
+		for(Long orderId : orderIds)
+		{
+			if(!states.containsKey(orderId))
+			{
+				results.add(BulkOrderUpdateResponse.OrderUpdateResult.builder()
+						.orderId(orderId)
+						.outcome(BulkOrderUpdateResponse.Outcome.NOT_FOUND)
+						.build());
+			}
+		}
+		for(String orderNumber : orderNumbers)
+		{
+			if(!foundNumbers.contains(orderNumber))
+			{
+				results.add(BulkOrderUpdateResponse.OrderUpdateResult.builder()
+						.orderNumber(orderNumber)
+						.outcome(BulkOrderUpdateResponse.Outcome.NOT_FOUND)
+						.build());
+			}
+		}
+		
+		log.info("Moved {} of {} orders from {} to {}", moved, results.size(), expectedStatuses, targetStatus);
+		
+		return BulkOrderUpdateResponse.builder()
+				.requested(results.size())
+				.updated(moved)
+				.results(results)
+				.build();
+	}
+	
+    /**
+     * Map a page of order IDs to responses with one more query, whatever the page size:
+     * the orders of the page are loaded with the details fetch plan, then put back in page order
+     */
+	private PageResponse<OrderResponse> toOrderPage(Page<Long> orderIds)
+	{
+		Map<Long, Order> orders = new HashMap<>();
+		if(orderIds.hasContent())
+		{
+			orderRepository.findAllWithDetailsByIdIn(orderIds.getContent()).forEach(order -> orders.put(order.getId(), order));
+		}
+		
+		return pageMapper.toPageResponse(orderIds, orderId -> orderMapper.toResponse(orders.get(orderId)));
+	}
+	
+    /**
+     * Map a keyset page of order IDs, read with one extra ID, the same way as toOrderPage
+     */
+	private CursorPageResponse<OrderResponse> toOrderWindow(List<Long> orderIds, int size)
+	{
+		Map<Long, Order> orders = new HashMap<>();
+		if(!orderIds.isEmpty())
+		{
+			orderRepository.findAllWithDetailsByIdIn(orderIds.subList(0, Math.min(size, orderIds.size())))
+					.forEach(order -> orders.put(order.getId(), order));
+		}
 		
-		return orderMapper.toResponse(updatedOrder);
+		return pageMapper.toCursorPageResponse(orderIds, size, orderId -> orderMapper.toResponse(orders.get(orderId)),
+				orderId -> new KeysetCursor(orders.get(orderId).getOrderedAt(), orderId).encode());
+	}
+	
+	private OrderRepository.OrderSummary requireSummary(Long orderId)
+	{
+		return orderRepository.findSummaryById(orderId).orElseThrow( ( ) -> new ResourceNotFoundException("Order", "orderId", orderId) );
+	}
+	
+	private static SortedMap<Long, Integer> productQuantities(List<OrderItemRepository.ProductQuantity> lines)
+	{
+		SortedMap<Long, Integer> quantities = new TreeMap<>();
+		for(OrderItemRepository.ProductQuantity line : lines)
+		{
+			quantities.put(line.getProductId(), Math.toIntExact(line.getQuantity()));
+		}
+		return quantities;
+	}
+	
+	private static <T> List<List<T>> chunks(List<T> values)
+	{
+		List<List<T>> chunks = new ArrayList<>((values.size() + BULK_CHUNK_SIZE - 1) / BULK_CHUNK_SIZE);
+		for(int from = 0; from < values.size(); from += BULK_CHUNK_SIZE)
+		{
+			chunks.add(values.subList(from, Math.min(from + BULK_CHUNK_SIZE, values.size())));
+		}
+		return chunks;
+	}
+	
+    /**
+     * Auditor recorded by bulk updates, which bypass JPA auditing, same rule as AppConfig's auditorProvider
+     */
+	private static String currentAuditor()
+	{
+		return SecurityUtils.getCurrentUsername().orElse("system");
+	}
+	
+	private static OrderStatus parseOrderStatus(String status)
+	{
+		try 
+		{
+			return OrderStatus.valueOf( status.toUpperCase() );
+			
+		} catch(IllegalArgumentException ex) 
+		{
+			throw new BadRequestException("Invalid order status: " + status);
+		}
+	}
+	
+	private static PaymentStatus parsePaymentStatus(String status)
+	{
+		try 
+		{
+			return PaymentStatus.valueOf( status.toUpperCase() );
+			
+		} catch(IllegalArgumentException ex) 
+		{
+			throw new BadRequestException("Invalid payment status: " + status);
+		}
 	}
 
 }
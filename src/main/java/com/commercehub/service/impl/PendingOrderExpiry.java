@@ -0,0 +1,230 @@
+package com.commercehub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.repository.OrderItemRepository;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.service.OrderChangedEvent;
+import com.commercehub.service.StockReservationStrategy;
+import com.commercehub.util.OrderEventType;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cancels PENDING orders older than orders.expiry.pending-ttl-minutes and gives their stock back
+ * Only UNPAID and FAILED orders expire, a PAID order waiting on fulfilment is never cancelled by the sweeper
+ * Off unless orders.expiry.enabled is set
+ *
+ * Stale orders are walked by ascending ID in chunks, each chunk in its own transaction:
+ * one conditional UPDATE cancels the orders still PENDING, then stock is restored through the reservation strategy
+ * with one set-based increment, summed per product over the chunk's lines
+ * Only the node holding the scheduler lease sweeps, and the lease is renewed after every chunk
+ *
+ * Metrics:
+ * - orders.expiry.expired    orders cancelled by the sweeper
+ * - orders.expiry.chunk      time to expire one chunk
+ * - orders.expiry.lag        seconds the oldest stale PENDING order is past its expiry, 0 when the sweeper is caught up
+ */
+
+@Component
+@ConditionalOnProperty(name = "orders.expiry.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
+public class PendingOrderExpiry {
+
+	static final String LEASE_NAME = "pending-order-expiry";
+
+	private static final Set<PaymentStatus> EXPIRABLE_PAYMENT_STATUSES = EnumSet.of(PaymentStatus.UNPAID, PaymentStatus.FAILED);
+
+	private final OrderRepository orderRepository;
+
+	private final OrderItemRepository orderItemRepository;
+
+	private final StockReservationStrategy stockReservationStrategy;
+
+	private final SchedulerLeases schedulerLeases;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final Duration pendingTtl;
+
+	private final int chunkSize;
+
+	private final int maxChunksPerRun;
+
+	private final Duration leaseDuration;
+
+	private final Counter expiredCounter;
+
+	private final Timer chunkTimer;
+
+	private final AtomicLong lagSeconds = new AtomicLong();
+
+	public PendingOrderExpiry(OrderRepository orderRepository,
+			OrderItemRepository orderItemRepository,
+			StockReservationStrategy stockReservationStrategy,
+			SchedulerLeases schedulerLeases,
+			TransactionTemplate transactionTemplate,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${orders.expiry.pending-ttl-minutes:60}") long pendingTtlMinutes,
+			@Value("${orders.expiry.chunk-size:200}") int chunkSize,
+			@Value("${orders.expiry.max-chunks-per-run:50}") int maxChunksPerRun,
+			@Value("${orders.expiry.lease-seconds:300}") long leaseSeconds,
+			MeterRegistry meterRegistry)
+	{
+		this.orderRepository = orderRepository;
+		this.orderItemRepository = orderItemRepository;
+		this.stockReservationStrategy = stockReservationStrategy;
+		this.schedulerLeases = schedulerLeases;
+		this.transactionTemplate = transactionTemplate;
+		this.eventPublisher = eventPublisher;
+		this.pendingTtl = Duration.ofMinutes(pendingTtlMinutes);
+		this.chunkSize = chunkSize;
+		this.maxChunksPerRun = maxChunksPerRun;
+		this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+
+		this.expiredCounter = Counter.builder("orders.expiry.expired")
+				.description("PENDING orders cancelled because they were not completed in time")
+				.register(meterRegistry);
+		this.chunkTimer = Timer.builder("orders.expiry.chunk")
+				.description("Time to cancel one chunk of stale orders and restore their stock")
+				.register(meterRegistry);
+		Gauge.builder("orders.expiry.lag", lagSeconds, AtomicLong::get)
+				.description("Seconds the oldest stale PENDING order is past its expiry")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+    /**
+     * Expire stale orders, at most max-chunks-per-run chunks per run
+     */
+	@Scheduled(fixedDelayString = "${orders.expiry.interval-ms:60000}", initialDelayString = "${orders.expiry.interval-ms:60000}")
+	public void expireStaleOrders()
+	{
+		try {
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.debug("Pending order expiry runs on another node");
+				return;
+			}
+
+			try {
+				sweep(LocalDateTime.now().minus(pendingTtl));
+			} finally {
+				schedulerLeases.release(LEASE_NAME);
+			}
+
+		} catch (RuntimeException e) {
+			log.error("Pending order expiry failed: {}", e.getMessage());
+
+		} finally {
+			updateLag();
+		}
+	}
+
+	private void sweep(LocalDateTime cutoff)
+	{
+		long afterId = 0;
+		long expired = 0;
+		int chunks = 0;
+
+		while (chunks < maxChunksPerRun)
+		{
+			List<Long> orderIds = orderRepository.findIdsByStatusOrderedBefore(OrderStatus.PENDING, EXPIRABLE_PAYMENT_STATUSES, cutoff, afterId, PageRequest.of(0, chunkSize));
+			if (orderIds.isEmpty())
+			{
+				break;
+			}
+
+			expired += chunkTimer.record(() -> expireChunk(orderIds));
+			afterId = orderIds.get(orderIds.size() - 1);
+			chunks++;
+
+			if (orderIds.size() < chunkSize)
+			{
+				break;
+			}
+			if (!schedulerLeases.tryAcquire(LEASE_NAME, leaseDuration))
+			{
+				log.warn("Lost the pending order expiry lease after {} chunks", chunks);
+				break;
+			}
+		}
+
+		if (expired > 0)
+		{
+			log.info("Expired {} stale pending orders in {} chunks", expired, chunks);
+		}
+	}
+
+    /**
+     * Cancel the orders of a chunk that are still PENDING and unpaid and restore their stock, in one transaction
+     * Orders are stamped with an auditor unique to the chunk, so only lines of orders cancelled here are counted,
+     * not those of an order its owner cancelled in the meantime
+     */
+	private int expireChunk(List<Long> orderIds)
+	{
+		String auditor = "order-expiry:" + UUID.randomUUID().toString().substring(0, 13);
+
+		Integer expired = transactionTemplate.execute(status -> {
+			int cancelled = orderRepository.markCancelled(orderIds, EnumSet.of(OrderStatus.PENDING), EXPIRABLE_PAYMENT_STATUSES, OrderStatus.CANCELLED,
+					LocalDateTime.now(), auditor, new Date());
+			if (cancelled == 0)
+			{
+				return 0;
+			}
+
+			SortedMap<Long, Integer> restoredQuantities = new TreeMap<>();
+			for (OrderItemRepository.ProductQuantity line : orderItemRepository.sumQuantitiesByProduct(orderIds, auditor))
+			{
+				restoredQuantities.put(line.getProductId(), Math.toIntExact(line.getQuantity()));
+			}
+			stockReservationStrategy.release(restoredQuantities);
+			List<Long> expiredIds = cancelled == orderIds.size() ? orderIds : orderRepository.findIdsModifiedBy(orderIds, auditor);
+			eventPublisher.publishEvent(OrderChangedEvent.ofOrders(expiredIds, OrderEventType.EXPIRED));
+
+			return cancelled;
+		});
+
+		expiredCounter.increment(expired);
+		return expired;
+	}
+
+	private void updateLag()
+	{
+		try {
+			LocalDateTime cutoff = LocalDateTime.now().minus(pendingTtl);
+			long lag = orderRepository.findOldestOrderedAt(OrderStatus.PENDING, EXPIRABLE_PAYMENT_STATUSES)
+					.map(oldest -> Math.max(0, Duration.between(oldest, cutoff).getSeconds()))
+					.orElse(0L);
+			lagSeconds.set(lag);
+
+		} catch (RuntimeException e) {
+			log.warn("Failed to measure pending order expiry lag: {}", e.getMessage());
+		}
+	}
+}
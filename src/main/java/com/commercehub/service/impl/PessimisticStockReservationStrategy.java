@@ -0,0 +1,57 @@
+package com.commercehub.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.commercehub.entity.Product;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.exception.ResourceNotFoundException;
+import com.commercehub.repository.ProductRepository;
+
+/**
+ * Reserves stock under row locks:
+ * all products are loaded and locked by one query in ascending ID order, every line is validated before
+ * anything changes, and stock updates are flushed by dirty checking at commit
+ * Locks are held from the SELECT to the commit, the longest of the three strategies
+ */
+
+public class PessimisticStockReservationStrategy extends StockReservationSupport {
+
+	public PessimisticStockReservationStrategy(ProductRepository productRepository)
+	{
+		super(productRepository);
+	}
+
+	@Override
+	public Map<Long, Product> reserve(SortedMap<Long, Integer> quantities)
+	{
+		Map<Long, Product> products = new HashMap<>();
+		for(Product product : productRepository.findAllByIdForUpdate(quantities.keySet()))
+		{
+			products.put(product.getId(), product);
+		}
+		
+		// Validate every line before any mutation
+		for(Map.Entry<Long, Integer> requested : quantities.entrySet())
+		{
+			Product product = products.get(requested.getKey());
+			if(product == null)
+			{
+				throw new ResourceNotFoundException("Product", "id", requested.getKey());
+			}
+			
+			if(!product.isQuantityAvailable(requested.getValue()))
+			{
+				throw new InsufficientStockException( product.getName(), requested.getValue(), product.getQuantityInStock() );
+			}
+		}
+		
+		for(Map.Entry<Long, Integer> requested : quantities.entrySet())
+		{
+			products.get(requested.getKey()).decreaseStock(requested.getValue());
+		}
+		
+		return products;
+	}
+}
@@ -1,15 +1,20 @@
 package com.commercehub.service.impl;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
 import java.util.List;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.commercehub.dto.request.CreateProductRequest;
+import com.commercehub.dto.response.CursorPageResponse;
 import com.commercehub.dto.response.PageResponse;
 import com.commercehub.dto.response.ProductResponse;
 import com.commercehub.entity.Product;
@@ -20,8 +25,10 @@ import com.commercehub.mapper.PageMapper;
 import com.commercehub.mapper.ProductMapper;
 import com.commercehub.repository.ProductRepository;
 import com.commercehub.service.ProductService;
+import com.commercehub.service.ProductStockChangedEvent;
 import com.commercehub.util.CacheNames;
 import com.commercehub.util.Inventory;
+import com.commercehub.util.KeysetCursor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +49,8 @@ public class ProductServiceImpl implements ProductService{
 	
 	private final PageMapper pageMapper;
 	
+	private final ApplicationEventPublisher eventPublisher;
+	
 	
 
 	@CacheEvict(value = {CacheNames.PRODUCTS, CacheNames.PRODUCT_BY_SKU}, allEntries = true)
@@ -111,6 +120,34 @@ public class ProductServiceImpl implements ProductService{
 		return pageMapper.toPageResponse(productPage, productMapper::toResponse);
 	}
 
+	@Transactional(readOnly = true)
+	@Override
+	public CursorPageResponse<ProductResponse> scrollAllProducts(String cursor, int size)
+	{
+		log.debug("Fetching all products with keyset pagination");
+		
+		KeysetCursor after = KeysetCursor.decode(cursor);
+		
+		List<Product> products = productRepository.findCreatedBefore(Timestamp.valueOf(after.sortKey()), after.id(),
+				PageRequest.of(0, KeysetCursor.checkPageSize(size) + 1));
+		
+		return pageMapper.toCursorPageResponse(products, size, productMapper::toResponse, ProductServiceImpl::cursorOf);
+	}
+	
+	@Transactional(readOnly = true)
+	@Override
+	public CursorPageResponse<ProductResponse> scrollActiveProducts(String cursor, int size)
+	{
+		log.debug("Fetching active products with keyset pagination");
+		
+		KeysetCursor after = KeysetCursor.decode(cursor);
+		
+		List<Product> products = productRepository.findByIsActiveCreatedBefore(true, Timestamp.valueOf(after.sortKey()), after.id(),
+				PageRequest.of(0, KeysetCursor.checkPageSize(size) + 1));
+		
+		return pageMapper.toCursorPageResponse(products, size, productMapper::toResponse, ProductServiceImpl::cursorOf);
+	}
+
 	@Transactional(readOnly = true)
 	@Override
 	public PageResponse<ProductResponse> getProductsByCategory(String category, Pageable pageable) 
@@ -238,6 +275,9 @@ public class ProductServiceImpl implements ProductService{
 		
 		Product product = productRepository.findById(productId).orElseThrow( () -> new ResourceNotFoundException("product", "productId", productId) );
 		
+		// Published before the write, so the inventory engine tracks the product ahead of the commit
+		eventPublisher.publishEvent(new ProductStockChangedEvent(productId, quantity - product.getQuantityInStock()));
+		
 		product.setQuantityInStock(quantity);
 		
 		Product updatedProduct = productRepository.save(product);
@@ -260,5 +300,15 @@ public class ProductServiceImpl implements ProductService{
 		
 		log.info("Product deleted successfully with ID: {}", productId);
 	}
+	
+    /**
+     * Cursor positioned on a product, a Timestamp read back from the database keeps its sub-millisecond part
+     */
+	private static String cursorOf(Product product)
+	{
+		Date createdAt = product.getCreatedAt();
+		Timestamp sortKey = createdAt instanceof Timestamp timestamp ? timestamp : new Timestamp(createdAt.getTime());
+		return new KeysetCursor(sortKey.toLocalDateTime(), product.getId()).encode();
+	}
 
 }
@@ -0,0 +1,98 @@
+package com.commercehub.service.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity open-addressing map from product ID to counter slot, with primitive keys and values
+ *
+ * Reads are lock-free, puts must be serialized by the caller
+ * A put writes the slot before publishing the key with a volatile write, so a reader that finds the key sees its slot
+ * Product IDs are identity values starting at 1, 0 marks an empty bucket
+ */
+
+final class ProductSlotMap {
+
+	private final AtomicLongArray keys;
+
+	private final int[] slots;
+
+	private final int mask;
+
+	private final int capacity;
+
+	private volatile int size;
+
+	ProductSlotMap(int capacity)
+	{
+		// Load factor of at most 0.5 keeps probe sequences short
+		int buckets = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+		this.keys = new AtomicLongArray(buckets);
+		this.slots = new int[buckets];
+		this.mask = buckets - 1;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return slot of the product, or -1 if it has none
+	 */
+	int get(long productId)
+	{
+		for (int bucket = hash(productId) & mask; ; bucket = (bucket + 1) & mask)
+		{
+			long key = keys.get(bucket);
+			if (key == productId)
+			{
+				return slots[bucket];
+			}
+			if (key == 0)
+			{
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Assign the next free slot to a product that has none
+	 *
+	 * @return the new slot, or -1 if the map is full
+	 */
+	int add(long productId)
+	{
+		if (productId <= 0)
+		{
+			throw new IllegalArgumentException("Invalid product id: " + productId);
+		}
+		if (size == capacity)
+		{
+			return -1;
+		}
+
+		int bucket = hash(productId) & mask;
+		while (keys.get(bucket) != 0)
+		{
+			bucket = (bucket + 1) & mask;
+		}
+
+		int slot = size;
+		slots[bucket] = slot;
+		keys.set(bucket, productId);
+		size = slot + 1;
+		return slot;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	int capacity()
+	{
+		return capacity;
+	}
+
+	private static int hash(long productId)
+	{
+		long h = productId * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
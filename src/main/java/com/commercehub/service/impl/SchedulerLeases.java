@@ -0,0 +1,96 @@
+package com.commercehub.service.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.entity.SchedulerLease;
+import com.commercehub.repository.SchedulerLeaseRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time-bounded leases on scheduled jobs, so a job that must not overlap runs on one node at a time
+ *
+ * A lease is taken with a conditional UPDATE that only succeeds for its holder or once it has run out,
+ * and the holder renews it while working; a node that dies simply lets its lease run out
+ * Lease times come from the node clocks, which must agree to well within the lease duration
+ */
+
+@Component
+@Slf4j
+public class SchedulerLeases {
+
+	private final SchedulerLeaseRepository schedulerLeaseRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	/** Identifies this node, unique across restarts */
+	private final String owner;
+
+	public SchedulerLeases(SchedulerLeaseRepository schedulerLeaseRepository, TransactionTemplate transactionTemplate)
+	{
+		this.schedulerLeaseRepository = schedulerLeaseRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+    /**
+     * Take or renew the lease of a job
+     *
+     * @param name the job name
+     * @param duration how long the lease lasts without renewal
+     * @return true if this node holds the lease until now + duration
+     */
+	public boolean tryAcquire(String name, Duration duration)
+	{
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime leaseUntil = now.plus(duration);
+		try {
+			return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+				if (schedulerLeaseRepository.acquire(name, owner, now, leaseUntil) == 1)
+				{
+					return true;
+				}
+				if (schedulerLeaseRepository.existsById(name))
+				{
+					return false;
+				}
+				// First run of the job anywhere
+				schedulerLeaseRepository.saveAndFlush(new SchedulerLease(name, owner, leaseUntil));
+				return true;
+			}));
+
+		} catch (DataIntegrityViolationException e) {
+			// Another node created the lease first
+			return false;
+		}
+	}
+
+    /**
+     * Give up the lease of a job if this node holds it
+     */
+	public void release(String name)
+	{
+		try {
+			transactionTemplate.executeWithoutResult(status -> schedulerLeaseRepository.release(name, owner, LocalDateTime.now()));
+		} catch (RuntimeException e) {
+			log.warn("Failed to release lease {}, it runs out on its own: {}", name, e.getMessage());
+		}
+	}
+
+	private static String hostName()
+	{
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "unknown";
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.commercehub.service.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.commercehub.entity.Product;
+import com.commercehub.exception.BaseException;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.exception.ResourceNotFoundException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.StockReservationStrategy;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Base class of the stock reservation strategies
+ */
+
+@RequiredArgsConstructor
+abstract class StockReservationSupport implements StockReservationStrategy {
+
+	protected final ProductRepository productRepository;
+	
+	/**
+	 * Restore stock of all products with one atomic, set-based increment, concurrent reservations are never overwritten
+	 */
+	@Override
+	public void release(SortedMap<Long, Integer> quantities)
+	{
+		if(!quantities.isEmpty())
+		{
+			productRepository.addStock(quantities);
+		}
+	}
+	
+	/**
+	 * Load reserved products in one query, after their stock has been updated
+	 */
+	protected Map<Long, Product> loadProducts(Collection<Long> ids)
+	{
+		Map<Long, Product> products = new HashMap<>();
+		for(Product product : productRepository.findAllById(ids))
+		{
+			products.put(product.getId(), product);
+		}
+		return products;
+	}
+	
+	/**
+	 * Explain why a conditional stock update matched no row
+	 */
+	protected BaseException shortage(Long productId, int requested)
+	{
+		List<ProductRepository.StockLevel> levels = productRepository.findStockLevels(List.of(productId));
+		if(levels.isEmpty())
+		{
+			return new ResourceNotFoundException("Product", "id", productId);
+		}
+		
+		ProductRepository.StockLevel level = levels.get(0);
+		return new InsufficientStockException(level.getName(), requested, level.getQuantityInStock());
+	}
+}
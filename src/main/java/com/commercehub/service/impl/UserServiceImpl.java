@@ -1,5 +1,6 @@
 package com.commercehub.service.impl;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -16,7 +17,9 @@ import com.commercehub.mapper.PageMapper;
 import com.commercehub.mapper.UserMapper;
 import com.commercehub.repository.RoleRepository;
 import com.commercehub.repository.UserRepository;
+import com.commercehub.security.LoginAttemptService;
 import com.commercehub.security.SecurityUtils;
+import com.commercehub.security.UserSecurityChangedEvent;
 import com.commercehub.service.UserService;
 import com.commercehub.util.RoleName;
 
@@ -40,6 +43,10 @@ public class UserServiceImpl implements UserService{
 	private final UserMapper userMapper;
 	
 	private final PageMapper pageMapper;
+	
+	private final LoginAttemptService loginAttemptService;
+	
+	private final ApplicationEventPublisher eventPublisher;
 
 	
     /**
@@ -48,7 +55,7 @@ public class UserServiceImpl implements UserService{
      */
     private void checkUserAccess(Long userId) 
     {
-        if (!SecurityUtils.isOwnerOrHasAuthority(userId, RoleName.ROLE_ADMIN.name())) {
+        if (!SecurityUtils.isOwnerOrHasRole(userId, RoleName.ROLE_ADMIN)) {
             throw new ForbiddenException("You don't have permission to access this user profile");
         }
     }
@@ -88,7 +95,7 @@ public class UserServiceImpl implements UserService{
     	log.debug("Fetching all users with pagination");
     	
     	// Only admins can search users
-    	if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+    	if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
     	{
     		throw new ForbiddenException("You don't have permission to view all users");
     	}
@@ -105,7 +112,7 @@ public class UserServiceImpl implements UserService{
 		log.debug("Searching users with keyword: {}", keyword);
 		
 		// Only admins can search users
-    	if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+    	if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
     	{
     		throw new ForbiddenException("You don't have permission to view all users");
     	}
@@ -121,7 +128,7 @@ public class UserServiceImpl implements UserService{
     {
     	log.debug("Fetching users by role: {}", roleName);
     	
-    	if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+    	if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
     	{
     		throw new ForbiddenException("You don't have permission to view all users");
     	}
@@ -151,6 +158,9 @@ public class UserServiceImpl implements UserService{
         
         User updateUser = userRepository.save(user);
         
+        // Names are copied into cached principals
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(userId));
+        
         log.info("User profile updated successfully for ID: {}", userId);
         
 		return userMapper.toResponse(updateUser);
@@ -162,7 +172,7 @@ public class UserServiceImpl implements UserService{
     {
     	 log.info("Setting user enabled status to {} for user ID: {}", enabled, userId);
     	 
-     	if(!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name()))
+     	if(!SecurityUtils.hasRole(RoleName.ROLE_ADMIN))
      	{
      		throw new ForbiddenException("You don't have permission to view all users");
      	}
@@ -173,6 +183,8 @@ public class UserServiceImpl implements UserService{
      	
         User updateUser = userRepository.save(user);
         
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(userId));
+        
         log.info("User enabled status updated successfully for ID: {}", userId);
         
 		return userMapper.toResponse(updateUser);
@@ -185,7 +197,7 @@ public class UserServiceImpl implements UserService{
         log.info("Setting user locked status to {} for user ID: {}", locked, userId);
         
         // Only admins can lock/unlock users
-        if (!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name())) {
+        if (!SecurityUtils.hasRole(RoleName.ROLE_ADMIN)) {
             throw new ForbiddenException("You don't have permission to lock/unlock users");
         }
         
@@ -193,8 +205,18 @@ public class UserServiceImpl implements UserService{
         
         user.setIsLocked(locked);
         
+        // Administrator locks have no end, unlocking also clears a temporary lock
+        user.setLockedUntil(null);
+        
         User updatedUser = userRepository.save(user);
         
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(userId));
+        
+        if (!locked)
+        {
+        	loginAttemptService.clear(user.getUsername(), user.getEmail());
+        }
+        
         log.info("User locked status updated successfully for ID: {}", userId);
         
         return userMapper.toResponse(updatedUser);
@@ -207,7 +229,7 @@ public class UserServiceImpl implements UserService{
         log.info("Deleting user with ID: {}", userId);
         
         // Only admins can delete users
-        if (!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name())) 
+        if (!SecurityUtils.hasRole(RoleName.ROLE_ADMIN)) 
         {
             throw new ForbiddenException("You don't have permission to delete users");
         }
@@ -216,6 +238,8 @@ public class UserServiceImpl implements UserService{
         
         userRepository.delete(user);
         
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(userId));
+        
         log.info("User deleted successfully with ID: {}", userId);		
 	}
 
@@ -239,7 +263,7 @@ public class UserServiceImpl implements UserService{
         log.info("Adding roles to user with usernameOrEmail: {}", usernameOrEmail);
         
         // Check permission Only admins can add role
-        if (!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name())) 
+        if (!SecurityUtils.hasRole(RoleName.ROLE_ADMIN)) 
         {
             throw new ForbiddenException("You don't have permission to add role");
         }
@@ -272,6 +296,9 @@ public class UserServiceImpl implements UserService{
 
         // Save user
         User updatedUser = userRepository.save(user);
+        
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(updatedUser.getId()));
+        
         log.info("Successfully added role: {} to user: {}", roleName, usernameOrEmail);
 
         return userMapper.toResponse(updatedUser);
@@ -284,7 +311,7 @@ public class UserServiceImpl implements UserService{
         log.info("Removing roles from user with usernameOrEmail: {}", usernameOrEmail);
         
         // Check permission Only admins can delete role
-        if (!SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name())) 
+        if (!SecurityUtils.hasRole(RoleName.ROLE_ADMIN)) 
         {
             throw new ForbiddenException("You don't have permission to delete role");
         }
@@ -325,6 +352,8 @@ public class UserServiceImpl implements UserService{
         // Save user
         User updatedUser = userRepository.save(user);
         
+        eventPublisher.publishEvent(UserSecurityChangedEvent.ofUser(updatedUser.getId()));
+        
         log.info("Successfully removed role:{}  from user : {}", roleName, usernameOrEmail);
 
         return userMapper.toResponse(updatedUser);
@@ -0,0 +1,12 @@
+package com.commercehub.util;
+
+/**
+ * Id generation constants
+ */
+public final class IdGeneration {
+	
+    private IdGeneration() {}
+    
+    /** Ids fetched per sequence call, must match INCREMENT BY of orders_seq, order_items_seq and products_seq */
+    public static final int ALLOCATION_SIZE = 50;
+}
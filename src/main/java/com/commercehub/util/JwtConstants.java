@@ -11,8 +11,13 @@ public final class JwtConstants {
     public static final String HEADER_STRING = "Authorization";
     public static final String TOKEN_TYPE = "Bearer";
     public static final String AUTHORITIES_KEY = "authorities";
+    public static final String ROLES_MASK_KEY = "roles";
     public static final String USER_ID_KEY = "userId";
     public static final String USERNAME_KEY = "username";
+    public static final String TOKEN_FAMILY_KEY = "fid";
+    public static final String TOKEN_USE_KEY = "tokenUse";
+    public static final String ACCESS_TOKEN_USE = "access";
+    public static final String REFRESH_TOKEN_USE = "refresh";
     public static final long ACCESS_TOKEN_VALIDITY = 24 * 60 * 60 * 1000L; // 24 hours
     public static final long REFRESH_TOKEN_VALIDITY = 7 * 24 * 60 * 60 * 1000L; // 7 days
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.commercehub.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.commercehub.exception.BadRequestException;
+
+/**
+ * Position of a keyset page: the sort key and ID of the last row served, listings seek past it by (sortKey, id) descending
+ * Clients see it as an opaque URL-safe string
+ */
+public record KeysetCursor(LocalDateTime sortKey, long id) {
+
+    /** Sorts after every real row, so the first page needs no query of its own */
+    public static final KeysetCursor FIRST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    /** Largest page a keyset listing serves */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public String encode()
+    {
+    	return Base64.getUrlEncoder().withoutPadding().encodeToString((sortKey + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor received from a client, no cursor means the first page
+     *
+     * @throws BadRequestException if the cursor was not produced by encode
+     */
+    public static KeysetCursor decode(String cursor)
+    {
+    	if (cursor == null || cursor.isBlank())
+    	{
+    		return FIRST;
+    	}
+
+    	try {
+    		String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    		int separator = value.lastIndexOf(',');
+    		return new KeysetCursor(LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+
+    	} catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+    		throw new BadRequestException("Invalid cursor");
+    	}
+    }
+
+    /**
+     * Reject page sizes outside 1..MAX_PAGE_SIZE
+     */
+    public static int checkPageSize(int size)
+    {
+    	if (size < 1 || size > MAX_PAGE_SIZE)
+    	{
+    		throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+    	}
+    	return size;
+    }
+}
@@ -14,10 +14,13 @@ public final class Messages {
     public static final String PRODUCT_UPDATED_SUCCESSFULLY = "Product updated successfully";
     public static final String PRODUCT_DELETED_SUCCESSFULLY = "Product deleted successfully";
     public static final String ORDER_CREATED_SUCCESSFULLY = "Order created successfully";
+    public static final String ORDER_ACCEPTED = "Order accepted for processing";
     public static final String ORDER_UPDATED_SUCCESSFULLY = "Order updated successfully";
     public static final String ORDER_CANCELLED_SUCCESSFULLY = "Order cancelled successfully";
     public static final String ORDER_SHIPPED_SUCCESSFULLY = "Order shipped successfully";
     public static final String ORDER_DELIVERED_SUCCESSFULLY = "Order delivered successfully";
+    public static final String ORDER_RETURNED_SUCCESSFULLY = "Order return recorded successfully";
+    public static final String ORDERS_BULK_UPDATED = "Bulk order update completed";
     public static final String LOGIN_SUCCESSFUL = "Login successful";
     public static final String LOGOUT_SUCCESSFUL = "Logout successful";
     public static final String REFRESH_TOKEN = "Token refreshed successfully";
@@ -0,0 +1,17 @@
+package com.commercehub.util;
+
+/**
+ * Kinds of order events written to the outbox and relayed to Kafka
+ */
+public enum OrderEventType {
+
+    ORDER_CREATED,
+    STATUS_CHANGED,
+    PAYMENT_STATUS_CHANGED,
+    CANCELLED,
+    EXPIRED,
+    SHIPPED,
+    DELIVERED,
+    RETURNED,
+    REFUNDED
+}
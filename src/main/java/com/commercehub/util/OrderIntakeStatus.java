@@ -0,0 +1,11 @@
+package com.commercehub.util;
+
+/**
+ * Progress of an order accepted by the asynchronous intake
+ */
+public enum OrderIntakeStatus {
+
+    QUEUED,
+    PLACED,
+    FAILED
+}
@@ -0,0 +1,61 @@
+package com.commercehub.util;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order lifecycle transitions
+ * For every status, the statuses an order may move to it from
+ */
+
+public final class OrderTransitions {
+    private OrderTransitions() {}
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ORDER_PREDECESSORS = new EnumMap<>(OrderStatus.class);
+
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PAYMENT_PREDECESSORS = new EnumMap<>(PaymentStatus.class);
+
+    static {
+    	ORDER_PREDECESSORS.put(OrderStatus.PENDING, Collections.unmodifiableSet(EnumSet.noneOf(OrderStatus.class)));
+    	ORDER_PREDECESSORS.put(OrderStatus.CONFIRMED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.PENDING)));
+    	ORDER_PREDECESSORS.put(OrderStatus.PROCESSING, Collections.unmodifiableSet(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED)));
+    	ORDER_PREDECESSORS.put(OrderStatus.SHIPPED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.PROCESSING)));
+    	ORDER_PREDECESSORS.put(OrderStatus.DELIVERED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.SHIPPED)));
+    	ORDER_PREDECESSORS.put(OrderStatus.CANCELLED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING)));
+    	ORDER_PREDECESSORS.put(OrderStatus.REFUNDED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.DELIVERED)));
+
+    	PAYMENT_PREDECESSORS.put(PaymentStatus.UNPAID, Collections.unmodifiableSet(EnumSet.of(PaymentStatus.FAILED)));
+    	PAYMENT_PREDECESSORS.put(PaymentStatus.PAID, Collections.unmodifiableSet(EnumSet.of(PaymentStatus.UNPAID, PaymentStatus.FAILED)));
+    	PAYMENT_PREDECESSORS.put(PaymentStatus.FAILED, Collections.unmodifiableSet(EnumSet.of(PaymentStatus.UNPAID)));
+    	PAYMENT_PREDECESSORS.put(PaymentStatus.REFUNDED, Collections.unmodifiableSet(EnumSet.of(PaymentStatus.PAID)));
+    }
+
+    /**
+     * Order statuses an order may move to the given status from
+     */
+    public static Set<OrderStatus> predecessorsOf(OrderStatus status)
+    {
+    	return ORDER_PREDECESSORS.get(status);
+    }
+
+    /**
+     * Payment statuses an order may move to the given payment status from
+     */
+    public static Set<PaymentStatus> predecessorsOf(PaymentStatus status)
+    {
+    	return PAYMENT_PREDECESSORS.get(status);
+    }
+
+    public static boolean canMove(OrderStatus from, OrderStatus to)
+    {
+    	return ORDER_PREDECESSORS.get(to).contains(from);
+    }
+
+    public static boolean canMove(PaymentStatus from, PaymentStatus to)
+    {
+    	return PAYMENT_PREDECESSORS.get(to).contains(from);
+    }
+}
@@ -2,12 +2,19 @@ package com.commercehub.util;
 
 /**
  * Role names used for authorization
+ * Ordinals are encoded as bits in tokens, new roles must only be appended
  */
 
 public enum RoleName {
 	
     ROLE_USER,
     ROLE_MANAGER,
-    ROLE_ADMIN
+    ROLE_ADMIN;
+    
+    /**
+     * Bit of this role in a role mask
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
 }
-
@@ -0,0 +1,8 @@
+package com.commercehub.util;
+
+public enum TokenRevocationReason {
+	
+    LOGOUT,
+    ROTATED,
+    REUSE_DETECTED
+}
@@ -0,0 +1,2 @@
+-- Each NEXT VALUE reserves a block of 1000 order numbers, see OrderNumberDispenser.BLOCK_SIZE
+ALTER SEQUENCE order_number_seq INCREMENT BY 1000;
@@ -0,0 +1,91 @@
+-- Move orders, order_items and products ids from IDENTITY to pooled sequences (INCREMENT BY IdGeneration.ALLOCATION_SIZE),
+-- so Hibernate can batch their inserts
+-- SQL Server cannot remove the IDENTITY property in place: each id is copied into a plain BIGINT column,
+-- and the primary key, foreign keys and indexes on id are dropped before the swap and recreated after it
+-- The steps share variables, so they run as one procedure call instead of separate Flyway statements
+
+CREATE PROCEDURE move_ids_to_sequences AS
+BEGIN
+    SET NOCOUNT ON;
+
+    DROP INDEX ix_order_items_stock_pending ON order_items;
+
+    DECLARE @tables TABLE (name SYSNAME PRIMARY KEY);
+    INSERT INTO @tables (name) VALUES ('orders'), ('order_items'), ('products');
+
+    -- Single-column foreign keys referencing the ids
+    DECLARE @foreign_keys TABLE (
+        name             SYSNAME,
+        parent_table     SYSNAME,
+        parent_column    SYSNAME,
+        referenced_table SYSNAME,
+        delete_action    NVARCHAR(60),
+        update_action    NVARCHAR(60)
+    );
+    INSERT INTO @foreign_keys
+    SELECT fk.name, OBJECT_NAME(fk.parent_object_id), pc.name, OBJECT_NAME(fk.referenced_object_id),
+           fk.delete_referential_action_desc, fk.update_referential_action_desc
+    FROM sys.foreign_keys fk
+    JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id
+    JOIN sys.columns pc ON pc.object_id = fkc.parent_object_id AND pc.column_id = fkc.parent_column_id
+    JOIN sys.columns rc ON rc.object_id = fkc.referenced_object_id AND rc.column_id = fkc.referenced_column_id
+    WHERE OBJECT_NAME(fk.referenced_object_id) IN (SELECT name FROM @tables) AND rc.name = 'id';
+
+    DECLARE @sql NVARCHAR(MAX) = N'';
+    SELECT @sql += N'ALTER TABLE ' + QUOTENAME(parent_table) + N' DROP CONSTRAINT ' + QUOTENAME(name) + N';'
+    FROM @foreign_keys;
+    EXEC sp_executesql @sql;
+
+    DECLARE @table SYSNAME, @pk SYSNAME, @start BIGINT;
+    DECLARE table_cursor CURSOR LOCAL FAST_FORWARD FOR SELECT name FROM @tables;
+    OPEN table_cursor;
+    FETCH NEXT FROM table_cursor INTO @table;
+    WHILE @@FETCH_STATUS = 0
+    BEGIN
+        SELECT @pk = name FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID(@table) AND type = 'PK';
+
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' DROP CONSTRAINT ' + QUOTENAME(@pk) + N';'
+                 + N'ALTER TABLE ' + QUOTENAME(@table) + N' ADD id_seq BIGINT NULL;';
+        EXEC sp_executesql @sql;
+
+        -- Separate batch, id_seq must exist when the UPDATE is compiled
+        SET @sql = N'UPDATE ' + QUOTENAME(@table) + N' SET id_seq = id;'
+                 + N'ALTER TABLE ' + QUOTENAME(@table) + N' DROP COLUMN id;';
+        EXEC sp_executesql @sql;
+
+        SET @sql = @table + N'.id_seq';
+        EXEC sp_rename @sql, N'id', N'COLUMN';
+
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ALTER COLUMN id BIGINT NOT NULL;';
+        EXEC sp_executesql @sql;
+        SET @sql = N'ALTER TABLE ' + QUOTENAME(@table) + N' ADD CONSTRAINT ' + QUOTENAME(@pk) + N' PRIMARY KEY CLUSTERED (id);';
+        EXEC sp_executesql @sql;
+
+        -- Hibernate's pooled optimizer hands out (value - 49) to value, so the first value leaves every existing id below it
+        SET @sql = N'SELECT @start = COALESCE(MAX(id), 0) + 50 FROM ' + QUOTENAME(@table) + N';';
+        EXEC sp_executesql @sql, N'@start BIGINT OUTPUT', @start = @start OUTPUT;
+        SET @sql = N'CREATE SEQUENCE ' + QUOTENAME(@table + N'_seq') + N' AS BIGINT START WITH ' + CAST(@start AS NVARCHAR(20))
+                 + N' INCREMENT BY 50;';
+        EXEC sp_executesql @sql;
+
+        FETCH NEXT FROM table_cursor INTO @table;
+    END;
+    CLOSE table_cursor;
+    DEALLOCATE table_cursor;
+
+    SET @sql = N'';
+    SELECT @sql += N'ALTER TABLE ' + QUOTENAME(parent_table) + N' WITH CHECK ADD CONSTRAINT ' + QUOTENAME(name)
+                 + N' FOREIGN KEY (' + QUOTENAME(parent_column) + N') REFERENCES ' + QUOTENAME(referenced_table) + N' (id)'
+                 + N' ON DELETE ' + REPLACE(delete_action, N'_', N' ') + N' ON UPDATE ' + REPLACE(update_action, N'_', N' ') + N';'
+    FROM @foreign_keys;
+    EXEC sp_executesql @sql;
+
+    CREATE INDEX ix_order_items_stock_pending ON order_items (id) WHERE stock_applied = 0;
+END;
+GO
+
+EXEC move_ids_to_sequences;
+GO
+
+DROP PROCEDURE move_ids_to_sequences;
+GO
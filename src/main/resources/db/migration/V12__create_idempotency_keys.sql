@@ -0,0 +1,11 @@
+CREATE TABLE idempotency_keys (
+    id           VARCHAR(100) NOT NULL,
+    request_hash VARCHAR(64)  NOT NULL,
+    order_id     BIGINT       NULL,
+    response     TEXT         NULL,
+    created_at   DATETIME2    NOT NULL,
+    expires_at   DATETIME2    NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (id)
+);
+
+CREATE INDEX ix_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,8 @@
+CREATE TABLE scheduler_leases (
+    name        VARCHAR(100) NOT NULL,
+    owner       VARCHAR(100) NOT NULL,
+    lease_until DATETIME2    NOT NULL,
+    CONSTRAINT pk_scheduler_leases PRIMARY KEY (name)
+);
+
+CREATE INDEX ix_orders_status_id ON orders (order_status, id) INCLUDE (ordered_at, payment_status);
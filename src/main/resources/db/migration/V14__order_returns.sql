@@ -0,0 +1,5 @@
+ALTER TABLE order_items ADD returned_quantity INT NOT NULL CONSTRAINT df_order_items_returned_quantity DEFAULT 0;
+
+ALTER TABLE orders ADD refunded_amount DECIMAL(10, 2) NOT NULL CONSTRAINT df_orders_refunded_amount DEFAULT 0;
+
+ALTER TABLE orders ADD refunded_at DATETIME2 NULL;
@@ -0,0 +1,7 @@
+CREATE INDEX ix_orders_ordered_at_id ON orders (ordered_at DESC, id DESC);
+
+CREATE INDEX ix_orders_user_ordered_at_id ON orders (user_id, ordered_at DESC, id DESC);
+
+CREATE INDEX ix_products_created_at_id ON products (created_at DESC, id DESC);
+
+CREATE INDEX ix_products_active_created_at_id ON products (is_active, created_at DESC, id DESC);
@@ -0,0 +1,8 @@
+CREATE TABLE order_events (
+    id         BIGINT IDENTITY(1, 1) NOT NULL,
+    order_id   BIGINT        NOT NULL,
+    event_type VARCHAR(40)   NOT NULL,
+    payload    VARCHAR(4000) NOT NULL,
+    created_at DATETIME2     NOT NULL,
+    CONSTRAINT pk_order_events PRIMARY KEY (id)
+);
@@ -0,0 +1,40 @@
+-- Cold copies of old DELIVERED and CANCELLED orders, moved here by OrderArchiver with their original ids
+-- Addresses and notes are VARCHAR(MAX) instead of TEXT: same capacity as the hot columns, but short values stay in-row
+-- and are page compressed. Lines reference their order directly instead of through a join table, audit columns are dropped
+-- user_id and product_id have no foreign keys: archived history must not block deleting a user or a product
+
+CREATE TABLE orders_archive (
+    id               BIGINT         NOT NULL,
+    order_number     VARCHAR(255)   NOT NULL,
+    user_id          BIGINT         NULL,
+    order_status     VARCHAR(255)   NOT NULL,
+    payment_status   VARCHAR(255)   NOT NULL,
+    total_amount     DECIMAL(10, 2) NOT NULL,
+    refunded_amount  DECIMAL(10, 2) NOT NULL,
+    shipping_address VARCHAR(MAX)   NOT NULL,
+    billing_address  VARCHAR(MAX)   NOT NULL,
+    payment_method   VARCHAR(255)   NULL,
+    notes            VARCHAR(MAX)   NULL,
+    ordered_at       DATETIME2      NOT NULL,
+    shipped_at       DATETIME2      NULL,
+    delivered_at     DATETIME2      NULL,
+    cancelled_at     DATETIME2      NULL,
+    refunded_at      DATETIME2      NULL,
+    archived_at      DATETIME2      NOT NULL,
+    CONSTRAINT pk_orders_archive PRIMARY KEY (id),
+    CONSTRAINT uk_orders_archive_order_number UNIQUE (order_number)
+) WITH (DATA_COMPRESSION = PAGE);
+
+CREATE TABLE order_items_archive (
+    id                BIGINT         NOT NULL,
+    order_id          BIGINT         NOT NULL,
+    product_id        BIGINT         NULL,
+    quantity          INT            NOT NULL,
+    returned_quantity INT            NOT NULL,
+    unit_price        DECIMAL(10, 2) NOT NULL,
+    total_price       DECIMAL(10, 2) NOT NULL,
+    CONSTRAINT pk_order_items_archive PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_archive_order FOREIGN KEY (order_id) REFERENCES orders_archive (id)
+) WITH (DATA_COMPRESSION = PAGE);
+
+CREATE INDEX ix_order_items_archive_order_id ON order_items_archive (order_id) WITH (DATA_COMPRESSION = PAGE);
@@ -0,0 +1,11 @@
+CREATE TABLE revoked_tokens (
+    token_id   VARCHAR(64) NOT NULL,
+    user_id    BIGINT      NULL,
+    reason     VARCHAR(20) NOT NULL,
+    revoked_at DATETIME2   NOT NULL,
+    expires_at DATETIME2   NOT NULL,
+    CONSTRAINT pk_revoked_tokens PRIMARY KEY (token_id)
+);
+
+CREATE INDEX ix_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX ix_revoked_tokens_expires_at ON revoked_tokens (expires_at);
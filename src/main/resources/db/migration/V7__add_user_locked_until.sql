@@ -0,0 +1,3 @@
+ALTER TABLE users ADD locked_until DATETIME2 NULL;
+
+CREATE INDEX ix_users_locked_until ON users (locked_until) WHERE locked_until IS NOT NULL;
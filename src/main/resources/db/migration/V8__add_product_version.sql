@@ -0,0 +1 @@
+ALTER TABLE products ADD version BIGINT NOT NULL CONSTRAINT df_products_version DEFAULT 0;
@@ -0,0 +1,3 @@
+ALTER TABLE order_items ADD stock_applied BIT NOT NULL CONSTRAINT df_order_items_stock_applied DEFAULT 1;
+
+CREATE INDEX ix_order_items_stock_pending ON order_items (id) WHERE stock_applied = 0;
@@ -0,0 +1,135 @@
+package com.commercehub.benchmark;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.SecurityUtils;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.util.RoleName;
+
+/**
+ * Cost of the authorization checks services run several times per request
+ *
+ * legacy* replays the original SecurityUtils: the authority Set is rebuilt from the principal on every check
+ * The other benchmarks go through SecurityUtils, where a check is a bit test on the principal's role mask
+ * Owner checks use a resource of another user so the role check always runs too
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.AuthorizationCheckBenchmark
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationCheckBenchmark {
+
+	private static final Long OTHER_USER_ID = 7L;
+
+	@Setup
+	public void setUp()
+	{
+		int roleMask = RoleName.ROLE_USER.mask() | RoleName.ROLE_MANAGER.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(42L)
+				.username("benchmark-user")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Benchmark
+	public boolean legacyHasAuthority()
+	{
+		return legacyAuthorities().contains(RoleName.ROLE_ADMIN.name());
+	}
+
+	@Benchmark
+	public boolean legacyIsOwnerOrHasAuthority()
+	{
+		return legacyCurrentUserId().map(userId -> userId.equals(OTHER_USER_ID)).orElse(false)
+				|| legacyAuthorities().contains(RoleName.ROLE_ADMIN.name());
+	}
+
+	@Benchmark
+	public boolean hasRole()
+	{
+		return SecurityUtils.hasRole(RoleName.ROLE_ADMIN);
+	}
+
+	@Benchmark
+	public boolean hasAuthorityByName()
+	{
+		return SecurityUtils.hasAuthority(RoleName.ROLE_ADMIN.name());
+	}
+
+	@Benchmark
+	public boolean isOwnerOrHasRole()
+	{
+		return SecurityUtils.isOwnerOrHasRole(OTHER_USER_ID, RoleName.ROLE_ADMIN);
+	}
+
+	private static Optional<Long> legacyCurrentUserId()
+	{
+		return legacyPrincipal().map(UserPrincipal::getId);
+	}
+
+	private static Optional<UserPrincipal> legacyPrincipal()
+	{
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal)
+		{
+			return Optional.of((UserPrincipal) authentication.getPrincipal());
+		}
+		return Optional.empty();
+	}
+
+	private static Set<String> legacyAuthorities()
+	{
+		return legacyPrincipal()
+				.map(principal -> principal.getAuthorities().stream()
+						.map(GrantedAuthority::getAuthority)
+						.collect(Collectors.toSet()))
+				.orElse(Set.of());
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(AuthorizationCheckBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
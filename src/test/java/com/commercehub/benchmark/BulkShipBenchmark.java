@@ -0,0 +1,204 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.BulkOrderUpdateResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Time to ship a batch of PROCESSING orders, on the in-memory H2 profile
+ *
+ * perOrder calls OrderService.shipOrder once per order: a conditional UPDATE and a summary read each
+ * bulk is OrderService.shipOrders: one projection query and one conditional UPDATE per 1000 orders
+ * Orders are put back to PROCESSING before every invocation
+ * H2 has no network round trip, so the gap on a real database is larger than measured here
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.BulkShipBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkShipBenchmark {
+
+	private static final int ITEMS_PER_ORDER = 3;
+
+	@Param({ "100", "1000" })
+	private int orderCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private OrderRepository orderRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private List<Long> orderIds;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		orderRepository = context.getBean(OrderRepository.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_ADMIN.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		List<Long> productIds = new ArrayList<>(ITEMS_PER_ORDER);
+		for (int i = 0; i < ITEMS_PER_ORDER; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("SHIP-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(1000)
+					.build()).getId());
+		}
+
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		orderIds = transactionTemplate.execute(status -> {
+			List<Long> ids = new ArrayList<>(orderCount);
+			for (int n = 0; n < orderCount; n++)
+			{
+				Order order = Order.builder()
+						.orderNumber("SHIP-" + n)
+						.user(userRepository.getReferenceById(userId))
+						.orderStatus(OrderStatus.PROCESSING)
+						.paymentStatus(PaymentStatus.PAID)
+						.shippingAddress("1 Benchmark Street")
+						.billingAddress("1 Benchmark Street")
+						.paymentMethod("CARD")
+						.orderedAt(LocalDateTime.now())
+						.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(ITEMS_PER_ORDER)))
+						.items(new ArrayList<>(ITEMS_PER_ORDER))
+						.build();
+
+				for (Long productId : productIds)
+				{
+					OrderItem item = OrderItem.builder()
+							.product(productRepository.getReferenceById(productId))
+							.quantity(1)
+							.unitPrice(new BigDecimal("9.99"))
+							.build();
+					item.calculateTotalPrice();
+					order.addOrderItem(item);
+				}
+
+				ids.add(orderRepository.save(order).getId());
+			}
+			return ids;
+		});
+	}
+
+	@Setup(Level.Invocation)
+	public void resetOrders()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		transactionTemplate.executeWithoutResult(status ->
+				orderRepository.updateOrderStatus(orderIds, Set.of(OrderStatus.SHIPPED), OrderStatus.PROCESSING, "bench", new Date()));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public int perOrder()
+	{
+		int shipped = 0;
+		for (Long orderId : orderIds)
+		{
+			orderService.shipOrder(orderId);
+			shipped++;
+		}
+		return shipped;
+	}
+
+	@Benchmark
+	public BulkOrderUpdateResponse bulk()
+	{
+		return orderService.shipOrders(BulkOrderUpdateRequest.builder().orderIds(orderIds).build());
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(BulkShipBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
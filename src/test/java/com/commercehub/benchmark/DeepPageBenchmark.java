@@ -0,0 +1,160 @@
+package com.commercehub.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.CursorPageResponse;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.dto.response.PageResponse;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.KeysetCursor;
+import com.commercehub.util.RoleName;
+
+/**
+ * Time to read page 10,000 of all orders, 20 per page, newest first, on the in-memory H2 profile
+ *
+ * offset is OrderService.getAllOrders: OFFSET 200,000 over (orderedAt, id), plus the count query
+ * keyset is OrderService.scrollAllOrders with the cursor of the last order of page 9,999: a seek on (orderedAt, id), no count
+ * Orders have no lines and every two share a placement time, so the ID tie-break is exercised
+ * Setup fails if both modes do not return the same orders
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.DeepPageBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DeepPageBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	@Param({ "10000" })
+	private int page;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private Pageable pageable;
+
+	private String cursor;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_ADMIN.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		// Two pages past the one read, so the offset page is not the last
+		int orderCount = (page + 2) * PAGE_SIZE;
+		jdbcTemplate.update("INSERT INTO orders (id, order_number, order_status, payment_status, total_amount, refunded_amount, "
+				+ "shipping_address, billing_address, ordered_at, user_id, is_deleted, created_by, created_at, last_modified_by, last_modified_at) "
+				+ "SELECT X, 'DEEP-' || X, 'DELIVERED', 'PAID', 9.99, 0, '1 Benchmark Street', '1 Benchmark Street', "
+				+ "DATEADD('SECOND', -(X / 2), TIMESTAMP '2030-01-01 00:00:00'), ?, FALSE, 'bench', CURRENT_TIMESTAMP, 'bench', CURRENT_TIMESTAMP "
+				+ "FROM SYSTEM_RANGE(1, ?)", userId, orderCount);
+
+		pageable = PageRequest.of(page, PAGE_SIZE, Sort.by("orderedAt").descending().and(Sort.by("id").descending()));
+
+		// Cursor of the last order of the previous page, as the client would have received it
+		cursor = jdbcTemplate.queryForObject("SELECT ordered_at, id FROM orders ORDER BY ordered_at DESC, id DESC OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY",
+				(rs, row) -> new KeysetCursor(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)).encode(), page * PAGE_SIZE - 1);
+
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		List<Long> offsetIds = offset().getContent().stream().map(OrderResponse::getId).toList();
+		List<Long> keysetIds = keyset().getContent().stream().map(OrderResponse::getId).toList();
+		if (!offsetIds.equals(keysetIds))
+		{
+			throw new IllegalStateException("Offset page " + offsetIds + " differs from keyset page " + keysetIds);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void authenticate()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public PageResponse<OrderResponse> offset()
+	{
+		return orderService.getAllOrders(pageable);
+	}
+
+	@Benchmark
+	public CursorPageResponse<OrderResponse> keyset()
+	{
+		return orderService.scrollAllOrders(cursor, PAGE_SIZE);
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(DeepPageBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,174 @@
+package com.commercehub.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.commercehub.security.JwtKeyRing;
+import com.commercehub.security.JwtService;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.util.JwtConstants;
+import com.commercehub.util.RoleName;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Sign and verify throughput of the HS256 path against asymmetric signing through the key ring
+ * Verification bypasses the verification cache so every call checks a signature
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.JwtSigningBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+	private static final String SECRET = "a-very-strong-secret-key-at-least-32-bytes!!";
+
+	private UserPrincipal principal;
+
+	private SecretKey hmacKey;
+
+	private JwtParser hmacParser;
+
+	private String hs256Token;
+
+	private JwtService ed25519JwtService;
+
+	private String ed25519Token;
+
+	private JwtService rs256JwtService;
+
+	private String rs256Token;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		principal = UserPrincipal.builder()
+				.id(42L)
+				.username("benchmark-user")
+				.authorities(RoleMask.authorities(RoleName.ROLE_USER.mask()))
+				.roleMask(RoleName.ROLE_USER.mask())
+				.build();
+
+		hmacKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+		hmacParser = Jwts.parser().verifyWith(hmacKey).build();
+		hs256Token = hs256Sign();
+
+		ed25519JwtService = newJwtService(Jwks.CRV.Ed25519.keyPair().build());
+		ed25519Token = ed25519JwtService.generateToken(principal, principal.getId());
+
+		rs256JwtService = newJwtService(Jwts.SIG.RS256.keyPair().build());
+		rs256Token = rs256JwtService.generateToken(principal, principal.getId());
+	}
+
+	@Benchmark
+	public String hs256Sign()
+	{
+		Date now = new Date();
+		return Jwts.builder()
+				.claim(JwtConstants.USER_ID_KEY, principal.getId())
+				.claim(JwtConstants.ROLES_MASK_KEY, RoleName.ROLE_USER.mask())
+				.subject(principal.getUsername())
+				.issuedAt(now)
+				.expiration(new Date(now.getTime() + 3_600_000L))
+				.signWith(hmacKey, Jwts.SIG.HS256)
+				.compact();
+	}
+
+	@Benchmark
+	public Object hs256Verify()
+	{
+		return hmacParser.parseSignedClaims(hs256Token).getPayload();
+	}
+
+	@Benchmark
+	public String ed25519Sign()
+	{
+		return ed25519JwtService.generateToken(principal, principal.getId());
+	}
+
+	@Benchmark
+	public Long ed25519Verify()
+	{
+		return ed25519JwtService.extractUserId(ed25519Token);
+	}
+
+	@Benchmark
+	public String rs256Sign()
+	{
+		return rs256JwtService.generateToken(principal, principal.getId());
+	}
+
+	@Benchmark
+	public Long rs256Verify()
+	{
+		return rs256JwtService.extractUserId(rs256Token);
+	}
+
+	private static JwtService newJwtService(KeyPair keyPair) throws IOException
+	{
+		Path keystore = Files.createTempDirectory("jwt-keys");
+		Files.writeString(keystore.resolve("bench.key"), toPem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+		Files.writeString(keystore.resolve("bench.pub"), toPem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+
+		JwtKeyRing keyRing = new JwtKeyRing();
+		ReflectionTestUtils.setField(keyRing, "keystoreDir", keystore.toString());
+		ReflectionTestUtils.setField(keyRing, "generateIfMissing", false);
+		ReflectionTestUtils.invokeMethod(keyRing, "init");
+
+		JwtService jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "keyRing", keyRing);
+		ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+		ReflectionTestUtils.setField(jwtService, "refreshExpiration", 86_400_000L);
+		ReflectionTestUtils.setField(jwtService, "verificationCacheMaxSize", 0L);
+		ReflectionTestUtils.invokeMethod(jwtService, "init");
+		return jwtService;
+	}
+
+	private static String toPem(String type, byte[] encoded)
+	{
+		return "-----BEGIN " + type + "-----\n"
+				+ Base64.getMimeEncoder(64, new byte[] { '\n' }).encodeToString(encoded)
+				+ "\n-----END " + type + "-----\n";
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(JwtSigningBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,153 @@
+package com.commercehub.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.commercehub.security.JwtService;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.util.JwtConstants;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request cost of authenticating a bearer token in JwtAuthenticationFilter
+ *
+ * legacyFilterPath replays the original filter: validateToken, extractUsername, isTokenValid
+ * (two parses) and extractUserPrincipal, each building a new key and parser
+ * All paths verify the same HS256 token so only the parsing strategy differs
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.JwtVerificationBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+	private static final String SECRET = "a-very-strong-secret-key-at-least-32-bytes!!";
+
+	private JwtService cachingJwtService;
+
+	private JwtService nonCachingJwtService;
+
+	private String token;
+
+	@Setup
+	public void setUp()
+	{
+		cachingJwtService = newJwtService(10_000);
+		nonCachingJwtService = newJwtService(0);
+
+		token = Jwts.builder()
+				.claim(JwtConstants.USER_ID_KEY, 42L)
+				.claim(JwtConstants.AUTHORITIES_KEY, List.of("ROLE_USER", "ROLE_MANAGER"))
+				.subject("benchmark-user")
+				.issuedAt(new Date())
+				.expiration(new Date(System.currentTimeMillis() + 3_600_000L))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS256)
+				.compact();
+	}
+
+	private static JwtService newJwtService(long cacheSize)
+	{
+		JwtService jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+		ReflectionTestUtils.setField(jwtService, "legacyHs256Enabled", true);
+		ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+		ReflectionTestUtils.setField(jwtService, "refreshExpiration", 86_400_000L);
+		ReflectionTestUtils.setField(jwtService, "verificationCacheMaxSize", cacheSize);
+		ReflectionTestUtils.invokeMethod(jwtService, "init");
+		return jwtService;
+	}
+
+	@Benchmark
+	public UserPrincipal legacyFilterPath()
+	{
+		// validateToken
+		legacyParse(token);
+
+		// extractUsername
+		String username = legacyParse(token).getSubject();
+
+		// isTokenValid -> extractAllClaims + isTokenExpired
+		Claims validation = legacyParse(token);
+		boolean valid = !legacyParse(token).getExpiration().before(new Date()) && validation.getSubject() != null;
+
+		if (username == null || !valid)
+		{
+			return null;
+		}
+
+		// extractUserPrincipal
+		Claims claims = legacyParse(token);
+		List<?> authoritiesList = claims.get(JwtConstants.AUTHORITIES_KEY, List.class);
+		List<SimpleGrantedAuthority> authorities = (authoritiesList != null) ? authoritiesList.stream()
+				.map(Object::toString)
+				.map(SimpleGrantedAuthority::new)
+				.collect(Collectors.toList())
+				: Collections.emptyList();
+
+		return UserPrincipal.builder()
+				.username(claims.getSubject())
+				.id(claims.get(JwtConstants.USER_ID_KEY, Long.class))
+				.authorities(authorities)
+				.build();
+	}
+
+	@Benchmark
+	public UserPrincipal singleParse()
+	{
+		return nonCachingJwtService.verify(token).orElseThrow().getPrincipal();
+	}
+
+	@Benchmark
+	public UserPrincipal cachedVerification()
+	{
+		return cachingJwtService.verify(token).orElseThrow().getPrincipal();
+	}
+
+	private static Claims legacyParse(String token)
+	{
+		SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+		return Jwts.parser()
+				.verifyWith(key)
+				.build()
+				.parseSignedClaims(token)
+				.getPayload();
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(JwtVerificationBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,201 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.dto.response.PageResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.ArchivedOrderRepository;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.service.impl.OrderArchiver;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Latest page of DELIVERED orders with and without archiving, on the in-memory H2 profile
+ *
+ * 10000 DELIVERED orders were placed 200 days ago and 500 today
+ * With archived=true, OrderArchiver moves the old ones to the archive tables before measuring,
+ * so the page and its count only see the 500 recent orders left in the hot table
+ * Setup checks that an archived order is still found by ID and by number
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderArchiveBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderArchiveBenchmark {
+
+	private static final int OLD_ORDER_COUNT = 10000;
+
+	private static final int RECENT_ORDER_COUNT = 500;
+
+	@Param({ "false", "true" })
+	private boolean archived;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn",
+						"orders.archive.enabled=true", "orders.archive.interval-ms=3600000", "orders.archive.min-age-days=90",
+						"orders.archive.max-chunks-per-run=1000")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		OrderRepository orderRepository = context.getBean(OrderRepository.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_ADMIN.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		Long productId = productRepository.save(Product.builder()
+				.name("Benchmark product")
+				.sku("ARCHIVE-0")
+				.price(new BigDecimal("9.99"))
+				.quantityInStock(0)
+				.build()).getId();
+
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		LocalDateTime oldOrderedAt = LocalDateTime.now().minusDays(200);
+		LocalDateTime recentOrderedAt = LocalDateTime.now();
+		List<Long> orderIds = new ArrayList<>(OLD_ORDER_COUNT + RECENT_ORDER_COUNT);
+		for (int offset = 0; offset < OLD_ORDER_COUNT + RECENT_ORDER_COUNT; offset += 1000)
+		{
+			int first = offset;
+			orderIds.addAll(transactionTemplate.execute(status -> {
+				List<Long> ids = new ArrayList<>(1000);
+				for (int n = first; n < Math.min(first + 1000, OLD_ORDER_COUNT + RECENT_ORDER_COUNT); n++)
+				{
+					Order order = Order.builder()
+							.orderNumber("ARCHIVE-" + n)
+							.user(userRepository.getReferenceById(userId))
+							.orderStatus(OrderStatus.DELIVERED)
+							.paymentStatus(PaymentStatus.PAID)
+							.shippingAddress("1 Benchmark Street")
+							.billingAddress("1 Benchmark Street")
+							.paymentMethod("CARD")
+							.orderedAt(n < OLD_ORDER_COUNT ? oldOrderedAt : recentOrderedAt)
+							.totalAmount(new BigDecimal("9.99"))
+							.items(new ArrayList<>(1))
+							.build();
+
+					OrderItem item = OrderItem.builder()
+							.product(productRepository.getReferenceById(productId))
+							.quantity(1)
+							.unitPrice(new BigDecimal("9.99"))
+							.build();
+					item.calculateTotalPrice();
+					order.addOrderItem(item);
+
+					ids.add(orderRepository.save(order).getId());
+				}
+				return ids;
+			}));
+		}
+
+		if (archived)
+		{
+			context.getBean(OrderArchiver.class).archiveOldOrders();
+
+			long archivedCount = context.getBean(ArchivedOrderRepository.class).count();
+			if (archivedCount != OLD_ORDER_COUNT)
+			{
+				throw new IllegalStateException(archivedCount + " orders were archived instead of " + OLD_ORDER_COUNT);
+			}
+			OrderResponse byId = orderService.getOrderById(orderIds.get(0));
+			OrderResponse byNumber = orderService.getOrderByNumber("ARCHIVE-1");
+			if (byId.getItems().size() != 1 || !orderIds.get(1).equals(byNumber.getId()))
+			{
+				throw new IllegalStateException("Archived orders are not found by ID or number");
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public PageResponse<OrderResponse> deliveredPage()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		return orderService.getOrdersByStatus("DELIVERED", PageRequest.of(0, 20, Sort.by("orderedAt").descending()));
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderArchiveBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,193 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderIntakeService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderIntakeStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Time to place a burst of two-line orders over 5 shared products, on the in-memory H2 profile
+ *
+ * synchronous calls OrderService.createOrder once per order: one transaction and one stock reservation each
+ * queued submits every order to OrderIntakeService and waits until none is QUEUED:
+ * 2 workers place them in micro-batches of up to 50, one transaction and one stock reservation per batch
+ * H2 commits without a disk flush or network round trip, so the gap on a real database is larger than measured here
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderIntakeBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrderIntakeBenchmark {
+
+	private static final int PRODUCT_COUNT = 5;
+
+	@Param({ "500", "2000" })
+	private int orderCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private OrderIntakeService orderIntakeService;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private List<CreateOrderRequest> requests;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn",
+						"orders.intake.async.enabled=true", "orders.intake.workers=2", "orders.intake.max-batch-size=50")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		orderIntakeService = context.getBean(OrderIntakeService.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(RoleName.ROLE_USER.mask()))
+				.roleMask(RoleName.ROLE_USER.mask())
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		List<Long> productIds = new ArrayList<>(PRODUCT_COUNT);
+		for (int i = 0; i < PRODUCT_COUNT; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("INTAKE-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(Integer.MAX_VALUE / 2)
+					.build()).getId());
+		}
+
+		requests = new ArrayList<>(orderCount);
+		for (int n = 0; n < orderCount; n++)
+		{
+			List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>(2);
+			for (int line = 0; line < 2; line++)
+			{
+				CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+				item.setProductId(productIds.get((n + line) % PRODUCT_COUNT));
+				item.setQuantity(1);
+				items.add(item);
+			}
+
+			CreateOrderRequest request = new CreateOrderRequest();
+			request.setShippingAddress("1 Benchmark Street");
+			request.setBillingAddress("1 Benchmark Street");
+			request.setPaymentMethod("CARD");
+			request.setItems(items);
+			requests.add(request);
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public int synchronous()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+
+		int placed = 0;
+		for (CreateOrderRequest request : requests)
+		{
+			orderService.createOrder(request);
+			placed++;
+		}
+		return placed;
+	}
+
+	@Benchmark
+	public int queued() throws InterruptedException
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+
+		List<String> orderNumbers = new ArrayList<>(orderCount);
+		for (CreateOrderRequest request : requests)
+		{
+			orderNumbers.add(orderIntakeService.submit(request).getOrderNumber());
+		}
+
+		// Statuses are checked in acceptance order, the last ones are placed last
+		int placed = 0;
+		for (String orderNumber : orderNumbers)
+		{
+			OrderIntakeStatus status;
+			while ((status = orderIntakeService.getStatus(orderNumber).getStatus()) == OrderIntakeStatus.QUEUED)
+			{
+				Thread.sleep(1);
+			}
+			if (status != OrderIntakeStatus.PLACED)
+			{
+				throw new IllegalStateException("Order " + orderNumber + " was not placed");
+			}
+			placed++;
+		}
+		return placed;
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderIntakeBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,81 @@
+package com.commercehub.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.commercehub.repository.OrderNumberRepository;
+import com.commercehub.service.impl.OrderNumberDispenser;
+
+/**
+ * Cost of producing an order number, without the database round trip
+ *
+ * legacyFormat replays the original generator: LocalDateTime.now() and String.format per number
+ * dispenser goes through OrderNumberDispenser, fed by an in-memory sequence that increments by the block size,
+ * so one "round trip" in 1000 numbers is counted; run with -prof gc to compare allocation per number
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderNumberBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class OrderNumberBenchmark {
+
+	private final AtomicLong legacySequence = new AtomicLong();
+
+	private OrderNumberDispenser dispenser;
+
+	@Setup
+	public void setUp()
+	{
+		AtomicLong blocks = new AtomicLong(1);
+		dispenser = new OrderNumberDispenser(new OrderNumberRepository() {
+			@Override
+			public Long getNextSequence()
+			{
+				return blocks.getAndAdd(1000);
+			}
+		});
+	}
+
+	@Benchmark
+	public String legacyFormat()
+	{
+		int year = LocalDateTime.now().getYear();
+		return "ORD-" + year + "-" + String.format("%06d", legacySequence.incrementAndGet());
+	}
+
+	@Benchmark
+	public String dispenser()
+	{
+		return dispenser.next();
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderNumberBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,207 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.dto.response.PageResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.mapper.OrderMapper;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Time to read one page of a user's orders with three lines each, on the in-memory H2 profile
+ *
+ * lazy is the previous read: findByUserId and its count, then the mapper loads the user, the lines of every order
+ * and every product not seen yet one by one, growing with the page size
+ * fetchPlanned is OrderService.getCurrentUserOrders: a page of IDs, its count, then one query with the details fetch plan
+ * The statement count of a fetch-planned page is asserted by OrderFetchPlanTest
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderPageBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPageBenchmark {
+
+	private static final int ORDER_COUNT = 500;
+
+	private static final int PRODUCT_COUNT = 20;
+
+	private static final int ITEMS_PER_ORDER = 3;
+
+	@Param({ "20", "100" })
+	private int pageSize;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private OrderRepository orderRepository;
+
+	private OrderMapper orderMapper;
+
+	private TransactionTemplate transactionTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private Long userId;
+
+	private Pageable pageable;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		orderRepository = context.getBean(OrderRepository.class);
+		orderMapper = context.getBean(OrderMapper.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_USER.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		List<Long> productIds = new ArrayList<>(PRODUCT_COUNT);
+		for (int i = 0; i < PRODUCT_COUNT; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("PAGE-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(1000)
+					.build()).getId());
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int n = 0; n < ORDER_COUNT; n++)
+			{
+				Order order = Order.builder()
+						.orderNumber("PAGE-" + n)
+						.user(userRepository.getReferenceById(userId))
+						.orderStatus(OrderStatus.PENDING)
+						.paymentStatus(PaymentStatus.UNPAID)
+						.shippingAddress("1 Benchmark Street")
+						.billingAddress("1 Benchmark Street")
+						.paymentMethod("CARD")
+						.orderedAt(LocalDateTime.now().minusMinutes(n))
+						.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(ITEMS_PER_ORDER)))
+						.items(new ArrayList<>(ITEMS_PER_ORDER))
+						.build();
+
+				for (int line = 0; line < ITEMS_PER_ORDER; line++)
+				{
+					OrderItem item = OrderItem.builder()
+							.product(productRepository.getReferenceById(productIds.get((n + line) % PRODUCT_COUNT)))
+							.quantity(1)
+							.unitPrice(new BigDecimal("9.99"))
+							.build();
+					item.calculateTotalPrice();
+					order.addOrderItem(item);
+				}
+
+				orderRepository.save(order);
+			}
+		});
+
+		pageable = PageRequest.of(1, pageSize, Sort.by("orderedAt").descending());
+	}
+
+	@Setup(Level.Iteration)
+	public void authenticate()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public List<OrderResponse> lazy()
+	{
+		return transactionTemplate.execute(status ->
+				orderRepository.findByUserId(userId, pageable).map(orderMapper::toResponse).getContent());
+	}
+
+	@Benchmark
+	public PageResponse<OrderResponse> fetchPlanned()
+	{
+		return orderService.getCurrentUserOrders(pageable);
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderPageBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,219 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.entity.User;
+import com.commercehub.mapper.OrderMapper;
+import com.commercehub.repository.OrderNumberRepository;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Order placement latency against the number of line items, on the in-memory H2 profile
+ *
+ * legacyPlacement replays the original createOrder: full user load, then findById and save per line
+ * batchedPlacement is OrderService.createOrder: one locking query for all products and a user reference
+ * H2 has no network round trip, so the gap on a real database is larger than measured here
+ * Hibernate needs a long warmup before timings settle, hence the warmup iterations
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderPlacementBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPlacementBenchmark {
+
+	@Param({ "1", "10", "40", "100" })
+	private int lineCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private UserRepository userRepository;
+
+	private ProductRepository productRepository;
+
+	private OrderRepository orderRepository;
+
+	private OrderNumberRepository orderNumberRepository;
+
+	private OrderMapper orderMapper;
+
+	private TransactionTemplate transactionTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private CreateOrderRequest request;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		userRepository = context.getBean(UserRepository.class);
+		productRepository = context.getBean(ProductRepository.class);
+		orderRepository = context.getBean(OrderRepository.class);
+		orderNumberRepository = context.getBean(OrderNumberRepository.class);
+		orderMapper = context.getBean(OrderMapper.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(RoleName.ROLE_USER.mask()))
+				.roleMask(RoleName.ROLE_USER.mask())
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+		for (int i = 0; i < lineCount; i++)
+		{
+			Product product = productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("BENCH-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(Integer.MAX_VALUE / 2)
+					.build());
+
+			CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+			item.setProductId(product.getId());
+			item.setQuantity(1);
+			items.add(item);
+		}
+
+		request = new CreateOrderRequest();
+		request.setShippingAddress("1 Benchmark Street");
+		request.setBillingAddress("1 Benchmark Street");
+		request.setPaymentMethod("CARD");
+		request.setItems(items);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public OrderResponse legacyPlacement()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		Long userId = ((UserPrincipal) authentication.getPrincipal()).getId();
+
+		return transactionTemplate.execute(status -> {
+			User user = userRepository.findById(userId).orElseThrow();
+
+			Order order = Order.builder()
+					.orderNumber("ORD-" + LocalDateTime.now().getYear() + "-" + String.format("%06d", orderNumberRepository.getNextSequence()))
+					.user(user)
+					.orderStatus(OrderStatus.PENDING)
+					.paymentStatus(PaymentStatus.UNPAID)
+					.shippingAddress(request.getShippingAddress())
+					.billingAddress(request.getBillingAddress())
+					.paymentMethod(request.getPaymentMethod())
+					.orderedAt(LocalDateTime.now())
+					.items(new ArrayList<>())
+					.build();
+
+			List<OrderItem> orderItems = new ArrayList<>();
+			BigDecimal totalAmount = BigDecimal.ZERO;
+
+			for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems())
+			{
+				Product product = productRepository.findById(itemRequest.getProductId()).orElseThrow();
+
+				OrderItem orderItem = OrderItem.builder()
+						.order(order)
+						.product(product)
+						.quantity(itemRequest.getQuantity())
+						.unitPrice(product.getPrice())
+						.build();
+				orderItem.calculateTotalPrice();
+
+				orderItems.add(orderItem);
+				totalAmount = totalAmount.add(orderItem.getTotalPrice());
+
+				product.decreaseStock(itemRequest.getQuantity());
+				productRepository.save(product);
+			}
+
+			order.setItems(orderItems);
+			order.setTotalAmount(totalAmount);
+
+			return orderMapper.toResponse(orderRepository.save(order));
+		});
+	}
+
+	@Benchmark
+	public OrderResponse batchedPlacement()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		return orderService.createOrder(request);
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderPlacementBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,180 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.mapper.OrderMapper;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Time for the owner to poll one order with three lines, on the in-memory H2 profile
+ *
+ * database loads the order with the details fetch plan and maps it on every call, as getOrderById did before
+ * cached is OrderService.getOrderById through OrderDetailCache: a cache lookup and the access check
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderPollingBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPollingBenchmark {
+
+	private static final int ITEMS_PER_ORDER = 3;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private OrderRepository orderRepository;
+
+	private OrderMapper orderMapper;
+
+	private TransactionTemplate transactionTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private Long orderId;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		orderRepository = context.getBean(OrderRepository.class);
+		orderMapper = context.getBean(OrderMapper.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_USER.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		orderId = transactionTemplate.execute(status -> {
+			Order order = Order.builder()
+					.orderNumber("POLL-1")
+					.user(userRepository.getReferenceById(userId))
+					.orderStatus(OrderStatus.SHIPPED)
+					.paymentStatus(PaymentStatus.PAID)
+					.shippingAddress("1 Benchmark Street")
+					.billingAddress("1 Benchmark Street")
+					.paymentMethod("CARD")
+					.orderedAt(LocalDateTime.now())
+					.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(ITEMS_PER_ORDER)))
+					.items(new ArrayList<>(ITEMS_PER_ORDER))
+					.build();
+
+			for (int i = 0; i < ITEMS_PER_ORDER; i++)
+			{
+				Product product = productRepository.save(Product.builder()
+						.name("Benchmark product " + i)
+						.sku("POLL-" + i)
+						.price(new BigDecimal("9.99"))
+						.quantityInStock(1000)
+						.build());
+
+				OrderItem item = OrderItem.builder()
+						.product(product)
+						.quantity(1)
+						.unitPrice(new BigDecimal("9.99"))
+						.build();
+				item.calculateTotalPrice();
+				order.addOrderItem(item);
+			}
+
+			return orderRepository.save(order).getId();
+		});
+	}
+
+	@Setup(Level.Iteration)
+	public void authenticate()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public OrderResponse database()
+	{
+		return transactionTemplate.execute(status -> orderMapper.toResponse(orderRepository.findWithDetailsById(orderId).orElseThrow()));
+	}
+
+	@Benchmark
+	public OrderResponse cached()
+	{
+		return orderService.getOrderById(orderId);
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderPollingBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
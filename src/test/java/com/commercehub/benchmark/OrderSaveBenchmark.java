@@ -0,0 +1,160 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+
+/**
+ * Time to save one order with its items through the Order.items cascade, on the in-memory H2 profile
+ *
+ * jdbcBatchSize 0 turns JDBC batching off, 50 is the configured batch size
+ * Before this change every entity used IDENTITY ids, so each row was a separate INSERT whatever the batch size:
+ * for the before numbers run this benchmark on the previous commit
+ * H2 has no network round trip, so the gap on a real database is larger than measured here
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OrderSaveBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSaveBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int itemCount;
+
+	@Param({ "0", "50" })
+	private int jdbcBatchSize;
+
+	private final AtomicLong orderNumbers = new AtomicLong();
+
+	private ConfigurableApplicationContext context;
+
+	private OrderRepository orderRepository;
+
+	private UserRepository userRepository;
+
+	private ProductRepository productRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Long userId;
+
+	private List<Long> productIds;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn",
+						"spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize)
+				.run();
+
+		orderRepository = context.getBean(OrderRepository.class);
+		userRepository = context.getBean(UserRepository.class);
+		productRepository = context.getBean(ProductRepository.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		productIds = new ArrayList<>(itemCount);
+		for (int i = 0; i < itemCount; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("SAVE-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(1000)
+					.build()).getId());
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public Long saveOrder()
+	{
+		return transactionTemplate.execute(status -> {
+			Order order = Order.builder()
+					.orderNumber("SAVE-" + orderNumbers.incrementAndGet())
+					.user(userRepository.getReferenceById(userId))
+					.orderStatus(OrderStatus.PENDING)
+					.paymentStatus(PaymentStatus.UNPAID)
+					.shippingAddress("1 Benchmark Street")
+					.billingAddress("1 Benchmark Street")
+					.paymentMethod("CARD")
+					.orderedAt(LocalDateTime.now())
+					.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(itemCount)))
+					.items(new ArrayList<>(itemCount))
+					.build();
+
+			for (Long productId : productIds)
+			{
+				Product product = productRepository.getReferenceById(productId);
+				order.addOrderItem(OrderItem.builder()
+						.product(product)
+						.quantity(1)
+						.unitPrice(new BigDecimal("9.99"))
+						.build());
+			}
+
+			return orderRepository.save(order).getId();
+		});
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OrderSaveBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
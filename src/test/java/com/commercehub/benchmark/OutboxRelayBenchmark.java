@@ -0,0 +1,138 @@
+package com.commercehub.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.entity.OrderEvent;
+import com.commercehub.repository.OrderEventRepository;
+import com.commercehub.service.impl.OrderOutboxRelay;
+import com.commercehub.util.OrderEventType;
+
+/**
+ * Time to drain a backlog of order events from the outbox to an embedded Kafka broker, on the in-memory H2 profile
+ *
+ * relay is one OrderOutboxRelay run: batches of batchSize events sent in waves of one event per order,
+ * each wave awaited together, and deleted with one statement per batch
+ * Events belong to 100 orders, so every order has many events in flight at once
+ * The outbox is refilled before every iteration and must be empty after the run
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.OutboxRelayBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OutboxRelayBenchmark {
+
+	private static final String TOPIC = "order-events";
+
+	private static final int ORDER_COUNT = 100;
+
+	@Param({ "1000", "10000" })
+	private int eventCount;
+
+	@Param({ "50", "500" })
+	private int batchSize;
+
+	private EmbeddedKafkaKraftBroker broker;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderEventRepository orderEventRepository;
+
+	private OrderOutboxRelay orderOutboxRelay;
+
+	@Setup
+	public void setUp()
+	{
+		broker = new EmbeddedKafkaKraftBroker(1, 4, TOPIC);
+		broker.afterPropertiesSet();
+
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn",
+						"spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+						"orders.outbox.relay.enabled=true", "orders.outbox.relay.interval-ms=3600000",
+						"orders.outbox.topic=" + TOPIC, "orders.outbox.batch-size=" + batchSize,
+						"orders.outbox.max-batches-per-run=100000")
+				.run();
+
+		orderEventRepository = context.getBean(OrderEventRepository.class);
+		orderOutboxRelay = context.getBean(OrderOutboxRelay.class);
+	}
+
+	@Setup(Level.Iteration)
+	public void fillOutbox()
+	{
+		LocalDateTime createdAt = LocalDateTime.now();
+		List<OrderEvent> events = new ArrayList<>(eventCount);
+		for (int n = 0; n < eventCount; n++)
+		{
+			long orderId = n % ORDER_COUNT + 1;
+			events.add(OrderEvent.builder()
+					.orderId(orderId)
+					.eventType(OrderEventType.STATUS_CHANGED)
+					.payload("{\"eventType\":\"STATUS_CHANGED\",\"orderId\":" + orderId + ",\"sequence\":" + n + "}")
+					.createdAt(createdAt)
+					.build());
+		}
+		orderEventRepository.saveAll(events);
+	}
+
+	@TearDown(Level.Iteration)
+	public void checkDrained()
+	{
+		long left = orderEventRepository.count();
+		if (left != 0)
+		{
+			throw new IllegalStateException(left + " order events were not relayed");
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		context.close();
+		broker.destroy();
+	}
+
+	@Benchmark
+	public void relay()
+	{
+		orderOutboxRelay.relay();
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(OutboxRelayBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
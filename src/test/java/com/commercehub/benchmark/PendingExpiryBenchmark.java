@@ -0,0 +1,196 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.impl.PendingOrderExpiry;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+
+/**
+ * Time to expire a backlog of stale PENDING orders with three lines each over 20 products, on the in-memory H2 profile
+ *
+ * legacyExpiry loads every stale order with findPendingOrdersOlderThanSpecifid in one transaction,
+ * then cancels each entity and increments stock once per line
+ * sweeper is PendingOrderExpiry: keyset chunks of 200, one conditional UPDATE and one increment per product per chunk
+ * All orders are put back to PENDING before every iteration
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.PendingExpiryBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PendingExpiryBenchmark {
+
+	private static final int PRODUCT_COUNT = 20;
+
+	private static final int ITEMS_PER_ORDER = 3;
+
+	@Param({ "1000", "5000" })
+	private int orderCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderRepository orderRepository;
+
+	private ProductRepository productRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private PendingOrderExpiry pendingOrderExpiry;
+
+	private List<Long> orderIds;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn",
+						"orders.expiry.enabled=true", "orders.expiry.interval-ms=3600000", "orders.expiry.max-chunks-per-run=1000")
+				.run();
+
+		orderRepository = context.getBean(OrderRepository.class);
+		productRepository = context.getBean(ProductRepository.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		pendingOrderExpiry = context.getBean(PendingOrderExpiry.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		List<Long> productIds = new ArrayList<>(PRODUCT_COUNT);
+		for (int i = 0; i < PRODUCT_COUNT; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("EXPIRE-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(0)
+					.build()).getId());
+		}
+
+		LocalDateTime orderedAt = LocalDateTime.now().minusDays(2);
+		orderIds = transactionTemplate.execute(status -> {
+			List<Long> ids = new ArrayList<>(orderCount);
+			for (int n = 0; n < orderCount; n++)
+			{
+				Order order = Order.builder()
+						.orderNumber("EXPIRE-" + n)
+						.user(userRepository.getReferenceById(userId))
+						.orderStatus(OrderStatus.PENDING)
+						.paymentStatus(PaymentStatus.UNPAID)
+						.shippingAddress("1 Benchmark Street")
+						.billingAddress("1 Benchmark Street")
+						.paymentMethod("CARD")
+						.orderedAt(orderedAt)
+						.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(ITEMS_PER_ORDER)))
+						.items(new ArrayList<>(ITEMS_PER_ORDER))
+						.build();
+
+				for (int line = 0; line < ITEMS_PER_ORDER; line++)
+				{
+					OrderItem item = OrderItem.builder()
+							.product(productRepository.getReferenceById(productIds.get((n + line) % PRODUCT_COUNT)))
+							.quantity(1)
+							.unitPrice(new BigDecimal("9.99"))
+							.build();
+					item.calculateTotalPrice();
+					order.addOrderItem(item);
+				}
+
+				ids.add(orderRepository.save(order).getId());
+			}
+			return ids;
+		});
+	}
+
+	@Setup(Level.Iteration)
+	public void resetOrders()
+	{
+		transactionTemplate.executeWithoutResult(status ->
+				orderRepository.updateOrderStatus(orderIds, Set.of(OrderStatus.CANCELLED), OrderStatus.PENDING, "bench", new Date()));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public int legacyExpiry()
+	{
+		return transactionTemplate.execute(status -> {
+			List<Order> stale = orderRepository.findPendingOrdersOlderThanSpecifid(LocalDateTime.now().minusHours(1));
+			for (Order order : stale)
+			{
+				for (OrderItem item : order.getItems())
+				{
+					productRepository.increaseStock(item.getQuantity(), item.getProduct().getId());
+				}
+				order.setOrderStatus(OrderStatus.CANCELLED);
+				order.setCancelledAt(LocalDateTime.now());
+				orderRepository.save(order);
+			}
+			return stale.size();
+		});
+	}
+
+	@Benchmark
+	public void sweeper()
+	{
+		pendingOrderExpiry.expireStaleOrders();
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(PendingExpiryBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,124 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.ProductRepository;
+
+/**
+ * Time to give stock of a cancelled or returned batch back, on the in-memory H2 profile
+ *
+ * perProduct runs ProductRepository.increaseStock once per product, as cancellation did before
+ * setBased is ProductRepository.addStock: one CASE UPDATE per 500 products
+ * Both run in one transaction, stock only grows so no reset is needed
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.RestockBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestockBenchmark {
+
+	@Param({ "5", "50", "500" })
+	private int productCount;
+
+	private ConfigurableApplicationContext context;
+
+	private ProductRepository productRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private SortedMap<Long, Integer> quantities;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		productRepository = context.getBean(ProductRepository.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+
+		List<Product> products = new ArrayList<>(productCount);
+		for (int i = 0; i < productCount; i++)
+		{
+			products.add(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("RESTOCK-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(1000)
+					.build());
+		}
+
+		quantities = new TreeMap<>();
+		for (Product product : productRepository.saveAll(products))
+		{
+			quantities.put(product.getId(), 2);
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public Integer perProduct()
+	{
+		return transactionTemplate.execute(status -> {
+			int updated = 0;
+			for (Map.Entry<Long, Integer> entry : quantities.entrySet())
+			{
+				updated += productRepository.increaseStock(entry.getValue(), entry.getKey());
+			}
+			return updated;
+		});
+	}
+
+	@Benchmark
+	public Integer setBased()
+	{
+		return transactionTemplate.execute(status -> productRepository.addStock(quantities));
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(RestockBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,207 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.entity.Order;
+import com.commercehub.entity.OrderItem;
+import com.commercehub.entity.Product;
+import com.commercehub.mapper.OrderMapper;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.repository.UserRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.util.OrderStatus;
+import com.commercehub.util.PaymentStatus;
+import com.commercehub.util.RoleName;
+
+/**
+ * Latency of one lifecycle transition (ship) against the number of order lines, on the in-memory H2 profile
+ *
+ * legacyShip replays the original shipOrder: findById, access check on the user, save, full mapping with items
+ * conditionalShip is OrderService.shipOrder: one conditional UPDATE and one summary projection
+ * The order is put back to PROCESSING before every invocation
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.StatusTransitionBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusTransitionBenchmark {
+
+	@Param({ "1", "10", "50" })
+	private int lineCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private OrderRepository orderRepository;
+
+	private OrderMapper orderMapper;
+
+	private TransactionTemplate transactionTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private Long orderId;
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		orderRepository = context.getBean(OrderRepository.class);
+		orderMapper = context.getBean(OrderMapper.class);
+		transactionTemplate = context.getBean(TransactionTemplate.class);
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		int roleMask = RoleName.ROLE_ADMIN.mask();
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+		List<Long> productIds = new ArrayList<>(lineCount);
+		for (int i = 0; i < lineCount; i++)
+		{
+			productIds.add(productRepository.save(Product.builder()
+					.name("Benchmark product " + i)
+					.sku("CAS-" + i)
+					.price(new BigDecimal("9.99"))
+					.quantityInStock(1000)
+					.build()).getId());
+		}
+
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		orderId = transactionTemplate.execute(status -> {
+			Order order = Order.builder()
+					.orderNumber("CAS-1")
+					.user(userRepository.getReferenceById(userId))
+					.orderStatus(OrderStatus.PROCESSING)
+					.paymentStatus(PaymentStatus.PAID)
+					.shippingAddress("1 Benchmark Street")
+					.billingAddress("1 Benchmark Street")
+					.paymentMethod("CARD")
+					.orderedAt(LocalDateTime.now())
+					.totalAmount(new BigDecimal("9.99").multiply(BigDecimal.valueOf(lineCount)))
+					.items(new ArrayList<>(lineCount))
+					.build();
+
+			for (Long productId : productIds)
+			{
+				OrderItem item = OrderItem.builder()
+						.product(productRepository.getReferenceById(productId))
+						.quantity(1)
+						.unitPrice(new BigDecimal("9.99"))
+						.build();
+				item.calculateTotalPrice();
+				order.addOrderItem(item);
+			}
+
+			return orderRepository.save(order).getId();
+		});
+	}
+
+	@Setup(Level.Invocation)
+	public void resetOrder()
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		transactionTemplate.executeWithoutResult(status ->
+				orderRepository.updateOrderStatus(List.of(orderId), Set.of(OrderStatus.SHIPPED), OrderStatus.PROCESSING, "bench", new Date()));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+		context.close();
+	}
+
+	@Benchmark
+	public OrderResponse legacyShip()
+	{
+		return transactionTemplate.execute(status -> {
+			Order order = orderRepository.findById(orderId).orElseThrow();
+			order.getUser().getId();
+			order.getUser().getFirstName();
+
+			if (order.getOrderStatus() != OrderStatus.PROCESSING)
+			{
+				throw new IllegalStateException("Order is " + order.getOrderStatus());
+			}
+
+			order.setOrderStatus(OrderStatus.SHIPPED);
+			order.setShippedAt(LocalDateTime.now());
+
+			return orderMapper.toResponse(orderRepository.save(order));
+		});
+	}
+
+	@Benchmark
+	public OrderResponse conditionalShip()
+	{
+		return orderService.shipOrder(orderId);
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(StatusTransitionBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
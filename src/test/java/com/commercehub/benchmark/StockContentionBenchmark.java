@@ -0,0 +1,227 @@
+package com.commercehub.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.commercehub.CommerceHubApplication;
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.entity.Product;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.exception.ServiceUnavailableException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.service.impl.InventoryEngine;
+import com.commercehub.util.RoleName;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 500 threads ordering one unit of the same SKU, per stock reservation strategy, on the in-memory H2 profile
+ * "engine" reserves in the in-memory InventoryEngine, with atomic as the fallback strategy
+ *
+ * Every iteration starts a fresh SKU: with 1000 units it sells out early and the threads keep ordering past zero,
+ * with 1000000 units every order can succeed and throughput is that of contended successful orders
+ * The iteration teardown proves there is no oversell: stock never goes negative, and stock left plus units
+ * in order lines equals the starting stock, and the units ordered equal the number of successful orders
+ * Throughput counts every call, the sold / rejected / retryExhausted counters give the outcomes per iteration
+ *
+ * Run with: java -cp target/test-classes:target/classes:<test classpath> com.commercehub.benchmark.StockContentionBenchmark
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(500)
+@Fork(1)
+@Slf4j
+public class StockContentionBenchmark {
+	
+	@Param({ "atomic", "optimistic", "pessimistic", "engine" })
+	private String strategy;
+
+	@Param({ "1000", "1000000" })
+	private int startingStock;
+
+	private ConfigurableApplicationContext context;
+
+	private OrderService orderService;
+
+	private ProductRepository productRepository;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private UsernamePasswordAuthenticationToken authentication;
+
+	private volatile Product product;
+
+	private volatile CreateOrderRequest request;
+
+	private final AtomicLong sold = new AtomicLong();
+
+	private int iteration;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Outcomes {
+
+		public long sold;
+
+		public long rejected;
+
+		public long retryExhausted;
+	}
+
+	@Setup
+	public void setUp()
+	{
+		context = new SpringApplicationBuilder(CommerceHubApplication.class)
+				.profiles("h2")
+				.properties("spring.main.banner-mode=off", "logging.level.root=warn", "logging.level.com.commercehub.benchmark=info",
+						"inventory.reservation.strategy=" + ("engine".equals(strategy) ? "atomic" : strategy),
+						"inventory.engine.enabled=" + "engine".equals(strategy),
+						"spring.datasource.hikari.maximum-pool-size=20",
+						"spring.datasource.url=jdbc:h2:mem:contention;MODE=MSSQLServer;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000")
+				.run();
+
+		orderService = context.getBean(OrderService.class);
+		productRepository = context.getBean(ProductRepository.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername("bench");
+		registration.setEmail("bench@commercehub.com");
+		registration.setPassword("Benchmark-Passw0rd");
+		registration.setFirstName("Bench");
+		registration.setLastName("Mark");
+		Long userId = context.getBean(AuthService.class).register(registration).getUserId();
+
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username("bench")
+				.authorities(RoleMask.authorities(RoleName.ROLE_USER.mask()))
+				.roleMask(RoleName.ROLE_USER.mask())
+				.build();
+		authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+
+	@Setup(Level.Iteration)
+	public void newSku()
+	{
+		product = productRepository.save(Product.builder()
+				.name("Contended product " + iteration)
+				.sku("HOT-" + strategy + "-" + iteration++)
+				.price(new BigDecimal("9.99"))
+				.quantityInStock(startingStock)
+				.build());
+		sold.set(0);
+
+		CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+		item.setProductId(product.getId());
+		item.setQuantity(1);
+
+		CreateOrderRequest order = new CreateOrderRequest();
+		order.setShippingAddress("1 Benchmark Street");
+		order.setBillingAddress("1 Benchmark Street");
+		order.setPaymentMethod("CARD");
+		order.setItems(List.of(item));
+		request = order;
+	}
+
+	@TearDown(Level.Iteration)
+	public void checkNoOversell()
+	{
+		Long productId = product.getId();
+		// Write the engine's pending decrements first, products must then match the order lines
+		context.getBeanProvider(InventoryEngine.class).ifAvailable(InventoryEngine::flush);
+		int stockLeft = jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, productId);
+		long unitsOrdered;
+		EntityManager entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+		try
+		{
+			unitsOrdered = entityManager
+					.createQuery("Select Coalesce(Sum(oi.quantity), 0) From OrderItem oi Where oi.product.id = :id", Long.class)
+					.setParameter("id", productId)
+					.getSingleResult();
+		}
+		finally
+		{
+			entityManager.close();
+		}
+
+		boolean consistent = stockLeft >= 0 && stockLeft + unitsOrdered == startingStock && unitsOrdered == sold.get();
+		log.info("[{}] start={} sold={} ordered={} left={} -> {}", strategy, startingStock, sold.get(), unitsOrdered, stockLeft,
+				consistent ? "no oversell" : "INCONSISTENT");
+		if (!consistent)
+		{
+			throw new IllegalStateException("Stock of product " + productId + " is inconsistent");
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public void orderHotSku(Outcomes outcomes)
+	{
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		try
+		{
+			orderService.createOrder(request);
+			sold.incrementAndGet();
+			outcomes.sold++;
+		}
+		catch (InsufficientStockException ex)
+		{
+			outcomes.rejected++;
+		}
+		catch (ServiceUnavailableException ex)
+		{
+			outcomes.retryExhausted++;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		new Runner(new OptionsBuilder()
+				.include(StockContentionBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,165 @@
+package com.commercehub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.entity.Product;
+import com.commercehub.exception.BadRequestException;
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.repository.IdempotencyKeyRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.support.TestFixtures;
+
+/**
+ * An Idempotency-Key places its order once, replays it for the same request and rejects a different one
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OrderIdempotencyServiceTest {
+
+	private static final int STOCK = 100;
+
+	private static final int THREADS = 4;
+
+	@Autowired
+	private OrderIdempotencyService orderIdempotencyService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private IdempotencyKeyRepository idempotencyKeyRepository;
+
+	private Long userId;
+
+	private String username;
+
+	private Long productId;
+
+	private String key;
+
+	@BeforeEach
+	void setUp()
+	{
+		userId = TestFixtures.signIn(authService);
+		username = SecurityContextHolder.getContext().getAuthentication().getName();
+		productId = TestFixtures.product(productRepository, STOCK);
+		key = UUID.randomUUID().toString();
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void sameKeyAndRequestReplaysTheFirstOrder()
+	{
+		OrderIdempotencyService.IdempotentOrder first = orderIdempotencyService.createOrder(key, TestFixtures.orderRequest(productId));
+		OrderIdempotencyService.IdempotentOrder second = orderIdempotencyService.createOrder(key, TestFixtures.orderRequest(productId));
+
+		assertThat(first.replayed()).isFalse();
+		assertThat(second.replayed()).isTrue();
+		assertThat(second.order().getId()).isEqualTo(first.order().getId());
+		assertThat(second.order().getOrderNumber()).isEqualTo(first.order().getOrderNumber());
+		assertThat(stock()).isEqualTo(STOCK - 1);
+	}
+
+	@Test
+	void sameKeyWithDifferentRequestIsRejected()
+	{
+		orderIdempotencyService.createOrder(key, TestFixtures.orderRequest(productId));
+
+		assertThatThrownBy(() -> orderIdempotencyService.createOrder(key, TestFixtures.orderRequest(Map.of(productId, 2))))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Idempotency-Key was already used with a different request");
+		assertThat(stock()).isEqualTo(STOCK - 1);
+	}
+
+	@Test
+	void failedRequestLeavesNoKeyBehind()
+	{
+		CreateOrderRequest request = TestFixtures.orderRequest(Map.of(productId, STOCK + 1));
+
+		assertThatThrownBy(() -> orderIdempotencyService.createOrder(key, request))
+				.isInstanceOf(InsufficientStockException.class);
+		assertThat(idempotencyKeyRepository.findById(userId + ":" + key)).isEmpty();
+
+		Product product = productRepository.findById(productId).orElseThrow();
+		product.setQuantityInStock(STOCK + 1);
+		productRepository.save(product);
+
+		OrderIdempotencyService.IdempotentOrder retried = orderIdempotencyService.createOrder(key, request);
+		assertThat(retried.replayed()).isFalse();
+		assertThat(idempotencyKeyRepository.findById(userId + ":" + key).orElseThrow().getOrderId()).isEqualTo(retried.order().getId());
+		assertThat(stock()).isZero();
+	}
+
+	@Test
+	void concurrentRequestsWithTheSameKeyPlaceOneOrder() throws Exception
+	{
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<OrderIdempotencyService.IdempotentOrder> placement = () -> {
+			TestFixtures.authenticate(userId, username);
+			try {
+				start.await();
+				return orderIdempotencyService.createOrder(key, TestFixtures.orderRequest(productId));
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<OrderIdempotencyService.IdempotentOrder>> futures = new ArrayList<>(THREADS);
+			for (int n = 0; n < THREADS; n++)
+			{
+				futures.add(executor.submit(placement));
+			}
+			start.countDown();
+
+			List<OrderIdempotencyService.IdempotentOrder> orders = new ArrayList<>(THREADS);
+			for (Future<OrderIdempotencyService.IdempotentOrder> future : futures)
+			{
+				orders.add(future.get(30, TimeUnit.SECONDS));
+			}
+
+			assertThat(orders).extracting(order -> order.order().getId()).containsOnly(orders.get(0).order().getId());
+			assertThat(orders).filteredOn(order -> !order.replayed()).hasSize(1);
+			assertThat(stock()).isEqualTo(STOCK - 1);
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private int stock()
+	{
+		return productRepository.findById(productId).orElseThrow().getQuantityInStock();
+	}
+}
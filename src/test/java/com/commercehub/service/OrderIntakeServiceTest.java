@@ -0,0 +1,102 @@
+package com.commercehub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.response.OrderIntakeResponse;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.OrderIntakeStatus;
+
+/**
+ * Orders queued together are placed as one batch, and an order that cannot be placed fails alone
+ */
+
+@SpringBootTest(properties = {
+		"orders.intake.async.enabled=true",
+		"orders.intake.workers=1",
+		"orders.intake.max-batch-size=10",
+		"orders.intake.max-batch-wait-ms=1000" })
+@ActiveProfiles("h2")
+class OrderIntakeServiceTest {
+
+	private static final int GOOD_ORDER_COUNT = 4;
+
+	@Autowired
+	private OrderIntakeService orderIntakeService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@BeforeEach
+	void setUp()
+	{
+		TestFixtures.signIn(authService);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void failingOrderInABatchDoesNotFailTheOthers() throws InterruptedException
+	{
+		Long plentiful = TestFixtures.product(productRepository, 100);
+		Long scarce = TestFixtures.product(productRepository, 5);
+
+		// The bad order sits in the middle of the batch
+		List<String> goodOrders = new ArrayList<>();
+		goodOrders.add(orderIntakeService.submit(TestFixtures.orderRequest(plentiful)).getOrderNumber());
+		goodOrders.add(orderIntakeService.submit(TestFixtures.orderRequest(plentiful)).getOrderNumber());
+		String badOrder = orderIntakeService.submit(TestFixtures.orderRequest(Map.of(scarce, 50))).getOrderNumber();
+		goodOrders.add(orderIntakeService.submit(TestFixtures.orderRequest(plentiful)).getOrderNumber());
+		goodOrders.add(orderIntakeService.submit(TestFixtures.orderRequest(plentiful)).getOrderNumber());
+
+		for (String orderNumber : goodOrders)
+		{
+			OrderIntakeResponse status = awaitOutcome(orderNumber);
+			assertThat(status.getStatus()).isEqualTo(OrderIntakeStatus.PLACED);
+			assertThat(orderService.getOrderById(status.getOrderId()).getOrderNumber()).isEqualTo(orderNumber);
+		}
+
+		OrderIntakeResponse failed = awaitOutcome(badOrder);
+		assertThat(failed.getStatus()).isEqualTo(OrderIntakeStatus.FAILED);
+		assertThat(failed.getOrderId()).isNull();
+		assertThat(failed.getMessage()).contains("Insufficient stock");
+
+		assertThat(productRepository.findById(plentiful).orElseThrow().getQuantityInStock()).isEqualTo(100 - GOOD_ORDER_COUNT);
+		assertThat(productRepository.findById(scarce).orElseThrow().getQuantityInStock()).isEqualTo(5);
+	}
+
+	private OrderIntakeResponse awaitOutcome(String orderNumber) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		OrderIntakeResponse status = orderIntakeService.getStatus(orderNumber);
+		while (status.getStatus() == OrderIntakeStatus.QUEUED && System.nanoTime() < deadline)
+		{
+			Thread.sleep(20);
+			status = orderIntakeService.getStatus(orderNumber);
+		}
+		return status;
+	}
+}
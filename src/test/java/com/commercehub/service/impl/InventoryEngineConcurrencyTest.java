@@ -0,0 +1,201 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.commercehub.exception.InsufficientStockException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.service.StockReservationStrategy;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Concurrent orders reserve in the inventory engine without overselling, and the flush brings products in line with the order lines
+ * Releasing gives units back to slots the engine tracks and never starts tracking a product
+ */
+
+@SpringBootTest(properties = {
+		"inventory.engine.enabled=true",
+		"inventory.engine.stripes=4",
+		"inventory.engine.flush-interval-ms=3600000" })
+@ActiveProfiles("h2")
+class InventoryEngineConcurrencyTest {
+
+	private static final int STOCK = 50;
+
+	private static final int THREADS = 8;
+
+	private static final int ORDERS_PER_THREAD = 10;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private InventoryEngine inventoryEngine;
+
+	@Autowired
+	private StockReservationStrategy stockReservationStrategy;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private Long userId;
+
+	private String username;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		userId = TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		username = SecurityContextHolder.getContext().getAuthentication().getName();
+		productId = TestFixtures.product(productRepository, STOCK);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void concurrentOrdersNeverOversell() throws Exception
+	{
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<Integer> orders = () -> {
+			TestFixtures.authenticate(userId, username);
+			try {
+				start.await();
+				int sold = 0;
+				for (int n = 0; n < ORDERS_PER_THREAD; n++)
+				{
+					try {
+						orderService.createOrder(TestFixtures.orderRequest(productId));
+						sold++;
+					} catch (InsufficientStockException e) {
+						// Sold out, the remaining attempts must be rejected as well
+					}
+				}
+				return sold;
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		int sold = 0;
+		try {
+			List<Future<Integer>> futures = new ArrayList<>(THREADS);
+			for (int n = 0; n < THREADS; n++)
+			{
+				futures.add(executor.submit(orders));
+			}
+			start.countDown();
+
+			for (Future<Integer> future : futures)
+			{
+				sold += future.get(60, TimeUnit.SECONDS);
+			}
+
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// More attempts than units, every unit is sold exactly once
+		assertThat(THREADS * ORDERS_PER_THREAD).isGreaterThan(STOCK);
+		assertThat(sold).isEqualTo(STOCK);
+		assertThat(inventoryEngine.available(inventoryEngine.slotOf(productId))).isZero();
+
+		// Reservations left products untouched, the order lines are pending
+		assertThat(stock(productId)).isEqualTo(STOCK);
+		assertThat(pendingUnits(productId)).isEqualTo(STOCK);
+
+		inventoryEngine.flush();
+
+		assertThat(pendingUnits(productId)).isZero();
+		assertThat(stock(productId)).isZero();
+		assertThat(stock(productId) + orderedUnits(productId)).isEqualTo(STOCK);
+	}
+
+	@Test
+	void releaseAfterFlushOnlyTouchesTrackedSlots()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(Map.of(productId, 3))).getId();
+		int slot = inventoryEngine.slotOf(productId);
+		inventoryEngine.flush();
+		assertThat(stock(productId)).isEqualTo(STOCK - 3);
+		assertThat(inventoryEngine.available(slot)).isEqualTo(STOCK - 3);
+
+		orderService.cancelOrder(orderId);
+
+		// Products and the slot both get the units back, a second flush has nothing left to write
+		assertThat(stock(productId)).isEqualTo(STOCK);
+		assertThat(inventoryEngine.available(slot)).isEqualTo(STOCK);
+		inventoryEngine.flush();
+		assertThat(stock(productId)).isEqualTo(STOCK);
+
+		// A product never ordered is restocked in products only and stays out of the engine
+		Long coldProductId = TestFixtures.product(productRepository, STOCK);
+		transactionTemplate.executeWithoutResult(status -> stockReservationStrategy.release(new TreeMap<>(Map.of(coldProductId, 2))));
+
+		assertThat(inventoryEngine.slotOf(coldProductId)).isEqualTo(-1);
+		assertThat(stock(coldProductId)).isEqualTo(STOCK + 2);
+	}
+
+	private int stock(Long id)
+	{
+		return jdbcTemplate.queryForObject("SELECT quantity_in_stock FROM products WHERE id = ?", Integer.class, id);
+	}
+
+	private long orderedUnits(Long id)
+	{
+		return entityManager.createQuery("Select Coalesce(Sum(oi.quantity), 0) From OrderItem oi Where oi.product.id = :id", Long.class)
+				.setParameter("id", id)
+				.getSingleResult();
+	}
+
+	private long pendingUnits(Long id)
+	{
+		return entityManager.createQuery("Select Coalesce(Sum(oi.quantity), 0) From OrderItem oi Where oi.product.id = :id And oi.stockApplied = false", Long.class)
+				.setParameter("id", id)
+				.getSingleResult();
+	}
+}
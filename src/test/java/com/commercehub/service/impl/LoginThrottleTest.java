@@ -0,0 +1,145 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.LoginUserRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.AuthResponse;
+import com.commercehub.exception.TooManyRequestsException;
+import com.commercehub.exception.UnauthorizedException;
+import com.commercehub.service.AuthService;
+import com.commercehub.util.Security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Repeated failed logins lock the username and throttle the client IP, and both are rejected before any password hashing
+ * A successful login forgets the failures of its username
+ */
+
+@SpringBootTest(properties = "security.login-throttle.max-attempts-per-ip=10")
+@ActiveProfiles("h2")
+class LoginThrottleTest {
+
+	private static final int MAX_ATTEMPTS_PER_IP = 10;
+
+	private static final String PASSWORD = "Test-Passw0rd";
+
+	private static final String WRONG_PASSWORD = "Wrong-Passw0rd";
+
+	private static final AtomicInteger NEXT_IP = new AtomicInteger();
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private String username;
+
+	/** Every test fails logins from its own address, so IP counters never carry over */
+	private String clientIp;
+
+	@BeforeEach
+	void setUp()
+	{
+		username = "login-" + UUID.randomUUID().toString().substring(0, 8);
+		clientIp = "10.1.0." + NEXT_IP.incrementAndGet();
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername(username);
+		registration.setEmail(username + "@commercehub.com");
+		registration.setPassword(PASSWORD);
+		registration.setFirstName("Test");
+		registration.setLastName("User");
+		authService.register(registration);
+	}
+
+	@Test
+	void repeatedBadPasswordsLockTheUsername()
+	{
+		for (int n = 0; n < Security.MAX_LOGIN_ATTEMPTS; n++)
+		{
+			assertThatThrownBy(() -> login(username, WRONG_PASSWORD, clientIp))
+					.isInstanceOf(UnauthorizedException.class)
+					.hasMessage("Invalid username or password");
+		}
+
+		// The right password from a fresh address is still turned away, without checking it
+		long hashes = hashes();
+		assertThatThrownBy(() -> login(username, PASSWORD, "10.2.0.1"))
+				.isInstanceOf(UnauthorizedException.class)
+				.hasMessage("Account is temporarily locked due to too many failed login attempts");
+		assertThatThrownBy(() -> login(username.toUpperCase(Locale.ROOT), PASSWORD, "10.2.0.1"))
+				.isInstanceOf(UnauthorizedException.class)
+				.hasMessage("Account is temporarily locked due to too many failed login attempts");
+		assertThat(hashes()).isEqualTo(hashes);
+	}
+
+	@Test
+	void badPasswordsFromOneIpThrottleIt()
+	{
+		// Spread over many usernames, so no single account reaches its own limit
+		for (int n = 0; n < MAX_ATTEMPTS_PER_IP; n++)
+		{
+			String otherUsername = "unknown-" + UUID.randomUUID().toString().substring(0, 8);
+			assertThatThrownBy(() -> login(otherUsername, WRONG_PASSWORD, clientIp))
+					.isInstanceOf(UnauthorizedException.class)
+					.hasMessage("Invalid username or password");
+		}
+
+		long hashes = hashes();
+		assertThatThrownBy(() -> login(username, PASSWORD, clientIp))
+				.isInstanceOf(TooManyRequestsException.class)
+				.hasMessage("Too many failed login attempts, please try again later");
+		assertThat(hashes()).isEqualTo(hashes);
+
+		// Only that address is throttled
+		assertThat(login(username, PASSWORD, "10.2.0.2").getUsername()).isEqualTo(username);
+	}
+
+	@Test
+	void successfulLoginResetsTheUsernameCounter()
+	{
+		failLogins(Security.MAX_LOGIN_ATTEMPTS - 1);
+		assertThat(login(username, PASSWORD, clientIp).getUsername()).isEqualTo(username);
+
+		// Another run of failures short of the limit starts counting from zero
+		failLogins(Security.MAX_LOGIN_ATTEMPTS - 1);
+		assertThat(login(username, PASSWORD, clientIp).getUsername()).isEqualTo(username);
+	}
+
+	private AuthResponse login(String usernameOrEmail, String password, String ip)
+	{
+		return authService.login(new LoginUserRequest(usernameOrEmail, password), ip);
+	}
+
+	private void failLogins(int attempts)
+	{
+		for (int n = 0; n < attempts; n++)
+		{
+			assertThatThrownBy(() -> login(username, WRONG_PASSWORD, clientIp))
+					.isInstanceOf(UnauthorizedException.class)
+					.hasMessage("Invalid username or password");
+		}
+	}
+
+	/**
+	 * Password hashes and checks run so far
+	 */
+	private long hashes()
+	{
+		return meterRegistry.get("auth.password.hashing.duration").timer().count();
+	}
+}
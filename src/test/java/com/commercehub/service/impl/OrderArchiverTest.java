@@ -0,0 +1,138 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.repository.ArchivedOrderRepository;
+import com.commercehub.repository.OrderRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+/**
+ * Old DELIVERED and CANCELLED orders move to the archive tables and are still found by ID and number
+ */
+
+@SpringBootTest(properties = {
+		"orders.archive.enabled=true",
+		"orders.archive.interval-ms=3600000",
+		"orders.archive.min-age-days=90",
+		"orders.archive.chunk-size=2" })
+@ActiveProfiles("h2")
+class OrderArchiverTest {
+
+	@Autowired
+	private OrderArchiver orderArchiver;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ArchivedOrderRepository archivedOrderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		productId = TestFixtures.product(productRepository, 100);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void archivesOldClosedOrdersOnly()
+	{
+		// Addresses and notes at the longest the API accepts
+		CreateOrderRequest longRequest = TestFixtures.orderRequest(productId);
+		longRequest.setShippingAddress("S".repeat(1000));
+		longRequest.setBillingAddress("B".repeat(1000));
+		longRequest.setNotes("N".repeat(2000));
+		OrderResponse oldDelivered = orderService.createOrder(longRequest);
+		deliver(oldDelivered.getId());
+		backdate(oldDelivered.getId(), 200);
+
+		OrderResponse oldCancelled = orderService.createOrder(TestFixtures.orderRequest(productId));
+		orderService.cancelOrder(oldCancelled.getId());
+		backdate(oldCancelled.getId(), 200);
+
+		Long oldPending = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		backdate(oldPending, 200);
+
+		Long recentDelivered = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		deliver(recentDelivered);
+
+		Long oldShipped = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		orderService.updateOrderStatus(oldShipped, "PROCESSING");
+		orderService.shipOrder(oldShipped);
+		backdate(oldShipped, 200);
+
+		orderArchiver.archiveOldOrders();
+
+		assertThat(orderRepository.existsById(oldDelivered.getId())).isFalse();
+		assertThat(orderRepository.existsById(oldCancelled.getId())).isFalse();
+		assertThat(archivedOrderRepository.existsById(oldDelivered.getId())).isTrue();
+		assertThat(archivedOrderRepository.existsById(oldCancelled.getId())).isTrue();
+		assertThat(orderRepository.existsById(oldPending)).isTrue();
+		assertThat(orderRepository.existsById(recentDelivered)).isTrue();
+		assertThat(orderRepository.existsById(oldShipped)).isTrue();
+
+		OrderResponse archived = orderService.getOrderById(oldDelivered.getId());
+		assertThat(archived.getOrderNumber()).isEqualTo(oldDelivered.getOrderNumber());
+		assertThat(archived.getOrderStatus()).isEqualTo("DELIVERED");
+		assertThat(archived.getShippingAddress()).isEqualTo(longRequest.getShippingAddress());
+		assertThat(archived.getBillingAddress()).isEqualTo(longRequest.getBillingAddress());
+		assertThat(archived.getNotes()).isEqualTo(longRequest.getNotes());
+		assertThat(archived.getItems()).singleElement()
+				.satisfies(item -> {
+					assertThat(item.getProductId()).isEqualTo(productId);
+					assertThat(item.getQuantity()).isEqualTo(1);
+				});
+
+		assertThat(orderService.getOrderByNumber(oldCancelled.getOrderNumber()).getId()).isEqualTo(oldCancelled.getId());
+		assertThat(orderService.getOrderByNumber(oldCancelled.getOrderNumber()).getOrderStatus()).isEqualTo("CANCELLED");
+	}
+
+	private void deliver(Long orderId)
+	{
+		orderService.updateOrderStatus(orderId, "PROCESSING");
+		orderService.shipOrder(orderId);
+		orderService.deliverOrder(orderId);
+	}
+
+	private void backdate(Long orderId, int days)
+	{
+		jdbcTemplate.update("UPDATE orders SET ordered_at = ? WHERE id = ?", LocalDateTime.now().minusDays(days), orderId);
+	}
+}
@@ -0,0 +1,93 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Order lines take pooled sequence IDs and are inserted in JDBC batches, so placing an order
+ * takes the same statements whatever its number of lines
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+class OrderBatchInsertTest {
+
+	private static final int LINE_COUNT = 20;
+
+	/** Refill of the order item ID pool when the lines use up the IDs fetched so far */
+	private static final int MAX_EXTRA_STATEMENTS = 1;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		TestFixtures.signIn(authService);
+		productId = TestFixtures.product(productRepository, 1000);
+
+		// Loads the user and fetches the first IDs of every pool
+		orderService.createOrder(TestFixtures.orderRequest(productId));
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void orderLinesAreInsertedInBatches()
+	{
+		statistics.clear();
+		orderService.createOrder(TestFixtures.orderRequest(productId));
+		long singleLineStatements = statistics.getPrepareStatementCount();
+
+		// Every line is the same product, so the stock is reserved once and only the inserts grow
+		Long[] lines = new Long[LINE_COUNT];
+		Arrays.fill(lines, productId);
+
+		statistics.clear();
+		OrderResponse order = orderService.createOrder(TestFixtures.orderRequest(lines));
+		long manyLineStatements = statistics.getPrepareStatementCount();
+
+		assertThat(manyLineStatements).isLessThanOrEqualTo(singleLineStatements + MAX_EXTRA_STATEMENTS);
+		assertThat(order.getItems()).hasSize(LINE_COUNT);
+		assertThat(order.getItems()).extracting(OrderResponse.OrderItemResponse::getId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isEqualTo(1000 - 2 - LINE_COUNT);
+	}
+}
@@ -0,0 +1,126 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
+import com.commercehub.dto.response.BulkOrderUpdateResponse;
+import com.commercehub.dto.response.BulkOrderUpdateResponse.Outcome;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.ForbiddenException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+/**
+ * Bulk transitions move the orders in the expected status and report every other requested order
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OrderBulkTransitionTest {
+
+	private static final long MISSING_ORDER_ID = Long.MAX_VALUE;
+
+	private static final String MISSING_ORDER_NUMBER = "MISSING-ORDER";
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		productId = TestFixtures.product(productRepository, 100);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void shipsProcessingOrdersAndReportsTheRest()
+	{
+		OrderResponse byId = processingOrder();
+		OrderResponse byNumber = processingOrder();
+		OrderResponse pending = orderService.createOrder(TestFixtures.orderRequest(productId));
+
+		BulkOrderUpdateResponse response = orderService.shipOrders(BulkOrderUpdateRequest.builder()
+				.orderIds(List.of(byId.getId(), pending.getId(), MISSING_ORDER_ID, byId.getId()))
+				.orderNumbers(List.of(byNumber.getOrderNumber(), byId.getOrderNumber(), MISSING_ORDER_NUMBER))
+				.build());
+
+		assertThat(response.getRequested()).isEqualTo(5);
+		assertThat(response.getUpdated()).isEqualTo(2);
+		assertThat(response.getResults())
+				.extracting(BulkOrderUpdateResponse.OrderUpdateResult::getOrderId,
+						BulkOrderUpdateResponse.OrderUpdateResult::getOutcome,
+						BulkOrderUpdateResponse.OrderUpdateResult::getStatus)
+				.containsExactlyInAnyOrder(
+						tuple(byId.getId(), Outcome.UPDATED, "SHIPPED"),
+						tuple(byNumber.getId(), Outcome.UPDATED, "SHIPPED"),
+						tuple(pending.getId(), Outcome.SKIPPED, "PENDING"),
+						tuple(MISSING_ORDER_ID, Outcome.NOT_FOUND, null),
+						tuple(null, Outcome.NOT_FOUND, null));
+
+		assertThat(orderService.getOrderById(byId.getId()).getOrderStatus()).isEqualTo("SHIPPED");
+		assertThat(orderService.getOrderById(byNumber.getId()).getOrderStatus()).isEqualTo("SHIPPED");
+		assertThat(orderService.getOrderById(pending.getId()).getOrderStatus()).isEqualTo("PENDING");
+	}
+
+	@Test
+	void secondRunSkipsOrdersAlreadyMoved()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		BulkOrderUpdateRequest request = BulkOrderUpdateRequest.builder().orderIds(List.of(orderId)).build();
+
+		assertThat(orderService.updateOrderStatuses(request, "PENDING", "CONFIRMED").getUpdated()).isEqualTo(1);
+
+		BulkOrderUpdateResponse again = orderService.updateOrderStatuses(request, "PENDING", "CONFIRMED");
+		assertThat(again.getUpdated()).isZero();
+		assertThat(again.getResults()).singleElement()
+				.satisfies(result -> {
+					assertThat(result.getOutcome()).isEqualTo(Outcome.SKIPPED);
+					assertThat(result.getStatus()).isEqualTo("CONFIRMED");
+				});
+	}
+
+	@Test
+	void usersCannotUpdateOrdersInBulk()
+	{
+		OrderResponse order = orderService.createOrder(TestFixtures.orderRequest(productId));
+		TestFixtures.signIn(authService);
+
+		assertThatThrownBy(() -> orderService.shipOrders(BulkOrderUpdateRequest.builder().orderIds(List.of(order.getId())).build()))
+				.isInstanceOf(ForbiddenException.class);
+	}
+
+	private OrderResponse processingOrder()
+	{
+		OrderResponse order = orderService.createOrder(TestFixtures.orderRequest(productId));
+		return orderService.updateOrderStatus(order.getId(), "PROCESSING");
+	}
+}
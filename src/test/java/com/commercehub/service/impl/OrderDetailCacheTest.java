@@ -0,0 +1,125 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.ForbiddenException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Repeated order reads are served from cache, and every change to the order drops its cached details
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+class OrderDetailCacheTest {
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private Long userId;
+
+	private String username;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		userId = TestFixtures.signIn(authService);
+		username = SecurityContextHolder.getContext().getAuthentication().getName();
+		productId = TestFixtures.product(productRepository, 100);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void repeatedReadsTakeNoStatements()
+	{
+		OrderResponse placed = orderService.createOrder(TestFixtures.orderRequest(productId));
+		orderService.getOrderById(placed.getId());
+		orderService.getOrderByNumber(placed.getOrderNumber());
+
+		statistics.clear();
+		OrderResponse byId = orderService.getOrderById(placed.getId());
+		OrderResponse byNumber = orderService.getOrderByNumber(placed.getOrderNumber());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(byId.getItems()).hasSize(1);
+		assertThat(byNumber.getId()).isEqualTo(placed.getId());
+	}
+
+	@Test
+	void changesDropTheCachedOrder()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		String orderNumber = orderService.getOrderById(orderId).getOrderNumber();
+		assertThat(orderService.getOrderByNumber(orderNumber).getOrderStatus()).isEqualTo("PENDING");
+
+		orderService.cancelOrder(orderId);
+
+		assertThat(orderService.getOrderById(orderId).getOrderStatus()).isEqualTo("CANCELLED");
+		assertThat(orderService.getOrderByNumber(orderNumber).getOrderStatus()).isEqualTo("CANCELLED");
+	}
+
+	@Test
+	void bulkChangesDropTheCachedOrders()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		assertThat(orderService.getOrderById(orderId).getOrderStatus()).isEqualTo("PENDING");
+
+		TestFixtures.authenticate(userId, username, RoleName.ROLE_ADMIN);
+		orderService.updateOrderStatuses(BulkOrderUpdateRequest.builder().orderIds(List.of(orderId)).build(), "PENDING", "CONFIRMED");
+
+		assertThat(orderService.getOrderById(orderId).getOrderStatus()).isEqualTo("CONFIRMED");
+	}
+
+	@Test
+	void cachedOrderIsStillAccessChecked()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		orderService.getOrderById(orderId);
+
+		TestFixtures.signIn(authService);
+
+		assertThatThrownBy(() -> orderService.getOrderById(orderId))
+				.isInstanceOf(ForbiddenException.class);
+	}
+}
@@ -0,0 +1,109 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.dto.response.PageResponse;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Order reads take a fixed number of statements, whatever the page size and number of lines
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+class OrderFetchPlanTest {
+
+	private static final int ORDER_COUNT = 30;
+
+	/** Page of IDs, its count, then the orders with their user, lines and products */
+	private static final int MAX_PAGE_STATEMENTS = 3;
+
+	/** The order with its user, lines and products */
+	private static final int MAX_ORDER_STATEMENTS = 1;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private List<Long> orderIds;
+
+	@BeforeEach
+	void setUp()
+	{
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		TestFixtures.signIn(authService);
+		Long[] productIds = {
+				TestFixtures.product(productRepository, 1000),
+				TestFixtures.product(productRepository, 1000),
+				TestFixtures.product(productRepository, 1000) };
+
+		orderIds = new ArrayList<>(ORDER_COUNT);
+		for (int n = 0; n < ORDER_COUNT; n++)
+		{
+			orderIds.add(orderService.createOrder(TestFixtures.orderRequest(productIds)).getId());
+		}
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 5, 20 })
+	void pageOfCurrentUserOrdersTakesFixedStatements(int pageSize)
+	{
+		statistics.clear();
+		PageResponse<OrderResponse> page = orderService.getCurrentUserOrders(PageRequest.of(1, pageSize, Sort.by("orderedAt").descending()));
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_PAGE_STATEMENTS);
+		assertThat(page.getContent()).hasSize(Math.min(pageSize, ORDER_COUNT - pageSize));
+		assertThat(page.getContent()).allSatisfy(order -> assertThat(order.getItems()).hasSize(3));
+	}
+
+	@Test
+	void orderByIdTakesOneStatement()
+	{
+		statistics.clear();
+		OrderResponse order = orderService.getOrderById(orderIds.get(0));
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_ORDER_STATEMENTS);
+		assertThat(order.getItems()).hasSize(3);
+		assertThat(order.getItems()).allSatisfy(item -> assertThat(item.getProductName()).isNotNull());
+	}
+}
@@ -0,0 +1,134 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.response.CursorPageResponse;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.BadRequestException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+
+/**
+ * Cursor pages walk the current user's orders newest first, ties on orderedAt broken by ID, each order exactly once
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OrderKeysetPaginationTest {
+
+	private static final int ORDER_COUNT = 12;
+
+	private static final int PAGE_SIZE = 5;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long productId;
+
+	/** Order IDs newest first */
+	private List<Long> expectedIds;
+
+	@BeforeEach
+	void setUp()
+	{
+		// Orders of another user must not show up
+		TestFixtures.signIn(authService);
+		productId = TestFixtures.product(productRepository, 1000);
+		orderService.createOrder(TestFixtures.orderRequest(productId));
+
+		TestFixtures.signIn(authService);
+		List<Long> orderIds = new ArrayList<>(ORDER_COUNT);
+		for (int n = 0; n < ORDER_COUNT; n++)
+		{
+			orderIds.add(orderService.createOrder(TestFixtures.orderRequest(productId)).getId());
+		}
+
+		// Two groups of orders placed at the same instant, so pages break inside a tie
+		LocalDateTime older = LocalDateTime.now().minusHours(2).withNano(0);
+		LocalDateTime newer = older.plusHours(1);
+		List<Long> olderIds = orderIds.subList(0, ORDER_COUNT / 2);
+		List<Long> newerIds = orderIds.subList(ORDER_COUNT / 2, ORDER_COUNT);
+		olderIds.forEach(orderId -> jdbcTemplate.update("UPDATE orders SET ordered_at = ? WHERE id = ?", older, orderId));
+		newerIds.forEach(orderId -> jdbcTemplate.update("UPDATE orders SET ordered_at = ? WHERE id = ?", newer, orderId));
+
+		expectedIds = new ArrayList<>(newerIds);
+		Collections.reverse(expectedIds);
+		List<Long> olderNewestFirst = new ArrayList<>(olderIds);
+		Collections.reverse(olderNewestFirst);
+		expectedIds.addAll(olderNewestFirst);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void pagesWalkEveryOrderOnce()
+	{
+		List<Long> seenIds = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String cursor = null;
+		CursorPageResponse<OrderResponse> page;
+		do
+		{
+			page = orderService.scrollCurrentUserOrders(cursor, PAGE_SIZE);
+			page.getContent().forEach(order -> seenIds.add(order.getId()));
+			pageSizes.add(page.getContent().size());
+			cursor = page.getNextCursor();
+			assertThat(page.isHasNext()).isEqualTo(cursor != null);
+		}
+		while (cursor != null);
+
+		assertThat(seenIds).containsExactlyElementsOf(expectedIds);
+		assertThat(pageSizes).containsExactly(5, 5, 2);
+	}
+
+	@Test
+	void orderPlacedWhileScrollingDoesNotShiftLaterPages()
+	{
+		CursorPageResponse<OrderResponse> first = orderService.scrollCurrentUserOrders(null, PAGE_SIZE);
+		orderService.createOrder(TestFixtures.orderRequest(productId));
+		CursorPageResponse<OrderResponse> second = orderService.scrollCurrentUserOrders(first.getNextCursor(), PAGE_SIZE);
+
+		assertThat(first.getContent()).extracting(OrderResponse::getId).containsExactlyElementsOf(expectedIds.subList(0, PAGE_SIZE));
+		assertThat(second.getContent()).extracting(OrderResponse::getId).containsExactlyElementsOf(expectedIds.subList(PAGE_SIZE, 2 * PAGE_SIZE));
+	}
+
+	@Test
+	void malformedCursorAndPageSizeAreRejected()
+	{
+		assertThatThrownBy(() -> orderService.scrollCurrentUserOrders("not-a-cursor", PAGE_SIZE))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Invalid cursor");
+		assertThatThrownBy(() -> orderService.scrollCurrentUserOrders(null, 0))
+				.isInstanceOf(BadRequestException.class);
+	}
+}
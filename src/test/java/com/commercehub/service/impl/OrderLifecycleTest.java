@@ -0,0 +1,175 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.BadRequestException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+/**
+ * Order and payment statuses only move along the transition table, and a transition applies once
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OrderLifecycleTest {
+
+	private static final int STOCK = 10;
+
+	private static final int THREADS = 4;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private Long userId;
+
+	private String username;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		userId = TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		username = SecurityContextHolder.getContext().getAuthentication().getName();
+		productId = TestFixtures.product(productRepository, STOCK);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void orderMovesThroughItsLifecycle()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+
+		assertThat(orderService.updateOrderStatus(orderId, "CONFIRMED").getOrderStatus()).isEqualTo("CONFIRMED");
+		assertThat(orderService.updateOrderStatus(orderId, "PROCESSING").getOrderStatus()).isEqualTo("PROCESSING");
+
+		OrderResponse shipped = orderService.shipOrder(orderId);
+		assertThat(shipped.getOrderStatus()).isEqualTo("SHIPPED");
+		assertThat(shipped.getShippedAt()).isNotNull();
+
+		OrderResponse delivered = orderService.deliverOrder(orderId);
+		assertThat(delivered.getOrderStatus()).isEqualTo("DELIVERED");
+		assertThat(delivered.getDeliveredAt()).isNotNull();
+	}
+
+	@Test
+	void transitionsOutsideTheTableAreRejected()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+
+		assertThatThrownBy(() -> orderService.shipOrder(orderId))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Order must be in PROCESSING status to be shipped. Current status: PENDING");
+
+		orderService.updateOrderStatus(orderId, "PROCESSING");
+		orderService.shipOrder(orderId);
+
+		assertThatThrownBy(() -> orderService.shipOrder(orderId))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Order must be in PROCESSING status to be shipped. Current status: SHIPPED");
+		assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "CONFIRMED"))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Order cannot move to CONFIRMED from current status: SHIPPED");
+		assertThatThrownBy(() -> orderService.cancelOrder(orderId))
+				.isInstanceOf(BadRequestException.class);
+
+		assertThat(orderService.getOrderById(orderId).getOrderStatus()).isEqualTo("SHIPPED");
+		assertThat(stock()).isEqualTo(STOCK - 1);
+	}
+
+	@Test
+	void paymentStatusMovesAlongTheTable()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+
+		assertThat(orderService.updatePaymentStatus(orderId, "PAID").getPaymentStatus()).isEqualTo("PAID");
+		assertThatThrownBy(() -> orderService.updatePaymentStatus(orderId, "FAILED"))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Payment status cannot move to FAILED from current status: PAID");
+	}
+
+	@Test
+	void concurrentCancellationsRestoreStockOnce() throws Exception
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<OrderResponse> cancellation = () -> {
+			TestFixtures.authenticate(userId, username, RoleName.ROLE_ADMIN);
+			try {
+				start.await();
+				return orderService.cancelOrder(orderId);
+			} finally {
+				SecurityContextHolder.clearContext();
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<OrderResponse>> futures = new ArrayList<>(THREADS);
+			for (int n = 0; n < THREADS; n++)
+			{
+				futures.add(executor.submit(cancellation));
+			}
+			start.countDown();
+
+			// Losers see the order already cancelled, or lose the row lock to the winner
+			int cancelled = 0;
+			for (Future<OrderResponse> future : futures)
+			{
+				try {
+					assertThat(future.get(30, TimeUnit.SECONDS).getOrderStatus()).isEqualTo("CANCELLED");
+					cancelled++;
+				} catch (ExecutionException e) {
+					assertThat(e.getCause()).isInstanceOf(RuntimeException.class);
+				}
+			}
+
+			assertThat(cancelled).isEqualTo(1);
+			assertThat(stock()).isEqualTo(STOCK);
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private int stock()
+	{
+		return productRepository.findById(productId).orElseThrow().getQuantityInStock();
+	}
+}
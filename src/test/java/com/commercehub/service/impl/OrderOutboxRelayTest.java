@@ -0,0 +1,203 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.commercehub.entity.OrderEvent;
+import com.commercehub.repository.OrderEventRepository;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+
+@SpringBootTest(properties = {
+		"orders.outbox.relay.enabled=true",
+		"orders.outbox.relay.interval-ms=3600000",
+		"orders.outbox.topic=" + OrderOutboxRelayTest.TOPIC })
+@ActiveProfiles("h2")
+@EmbeddedKafka(partitions = 2, topics = OrderOutboxRelayTest.TOPIC, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class OrderOutboxRelayTest {
+
+	static final String TOPIC = "order-events-test";
+
+	@Autowired
+	private OrderOutboxRelay orderOutboxRelay;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderEventRepository orderEventRepository;
+
+	@Autowired
+	private EmbeddedKafkaBroker broker;
+
+	@Autowired
+	private KafkaTemplate<String, String> kafkaTemplate;
+
+	private Consumer<String, String> consumer;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		orderEventRepository.deleteAllInBatch();
+		TestFixtures.signIn(authService);
+		productId = TestFixtures.product(productRepository, 100);
+
+		consumer = new DefaultKafkaConsumerFactory<>(
+				KafkaTestUtils.consumerProps("relay-test-" + UUID.randomUUID(), "false", broker),
+				new StringDeserializer(), new StringDeserializer()).createConsumer();
+		broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		useTemplate(kafkaTemplate);
+		consumer.close();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void publishesEventsKeyedByOrderIdInOrder()
+	{
+		Long first = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		Long second = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		orderService.cancelOrder(first);
+
+		orderOutboxRelay.relay();
+
+		List<ConsumerRecord<String, String>> records = poll(Set.of(first, second), 3);
+		assertThat(header(records, first, OrderOutboxRelay.EVENT_TYPE_HEADER)).containsExactly("ORDER_CREATED", "CANCELLED");
+		assertThat(header(records, second, OrderOutboxRelay.EVENT_TYPE_HEADER)).containsExactly("ORDER_CREATED");
+		assertThat(orderEventRepository.count()).isZero();
+	}
+
+	@Test
+	void resendsFailedEventBeforeLaterEventsOfTheSameOrder()
+	{
+		Long failing = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		Long other = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		orderService.cancelOrder(failing);
+
+		List<OrderEvent> events = orderEventRepository.findNextBatch(PageRequest.of(0, 10));
+		assertThat(events).extracting(OrderEvent::getOrderId).containsExactly(failing, other, failing);
+		String failedEventId = events.get(0).getId().toString();
+
+		KafkaTemplate<String, String> failingTemplate = spy(kafkaTemplate);
+		useTemplate(failingTemplate);
+
+		AtomicBoolean failed = new AtomicBoolean();
+		doAnswer(invocation -> {
+			ProducerRecord<String, String> record = invocation.getArgument(0);
+			if (failedEventId.equals(header(record, OrderOutboxRelay.EVENT_ID_HEADER)) && failed.compareAndSet(false, true))
+			{
+				return CompletableFuture.failedFuture(new KafkaException("Forced send failure"));
+			}
+			return invocation.callRealMethod();
+		}).when(failingTemplate).send(any(ProducerRecord.class));
+
+		// The other order's event goes out, both events of the failing order stay in the outbox
+		orderOutboxRelay.relay();
+		assertThat(failed).isTrue();
+		assertThat(orderEventRepository.findNextBatch(PageRequest.of(0, 10)))
+				.extracting(OrderEvent::getId)
+				.containsExactly(events.get(0).getId(), events.get(2).getId());
+
+		orderOutboxRelay.relay();
+		assertThat(orderEventRepository.count()).isZero();
+
+		List<ConsumerRecord<String, String>> records = poll(Set.of(failing, other), 3);
+		assertThat(header(records, failing, OrderOutboxRelay.EVENT_ID_HEADER))
+				.containsExactly(events.get(0).getId().toString(), events.get(2).getId().toString());
+		assertThat(header(records, other, OrderOutboxRelay.EVENT_ID_HEADER))
+				.containsExactly(events.get(1).getId().toString());
+	}
+
+    /**
+     * Make the relay send through the given template, a spy of the context's template fails chosen sends
+     */
+	private void useTemplate(KafkaTemplate<String, String> template)
+	{
+		ReflectionTestUtils.setField((Object) AopTestUtils.getTargetObject(orderOutboxRelay), "kafkaTemplate", template);
+	}
+
+    /**
+     * Records of the given orders, polled until the expected count arrived and then once more to catch duplicates
+     */
+	private List<ConsumerRecord<String, String>> poll(Set<Long> orderIds, int expected)
+	{
+		Set<String> keys = new HashSet<>();
+		orderIds.forEach(orderId -> keys.add(orderId.toString()));
+
+		List<ConsumerRecord<String, String>> records = new ArrayList<>();
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		boolean extraPoll = false;
+		while (!extraPoll && System.nanoTime() < deadline)
+		{
+			extraPoll = records.size() >= expected;
+			for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(extraPoll ? 1000 : 200)))
+			{
+				if (keys.contains(record.key()))
+				{
+					records.add(record);
+				}
+			}
+		}
+		return records;
+	}
+
+	private static List<String> header(List<ConsumerRecord<String, String>> records, Long orderId, String name)
+	{
+		return records.stream()
+				.filter(record -> record.key().equals(orderId.toString()))
+				.map(record -> new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8))
+				.toList();
+	}
+
+	private static String header(ProducerRecord<String, String> record, String name)
+	{
+		return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+	}
+}
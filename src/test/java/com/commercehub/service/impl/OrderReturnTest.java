@@ -0,0 +1,175 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.dto.request.BulkOrderUpdateRequest;
+import com.commercehub.dto.request.ReturnOrderRequest;
+import com.commercehub.dto.response.OrderResponse;
+import com.commercehub.exception.BadRequestException;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+/**
+ * Returns restock the returned units and record the refund, the last open line refunds the order in full
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class OrderReturnTest {
+
+	private static final int STOCK = 10;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private Long firstProductId;
+
+	private Long secondProductId;
+
+	@BeforeEach
+	void setUp()
+	{
+		TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		firstProductId = TestFixtures.product(productRepository, STOCK);
+		secondProductId = TestFixtures.product(productRepository, STOCK);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void partialReturnThenReturnOfTheRestRefundsTheOrder()
+	{
+		Long orderId = deliveredOrder();
+		Long firstLineId = lineOf(orderId, firstProductId).getId();
+
+		OrderResponse partial = orderService.returnOrder(orderId, ReturnOrderRequest.builder()
+				.items(List.of(new ReturnOrderRequest.ReturnItemRequest(firstLineId, 1)))
+				.build());
+
+		assertThat(partial.getOrderStatus()).isEqualTo("DELIVERED");
+		assertThat(partial.getRefundedAmount()).isEqualByComparingTo("9.99");
+		assertThat(lineOf(orderId, firstProductId).getReturnedQuantity()).isEqualTo(1);
+		assertThat(stock(firstProductId)).isEqualTo(STOCK - 2);
+		assertThat(stock(secondProductId)).isEqualTo(STOCK - 2);
+
+		OrderResponse refunded = orderService.returnOrder(orderId, ReturnOrderRequest.builder().build());
+
+		assertThat(refunded.getOrderStatus()).isEqualTo("REFUNDED");
+		assertThat(refunded.getPaymentStatus()).isEqualTo("REFUNDED");
+		assertThat(refunded.getRefundedAmount()).isEqualByComparingTo(refunded.getTotalAmount());
+		assertThat(refunded.getRefundedAt()).isNotNull();
+		assertThat(stock(firstProductId)).isEqualTo(STOCK);
+		assertThat(stock(secondProductId)).isEqualTo(STOCK);
+
+		assertThatThrownBy(() -> orderService.returnOrder(orderId, ReturnOrderRequest.builder().build()))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void returnWithoutRestockKeepsStock()
+	{
+		Long orderId = deliveredOrder();
+
+		OrderResponse refunded = orderService.returnOrder(orderId, ReturnOrderRequest.builder().restock(false).build());
+
+		assertThat(refunded.getOrderStatus()).isEqualTo("REFUNDED");
+		assertThat(stock(firstProductId)).isEqualTo(STOCK - 3);
+		assertThat(stock(secondProductId)).isEqualTo(STOCK - 2);
+	}
+
+	@Test
+	void cannotReturnMoreThanWasOrdered()
+	{
+		Long orderId = deliveredOrder();
+		Long secondLineId = lineOf(orderId, secondProductId).getId();
+
+		assertThatThrownBy(() -> orderService.returnOrder(orderId, ReturnOrderRequest.builder()
+				.items(List.of(new ReturnOrderRequest.ReturnItemRequest(secondLineId, 3)))
+				.build()))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Only 2 units of order item " + secondLineId + " can be returned");
+
+		assertThat(orderService.getOrderById(orderId).getRefundedAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+		assertThat(stock(secondProductId)).isEqualTo(STOCK - 2);
+	}
+
+	@Test
+	void ordersAreRefundedOnlyThroughReturns()
+	{
+		Long orderId = deliveredOrder();
+
+		assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, "REFUNDED"))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Use the return endpoint to refund an order");
+
+		Long pendingId = orderService.createOrder(TestFixtures.orderRequest(firstProductId)).getId();
+		assertThatThrownBy(() -> orderService.returnOrder(pendingId, ReturnOrderRequest.builder().build()))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Order must be in DELIVERED status to be returned. Current status: PENDING");
+
+		assertThatThrownBy(() -> orderService.updatePaymentStatus(orderId, "REFUNDED"))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Use the return endpoint to refund an order");
+		assertThatThrownBy(() -> orderService.updatePaymentStatuses(
+				BulkOrderUpdateRequest.builder().orderIds(List.of(orderId)).build(), "PAID", "REFUNDED"))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Use the return endpoint to refund an order");
+
+		OrderResponse order = orderService.getOrderById(orderId);
+		assertThat(order.getOrderStatus()).isEqualTo("DELIVERED");
+		assertThat(order.getPaymentStatus()).isEqualTo("PAID");
+		assertThat(order.getRefundedAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+    /**
+     * Paid and delivered order for three units of the first product and two of the second
+     */
+	private Long deliveredOrder()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(Map.of(firstProductId, 3, secondProductId, 2))).getId();
+		orderService.updatePaymentStatus(orderId, "PAID");
+		orderService.updateOrderStatus(orderId, "PROCESSING");
+		orderService.shipOrder(orderId);
+		orderService.deliverOrder(orderId);
+		return orderId;
+	}
+
+	private OrderResponse.OrderItemResponse lineOf(Long orderId, Long productId)
+	{
+		return orderService.getOrderById(orderId).getItems().stream()
+				.filter(item -> item.getProductId().equals(productId))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private int stock(Long productId)
+	{
+		return productRepository.findById(productId).orElseThrow().getQuantityInStock();
+	}
+}
@@ -0,0 +1,117 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.service.AuthService;
+import com.commercehub.service.OrderService;
+import com.commercehub.support.TestFixtures;
+import com.commercehub.util.RoleName;
+
+/**
+ * Stale unpaid PENDING orders are cancelled and their stock given back, paid and recent ones are kept
+ */
+
+@SpringBootTest(properties = {
+		"orders.expiry.enabled=true",
+		"orders.expiry.interval-ms=3600000",
+		"orders.expiry.pending-ttl-minutes=60",
+		"orders.expiry.chunk-size=2" })
+@ActiveProfiles("h2")
+class PendingOrderExpiryTest {
+
+	private static final int STOCK = 10;
+
+	@Autowired
+	private PendingOrderExpiry pendingOrderExpiry;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long productId;
+
+	@BeforeEach
+	void setUp()
+	{
+		TestFixtures.signIn(authService, RoleName.ROLE_ADMIN);
+		productId = TestFixtures.product(productRepository, STOCK);
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void expiresStaleUnpaidOrdersOnly()
+	{
+		// Three stale unpaid orders take two chunks
+		Long staleUnpaid = staleOrder();
+		Long staleFailed = staleOrder();
+		orderService.updatePaymentStatus(staleFailed, "FAILED");
+		Long staleUnpaidToo = staleOrder();
+		Long stalePaid = staleOrder();
+		orderService.updatePaymentStatus(stalePaid, "PAID");
+		Long recent = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		Long confirmed = staleOrder();
+		orderService.updateOrderStatus(confirmed, "CONFIRMED");
+
+		pendingOrderExpiry.expireStaleOrders();
+
+		assertThat(status(staleUnpaid)).isEqualTo("CANCELLED");
+		assertThat(status(staleFailed)).isEqualTo("CANCELLED");
+		assertThat(status(staleUnpaidToo)).isEqualTo("CANCELLED");
+		assertThat(orderService.getOrderById(staleUnpaid).getCancelledAt()).isNotNull();
+		assertThat(status(stalePaid)).isEqualTo("PENDING");
+		assertThat(status(recent)).isEqualTo("PENDING");
+		assertThat(status(confirmed)).isEqualTo("CONFIRMED");
+
+		// Six units were ordered, three come back
+		assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isEqualTo(STOCK - 3);
+	}
+
+	@Test
+	void orderCancelledByItsOwnerIsNotRestockedAgain()
+	{
+		Long cancelled = staleOrder();
+		orderService.cancelOrder(cancelled);
+
+		pendingOrderExpiry.expireStaleOrders();
+
+		assertThat(status(cancelled)).isEqualTo("CANCELLED");
+		assertThat(productRepository.findById(productId).orElseThrow().getQuantityInStock()).isEqualTo(STOCK);
+	}
+
+	private Long staleOrder()
+	{
+		Long orderId = orderService.createOrder(TestFixtures.orderRequest(productId)).getId();
+		jdbcTemplate.update("UPDATE orders SET ordered_at = ? WHERE id = ?", LocalDateTime.now().minusDays(2), orderId);
+		return orderId;
+	}
+
+	private String status(Long orderId)
+	{
+		return orderService.getOrderById(orderId).getOrderStatus();
+	}
+}
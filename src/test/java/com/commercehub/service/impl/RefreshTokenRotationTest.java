@@ -0,0 +1,120 @@
+package com.commercehub.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.commercehub.dto.request.LoginUserRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.dto.response.AuthResponse;
+import com.commercehub.exception.UnauthorizedException;
+import com.commercehub.service.AuthService;
+import com.commercehub.util.JwtConstants;
+
+/**
+ * Refresh tokens rotate on every use, a replayed one revokes its whole family, and logout ends the family
+ * Access tokens are checked through the JWT filter on a real request
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class RefreshTokenRotationTest {
+
+	private static final String PASSWORD = "Test-Passw0rd";
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private AuthResponse login;
+
+	@BeforeEach
+	void setUp()
+	{
+		String username = "auth-" + UUID.randomUUID().toString().substring(0, 8);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername(username);
+		registration.setEmail(username + "@commercehub.com");
+		registration.setPassword(PASSWORD);
+		registration.setFirstName("Test");
+		registration.setLastName("User");
+		authService.register(registration);
+
+		login = authService.login(new LoginUserRequest(username, PASSWORD), "10.0.0.1");
+	}
+
+	@Test
+	void refreshTokenWorksOnce() throws Exception
+	{
+		AuthResponse refreshed = authService.refreshToken(login.getRefreshToken());
+
+		assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+		assertThat(refreshed.getAccessToken()).isNotEqualTo(login.getAccessToken());
+		expectCurrentUser(refreshed.getAccessToken(), status().isOk());
+
+		// The rotated token is good for one refresh of its own
+		assertThat(authService.refreshToken(refreshed.getRefreshToken()).getRefreshToken()).isNotBlank();
+	}
+
+	@Test
+	void replayedRefreshTokenRevokesItsFamily() throws Exception
+	{
+		AuthResponse refreshed = authService.refreshToken(login.getRefreshToken());
+
+		assertThatThrownBy(() -> authService.refreshToken(login.getRefreshToken()))
+				.isInstanceOf(UnauthorizedException.class)
+				.hasMessage("Refresh token has already been used");
+
+		assertThatThrownBy(() -> authService.refreshToken(refreshed.getRefreshToken()))
+				.isInstanceOf(UnauthorizedException.class)
+				.hasMessage("Invalid or expired refresh token");
+		expectCurrentUser(refreshed.getAccessToken(), status().isUnauthorized());
+		expectCurrentUser(login.getAccessToken(), status().isUnauthorized());
+	}
+
+	@Test
+	void logoutRevokesThePairedRefreshToken() throws Exception
+	{
+		expectCurrentUser(login.getAccessToken(), status().isOk());
+
+		authService.logout(JwtConstants.TOKEN_PREFIX + login.getAccessToken());
+
+		assertThatThrownBy(() -> authService.refreshToken(login.getRefreshToken()))
+				.isInstanceOf(UnauthorizedException.class)
+				.hasMessage("Invalid or expired refresh token");
+		expectCurrentUser(login.getAccessToken(), status().isUnauthorized());
+	}
+
+	@Test
+	void otherLoginsOfTheSameUserKeepWorking() throws Exception
+	{
+		AuthResponse otherLogin = authService.login(new LoginUserRequest(login.getUsername(), PASSWORD), "10.0.0.1");
+
+		authService.logout(JwtConstants.TOKEN_PREFIX + login.getAccessToken());
+
+		expectCurrentUser(otherLogin.getAccessToken(), status().isOk());
+		assertThat(authService.refreshToken(otherLogin.getRefreshToken()).getAccessToken()).isNotBlank();
+	}
+
+	private void expectCurrentUser(String accessToken, ResultMatcher expected) throws Exception
+	{
+		mockMvc.perform(get("/api/users/me").header(JwtConstants.HEADER_STRING, JwtConstants.TOKEN_PREFIX + accessToken))
+				.andExpect(expected);
+	}
+}
@@ -0,0 +1,123 @@
+package com.commercehub.support;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.commercehub.dto.request.CreateOrderRequest;
+import com.commercehub.dto.request.RegisterUserRequest;
+import com.commercehub.entity.Product;
+import com.commercehub.repository.ProductRepository;
+import com.commercehub.security.RoleMask;
+import com.commercehub.security.UserPrincipal;
+import com.commercehub.service.AuthService;
+import com.commercehub.util.RoleName;
+
+/**
+ * Users, products and order requests for integration tests on the in-memory H2 profile
+ *
+ * Test classes with the same properties share a cached Spring context and its in-memory database,
+ * so names and SKUs are made unique instead of relying on a clean schema
+ */
+
+public final class TestFixtures {
+
+	private TestFixtures()
+	{
+	}
+
+    /**
+     * Register a new user and authenticate the current thread as that user with the given roles
+     *
+     * @return ID of the registered user
+     */
+	public static Long signIn(AuthService authService, RoleName... roles)
+	{
+		String username = "test-" + UUID.randomUUID().toString().substring(0, 8);
+
+		RegisterUserRequest registration = new RegisterUserRequest();
+		registration.setUsername(username);
+		registration.setEmail(username + "@commercehub.com");
+		registration.setPassword("Test-Passw0rd");
+		registration.setFirstName("Test");
+		registration.setLastName("User");
+		Long userId = authService.register(registration).getUserId();
+
+		authenticate(userId, username, roles);
+		return userId;
+	}
+
+    /**
+     * Authenticate the current thread as an existing user with the given roles
+     */
+	public static void authenticate(Long userId, String username, RoleName... roles)
+	{
+		int roleMask = RoleName.ROLE_USER.mask();
+		for (RoleName role : roles)
+		{
+			roleMask |= role.mask();
+		}
+
+		UserPrincipal principal = UserPrincipal.builder()
+				.id(userId)
+				.username(username)
+				.authorities(RoleMask.authorities(roleMask))
+				.roleMask(roleMask)
+				.build();
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+	}
+
+    /**
+     * Save an active product with the given stock
+     *
+     * @return ID of the saved product
+     */
+	public static Long product(ProductRepository productRepository, int quantityInStock)
+	{
+		return productRepository.save(Product.builder()
+				.name("Test product")
+				.sku("TEST-" + UUID.randomUUID().toString().substring(0, 13))
+				.price(new BigDecimal("9.99"))
+				.quantityInStock(quantityInStock)
+				.build()).getId();
+	}
+
+    /**
+     * Order request for one unit of each product
+     */
+	public static CreateOrderRequest orderRequest(Long... productIds)
+	{
+		List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>(productIds.length);
+		for (Long productId : productIds)
+		{
+			items.add(new CreateOrderRequest.OrderItemRequest(productId, 1));
+		}
+		return orderRequest(items);
+	}
+
+    /**
+     * Order request for the given quantity of each product
+     */
+	public static CreateOrderRequest orderRequest(Map<Long, Integer> quantities)
+	{
+		List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>(quantities.size());
+		quantities.forEach((productId, quantity) -> items.add(new CreateOrderRequest.OrderItemRequest(productId, quantity)));
+		return orderRequest(items);
+	}
+
+	private static CreateOrderRequest orderRequest(List<CreateOrderRequest.OrderItemRequest> items)
+	{
+		CreateOrderRequest request = new CreateOrderRequest();
+		request.setShippingAddress("1 Test Street");
+		request.setBillingAddress("1 Test Street");
+		request.setPaymentMethod("CARD");
+		request.setItems(items);
+		return request;
+	}
+}
@@ -0,0 +1,8 @@
+-- Objects of the Flyway migrations that Hibernate does not create from the entities
+
+CREATE SEQUENCE IF NOT EXISTS order_number_seq START WITH 1 INCREMENT BY 1000;
+
+INSERT INTO roles (name, description) VALUES
+    ('ROLE_USER', 'Default role assigned to normal users'),
+    ('ROLE_MANAGER', 'Manager role with extended permissions'),
+    ('ROLE_ADMIN', 'Administrator role with full system access');